@@ -14,7 +14,6 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.command.SimpleCommandMap;
 import org.jetbrains.annotations.NotNull;
 import pluginbase.command.CommandProvider;
-import pluginbase.command.CommandUsageException;
 import pluginbase.minecraft.BasePlayer;
 
 import java.util.Collections;
@@ -112,12 +111,7 @@ public final class BukkitCommandHandler extends CommandHandler implements TabExe
         try {
             return locateAndRunCommand(sender, args);
         } catch (CommandException e) {
-            e.sendException(commandProvider.getMessager(), sender);
-            if (e instanceof CommandUsageException) {
-                for (final String usageString : ((CommandUsageException) e).getUsage()) {
-                    sender.sendMessage(usageString);
-                }
-            }
+            sendCommandException(sender, e);
         }
         return true;
     }
@@ -1,12 +1,14 @@
 package pluginbase.bukkit.command;
 
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import pluginbase.command.AbstractCommandProvider;
 import pluginbase.command.CommandHandler;
 import pluginbase.command.QueuedCommand;
 
 import java.io.File;
+import java.util.concurrent.Executor;
 
 /**
  * Provides a basic implementation of CommandProvider for use with Bukkit plugin's that are not utilizing the
@@ -19,6 +21,9 @@ public final class BukkitCommandProvider<O> extends AbstractCommandProvider<O> {
 
     private final Plugin plugin;
     private final BukkitCommandHandler commandHandler;
+    /** Guards {@link #expirationTask}, which may be started from any thread that queues a command. */
+    private final Object expirationTaskLock = new Object();
+    private BukkitTask expirationTask = null;
 
     /**
      * Creates a new instance of the basic Bukkit implementation of CommandProvider which can be used for registering
@@ -104,9 +109,33 @@ public final class BukkitCommandProvider<O> extends AbstractCommandProvider<O> {
         return commandHandler;
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Queued commands expire through the command handler, ticked by a single repeating task started when the first
+     * command is queued.
+     */
     @Override
     public void scheduleQueuedCommandExpiration(@NotNull QueuedCommand queuedCommand) {
-        plugin.getServer().getScheduler().runTaskLater(plugin, queuedCommand, queuedCommand.getExpirationDuration() * 20L);
+        synchronized (expirationTaskLock) {
+            if (expirationTask == null || !plugin.getServer().getScheduler().isQueued(expirationTask.getTaskId())) {
+                expirationTask = plugin.getServer().getScheduler().runTaskTimer(plugin, commandHandler::tickQueuedCommandExpirations, 1L, 1L);
+            }
+        }
+        commandHandler.scheduleQueuedCommandExpiration(queuedCommand, queuedCommand.getExpirationDuration() * 20L);
+    }
+
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public Executor getAsyncCommandExecutor() {
+        return task -> plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
+    }
+
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public Executor getMainThreadExecutor() {
+        return task -> plugin.getServer().getScheduler().runTask(plugin, task);
     }
 }
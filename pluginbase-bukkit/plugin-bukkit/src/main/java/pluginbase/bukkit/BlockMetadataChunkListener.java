@@ -0,0 +1,36 @@
+package pluginbase.bukkit;
+
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.jetbrains.annotations.NotNull;
+import pluginbase.plugin.metadata.BlockMetadataRegistry;
+
+/**
+ * Loads the stored block metadata of each chunk as the server loads the chunk.
+ * <p/>
+ * Register this with {@link org.bukkit.plugin.PluginManager#registerEvents(Listener, org.bukkit.plugin.Plugin)} for
+ * a registry that stores its metadata a region at a time so that the metadata is loaded along with the world rather
+ * than on first access.
+ */
+public class BlockMetadataChunkListener implements Listener {
+
+    private final BlockMetadataRegistry<?> registry;
+
+    /**
+     * Creates a listener that loads the metadata of the given registry as chunks are loaded.
+     *
+     * @param registry the registry to load the metadata of.
+     */
+    public BlockMetadataChunkListener(@NotNull final BlockMetadataRegistry<?> registry) {
+        this.registry = registry;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void chunkLoad(@NotNull final ChunkLoadEvent event) {
+        final Chunk chunk = event.getChunk();
+        registry.loadChunk(event.getWorld().getUID(), chunk.getX(), chunk.getZ());
+    }
+}
@@ -58,6 +58,9 @@ public abstract class AbstractCommandProvider<P> implements CommandProvider<P> {
      * <p/>
      * This method should simply run the QueuedCommand (which implements {@link Runnable}) an amount of seconds later.
      * The amount is specified with {@link pluginbase.command.QueuedCommand#getExpirationDuration()}.
+     * Rather than scheduling a task for each command, this may pass the command to
+     * {@link CommandHandler#scheduleQueuedCommandExpiration(QueuedCommand, long)} with a single repeating task calling
+     * {@link CommandHandler#tickQueuedCommandExpirations()}.
      * <p/>
      * This will automatically be called by the command handler when the queued command is used initially in order to
      * schedule its expiration.
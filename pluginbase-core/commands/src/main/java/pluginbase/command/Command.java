@@ -108,6 +108,32 @@ public abstract class Command<P> {
      */
     public abstract boolean runCommand(@NotNull final BasePlayer sender, @NotNull final CommandContext context) throws CommandException;
 
+    /**
+     * Messages the sender of this command from the server's main thread.
+     * <p/>
+     * This is how an {@link CommandInfo#async()} command should message its sender as it runs off of the main thread.
+     *
+     * @param sender the person executing the command.
+     * @param message the message to send.
+     * @param args the arguments for the message.
+     */
+    protected void messageOnMainThread(@NotNull final BasePlayer sender, @NotNull final Message message,
+                                       @NotNull final Object... args) {
+        messageOnMainThread(sender, message.bundle(args));
+    }
+
+    /**
+     * Messages the sender of this command from the server's main thread.
+     * <p/>
+     * This is how an {@link CommandInfo#async()} command should message its sender as it runs off of the main thread.
+     *
+     * @param sender the person executing the command.
+     * @param message the message to send.
+     */
+    protected void messageOnMainThread(@NotNull final BasePlayer sender, @NotNull final BundledMessage message) {
+        getCommandProvider().getMainThreadExecutor().execute(() -> getMessager().message(sender, message));
+    }
+
     public List<String> tabComplete(@NotNull final BasePlayer sender, @NotNull final CommandContext context) {
         return Collections.emptyList();
     }
@@ -5,6 +5,7 @@ import pluginbase.messages.Theme;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -15,6 +16,7 @@ class CommandBuilder {
 
     private CommandProvider commandProvider;
     private CommandInfo commandInfo;
+    private Supplier<Command> commandFactory;
     private Command command;
     List<String> aliases;
     String[] permissions;
@@ -23,7 +25,21 @@ class CommandBuilder {
     CommandBuilder(@NotNull CommandProvider commandProvider, @NotNull Class<? extends Command> commandClass) {
         this.commandProvider = commandProvider;
         commandInfo = gatherCommandInfo(commandClass);
-        command = CommandLoader.loadCommand(commandProvider, commandClass);
+        commandFactory = CommandLoader.createFactory(commandProvider, commandClass);
+        command = commandFactory.get();
+        if (commandInfo.async() && command instanceof QueuedCommand) {
+            throw new IllegalArgumentException("Queued command " + commandClass + " may not be asynchronous");
+        }
+        if (commandInfo.singleton()) {
+            if (command instanceof QueuedCommand) {
+                throw new IllegalArgumentException("Queued command " + commandClass + " may not be a singleton");
+            }
+            if (commandInfo.async()) {
+                throw new IllegalArgumentException("Asynchronous command " + commandClass + " may not be a singleton");
+            }
+            final Command singleton = command;
+            commandFactory = () -> singleton;
+        }
         aliases = gatherAliases(commandProvider, command, commandInfo);
         permissions = gatherPermissions(command);
         usageString = gatherUsageString();
@@ -123,7 +139,8 @@ class CommandBuilder {
     }
 
     public CommandHandler.CommandRegistration createCommandRegistration() {
-        return new CommandHandler.CommandRegistration(getCommandUsageString(), commandInfo.desc(), aliases.toArray(new String[aliases.size()]), commandProvider, permissions);
+        return new CommandHandler.CommandRegistration(getCommandUsageString(), commandInfo.desc(), aliases.toArray(new String[aliases.size()]), commandProvider, permissions,
+                commandInfo, commandFactory);
     }
 
     public String getCommandUsageString() {
@@ -24,18 +24,35 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import pluginbase.messages.Message;
 
-import java.util.*;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Contains information regarding the current usage of a command such as what args and flags were used.
+ * <p/>
+ * A context is immutable once created.
  */
 public final class CommandContext {
 
+    private static final String[] NO_ARGS = new String[0];
+    private static final char[] NO_FLAGS = new char[0];
+
     private final String command;
-    private final List<String> parsedArgs;
-    private final List<Integer> originalArgIndices;
-    private final Set<Character> booleanFlags = new HashSet<Character>();
-    private final Map<Character, String> valueFlags = new HashMap<Character, String>();
+    @NotNull
+    private final String[] parsedArgs;
+    /** The boolean flags used, as bits given by {@link #flagBit(char)}. */
+    private final long booleanFlags;
+    /** The value flags used in the order given, with their values at the same index. */
+    @NotNull
+    private final char[] valueFlagNames;
+    @NotNull
+    private final String[] valueFlagValues;
 
     CommandContext(@NotNull String args) throws CommandException {
         this(args.split(" "), null);
@@ -55,101 +72,196 @@ public final class CommandContext {
      * @throws CommandException This is thrown if flag fails for some reason.
      */
     CommandContext(@NotNull String[] args, @Nullable Set<Character> valueFlags) throws CommandException {
-        if (valueFlags == null) {
-            valueFlags = Collections.emptySet();
-        }
+        this(args, valueFlags != null ? flagMask(valueFlags) : 0L);
+    }
 
+    /**
+     * Parses the args of a command in a single pass.
+     * <p/>
+     * An arg starting with a single or double quote is joined with the args following it up to the first arg ending
+     * with the same quote, if there is one.  Within quotes, a backslash escapes a quote or another backslash.  A
+     * backslash before a quote at the start of an arg stops it from starting a quoted arg.
+     * <p/>
+     * An arg made of a dash followed only by letters is a set of flags.  Each value flag in it takes the next arg
+     * that has not already been taken as its value.
+     *
+     * @param args An array with arguments including the command. Empty strings outside quotes will be removed.
+     * @param valueFlagMask The value flags as bits given by {@link #flagMask(Set)}.
+     * @throws CommandException This is thrown if flag fails for some reason.
+     */
+    CommandContext(@NotNull String[] args, long valueFlagMask) throws CommandException {
         command = args[0];
 
-        // Eliminate empty args and combine multi-word args first
-        List<Integer> argIndexList = new ArrayList<Integer>(args.length);
-        List<String> argList = new ArrayList<String>(args.length);
+        // Finding the last arg closing each quote first means an unclosed quote is known as soon as it is opened.
+        final int lastDoubleQuoteClose = lastClosingArg(args, '"');
+        final int lastSingleQuoteClose = lastClosingArg(args, '\'');
+
+        String[] parsedArgs = args.length > 1 ? new String[args.length - 1] : NO_ARGS;
+        int parsedCount = 0;
+        long booleanFlags = 0L;
+        long givenValueFlags = 0L;
+        char[] valueFlagNames = NO_FLAGS;
+        String[] valueFlagValues = NO_ARGS;
+        int valueFlagCount = 0;
+        int valuesGiven = 0;
+        char repeatedValueFlag = 0;
+
         for (int i = 1; i < args.length; ++i) {
             String arg = args[i];
-            if (arg.length() == 0) {
+            if (arg.isEmpty()) {
                 continue;
             }
 
-            argIndexList.add(i);
-
-            switch (arg.charAt(0)) {
-                case '\'':
-                case '"':
-                    final StringBuilder build = new StringBuilder();
-                    final char quotedChar = arg.charAt(0);
-
-                    int endIndex;
-                    for (endIndex = i; endIndex < args.length; ++endIndex) {
-                        final String arg2 = args[endIndex];
-                        if (arg2.charAt(arg2.length() - 1) == quotedChar && arg2.length() > 1) {
-                            if (endIndex != i) build.append(' ');
-                            build.append(arg2.substring(endIndex == i ? 1 : 0, arg2.length() - 1));
-                            break;
-                        } else if (endIndex == i) {
-                            build.append(arg2.substring(1));
-                        } else {
-                            build.append(' ').append(arg2);
-                        }
+            final char first = arg.charAt(0);
+            if ((first == '"' && lastDoubleQuoteClose >= i) || (first == '\'' && lastSingleQuoteClose >= i)) {
+                final StringBuilder build = new StringBuilder(arg.length());
+                for (int end = i; ; ++end) {
+                    final String part = args[end];
+                    final boolean closes = closesQuote(part, first);
+                    if (end != i) {
+                        build.append(' ');
                     }
-
-                    if (endIndex < args.length) {
-                        arg = build.toString();
-                        i = endIndex;
+                    appendUnescaped(build, part, end == i ? 1 : 0, closes ? part.length() - 1 : part.length());
+                    if (closes) {
+                        i = end;
+                        break;
                     }
+                }
+                arg = build.toString();
+                // In case there is an empty quoted string
+                if (arg.isEmpty()) {
+                    continue;
+                }
+            } else if (first == '\\' && arg.length() > 1 && (arg.charAt(1) == '"' || arg.charAt(1) == '\'')) {
+                arg = arg.substring(1);
+            }
 
-                    // In case there is an empty quoted string
-                    if (arg.length() == 0) {
+            if (valuesGiven < valueFlagCount) {
+                // The value for the earliest value flag still waiting for one.
+                valueFlagValues[valuesGiven++] = arg;
+            } else if (isFlags(arg)) {
+                for (int j = 1; j < arg.length(); ++j) {
+                    final char flagName = arg.charAt(j);
+                    final long bit = 1L << flagBit(flagName);
+                    if ((valueFlagMask & bit) == 0) {
+                        booleanFlags |= bit;
                         continue;
                     }
-                    // else raise exception about hanging quotes?
+                    if ((givenValueFlags & bit) != 0) {
+                        // Only reported once the value flags before it have their values.
+                        repeatedValueFlag = flagName;
+                        break;
+                    }
+                    givenValueFlags |= bit;
+                    if (valueFlagCount == valueFlagNames.length) {
+                        valueFlagNames = Arrays.copyOf(valueFlagNames, valueFlagCount + 2);
+                        valueFlagValues = Arrays.copyOf(valueFlagValues, valueFlagCount + 2);
+                    }
+                    valueFlagNames[valueFlagCount++] = flagName;
+                }
+            } else {
+                parsedArgs[parsedCount++] = arg;
             }
-            argList.add(arg);
+            if (repeatedValueFlag != 0 && valuesGiven == valueFlagCount) {
+                throw new CommandException(CommandHandler.VALUE_FLAG_ALREADY_GIVEN.bundle(repeatedValueFlag));
+            }
+        }
+        if (valuesGiven < valueFlagCount) {
+            throw new CommandException(CommandHandler.NO_VALUE_FOR_VALUE_FLAG.bundle(valueFlagNames[valuesGiven]));
         }
 
-        // Then flags
+        this.parsedArgs = parsedCount == parsedArgs.length ? parsedArgs : Arrays.copyOf(parsedArgs, parsedCount);
+        this.booleanFlags = booleanFlags;
+        this.valueFlagNames = valueFlagCount == valueFlagNames.length ? valueFlagNames : Arrays.copyOf(valueFlagNames, valueFlagCount);
+        this.valueFlagValues = valueFlagCount == valueFlagValues.length ? valueFlagValues : Arrays.copyOf(valueFlagValues, valueFlagCount);
+    }
 
-        this.originalArgIndices = new ArrayList<Integer>(argIndexList.size());
-        this.parsedArgs = new ArrayList<String>(argList.size());
+    /**
+     * Gets the bit representing a flag in a flag mask.
+     * <p/>
+     * Only letters may be used as flags.  The bits are in the same order as the letters.
+     *
+     * @param flag the flag.
+     * @return the bit index of the flag or -1 if the character can not be a flag.
+     */
+    static int flagBit(char flag) {
+        if (flag >= 'A' && flag <= 'Z') {
+            return flag - 'A';
+        } else if (flag >= 'a' && flag <= 'z') {
+            return 26 + flag - 'a';
+        } else {
+            return -1;
+        }
+    }
 
-        for (int nextArg = 0; nextArg < argList.size(); ) {
-            // Fetch argument
-            String arg = argList.get(nextArg++);
+    private static char flagForBit(int bit) {
+        return (char) (bit < 26 ? 'A' + bit : 'a' + bit - 26);
+    }
 
-            // Not a flag?
-            if (arg.charAt(0) != '-' || arg.length() == 1 || !arg.matches("^-[a-zA-Z]+$")) {
-                originalArgIndices.add(argIndexList.get(nextArg - 1));
-                parsedArgs.add(arg);
-                continue;
+    /**
+     * Gets the mask with the bits given by {@link #flagBit(char)} set for each of the given flags.
+     * <p/>
+     * Characters that can not be flags are left out.
+     *
+     * @param flags the flags.
+     * @return the mask of the flags.
+     */
+    static long flagMask(@NotNull Set<Character> flags) {
+        long mask = 0L;
+        for (char flag : flags) {
+            final int bit = flagBit(flag);
+            if (bit >= 0) {
+                mask |= 1L << bit;
             }
+        }
+        return mask;
+    }
 
-            // Handle flag parsing terminator --
-            if (arg.equals("--")) {
-                while (nextArg < argList.size()) {
-                    originalArgIndices.add(argIndexList.get(nextArg));
-                    parsedArgs.add(argList.get(nextArg++));
-                }
-                break;
+    private static boolean isFlags(@NotNull String arg) {
+        if (arg.length() < 2 || arg.charAt(0) != '-') {
+            return false;
+        }
+        for (int i = 1; i < arg.length(); i++) {
+            if (flagBit(arg.charAt(i)) < 0) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            // Go through the flag characters
-            for (int i = 1; i < arg.length(); ++i) {
-                char flagName = arg.charAt(i);
-
-                if (valueFlags.contains(flagName)) {
-                    if (this.valueFlags.containsKey(flagName)) {
-                        throw new CommandException(CommandHandler.VALUE_FLAG_ALREADY_GIVEN.bundle(flagName));
-                    }
+    private static boolean closesQuote(@NotNull String arg, char quote) {
+        final int last = arg.length() - 1;
+        if (last < 1 || arg.charAt(last) != quote) {
+            return false;
+        }
+        // The quote is escaped if it follows an odd number of backslashes.
+        int backslashes = 0;
+        for (int i = last - 1; i >= 0 && arg.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return (backslashes & 1) == 0;
+    }
 
-                    if (nextArg >= argList.size()) {
-                        throw new CommandException(CommandHandler.NO_VALUE_FOR_VALUE_FLAG.bundle(flagName));
-                    }
+    private static int lastClosingArg(@NotNull String[] args, char quote) {
+        for (int i = args.length - 1; i > 0; i--) {
+            if (closesQuote(args[i], quote)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-                    // If it is a value flag, read another argument and add it
-                    this.valueFlags.put(flagName, argList.get(nextArg++));
-                } else {
-                    booleanFlags.add(flagName);
+    private static void appendUnescaped(@NotNull StringBuilder build, @NotNull String arg, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = arg.charAt(i);
+            if (c == '\\' && i + 1 < arg.length()) {
+                final char next = arg.charAt(i + 1);
+                if (next == '\\' || next == '"' || next == '\'') {
+                    c = next;
+                    i++;
                 }
             }
+            build.append(c);
         }
     }
 
@@ -180,7 +292,7 @@ public final class CommandContext {
      * @throws java.lang.IndexOutOfBoundsException if the given index does not exist in the list of args.
      */
     public String getString(int index) throws IndexOutOfBoundsException {
-        return parsedArgs.get(index);
+        return parsedArgs[index];
     }
 
     /**
@@ -191,7 +303,7 @@ public final class CommandContext {
      * @return the arg at the given index or the given default if that index is not valid.
      */
     public String getString(int index, String def) {
-        return index < parsedArgs.size() ? parsedArgs.get(index) : def;
+        return index < parsedArgs.length ? parsedArgs[index] : def;
     }
 
     /**
@@ -203,7 +315,7 @@ public final class CommandContext {
      * @throws java.lang.IndexOutOfBoundsException if the given index does not exist in the list of args.
      */
     public Integer getInteger(int index) throws NumberFormatException, IndexOutOfBoundsException {
-        return Integer.parseInt(parsedArgs.get(index));
+        return Integer.parseInt(parsedArgs[index]);
     }
 
     /**
@@ -215,7 +327,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the arg at the given index is not an integer.
      */
     public Integer getInteger(int index, int def) throws NumberFormatException {
-        return index < parsedArgs.size() ? Integer.parseInt(parsedArgs.get(index)) : def;
+        return index < parsedArgs.length ? Integer.parseInt(parsedArgs[index]) : def;
     }
 
     /**
@@ -227,7 +339,7 @@ public final class CommandContext {
      * @throws java.lang.IndexOutOfBoundsException if the given index does not exist in the list of args.
      */
     public Long getLong(int index) throws NumberFormatException, IndexOutOfBoundsException {
-        return Long.parseLong(parsedArgs.get(index));
+        return Long.parseLong(parsedArgs[index]);
     }
 
     /**
@@ -239,7 +351,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the arg at the given index is not a long.
      */
     public Long getLong(int index, int def) throws NumberFormatException {
-        return index < parsedArgs.size() ? Long.parseLong(parsedArgs.get(index)) : def;
+        return index < parsedArgs.length ? Long.parseLong(parsedArgs[index]) : def;
     }
 
     /**
@@ -251,7 +363,7 @@ public final class CommandContext {
      * @throws java.lang.IndexOutOfBoundsException if the given index does not exist in the list of args.
      */
     public Double getDouble(int index) throws NumberFormatException {
-        return Double.parseDouble(parsedArgs.get(index));
+        return Double.parseDouble(parsedArgs[index]);
     }
 
     /**
@@ -263,7 +375,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the arg at the given index is not a double.
      */
     public Double getDouble(int index, double def) throws NumberFormatException {
-        return index < parsedArgs.size() ? Double.parseDouble(parsedArgs.get(index)) : def;
+        return index < parsedArgs.length ? Double.parseDouble(parsedArgs[index]) : def;
     }
 
     /**
@@ -273,7 +385,8 @@ public final class CommandContext {
      * @return true if the flag is present in the args.
      */
     public boolean hasFlag(char flag) {
-        return booleanFlags.contains(flag) || valueFlags.containsKey(flag);
+        final int bit = flagBit(flag);
+        return (bit >= 0 && (booleanFlags & (1L << bit)) != 0) || indexOfValueFlag(flag) >= 0;
     }
 
     /**
@@ -282,6 +395,15 @@ public final class CommandContext {
      * @return the set of flags used with the command.
      */
     public Set<Character> getFlags() {
+        return new FlagSet(booleanFlags);
+    }
+
+    /**
+     * Gets the boolean flags used with the command as bits given by {@link #flagBit(char)}.
+     *
+     * @return the boolean flags used with the command.
+     */
+    long getFlagMask() {
         return booleanFlags;
     }
 
@@ -291,7 +413,23 @@ public final class CommandContext {
      * @return a map with the keys as the flag used and the value as the value of those flags.
      */
     public Map<Character, String> getValueFlags() {
-        return valueFlags;
+        if (valueFlagNames.length == 0) {
+            return Collections.emptyMap();
+        }
+        final Map<Character, String> valueFlags = new LinkedHashMap<Character, String>(valueFlagNames.length * 2);
+        for (int i = 0; i < valueFlagNames.length; i++) {
+            valueFlags.put(valueFlagNames[i], valueFlagValues[i]);
+        }
+        return Collections.unmodifiableMap(valueFlags);
+    }
+
+    private int indexOfValueFlag(char flag) {
+        for (int i = 0; i < valueFlagNames.length; i++) {
+            if (valueFlagNames[i] == flag) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -301,7 +439,8 @@ public final class CommandContext {
      * @return the value of the given flag or null if the flag is not present.
      */
     public String getFlag(char flag) {
-        return valueFlags.get(flag);
+        final int index = indexOfValueFlag(flag);
+        return index >= 0 ? valueFlagValues[index] : null;
     }
 
     /**
@@ -312,7 +451,7 @@ public final class CommandContext {
      * @return the value of the given flag or the given default if the flag is not present.
      */
     public String getFlag(char flag, String def) {
-        final String value = valueFlags.get(flag);
+        final String value = getFlag(flag);
         return value != null ? value : def;
     }
 
@@ -324,7 +463,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the flag value is not an integer.
      */
     public Integer getFlagInteger(char flag) throws NumberFormatException {
-        return Integer.parseInt(valueFlags.get(flag));
+        return Integer.parseInt(getFlag(flag));
     }
 
     /**
@@ -336,7 +475,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the flag value is not an integer.
      */
     public Integer getFlagInteger(char flag, int def) throws NumberFormatException {
-        final String value = valueFlags.get(flag);
+        final String value = getFlag(flag);
         return value != null ? Integer.parseInt(value) : def;
     }
 
@@ -348,7 +487,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the flag value is not a long.
      */
     public Long getFlagLong(char flag) throws NumberFormatException {
-        return Long.parseLong(valueFlags.get(flag));
+        return Long.parseLong(getFlag(flag));
     }
 
     /**
@@ -360,7 +499,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the flag value is not a long.
      */
     public Long getFlagLong(char flag, long def) throws NumberFormatException {
-        final String value = valueFlags.get(flag);
+        final String value = getFlag(flag);
         return value != null ? Long.parseLong(value) : def;
     }
 
@@ -372,7 +511,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the flag value is not a double.
      */
     public Double getFlagDouble(char flag) throws NumberFormatException {
-        return Double.parseDouble(valueFlags.get(flag));
+        return Double.parseDouble(getFlag(flag));
     }
 
     /**
@@ -384,7 +523,7 @@ public final class CommandContext {
      * @throws NumberFormatException if the flag value is not a double.
      */
     public Double getFlagDouble(char flag, double def) throws NumberFormatException {
-        final String value = valueFlags.get(flag);
+        final String value = getFlag(flag);
         return value != null ? Double.parseDouble(value) : def;
     }
 
@@ -394,6 +533,54 @@ public final class CommandContext {
      * @return the number of arguments used with the command not including flags.
      */
     public int argsLength() {
-        return parsedArgs.size();
+        return parsedArgs.length;
+    }
+
+    /**
+     * An immutable view of a flag mask as a set.
+     */
+    private static final class FlagSet extends AbstractSet<Character> {
+
+        private final long mask;
+
+        FlagSet(long mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Character)) {
+                return false;
+            }
+            final int bit = flagBit((Character) o);
+            return bit >= 0 && (mask & (1L << bit)) != 0;
+        }
+
+        @Override
+        public Iterator<Character> iterator() {
+            return new Iterator<Character>() {
+                private long remaining = mask;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining != 0;
+                }
+
+                @Override
+                public Character next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    final int bit = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    return flagForBit(bit);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return Long.bitCount(mask);
+        }
     }
 }
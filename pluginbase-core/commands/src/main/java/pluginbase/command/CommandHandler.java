@@ -9,6 +9,7 @@ import pluginbase.messages.Theme;
 import pluginbase.messages.messaging.SendablePluginBaseException;
 import pluginbase.minecraft.BasePlayer;
 import org.jetbrains.annotations.NotNull;
+import pluginbase.permission.Perm;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -18,6 +19,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.regex.Pattern;
 
 /**
@@ -37,9 +43,15 @@ public abstract class CommandHandler {
     @NotNull
     protected final Map<String, Class<? extends Command>> registeredCommandClasses;
     protected final Map<Class<? extends Command>, CommandProvider> commandProviderMap;
+    @NotNull
+    private final Map<String, CommandRegistration> registrations = new HashMap<String, CommandRegistration>();
     private final CommandTree commandTree = new CommandTree();
     @NotNull
-    private final Map<BasePlayer, QueuedCommand> queuedCommands = new HashMap<BasePlayer, QueuedCommand>();
+    private final Map<BasePlayer, QueuedCommand> queuedCommands = new ConcurrentHashMap<BasePlayer, QueuedCommand>();
+    @NotNull
+    private final ExpirationWheel queuedCommandExpirations = new ExpirationWheel();
+    @NotNull
+    private final CommandMetrics metrics = new CommandMetrics();
     @NotNull
     private Map<CommandInfo, String> usageMap = new HashMap<CommandInfo, String>();
 
@@ -108,7 +120,9 @@ public abstract class CommandHandler {
             for (String alias : aliases) {
                 configureCommandKeys(alias);
                 registeredCommandClasses.put(alias, commandClass);
+                registrations.put(alias, commandRegistration);
             }
+            commandRegistration.setStats(metrics.register(commandClass, aliases[0]));
             commandProviderMap.put(commandClass, commandProvider);
             // Register language in the command class if any.
             Messages.registerMessages(this.commandProvider, commandClass);
@@ -145,7 +159,10 @@ public abstract class CommandHandler {
                 }
                 if (!directoryAliases.isEmpty()) {
                     CommandRegistration directoryCommandRegistration = new CommandRegistration(SUB_COMMAND_HELP, SUB_COMMAND_HELP,
-                            directoryAliases.toArray(new String[directoryAliases.size()]), commandProvider);
+                            directoryAliases.toArray(new String[directoryAliases.size()]), commandProvider, command);
+                    for (String directoryAlias : directoryAliases) {
+                        registrations.put(directoryAlias, directoryCommandRegistration);
+                    }
                     register(directoryCommandRegistration, command);
                 }
             }
@@ -174,10 +191,47 @@ public abstract class CommandHandler {
      */
     protected abstract boolean register(@NotNull final CommandRegistration commandInfo, @NotNull final Command command);
 
-    void removedQueuedCommand(@NotNull final BasePlayer player, @NotNull final QueuedCommand command) {
-        if (queuedCommands.containsKey(player) && queuedCommands.get(player).equals(command)) {
-            queuedCommands.remove(player);
-        }
+    /**
+     * Gets the usage statistics of the commands registered with this handler.
+     *
+     * @return the usage statistics of the commands registered with this handler.
+     */
+    @NotNull
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Removes the given command from the queue if it is still queued for the player.
+     *
+     * @return true if the command was queued and has been removed.
+     */
+    boolean removedQueuedCommand(@NotNull final BasePlayer player, @NotNull final QueuedCommand command) {
+        return queuedCommands.remove(player, command);
+    }
+
+    /**
+     * Schedules a queued command to expire after the given number of ticks of {@link #tickQueuedCommandExpirations()}.
+     * <p/>
+     * This is meant for {@link CommandProvider#scheduleQueuedCommandExpiration(QueuedCommand)} so that every queued
+     * command expires from a single repeating task instead of a task for each command.  The expiration is cancelled if
+     * the command is confirmed first.
+     *
+     * @param queuedCommand the queued command to expire.
+     * @param delay the number of ticks before the command expires.
+     */
+    public void scheduleQueuedCommandExpiration(@NotNull final QueuedCommand queuedCommand, final long delay) {
+        queuedCommand.setExpiration(queuedCommandExpirations.schedule(queuedCommand, delay));
+    }
+
+    /**
+     * Expires the queued commands due at the next tick.
+     * <p/>
+     * This should be called every server tick from the main thread by a single repeating task when
+     * {@link #scheduleQueuedCommandExpiration(QueuedCommand, long)} is used.
+     */
+    public void tickQueuedCommandExpirations() {
+        queuedCommandExpirations.tick();
     }
 
     /** Message used when a users tries to confirm a command but has not queued one or the queued one has expired. */
@@ -198,7 +252,7 @@ public abstract class CommandHandler {
      * @return true if there was a queued command.
      */
     public boolean confirmCommand(@NotNull final BasePlayer player) {
-        final QueuedCommand queuedCommand = queuedCommands.get(player);
+        final QueuedCommand queuedCommand = queuedCommands.remove(player);
         if (queuedCommand != null) {
             queuedCommand.confirm();
             return true;
@@ -210,21 +264,17 @@ public abstract class CommandHandler {
     @Nullable
     protected final Command getCommand(@NotNull String[] args) {
         args = commandDetection(args);
-        return _getCommand(args[0]);
+        final CommandRegistration registration = getRegistration(args[0]);
+        return registration != null ? registration.getCommand() : null;
     }
 
     @Nullable
-    private Command _getCommand(@NotNull String baseCommandArg) {
-        final Class<? extends Command> commandClass = registeredCommandClasses.get(baseCommandArg);
-        if (commandClass == null) {
+    private CommandRegistration getRegistration(@NotNull String baseCommandArg) {
+        final CommandRegistration registration = registrations.get(baseCommandArg);
+        if (registration == null) {
             getLog().severe("Could not locate registered command '" + baseCommandArg + "'");
-            return null;
-        }
-        final CommandProvider commandProviderForCommand = commandProviderMap.get(commandClass);
-        if (commandProviderForCommand == null) {
-            throw new IllegalStateException("CommandProvider not registered for " + commandClass);
         }
-        return CommandLoader.loadCommand(commandProviderForCommand, commandClass);
+        return registration;
     }
 
     /**
@@ -253,15 +303,22 @@ public abstract class CommandHandler {
             }
             return true;
         }
-        final Command command = _getCommand(args[0]);
-        if (command == null) {
+        final CommandRegistration registration = getRegistration(args[0]);
+        if (registration == null) {
             return false;
         }
+        final Command command = registration.getCommand();
         if (command instanceof DirectoryCommand) {
             ((DirectoryCommand) command).runCommand(player, args[0], commandTree.getTreeAt(args[0]));
             return true;
         }
-        if (command.getPerm() != null && !command.getPerm().hasPermission(player)) {
+        final CommandMetrics.Stats stats = registration.getStats();
+        // Read from the instance being run as a command may change its permission after registration.
+        final Perm perm = command.getPerm();
+        if (perm != null && !perm.hasPermission(player)) {
+            if (stats != null) {
+                stats.permissionDenied();
+            }
             BundledMessage permissionMessage = command.getPermissionMessage();
             if (permissionMessage == null) {
                 permissionMessage = PERMISSION_DENIED.bundle();
@@ -269,47 +326,143 @@ public abstract class CommandHandler {
             commandProvider.getMessager().message(player, permissionMessage);
             return false;
         }
-        final CommandInfo cmdInfo = command.getClass().getAnnotation(CommandInfo.class);
+        final CommandInfo cmdInfo = registration.getCommandInfo();
         if (cmdInfo == null) {
             getLog().severe("Missing CommandInfo for command: " + args[0]);
             return false;
         }
-        final Set<Character> valueFlags = new HashSet<Character>();
+        final boolean timed = stats != null && metrics.isLatencyTracked();
+        final long start = timed ? System.nanoTime() : 0L;
+        boolean recordedLater = false;
+        boolean succeeded = false;
+        try {
+            recordedLater = runCommand(player, args, registration, command, cmdInfo, timed, start);
+            succeeded = true;
+        } finally {
+            if (!recordedLater) {
+                record(stats, succeeded, timed, start);
+            }
+        }
+        return true;
+    }
 
-        char[] flags = cmdInfo.flags().toCharArray();
-        final Set<Character> newFlags = new HashSet<Character>();
-        for (int i = 0; i < flags.length; ++i) {
-            if (flags.length > i + 1 && flags[i + 1] == ':') {
-                valueFlags.add(flags[i]);
-                ++i;
+    /**
+     * Records a use of a command in its {@link CommandMetrics}, along with how long it took if it was timed.
+     */
+    private static void record(@Nullable final CommandMetrics.Stats stats, final boolean succeeded,
+                               final boolean timed, final long start) {
+        if (stats != null) {
+            stats.record(succeeded);
+            if (timed) {
+                stats.recordLatency(System.nanoTime() - start);
             }
-            newFlags.add(flags[i]);
         }
-        final CommandContext context = new CommandContext(args, valueFlags);
-        if (context.argsLength() < cmdInfo.min()) {
+    }
+
+    /**
+     * Parses the args for a command the player is permitted to use and runs it.
+     *
+     * @param timed whether the command is timed for {@link CommandMetrics}.
+     * @param start when the command was started if it is timed.
+     * @return true if the command is run asynchronously and will record its own statistics.
+     */
+    private boolean runCommand(@NotNull final BasePlayer player, @NotNull final String[] args,
+                               @NotNull final CommandRegistration registration, @NotNull final Command command,
+                               @NotNull final CommandInfo cmdInfo, final boolean timed, final long start)
+            throws CommandException {
+        final CommandContext context = new CommandContext(args, registration.getValueFlagMask());
+        if (context.argsLength() < registration.getMinArgs()) {
             throw new CommandUsageException(TOO_FEW_ARGUMENTS.bundle(), getUsage(args, 0, command, cmdInfo));
         }
-        if (cmdInfo.max() != -1 && context.argsLength() > cmdInfo.max()) {
+        if (registration.getMaxArgs() != -1 && context.argsLength() > registration.getMaxArgs()) {
             throw new CommandUsageException(TOO_MANY_ARGUMENTS.bundle(), getUsage(args, 0, command, cmdInfo));
         }
-        if (!cmdInfo.anyFlags()) {
-            for (char flag : context.getFlags()) {
-                if (!newFlags.contains(flag)) {
-                    throw new CommandUsageException(UNKNOWN_FLAG.bundle(flag), getUsage(args, 0, command, cmdInfo));
+        if (!registration.isAnyFlags()) {
+            final long unknownFlags = context.getFlagMask() & ~registration.getFlagMask();
+            if (unknownFlags != 0) {
+                for (char flag : context.getFlags()) {
+                    if (!registration.getFlags().contains(flag)) {
+                        throw new CommandUsageException(UNKNOWN_FLAG.bundle(flag), getUsage(args, 0, command, cmdInfo));
+                    }
                 }
             }
         }
+        if (cmdInfo.async()) {
+            runCommandAsynchronously(player, args, command, cmdInfo, context, registration.getStats(), timed, start);
+            return true;
+        }
         if (!command.runCommand(player, context)) {
+            if (command instanceof QueuedCommand) {
+                ((QueuedCommand) command).cancelExpiration();
+            }
             throw new CommandUsageException(USAGE_ERROR.bundle(), getUsage(args, 0, command, cmdInfo));
         }
         if (command instanceof QueuedCommand) {
             final QueuedCommand queuedCommand = (QueuedCommand) command;
             getLog().finer("Queueing command '%s' for '%s'", queuedCommand, player);
-            queuedCommands.put(player, queuedCommand);
+            final QueuedCommand replaced = queuedCommands.put(player, queuedCommand);
+            if (replaced != null) {
+                replaced.cancelExpiration();
+            }
             final BundledMessage confirmMessage = queuedCommand.getConfirmMessage();
             this.commandProvider.getMessager().message(player, confirmMessage);
         }
-        return true;
+        return false;
+    }
+
+    /**
+     * Runs an {@link CommandInfo#async()} command with the command provider's async command executor.
+     * <p/>
+     * The command is given the original sender. The arguments and permission have already been checked by the time
+     * this is called and the result of the command is sent with the command provider's main thread executor.
+     */
+    private void runCommandAsynchronously(@NotNull final BasePlayer player, @NotNull final String[] args,
+                                          @NotNull final Command command, @NotNull final CommandInfo cmdInfo,
+                                          @NotNull final CommandContext context,
+                                          @Nullable final CommandMetrics.Stats stats, final boolean timed,
+                                          final long start) {
+        final Executor mainThreadExecutor = commandProvider.getMainThreadExecutor();
+        getLog().finer("Running command '%s' asynchronously for '%s'", args[0], player);
+        commandProvider.getAsyncCommandExecutor().execute(() -> {
+            boolean succeeded = false;
+            try {
+                succeeded = command.runCommand(player, context);
+                if (!succeeded) {
+                    mainThreadExecutor.execute(() -> sendCommandException(player,
+                            new CommandUsageException(USAGE_ERROR.bundle(), getUsage(args, 0, command, cmdInfo))));
+                }
+            } catch (final CommandException e) {
+                mainThreadExecutor.execute(() -> sendCommandException(player, e));
+            } catch (final Throwable e) {
+                // Anything else, including errors, is reported rather than lost with the async executor's thread.
+                mainThreadExecutor.execute(() -> {
+                    final LogRecord record = new LogRecord(Level.SEVERE,
+                            "Exception running command '" + args[0] + "' for '" + player + "'");
+                    record.setThrown(e);
+                    getLog().log(record);
+                    commandProvider.getMessager().message(player, Messages.EXCEPTION.bundle(e));
+                });
+            } finally {
+                record(stats, succeeded, timed, start);
+            }
+        });
+    }
+
+    /**
+     * Sends the message of an exception thrown while running a command to the sender of the command.
+     * <p/>
+     * If the exception is a {@link CommandUsageException} the usage of the command is sent as well.
+     *
+     * @param sender the sender of the command.
+     * @param e the exception thrown while running the command.
+     */
+    public void sendCommandException(@NotNull final BasePlayer sender, @NotNull final CommandException e) {
+        e.sendException(commandProvider.getMessager(), sender);
+        if (e instanceof CommandUsageException) {
+            for (final String usageString : ((CommandUsageException) e).getUsage()) {
+                sender.sendMessage(usageString);
+            }
+        }
     }
 
     public String[] commandDetection(@NotNull final String[] split) {
@@ -374,23 +527,62 @@ public abstract class CommandHandler {
         return usageMap.containsKey(cmdInfo) ? usageMap.get(cmdInfo) : "";
     }
 
+    /**
+     * Everything needed to run a registered command, gathered once when the command is registered.
+     */
     protected static class CommandRegistration {
 
         private final String[] aliases;
         private final CommandProvider registeredWith;
         private final String usage, desc;
         private final String[] permissions;
-
-        CommandRegistration(String usage, String desc, String[] aliases, CommandProvider registeredWith) {
-            this(usage, desc, aliases, registeredWith, null);
-        }
-
-        CommandRegistration(String usage, String desc, String[] aliases, CommandProvider registeredWith, String[] permissions) {
+        @Nullable
+        private final CommandInfo commandInfo;
+        @NotNull
+        private final Supplier<Command> commandFactory;
+        @NotNull
+        private final Set<Character> flags;
+        @NotNull
+        private final Set<Character> valueFlags;
+        private final long flagMask;
+        private final long valueFlagMask;
+        @Nullable
+        private CommandMetrics.Stats stats;
+
+        /**
+         * Creates the registration of a directory command which only lists its sub-commands.
+         */
+        CommandRegistration(String usage, String desc, String[] aliases, CommandProvider registeredWith, @NotNull Command directoryCommand) {
+            this(usage, desc, aliases, registeredWith, null, null, () -> directoryCommand);
+        }
+
+        CommandRegistration(String usage, String desc, String[] aliases, CommandProvider registeredWith, String[] permissions,
+                            @Nullable CommandInfo commandInfo, @NotNull Supplier<Command> commandFactory) {
             this.usage = usage;
             this.desc = desc;
             this.aliases = aliases;
             this.permissions = permissions;
             this.registeredWith = registeredWith;
+            this.commandInfo = commandInfo;
+            this.commandFactory = commandFactory;
+
+            final Set<Character> flags = new HashSet<Character>();
+            final Set<Character> valueFlags = new HashSet<Character>();
+            if (commandInfo != null) {
+                final String flagString = commandInfo.flags();
+                for (int i = 0; i < flagString.length(); ++i) {
+                    final char flag = flagString.charAt(i);
+                    if (flagString.length() > i + 1 && flagString.charAt(i + 1) == ':') {
+                        valueFlags.add(flag);
+                        ++i;
+                    }
+                    flags.add(flag);
+                }
+            }
+            this.flags = Collections.unmodifiableSet(flags);
+            this.valueFlags = Collections.unmodifiableSet(valueFlags);
+            this.flagMask = CommandContext.flagMask(flags);
+            this.valueFlagMask = CommandContext.flagMask(valueFlags);
         }
 
         public String[] getAliases() {
@@ -416,6 +608,92 @@ public abstract class CommandHandler {
         public CommandProvider getRegisteredWith() {
             return registeredWith;
         }
+
+        /**
+         * Gets the annotation describing the command.
+         *
+         * @return the annotation describing the command or null for directory commands.
+         */
+        @Nullable
+        public CommandInfo getCommandInfo() {
+            return commandInfo;
+        }
+
+        /**
+         * Gets the command instance to execute.
+         * <p/>
+         * This is a new instance each time unless the command is a {@link CommandInfo#singleton()}.
+         *
+         * @return the command instance to execute.
+         */
+        @NotNull
+        public Command getCommand() {
+            return commandFactory.get();
+        }
+
+        /**
+         * Gets all of the flags the command accepts, including value flags.
+         *
+         * @return all of the flags the command accepts.
+         */
+        @NotNull
+        public Set<Character> getFlags() {
+            return flags;
+        }
+
+        /**
+         * Gets the flags the command accepts which must be given a value.
+         *
+         * @return the flags the command accepts which must be given a value.
+         */
+        @NotNull
+        public Set<Character> getValueFlags() {
+            return valueFlags;
+        }
+
+        /**
+         * Gets the flags the command accepts as a mask for {@link CommandContext}.
+         *
+         * @return the flags the command accepts as a mask.
+         */
+        long getFlagMask() {
+            return flagMask;
+        }
+
+        /**
+         * Gets the value flags the command accepts as a mask for {@link CommandContext}.
+         *
+         * @return the value flags the command accepts as a mask.
+         */
+        long getValueFlagMask() {
+            return valueFlagMask;
+        }
+
+        /**
+         * Gets the usage statistics of the command.
+         *
+         * @return the usage statistics of the command or null for directory commands.
+         */
+        @Nullable
+        CommandMetrics.Stats getStats() {
+            return stats;
+        }
+
+        void setStats(@Nullable CommandMetrics.Stats stats) {
+            this.stats = stats;
+        }
+
+        public int getMinArgs() {
+            return commandInfo != null ? commandInfo.min() : 0;
+        }
+
+        public int getMaxArgs() {
+            return commandInfo != null ? commandInfo.max() : -1;
+        }
+
+        public boolean isAnyFlags() {
+            return commandInfo != null && commandInfo.anyFlags();
+        }
     }
 
     public List<String> tabComplete(@NotNull final BasePlayer player, @NotNull String[] args) {
@@ -428,29 +706,17 @@ public abstract class CommandHandler {
             System.arraycopy(newArgs, 0, args, 0, newArgs.length);
             args[args.length - 1] = lastArg;
         }
-        final Command command = _getCommand(args[0]);
-        if (command != null) {
+        final CommandRegistration registration = getRegistration(args[0]);
+        if (registration != null) {
+            final Command command = registration.getCommand();
             if (args.length == 2 && command instanceof DirectoryCommand) {
                 return tabCompleteDirectory(player, args);
-            } else if (args.length > 1 && (command.getPerm() == null || command.getPerm().hasPermission(player))) {
-                final CommandInfo cmdInfo = command.getClass().getAnnotation(CommandInfo.class);
-                if (cmdInfo != null) {
-                    final Set<Character> valueFlags = new HashSet<Character>();
-
-                    char[] flags = cmdInfo.flags().toCharArray();
-                    final Set<Character> newFlags = new HashSet<Character>();
-                    for (int i = 0; i < flags.length; ++i) {
-                        if (flags.length > i + 1 && flags[i + 1] == ':') {
-                            valueFlags.add(flags[i]);
-                            ++i;
-                        }
-                        newFlags.add(flags[i]);
-                    }
-                    try {
-                        CommandContext context = new CommandContext(args, valueFlags);
-                        return command.tabComplete(player, context);
-                    } catch (CommandException ignore) { }
-                }
+            } else if (args.length > 1 && registration.getCommandInfo() != null
+                    && (command.getPerm() == null || command.getPerm().hasPermission(player))) {
+                try {
+                    CommandContext context = new CommandContext(args, registration.getValueFlagMask());
+                    return command.tabComplete(player, context);
+                } catch (CommandException ignore) { }
             }
         }
         return Collections.emptyList();
@@ -458,46 +724,49 @@ public abstract class CommandHandler {
 
     private List<String> tabCompleteDirectory(@NotNull final BasePlayer player, @NotNull String[] args) {
         CommandTree directoryTree = commandTree.getTreeAt(args[0]);
-        Set<String> subDirectories = directoryTree.getSubDirectories();
-        Set<String> subCommands = directoryTree.getSubCommands();
-        Set<String> tabCompleteSet = new HashSet<String>(subDirectories.size() + subCommands.size() + 1);
+        if (directoryTree == null) {
+            return Collections.emptyList();
+        }
 
         args[1] = args[1].trim().toLowerCase();
 
-        for (String subDirectory : subDirectories) {
-            if (subDirectory.startsWith(args[1])) {
-                tabCompleteSet.add(subDirectory);
-            }
-        }
-
-        List<String> potentialSubCommands = new ArrayList<String>(subCommands.size());
-        for (String subCommand : subCommands) {
-            if (subCommand.startsWith(args[1])) {
-                potentialSubCommands.add(subCommand);
+        boolean completeConfirm = commandProvider.useQueuedCommands()
+                && !registeredCommandClasses.containsKey(commandProvider.getCommandPrefix() + "confirm")
+                && commandProvider.getCommandPrefix().equalsIgnoreCase(args[0])
+                && "confirm".startsWith(args[1]);
+
+        // The sub-trees come back sorted so the list is built in order.
+        List<CommandTree> subTrees = directoryTree.getSubTreesStartingWith(args[1]);
+        List<String> tabCompleteList = new ArrayList<String>(subTrees.size() + 1);
+        for (CommandTree subTree : subTrees) {
+            String subCommand = subTree.getToken();
+            if (completeConfirm && subCommand.compareTo("confirm") >= 0) {
+                tabCompleteList.add("confirm");
+                completeConfirm = false;
+                if (subCommand.equals("confirm")) {
+                    continue;
+                }
             }
-        }
-
-        for (String potentialSubCommand : potentialSubCommands) {
-            Command subCommand = _getCommand(args[0] + " " + potentialSubCommand);
-            if (subCommand != null && (!player.isPlayer() || (subCommand.getPerm() == null || player.hasPerm(subCommand.getPerm())))) {
-                tabCompleteSet.add(potentialSubCommand);
+            if (subTree.isDirectory()) {
+                tabCompleteList.add(subCommand);
+            } else {
+                CommandRegistration registration = getRegistration(subTree.getResolvedName());
+                if (registration != null) {
+                    Perm perm = registration.getCommand().getPerm();
+                    if (!player.isPlayer() || perm == null || player.hasPerm(perm)) {
+                        tabCompleteList.add(subCommand);
+                    }
+                }
             }
         }
-
-        if (commandProvider.useQueuedCommands()
-                && !registeredCommandClasses.containsKey(commandProvider.getCommandPrefix() + "confirm")
-                && commandProvider.getCommandPrefix().equalsIgnoreCase(args[0])
-                && "confirm".startsWith(args[1])) {
-            tabCompleteSet.add("confirm");
+        if (completeConfirm) {
+            tabCompleteList.add("confirm");
         }
 
-        List<String> tabCompleteList = new ArrayList<String>(tabCompleteSet);
-
         if (tabCompleteList.size() == 1 && tabCompleteList.get(0).equals(args[1])) {
             return Collections.emptyList();
         }
 
-        Collections.sort(tabCompleteList);
         return tabCompleteList;
     }
 }
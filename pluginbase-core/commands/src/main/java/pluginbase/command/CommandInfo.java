@@ -122,4 +122,30 @@ public @interface CommandInfo {
      * @return Whether any flag can be provided to the command, even if it is not in {@link #flags()}
      */
     boolean anyFlags() default false;
+
+    /**
+     * Indicates whether a single instance of the command is reused for every execution.
+     * <p/>
+     * By default, a new instance of the command is created each time it is executed. Commands which keep no state
+     * between executions may set this to true to avoid that. A {@link QueuedCommand} may not be a singleton as it holds
+     * the state of the execution awaiting confirmation.
+     *
+     * @return Whether a single instance of the command is reused for every execution.
+     */
+    boolean singleton() default false;
+
+    /**
+     * Indicates whether the command runs off of the server's main thread.
+     * <p/>
+     * The arguments and permission are still checked on the thread the command is used from.
+     * {@link Command#runCommand} is then run with {@link CommandProvider#getAsyncCommandExecutor()} and given the
+     * original sender.  The result of the command is sent with {@link CommandProvider#getMainThreadExecutor()} and
+     * the command should message the sender itself with {@link Command#messageOnMainThread}.  This is meant for
+     * commands that wait on I/O such as database lookups or web requests.  The command must not otherwise access the
+     * sender or the server.  A {@link QueuedCommand} may not be asynchronous, and neither may a {@link #singleton()}
+     * command since executions of it could then run concurrently on the same instance.
+     *
+     * @return Whether the command runs off of the server's main thread.
+     */
+    boolean async() default false;
 }
@@ -3,7 +3,11 @@ package pluginbase.command;
 import org.jetbrains.annotations.NotNull;
 import pluginbase.messages.messaging.Messaging;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
+import java.util.function.Supplier;
 
 enum CommandLoader {
     ;
@@ -19,25 +23,50 @@ enum CommandLoader {
      */
     @NotNull
     public static Command loadCommand(@NotNull CommandProvider commandProvider, @NotNull final Class<? extends Command> clazz) {
+        return createFactory(commandProvider, clazz).get();
+    }
+
+    /**
+     * Creates a factory for command objects of the given Command class.
+     * <p/>
+     * The constructor is looked up once and bound to the command provider so that creating each command is a direct
+     * constructor call.
+     *
+     * @param clazz the command class to instantiate.
+     * @return a factory creating a new instance of the command each time it is called.
+     * @see #loadCommand(CommandProvider, Class)
+     */
+    @NotNull
+    static Supplier<Command> createFactory(@NotNull final CommandProvider commandProvider, @NotNull final Class<? extends Command> clazz) {
         if (clazz.equals(DirectoryCommand.class)) {
-            return new DirectoryCommand(commandProvider);
+            return () -> new DirectoryCommand(commandProvider);
         }
-        try {
-            for (final Constructor constructor : clazz.getDeclaredConstructors()) {
-                if (constructor.getParameterTypes().length == 1
-                        && CommandProvider.class.isAssignableFrom(constructor.getParameterTypes()[0])) {
-                    constructor.setAccessible(true);
+        for (final Constructor constructor : clazz.getDeclaredConstructors()) {
+            if (constructor.getParameterTypes().length == 1
+                    && CommandProvider.class.isAssignableFrom(constructor.getParameterTypes()[0])) {
+                final MethodHandle factory;
+                constructor.setAccessible(true);
+                try {
+                    factory = MethodHandles.lookup().unreflectConstructor(constructor)
+                            .bindTo(commandProvider)
+                            .asType(MethodType.methodType(Command.class));
+                } catch (ClassCastException e) {
+                    throw new IllegalArgumentException("A command class must have a constructor that takes a single CommandProvider instance only.", e);
+                } catch (final IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    constructor.setAccessible(false);
+                }
+                return () -> {
                     try {
-                        return (Command) constructor.newInstance(commandProvider);
-                    } finally {
-                        constructor.setAccessible(false);
+                        return (Command) factory.invokeExact();
+                    } catch (RuntimeException | Error e) {
+                        throw e;
+                    } catch (Throwable t) {
+                        throw new RuntimeException(t);
                     }
-                }
+                };
             }
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("A command class must have a constructor that takes a single CommandProvider instance only.", e);
-        } catch (final Exception e) {
-            throw new RuntimeException(e);
         }
         throw new IllegalArgumentException("Class " + clazz + " is missing constructor that takes sole argument which extends Messaging and CommandProvider.");
     }
@@ -0,0 +1,212 @@
+package pluginbase.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage statistics for the commands of a {@link CommandHandler}.
+ * <p/>
+ * The handler records how often each registered command class is used and how often it fails or is denied for lack of
+ * permission.  Recording a use is a single lock free increment so it adds very little to each command.
+ * <p/>
+ * How long each command takes to run is only recorded while {@link #setLatencyTracked(boolean) latency tracking} is
+ * turned on, as timing a command costs more than counting it.
+ */
+public final class CommandMetrics {
+
+    @NotNull
+    private final Map<Class<? extends Command>, Stats> stats = new ConcurrentHashMap<Class<? extends Command>, Stats>();
+    private volatile boolean latencyTracked = false;
+
+    /**
+     * Gets the statistics for a command class, creating them if needed.
+     *
+     * @param commandClass the command class.
+     * @param name the name to report the command by.
+     * @return the statistics for the command class.
+     */
+    @NotNull
+    Stats register(@NotNull Class<? extends Command> commandClass, @NotNull String name) {
+        return stats.computeIfAbsent(commandClass, key -> new Stats(commandClass, name));
+    }
+
+    /**
+     * Checks whether the time taken to run each command is being recorded.
+     *
+     * @return true if the time taken to run each command is being recorded.
+     */
+    public boolean isLatencyTracked() {
+        return latencyTracked;
+    }
+
+    /**
+     * Sets whether the time taken to run each command is recorded in {@link Stats#getLatency()}.
+     * <p/>
+     * This is off by default.
+     *
+     * @param latencyTracked true to record the time taken to run each command.
+     */
+    public void setLatencyTracked(boolean latencyTracked) {
+        this.latencyTracked = latencyTracked;
+    }
+
+    /**
+     * Gets the statistics for a registered command class.
+     *
+     * @param commandClass the command class.
+     * @return the statistics for the command class or null if it is not registered.
+     */
+    @Nullable
+    public Stats getStats(@NotNull Class<? extends Command> commandClass) {
+        return stats.get(commandClass);
+    }
+
+    /**
+     * Gets the statistics of every registered command class, most used first.
+     *
+     * @return the statistics of every registered command class.
+     */
+    @NotNull
+    public List<Stats> getAllStats() {
+        List<Stats> all = new ArrayList<Stats>(stats.values());
+        Collections.sort(all, (a, b) -> {
+            int compare = Long.compare(b.getInvocations(), a.getInvocations());
+            return compare != 0 ? compare : a.getName().compareTo(b.getName());
+        });
+        return all;
+    }
+
+    /**
+     * Clears the statistics of every registered command class.
+     */
+    public void reset() {
+        for (Stats commandStats : stats.values()) {
+            commandStats.reset();
+        }
+    }
+
+    /**
+     * The usage statistics of a single command class.
+     */
+    public static final class Stats {
+
+        @NotNull
+        private final Class<? extends Command> commandClass;
+        @NotNull
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder permissionDenials = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Stats(@NotNull Class<? extends Command> commandClass, @NotNull String name) {
+            this.commandClass = commandClass;
+            this.name = name;
+        }
+
+        /**
+         * Records a use of the command.
+         *
+         * @param succeeded false if the command failed with an exception or improper usage.
+         */
+        void record(boolean succeeded) {
+            invocations.increment();
+            if (!succeeded) {
+                failures.increment();
+            }
+        }
+
+        /**
+         * Records how long a use of the command took, while latency is tracked.
+         *
+         * @param nanos how long the command took in nanoseconds.
+         */
+        void recordLatency(long nanos) {
+            latency.record(nanos);
+        }
+
+        void permissionDenied() {
+            permissionDenials.increment();
+        }
+
+        @NotNull
+        public Class<? extends Command> getCommandClass() {
+            return commandClass;
+        }
+
+        /**
+         * Gets the primary alias of the command.
+         *
+         * @return the primary alias of the command.
+         */
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the number of times the command was run, whether it succeeded or not.
+         *
+         * @return the number of times the command was run.
+         */
+        public long getInvocations() {
+            return invocations.sum();
+        }
+
+        /**
+         * Gets the number of times the command failed with an exception or improper usage.
+         *
+         * @return the number of times the command failed.
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /**
+         * Gets the number of times the command was not run because the user lacked permission.
+         *
+         * @return the number of times the command was denied.
+         */
+        public long getPermissionDenials() {
+            return permissionDenials.sum();
+        }
+
+        /**
+         * Gets the times taken to run the command in nanoseconds.
+         * <p/>
+         * This is empty unless {@link CommandMetrics#setLatencyTracked(boolean) latency tracking} has been turned on.
+         * For {@link CommandInfo#async()} commands this includes the time spent waiting to be run.
+         *
+         * @return the times taken to run the command.
+         */
+        @NotNull
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        void reset() {
+            invocations.reset();
+            failures.reset();
+            permissionDenials.reset();
+            latency.reset();
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "name='" + name + '\'' +
+                    ", invocations=" + getInvocations() +
+                    ", failures=" + getFailures() +
+                    ", permissionDenials=" + getPermissionDenials() +
+                    ", max=" + latency.getMax() +
+                    '}';
+        }
+    }
+}
@@ -4,6 +4,8 @@ import org.jetbrains.annotations.NotNull;
 import pluginbase.logging.LoggablePlugin;
 import pluginbase.messages.messaging.Messaging;
 
+import java.util.concurrent.Executor;
+
 /**
  * An interface required for using the commands provided by PluginBase.
  *
@@ -36,6 +38,9 @@ public interface CommandProvider<P> extends Messaging, LoggablePlugin {
      * <p/>
      * This method should simply run the QueuedCommand (which implements {@link Runnable}) an amount of seconds later.
      * The amount is specified with {@link pluginbase.command.QueuedCommand#getExpirationDuration()}.
+     * Rather than scheduling a task for each command, this may pass the command to
+     * {@link CommandHandler#scheduleQueuedCommandExpiration(QueuedCommand, long)} with a single repeating task calling
+     * {@link CommandHandler#tickQueuedCommandExpirations()}.
      * <p/>
      * This will automatically be called by the command handler when the queued command is used initially in order to
      * schedule its expiration.
@@ -83,4 +88,29 @@ public interface CommandProvider<P> extends Messaging, LoggablePlugin {
      * @return the plugin that this command provider belongs to.
      */
     P getPlugin();
+
+    /**
+     * Gets the executor that runs {@link CommandInfo#async()} commands.
+     * <p/>
+     * By default, commands are run immediately on the calling thread.
+     *
+     * @return the executor that runs asynchronous commands.
+     */
+    @NotNull
+    default Executor getAsyncCommandExecutor() {
+        return Runnable::run;
+    }
+
+    /**
+     * Gets the executor that runs tasks on the server's main thread, used to send the results of
+     * {@link CommandInfo#async()} commands.
+     * <p/>
+     * By default, tasks are run immediately on the calling thread.
+     *
+     * @return the executor that runs tasks on the server's main thread.
+     */
+    @NotNull
+    default Executor getMainThreadExecutor() {
+        return Runnable::run;
+    }
 }
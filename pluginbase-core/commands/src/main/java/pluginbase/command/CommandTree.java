@@ -3,53 +3,186 @@ package pluginbase.command;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * The known command paths of a command handler, used to work out which of the arguments a user typed name the
+ * command.
+ * <p/>
+ * Paths are space separated lowercase tokens stored in a compressed radix trie.  Each node holds the label of the
+ * edge leading to it and its children sorted by the first character of their labels, so finding a path or every
+ * path starting with some prefix only visits the characters of the prefix and the nodes of the results.
+ * <p/>
+ * Every path that ends on a complete token is marked as a command, a directory of further commands, or both.  A path
+ * may also be an alias of another path, in which case anything below the alias is looked up below the other path
+ * instead of having its own copy of the subtree.
+ * <p/>
+ * An instance either represents the whole tree or, when returned by {@link #getTreeAt(String)}, a single directory
+ * in it.
+ */
 class CommandTree {
 
-    @Nullable
-    private String name;
+    private static final char SEPARATOR = ' ';
 
-    private final Map<String, CommandTree> treeMap = new HashMap<String, CommandTree>();
-    private final Map<String, CommandKey> keyMap = new HashMap<String, CommandKey>();
+    @NotNull
+    private final Node node;
 
     public CommandTree() {
-        this.name = null;
+        this(new Node(""));
     }
 
-    private CommandTree(@NotNull CommandTree parent, @NotNull String name) {
-        name = name.toLowerCase();
-        this.name = parent.name != null ? parent.name + " " + name : name;
+    private CommandTree(@NotNull Node node) {
+        this.node = node;
     }
 
     public void registerKeysForAlias(@NotNull String alias) {
         String[] args = CommandHandler.PATTERN_ON_SPACE.split(alias);
-        registerKeysForArgs(args);
+        Node path = insertPath(args, args.length);
+        path.command = true;
     }
 
-    private void registerKeysForArgs(String[] args) {
-        String initialArg = args[0];
-        if (args.length == 1) {
-            CommandKey commandKey = new CommandKey(getCommandKeyName(initialArg));
-            keyMap.put(initialArg, commandKey);
-        } else {
-            CommandTree commandTree = treeMap.get(initialArg);
-            if (commandTree == null) {
-                commandTree = new CommandTree(this, initialArg);
-                treeMap.put(initialArg, commandTree);
+    /**
+     * Registers an alias for an already registered path.
+     * <p/>
+     * The alias shares everything registered below the path rather than copying it.
+     *
+     * @param alias the space separated alias.
+     * @param path the space separated path the alias refers to.
+     * @throws IllegalArgumentException if the path is not registered or the alias is already registered as something
+     * other than an alias of the same path.
+     */
+    public void registerAliasForPath(@NotNull String alias, @NotNull String path) throws IllegalArgumentException {
+        Node target = find(CommandHandler.PATTERN_ON_SPACE.split(path), true);
+        if (target == null) {
+            throw new IllegalArgumentException("Cannot alias unregistered path '" + path + "'");
+        }
+        String[] args = CommandHandler.PATTERN_ON_SPACE.split(alias);
+        Node aliasNode = insertPath(args, args.length);
+        if (aliasNode == target || aliasNode.aliasOf == target) {
+            return;
+        }
+        if (aliasNode.isMarked() || aliasNode.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("The alias '" + alias + "' is already registered");
+        }
+        aliasNode.aliasOf = target;
+    }
+
+    /**
+     * Inserts the first count args as a path, marking each path before the last as a directory.
+     *
+     * @return the node at the end of the path with its canonical name set.
+     */
+    @NotNull
+    private Node insertPath(@NotNull String[] args, int count) {
+        Node current = node;
+        String name = null;
+        for (int i = 0; i < count; i++) {
+            Node next = insert(current, args[i], current.name != null);
+            if (next.name == null) {
+                next.name = name != null ? name + SEPARATOR + lowerCase(args[i]) : lowerCase(args[i]);
             }
-            commandTree.registerKeysForArgs(removeInitialArg(args));
+            if (i < count - 1) {
+                next = next.resolve();
+                next.directory = true;
+                name = next.name;
+            }
+            current = next;
         }
+        return current;
     }
 
-    private String getCommandKeyName(String arg) {
-        return name != null ? name + " " + arg : arg;
+    /**
+     * Finds or creates the node for a token below a node, splitting edges as needed.
+     */
+    @NotNull
+    private static Node insert(@NotNull Node parent, @NotNull String token, boolean separated) {
+        final int length = token.length() + (separated ? 1 : 0);
+        Node current = parent;
+        int i = 0;
+        while (i < length) {
+            final int index = current.indexOf(charAt(token, separated, i));
+            if (index < 0) {
+                Node child = new Node(substring(token, separated, i));
+                current.insertChild(-index - 1, child);
+                return child;
+            }
+            Node child = current.children[index];
+            final String label = child.label;
+            int common = 1;
+            while (common < label.length() && i + common < length
+                    && label.charAt(common) == charAt(token, separated, i + common)) {
+                common++;
+            }
+            i += common;
+            if (common < label.length()) {
+                Node split = new Node(label.substring(0, common));
+                child.label = label.substring(common);
+                split.children = new Node[] {child};
+                current.children[index] = split;
+                child = split;
+            }
+            current = child;
+        }
+        return current;
+    }
+
+    /**
+     * Walks a token below a node.
+     *
+     * @param exact whether the token must end exactly on a node or may end part way along an edge.
+     * @return the node ending on or just past the end of the token, or null if no path continues with the token.
+     */
+    @Nullable
+    private static Node walk(@NotNull Node from, @NotNull String token, boolean separated, boolean exact) {
+        final int length = token.length() + (separated ? 1 : 0);
+        Node current = from;
+        int i = 0;
+        while (i < length) {
+            final int index = current.indexOf(charAt(token, separated, i));
+            if (index < 0) {
+                return null;
+            }
+            current = current.children[index];
+            final String label = current.label;
+            int matched = 1;
+            while (matched < label.length() && i + matched < length) {
+                if (label.charAt(matched) != charAt(token, separated, i + matched)) {
+                    return null;
+                }
+                matched++;
+            }
+            if (matched < label.length() && exact) {
+                return null;
+            }
+            i += matched;
+        }
+        return current;
+    }
+
+    /**
+     * Finds the path made of the given args, following aliases.
+     *
+     * @param resolve whether to resolve the node found if it is itself an alias.
+     * @return the marked node at the end of the path or null if the path is not registered.
+     */
+    @Nullable
+    private Node find(@NotNull String[] args, boolean resolve) {
+        Node current = node;
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                current = current.resolve();
+            }
+            current = walk(current, args[i], current.name != null, true);
+            if (current == null || !current.isMarked()) {
+                return null;
+            }
+        }
+        return resolve ? current.resolve() : current;
     }
 
     String[] removeInitialArg(String[] args) {
@@ -58,99 +191,231 @@ class CommandTree {
         return newArgs;
     }
 
+    /**
+     * Joins the leading args which name a known command or directory into a single space separated arg.
+     * <p/>
+     * The longest run of leading args that is a registered path is replaced by the lowercase name of that path.  If
+     * the path is an alias, it is replaced by the name of the path it refers to.
+     *
+     * @param args the args as typed by the user.
+     * @return the args with the command joined as the first arg or the given args if they name no known command.
+     */
     public String[] joinArgsForKnownCommands(String[] args) {
-        CommandTree tree = this;
-        CommandTree lastTree = null;
-        CommandKey key = null;
+        Node current = node;
+        String name = null;
         int commandArgLength = 0;
         for (int i = 0; i < args.length; i++) {
-            String lowerName = args[i].toLowerCase();
-            key = tree.keyMap.get(lowerName);
-            tree = tree.treeMap.get(lowerName);
-            if (tree == null) {
+            Node next = walk(current, args[i], current.name != null, true);
+            if (next == null || !next.isMarked()) {
                 break;
             }
-            commandArgLength++;
-            lastTree = tree;
-        }
-        String name = null;
-        if (key != null) {
-            if (tree == null || tree.name == null || !tree.name.equals(key.getName())) {
-                commandArgLength++;
+            next = next.resolve();
+            name = next.name;
+            commandArgLength = i + 1;
+            if (!next.directory) {
+                break;
             }
-            name = key.getName();
-        } else if (lastTree != null) {
-            //commandArgLength--;
-            name = lastTree.name;
+            current = next;
         }
         if (name != null) {
             String[] newArgs = new String[args.length - (commandArgLength - 1)];
             newArgs[0] = name;
-            if (args.length > 1) {
-                System.arraycopy(args, commandArgLength, newArgs, 1, args.length - commandArgLength);
-            }
+            System.arraycopy(args, commandArgLength, newArgs, 1, args.length - commandArgLength);
             return newArgs;
         } else {
             return args;
         }
     }
 
+    /**
+     * Gets the directory at the given path.
+     *
+     * @param path the space separated path of the directory.
+     * @return the directory at the path or null if no directory is registered there.
+     */
+    @Nullable
     public CommandTree getTreeAt(String path) {
-        String[] args = CommandHandler.PATTERN_ON_SPACE.split(path);
-        CommandTree tree = this;
-        for (String arg : args) {
-            tree = tree.treeMap.get(arg.toLowerCase());
+        Node directory = find(CommandHandler.PATTERN_ON_SPACE.split(path), true);
+        return directory != null && directory.directory ? new CommandTree(directory) : null;
+    }
+
+    /**
+     * Gets the full name of this directory or command.
+     *
+     * @return the full name of this directory or command or null for the whole tree.
+     */
+    @Nullable
+    String getName() {
+        return node.name;
+    }
+
+    /**
+     * Gets the full name of the directory or command this refers to, which differs from {@link #getName()} for
+     * aliases.
+     *
+     * @return the full name of the directory or command this refers to or null for the whole tree.
+     */
+    @Nullable
+    String getResolvedName() {
+        return node.resolve().name;
+    }
+
+    /**
+     * Gets the last token of the name of this directory or command.
+     *
+     * @return the last token of the name of this directory or command.
+     */
+    @NotNull
+    String getToken() {
+        String name = node.name;
+        if (name == null) {
+            return "";
+        }
+        return name.substring(name.lastIndexOf(SEPARATOR) + 1);
+    }
+
+    boolean isCommand() {
+        return node.resolve().command;
+    }
+
+    boolean isDirectory() {
+        return node.resolve().directory;
+    }
+
+    /**
+     * Gets the commands and directories directly within this directory whose last token starts with the given
+     * lowercase prefix.
+     * <p/>
+     * Aliases are included under their own names.  The results are sorted by token.
+     *
+     * @param prefix the lowercase prefix to complete.
+     * @return the matching commands and directories.
+     */
+    @NotNull
+    List<CommandTree> getSubTreesStartingWith(@NotNull String prefix) {
+        Node start = walk(node, prefix, node.name != null, false);
+        if (start == null) {
+            return Collections.emptyList();
         }
-        return tree;
+        List<CommandTree> results = new ArrayList<CommandTree>();
+        collect(start, results);
+        return results;
+    }
+
+    private static void collect(@NotNull Node current, @NotNull List<CommandTree> results) {
+        if (current.isMarked()) {
+            results.add(new CommandTree(current));
+        }
+        for (Node child : current.children) {
+            // Children starting with a separator continue into the next token.
+            if (child.label.charAt(0) != SEPARATOR) {
+                collect(child, results);
+            }
+        }
+    }
+
+    /**
+     * Gets the full names of everything directly within this directory, sorted by token.
+     *
+     * @return the full names of everything directly within this directory.
+     */
+    public Set<String> getSubCommandSet() {
+        List<CommandTree> subTrees = getSubTreesStartingWith("");
+        Set<String> subCommands = new LinkedHashSet<String>(subTrees.size());
+        for (CommandTree subTree : subTrees) {
+            subCommands.add(subTree.getName());
+        }
+        return subCommands;
     }
 
     @Override
     public String toString() {
         return "CommandTree{" +
-                "name='" + name + '\'' +
-                ", treeMap=" + treeMap +
-                ", keyMap=" + keyMap +
+                "name='" + node.name + '\'' +
+                ", subCommands=" + getSubCommandSet() +
                 '}';
     }
 
-    public Set<String> getSubCommandSet() {
-        Set<String> subCommands = new HashSet<String>(treeMap.size() + keyMap.size());
-        for (CommandTree key : treeMap.values()) {
-            subCommands.add(key.name);
+    private static char charAt(@NotNull String token, boolean separated, int index) {
+        if (separated) {
+            return index == 0 ? SEPARATOR : Character.toLowerCase(token.charAt(index - 1));
         }
-        for (CommandKey key : keyMap.values()) {
-            subCommands.add(key.getName());
-        }
-        return subCommands;
+        return Character.toLowerCase(token.charAt(index));
     }
 
-    Set<String> getSubDirectories() {
-        return treeMap.keySet();
+    @NotNull
+    private static String substring(@NotNull String token, boolean separated, int start) {
+        final int length = token.length() + (separated ? 1 : 0);
+        char[] chars = new char[length - start];
+        for (int i = start; i < length; i++) {
+            chars[i - start] = charAt(token, separated, i);
+        }
+        return new String(chars);
     }
 
-    Set<String> getSubCommands() {
-        return keyMap.keySet();
+    @NotNull
+    private static String lowerCase(@NotNull String token) {
+        return substring(token, false, 0);
     }
 
-    private static class CommandKey {
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
 
+        /** The characters on the edge leading to this node. */
         @NotNull
-        protected final String name;
+        String label;
+        /** Sorted by the first character of their labels. */
+        @NotNull
+        Node[] children = NO_CHILDREN;
+        /** The full name of the path ending on this node, only set on marked nodes. */
+        @Nullable
+        String name;
+        boolean command;
+        boolean directory;
+        @Nullable
+        Node aliasOf;
+
+        Node(@NotNull String label) {
+            this.label = label;
+        }
 
-        CommandKey(@NotNull final String name) {
-            this.name = name.toLowerCase();
+        boolean isMarked() {
+            return command || directory || aliasOf != null;
         }
 
         @NotNull
-        public String getName() {
-            return name;
+        Node resolve() {
+            return aliasOf != null ? aliasOf : this;
+        }
+
+        /**
+         * Finds the child whose label starts with the given character.
+         *
+         * @return the index of the child or (-(insertion point) - 1) if there is none.
+         */
+        int indexOf(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label.charAt(0);
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
         }
 
-        @Override
-        public String toString() {
-            return "CommandKey{" +
-                    "name='" + getName() + '\'' +
-                    '}';
+        void insertChild(int index, @NotNull Node child) {
+            Node[] newChildren = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            newChildren[index] = child;
+            children = newChildren;
         }
     }
 }
@@ -0,0 +1,230 @@
+package pluginbase.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timer wheel that runs tasks after a number of ticks.
+ * <p/>
+ * The wheel is a ring of buckets, one for each tick modulo the size of the wheel.  A task that should run at some
+ * tick is kept in the bucket for that tick, so each call to {@link #tick()} only looks at a single bucket rather than
+ * at every scheduled task.  Tasks further away than the size of the wheel simply stay in their bucket for more turns.
+ * <p/>
+ * Tasks may be scheduled and cancelled from any thread.  {@link #tick()} must always be called from the same thread,
+ * typically by a single repeating server task, and is where the tasks are run.
+ */
+public final class ExpirationWheel {
+
+    /** The default number of buckets, enough for 25 seconds of server ticks. */
+    public static final int DEFAULT_SIZE = 512;
+
+    private final Bucket[] buckets;
+    private final int mask;
+    /** Newly scheduled tasks waiting for the next tick to be put in their buckets. */
+    private final Queue<Expiration> pending = new ConcurrentLinkedQueue<Expiration>();
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile long currentTick = 0L;
+
+    /**
+     * Creates a timer wheel with {@link #DEFAULT_SIZE} buckets.
+     */
+    public ExpirationWheel() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a timer wheel.
+     *
+     * @param size the number of buckets, which is rounded up to a power of two.
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public ExpirationWheel(int size) throws IllegalArgumentException {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size of the wheel must be positive");
+        }
+        int buckets = Integer.highestOneBit(size);
+        if (buckets < size) {
+            buckets <<= 1;
+        }
+        this.buckets = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            this.buckets[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+    }
+
+    /**
+     * Schedules a task to run after the given number of ticks.
+     * <p/>
+     * A task scheduled with a delay of 0 or 1 runs on the next tick.
+     *
+     * @param task the task to run.
+     * @param delay the number of ticks to wait.
+     * @return the scheduled expiration, which may be used to cancel the task.
+     */
+    @NotNull
+    public Expiration schedule(@NotNull Runnable task, long delay) {
+        Expiration expiration = new Expiration(task, currentTick + Math.max(delay, 1L));
+        size.incrementAndGet();
+        pending.add(expiration);
+        return expiration;
+    }
+
+    /**
+     * Advances the wheel by one tick and runs every task due at the new tick.
+     * <p/>
+     * Every due task is run even if some of them throw.  The first exception thrown is rethrown afterwards with any
+     * others suppressed.
+     */
+    public void tick() {
+        final long tick = currentTick + 1;
+        currentTick = tick;
+        Expiration expiration;
+        while ((expiration = pending.poll()) != null) {
+            if (expiration.isCancelled()) {
+                continue;
+            }
+            buckets[(int) (Math.max(expiration.deadline, tick) & mask)].add(expiration);
+        }
+        RuntimeException thrown = buckets[(int) (tick & mask)].expire(tick);
+        if (thrown != null) {
+            throw thrown;
+        }
+    }
+
+    /**
+     * Gets the number of ticks the wheel has advanced.
+     *
+     * @return the number of ticks the wheel has advanced.
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets the number of scheduled tasks that have neither run nor been cancelled.
+     *
+     * @return the number of tasks waiting to run.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * A task scheduled in an {@link ExpirationWheel}.
+     */
+    public final class Expiration {
+
+        private static final int WAITING = 0;
+        private static final int DONE = 1;
+        private static final int CANCELLED = 2;
+
+        @NotNull
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Expiration(@NotNull Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Gets the tick at which the task runs.
+         *
+         * @return the tick at which the task runs.
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancels the task if it has not yet run.
+         *
+         * @return true if the task was cancelled or false if it has already run or been cancelled.
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * @return the exception thrown by the task, if any.
+         */
+        private RuntimeException run() {
+            if (!state.compareAndSet(WAITING, DONE)) {
+                return null;
+            }
+            size.decrementAndGet();
+            try {
+                task.run();
+                return null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }
+    }
+
+    /**
+     * The tasks due at the ticks sharing a bucket, only accessed by the ticking thread.
+     */
+    private static final class Bucket {
+
+        private static final Expiration[] EMPTY = new Expiration[0];
+
+        private Expiration[] expirations = EMPTY;
+        private int count = 0;
+
+        void add(@NotNull Expiration expiration) {
+            if (count == expirations.length) {
+                expirations = Arrays.copyOf(expirations, Math.max(4, count * 2));
+            }
+            expirations[count++] = expiration;
+        }
+
+        /**
+         * Runs the tasks due at the given tick and drops them and any cancelled tasks from the bucket.
+         *
+         * @return the first exception thrown by a task, if any.
+         */
+        RuntimeException expire(long tick) {
+            RuntimeException thrown = null;
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                final Expiration expiration = expirations[i];
+                if (expiration.isCancelled()) {
+                    continue;
+                }
+                if (expiration.deadline > tick) {
+                    expirations[kept++] = expiration;
+                    continue;
+                }
+                RuntimeException e = expiration.run();
+                if (e != null) {
+                    if (thrown == null) {
+                        thrown = e;
+                    } else {
+                        thrown.addSuppressed(e);
+                    }
+                }
+            }
+            Arrays.fill(expirations, kept, count, null);
+            count = kept;
+            if (count == 0 && expirations.length > 64) {
+                expirations = EMPTY;
+            }
+            return thrown;
+        }
+    }
+}
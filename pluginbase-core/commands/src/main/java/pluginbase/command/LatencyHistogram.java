@@ -0,0 +1,124 @@
+package pluginbase.command;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of non-negative durations in nanoseconds with a bounded relative error.
+ * <p/>
+ * Like an HdrHistogram, values are counted in buckets whose width grows with each power of two.  Each power of two is
+ * split into {@link #SUB_BUCKETS} equal buckets so any value is known to within 1/{@value #SUB_BUCKETS} of itself,
+ * and finding the bucket of a value is only a few bit operations.  Recording never allocates or locks.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    /** The number of buckets each power of two is split into. */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Counts a value.
+     *
+     * @param value the value to count, with negative values counted as 0.
+     */
+    public void record(long value) {
+        if (value < 0L) {
+            value = 0L;
+        }
+        counts.incrementAndGet(indexOf(value));
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Gets the number of values counted.
+     *
+     * @return the number of values counted.
+     */
+    public long getCount() {
+        long count = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the largest value counted.
+     *
+     * @return the largest value counted or 0 if there are none.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the value at the given percentile.
+     * <p/>
+     * The result is the largest value of the bucket holding the percentile, so it is never less than the actual value
+     * and at most {@link #getMax()}.
+     *
+     * @param percentile the percentile from 0 to 100.
+     * @return the value at the percentile or 0 if there are no values.
+     */
+    public long getValueAtPercentile(double percentile) {
+        final long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        final long rank = Math.max(1L, (long) Math.ceil(Math.min(Math.max(percentile, 0D), 100D) / 100D * total));
+        long seen = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueAt(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears all of the counted values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        max.set(0L);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long lowestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        return (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+    }
+
+    static long highestValueAt(int index) {
+        if (index == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowestValueAt(index + 1) - 1L;
+    }
+}
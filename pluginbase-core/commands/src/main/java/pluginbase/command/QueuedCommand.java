@@ -7,6 +7,7 @@ import pluginbase.messages.BundledMessage;
 import pluginbase.messages.Message;
 import pluginbase.minecraft.BasePlayer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import pluginbase.util.time.Duration;
 
 /**
@@ -37,6 +38,8 @@ public abstract class QueuedCommand<P> extends Command<P> implements Runnable {
 
     private BasePlayer sender;
     private CommandContext context;
+    @Nullable
+    private volatile ExpirationWheel.Expiration expiration;
 
     /**
      * This method should return a user friendly message explaining that this command
@@ -53,16 +56,33 @@ public abstract class QueuedCommand<P> extends Command<P> implements Runnable {
         return CommandHandler.MUST_CONFIRM.bundle(Duration.valueOf(getExpirationDuration()).asVerboseString());
     }
 
+    /**
+     * Confirms the command, which must already have been removed from the queue.
+     */
     final void confirm() {
+        cancelExpiration();
         getCommandProvider().getLog().finer("Confirming queued command '%s' for '%s' with '%s'", this, sender, context);
         onConfirm(sender, context);
-        getCommandProvider().getCommandHandler().removedQueuedCommand(sender, this);
     }
 
     private void expire() {
+        // Only a command still in the queue expires, as it may have been confirmed or replaced in the meantime.
+        if (!getCommandProvider().getCommandHandler().removedQueuedCommand(sender, this)) {
+            return;
+        }
         getCommandProvider().getLog().finer("Expiring queued command '%s' for '%s' with '%s'", this, sender, context);
         onExpire(sender, context);
-        getCommandProvider().getCommandHandler().removedQueuedCommand(sender, this);
+    }
+
+    final void cancelExpiration() {
+        final ExpirationWheel.Expiration expiration = this.expiration;
+        if (expiration != null) {
+            expiration.cancel();
+        }
+    }
+
+    final void setExpiration(@Nullable final ExpirationWheel.Expiration expiration) {
+        this.expiration = expiration;
     }
 
     /**
@@ -116,7 +136,8 @@ public abstract class QueuedCommand<P> extends Command<P> implements Runnable {
     }
 
     /**
-     * This will cause the expiration of the queued command.
+     * This will cause the expiration of the queued command unless it has already been confirmed or replaced by
+     * another queued command.
      * <p/>
      * This is mostly for use internally.
      */
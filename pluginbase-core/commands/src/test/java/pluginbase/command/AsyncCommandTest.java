@@ -0,0 +1,226 @@
+package pluginbase.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.command.TestCommandProvider.TestPlayer;
+import pluginbase.messages.BundledMessage;
+import pluginbase.messages.Message;
+import pluginbase.minecraft.BasePlayer;
+import pluginbase.permission.Perm;
+import pluginbase.permission.PermFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static pluginbase.command.TestCommandProvider.runAll;
+
+public class AsyncCommandTest {
+
+    static final Message RESULT = Message.createMessage("test.result", "Result: %s");
+    static final Message FAILURE = Message.createMessage("test.failure", "Failure: %s");
+    static final Perm ASYNC_PERM;
+
+    static {
+        PermFactory.useBasicPermissionFactory();
+        PermFactory.registerPermissionName(AsyncCommandTest.class, "asynctest");
+        ASYNC_PERM = PermFactory.newPerm(AsyncCommandTest.class, "lookup").build();
+    }
+
+    static volatile BasePlayer lastSender;
+
+    File dataFolder;
+    TestCommandProvider provider;
+    CommandHandler handler;
+    TestPlayer player;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFolder = Files.createTempDirectory("commands").toFile();
+        provider = new TestCommandProvider(dataFolder);
+        handler = provider.getCommandHandler();
+        handler.registerCommand(LookupCommand.class);
+        player = new TestPlayer("player");
+        player.permissions.add(ASYNC_PERM.getName());
+        lastSender = null;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.getLog().shutdown();
+        File[] files = dataFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dataFolder.delete();
+    }
+
+    @CommandInfo(primaryAlias = "lookup", desc = "Looks something up.", usage = "<result|false|fail|crash>", min = 1, max = 1, async = true)
+    static class LookupCommand extends Command {
+        LookupCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+
+        @Nullable
+        @Override
+        public Perm getPerm() {
+            return ASYNC_PERM;
+        }
+
+        @Nullable
+        @Override
+        public Message getHelp() {
+            return null;
+        }
+
+        @Override
+        public boolean runCommand(@NotNull BasePlayer sender, @NotNull CommandContext context) throws CommandException {
+            lastSender = sender;
+            String arg = context.getString(0);
+            if (arg.equals("false")) {
+                return false;
+            } else if (arg.equals("fail")) {
+                throw new CommandException(FAILURE.bundle(arg));
+            } else if (arg.equals("crash")) {
+                throw new IllegalStateException("crashed");
+            } else if (arg.equals("error")) {
+                throw new AssertionError("errored");
+            }
+            messageOnMainThread(sender, RESULT, arg);
+            return true;
+        }
+    }
+
+    @CommandInfo(primaryAlias = "queued", desc = "A queued command.", async = true)
+    static class AsyncQueuedCommand extends QueuedCommand {
+        AsyncQueuedCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+
+        @Nullable
+        @Override
+        public Perm getPerm() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Message getHelp() {
+            return null;
+        }
+
+        @Override
+        public long getExpirationDuration() {
+            return 10;
+        }
+
+        @Override
+        protected boolean preConfirm(@NotNull BasePlayer sender, @NotNull CommandContext context) {
+            return true;
+        }
+
+        @Override
+        protected void onConfirm(@NotNull BasePlayer sender, @NotNull CommandContext context) { }
+
+        @Override
+        protected void onExpire(@NotNull BasePlayer sender, @NotNull CommandContext context) { }
+
+        @NotNull
+        @Override
+        protected BundledMessage getConfirmMessage() {
+            return Message.bundleMessage(CommandHandler.NO_QUEUED_COMMANDS);
+        }
+    }
+
+    @Test
+    public void testResultSentOnMainThread() throws Exception {
+        assertTrue(handler.locateAndRunCommand(player, new String[] {"test", "lookup", "found"}));
+        // Nothing has run yet.
+        assertNull(lastSender);
+        assertEquals(1, provider.asyncTasks.size());
+
+        assertEquals(1, runAll(provider.asyncTasks));
+        // The command is given the original sender.
+        assertSame(player, lastSender);
+        // The message waits for the main thread.
+        assertTrue(player.messages.isEmpty());
+
+        assertEquals(1, runAll(provider.mainThreadTasks));
+        assertEquals(Arrays.asList("Result: found"), player.messages);
+    }
+
+    @Test
+    public void testChecksAreSynchronous() throws Exception {
+        try {
+            handler.locateAndRunCommand(player, new String[] {"test", "lookup"});
+            fail("Too few arguments");
+        } catch (CommandUsageException e) {
+            assertEquals(CommandHandler.TOO_FEW_ARGUMENTS, e.getBundledMessage().getMessage());
+        }
+        player.permissions.clear();
+        assertFalse(handler.locateAndRunCommand(player, new String[] {"test", "lookup", "found"}));
+        assertEquals(1, player.messages.size());
+        assertTrue(provider.asyncTasks.isEmpty());
+    }
+
+    @Test
+    public void testUsageError() throws Exception {
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "false"});
+        runAll(provider.asyncTasks);
+        assertTrue(player.messages.isEmpty());
+        runAll(provider.mainThreadTasks);
+        assertEquals(2, player.messages.size());
+        assertTrue(player.messages.get(0).contains("Usage error"));
+        assertTrue(player.messages.get(1).contains("lookup <result|false|fail|crash>"));
+    }
+
+    @Test
+    public void testCommandException() throws Exception {
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "fail"});
+        runAll(provider.asyncTasks);
+        assertTrue(player.messages.isEmpty());
+        runAll(provider.mainThreadTasks);
+        assertEquals(Arrays.asList("Failure: fail"), player.messages);
+    }
+
+    @Test
+    public void testRuntimeException() throws Exception {
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "crash"});
+        runAll(provider.asyncTasks);
+        assertTrue(player.messages.isEmpty());
+        runAll(provider.mainThreadTasks);
+        assertEquals(1, player.messages.size());
+        assertTrue(player.messages.get(0).contains("crashed"));
+    }
+
+    @Test
+    public void testErrorReported() throws Exception {
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "error"});
+        assertEquals(1, runAll(provider.asyncTasks));
+        assertTrue(player.messages.isEmpty());
+        runAll(provider.mainThreadTasks);
+        assertEquals(1, player.messages.size());
+        assertTrue(player.messages.get(0).contains("errored"));
+    }
+
+    @Test
+    public void testResultsInOrder() throws Exception {
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "first"});
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "fail"});
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "third"});
+        assertEquals(3, runAll(provider.asyncTasks));
+        assertEquals(3, runAll(provider.mainThreadTasks));
+        assertEquals(Arrays.asList("Result: first", "Failure: fail", "Result: third"), player.messages);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAsyncQueuedCommand() throws Exception {
+        handler.registerCommand(AsyncQueuedCommand.class);
+    }
+}
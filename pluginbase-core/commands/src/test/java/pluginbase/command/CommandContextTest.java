@@ -0,0 +1,257 @@
+package pluginbase.command;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CommandContextTest {
+
+    static final Set<Character> VALUE_FLAGS = new HashSet<Character>(Arrays.asList('v', 'W'));
+
+    private static CommandContext parse(String input) throws CommandException {
+        return new CommandContext(input, VALUE_FLAGS);
+    }
+
+    private static List<String> args(CommandContext context) {
+        List<String> args = new ArrayList<String>();
+        for (int i = 0; i < context.argsLength(); i++) {
+            args.add(context.getString(i));
+        }
+        return args;
+    }
+
+    @Test
+    public void testPlainArgs() throws Exception {
+        CommandContext context = parse("cmd one  two three");
+        assertEquals("cmd", context.getCommand());
+        assertTrue(context.matches("CMD"));
+        assertEquals(Arrays.asList("one", "two", "three"), args(context));
+        assertEquals("def", context.getString(3, "def"));
+        assertTrue(context.getFlags().isEmpty());
+        assertTrue(context.getValueFlags().isEmpty());
+
+        assertEquals(0, parse("cmd").argsLength());
+        assertEquals(Integer.valueOf(5), parse("cmd 5").getInteger(0));
+    }
+
+    @Test
+    public void testQuotes() throws Exception {
+        assertEquals(Arrays.asList("one two", "three"), args(parse("cmd \"one two\" three")));
+        assertEquals(Arrays.asList("one \"two\" three"), args(parse("cmd 'one \"two\" three'")));
+        assertEquals(Arrays.asList("it's"), args(parse("cmd \"it's\"")));
+        assertEquals(Arrays.asList("single"), args(parse("cmd \"single\"")));
+        assertEquals(Arrays.asList("a\"b c"), args(parse("cmd \"a\"b c\"")));
+        // Empty quoted args are dropped.
+        assertEquals(Arrays.asList("one"), args(parse("cmd \"\" one")));
+        // Unclosed quotes are left as they are.
+        assertEquals(Arrays.asList("\"one", "two"), args(parse("cmd \"one two")));
+        assertEquals(Arrays.asList("'one", "two\""), args(parse("cmd 'one two\"")));
+        assertEquals(Arrays.asList("\""), args(parse("cmd \"")));
+        // Quotes not at the start of an arg are literal.
+        assertEquals(Arrays.asList("o\"ne", "two"), args(parse("cmd o\"ne two")));
+        // Spaces within quotes are kept.
+        assertEquals(Arrays.asList("one  two"), args(parse("cmd \"one  two\"")));
+    }
+
+    @Test
+    public void testEscapes() throws Exception {
+        assertEquals(Arrays.asList("say \"hi\" now"), args(parse("cmd \"say \\\"hi\\\" now\"")));
+        assertEquals(Arrays.asList("one\\", "two"), args(parse("cmd \"one\\\\\" two")));
+        assertEquals(Arrays.asList("\"one", "two\""), args(parse("cmd \\\"one two\"")));
+        // Outside of quotes backslashes are literal.
+        assertEquals(Arrays.asList("a\\b", "c\\\""), args(parse("cmd a\\b c\\\"")));
+        // An escaped quote does not close.
+        assertEquals(Arrays.asList("\"one", "two\\\""), args(parse("cmd \"one two\\\"")));
+    }
+
+    @Test
+    public void testFlags() throws Exception {
+        CommandContext context = parse("cmd -ab one -c");
+        assertEquals(Arrays.asList("one"), args(context));
+        assertEquals(new HashSet<Character>(Arrays.asList('a', 'b', 'c')), context.getFlags());
+        assertTrue(context.hasFlag('a'));
+        assertFalse(context.hasFlag('d'));
+        assertFalse(context.getFlags().contains('d'));
+
+        // Only dashes followed by letters are flags.
+        assertEquals(Arrays.asList("-", "-1", "--", "-a1", "- a"), args(parse("cmd - -1 -- -a1 \"- a\"")));
+        assertTrue(parse("cmd - -1 -- -a1").getFlags().isEmpty());
+    }
+
+    @Test
+    public void testValueFlags() throws Exception {
+        CommandContext context = parse("cmd -v value one -aW \"two words\" three");
+        assertEquals(Arrays.asList("one", "three"), args(context));
+        assertEquals("value", context.getFlag('v'));
+        assertEquals("two words", context.getFlag('W'));
+        assertEquals("def", context.getFlag('x', "def"));
+        assertTrue(context.hasFlag('v'));
+        assertEquals(Collections.singleton('a'), context.getFlags());
+        Map<Character, String> expected = new HashMap<Character, String>();
+        expected.put('v', "value");
+        expected.put('W', "two words");
+        assertEquals(expected, context.getValueFlags());
+
+        // Value flags take the following args in order, even if they look like flags.
+        context = parse("cmd -vW -a 5");
+        assertEquals("-a", context.getFlag('v'));
+        assertEquals(Integer.valueOf(5), context.getFlagInteger('W'));
+        assertTrue(context.getFlags().isEmpty());
+
+        // Without value flags they are boolean flags.
+        context = new CommandContext("cmd -v value");
+        assertTrue(context.getFlags().contains('v'));
+        assertNull(context.getFlag('v'));
+        assertEquals(Arrays.asList("value"), args(context));
+    }
+
+    @Test
+    public void testValueFlagErrors() throws Exception {
+        try {
+            parse("cmd -v");
+            fail("Missing value");
+        } catch (CommandException e) {
+            assertEquals(CommandHandler.NO_VALUE_FOR_VALUE_FLAG, e.getBundledMessage().getMessage());
+        }
+        try {
+            parse("cmd -vW one");
+            fail("Missing second value");
+        } catch (CommandException e) {
+            assertEquals(CommandHandler.NO_VALUE_FOR_VALUE_FLAG, e.getBundledMessage().getMessage());
+            assertEquals('W', e.getBundledMessage().getArgs()[0]);
+        }
+        try {
+            parse("cmd -v one -v two");
+            fail("Value flag given twice");
+        } catch (CommandException e) {
+            assertEquals(CommandHandler.VALUE_FLAG_ALREADY_GIVEN, e.getBundledMessage().getMessage());
+        }
+    }
+
+    @Test
+    public void testImmutable() throws Exception {
+        CommandContext context = parse("cmd -a -v value");
+        try {
+            context.getFlags().add('b');
+            fail("Flags modified");
+        } catch (UnsupportedOperationException ignore) { }
+        try {
+            context.getValueFlags().put('b', "value");
+            fail("Value flags modified");
+        } catch (UnsupportedOperationException ignore) { }
+    }
+
+    @Test
+    public void testParityWithPreviousParser() throws Exception {
+        Random random = new Random(7);
+        String[] pieces = {"a", "bc", "-", "-a", "-ab", "-v", "-W", "-aW", "--", "-1", "\"", "'", " ", " ", " ", "x\"", "y'"};
+        int compared = 0;
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder input = new StringBuilder("cmd");
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                input.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String[] args = input.toString().split(" ");
+            Object expected;
+            try {
+                expected = PreviousParser.parse(args, VALUE_FLAGS);
+            } catch (StringIndexOutOfBoundsException e) {
+                // The previous parser failed on repeated spaces within quotes.
+                continue;
+            }
+            Object actual;
+            try {
+                CommandContext context = new CommandContext(args, VALUE_FLAGS);
+                actual = Arrays.asList(args(context), context.getFlags(), context.getValueFlags());
+            } catch (CommandException e) {
+                actual = e.getBundledMessage().getMessage();
+            }
+            assertEquals(input.toString(), expected, actual);
+            compared++;
+        }
+        assertTrue(compared > 50000);
+    }
+
+    /**
+     * The parser CommandContext used before it parsed in a single pass, kept to check the results are the same.
+     */
+    static final class PreviousParser {
+
+        /**
+         * @return the args, boolean flags and value flags or the message of the exception thrown.
+         */
+        static Object parse(String[] args, Set<Character> valueFlags) {
+            List<String> argList = new ArrayList<String>(args.length);
+            for (int i = 1; i < args.length; ++i) {
+                String arg = args[i];
+                if (arg.length() == 0) {
+                    continue;
+                }
+                switch (arg.charAt(0)) {
+                    case '\'':
+                    case '"':
+                        final StringBuilder build = new StringBuilder();
+                        final char quotedChar = arg.charAt(0);
+                        int endIndex;
+                        for (endIndex = i; endIndex < args.length; ++endIndex) {
+                            final String arg2 = args[endIndex];
+                            if (arg2.charAt(arg2.length() - 1) == quotedChar && arg2.length() > 1) {
+                                if (endIndex != i) build.append(' ');
+                                build.append(arg2.substring(endIndex == i ? 1 : 0, arg2.length() - 1));
+                                break;
+                            } else if (endIndex == i) {
+                                build.append(arg2.substring(1));
+                            } else {
+                                build.append(' ').append(arg2);
+                            }
+                        }
+                        if (endIndex < args.length) {
+                            arg = build.toString();
+                            i = endIndex;
+                        }
+                        if (arg.length() == 0) {
+                            continue;
+                        }
+                }
+                argList.add(arg);
+            }
+
+            List<String> parsedArgs = new ArrayList<String>(argList.size());
+            Set<Character> booleanFlags = new HashSet<Character>();
+            Map<Character, String> values = new HashMap<Character, String>();
+            for (int nextArg = 0; nextArg < argList.size(); ) {
+                String arg = argList.get(nextArg++);
+                if (arg.charAt(0) != '-' || arg.length() == 1 || !arg.matches("^-[a-zA-Z]+$")) {
+                    parsedArgs.add(arg);
+                    continue;
+                }
+                for (int i = 1; i < arg.length(); ++i) {
+                    char flagName = arg.charAt(i);
+                    if (valueFlags.contains(flagName)) {
+                        if (values.containsKey(flagName)) {
+                            return CommandHandler.VALUE_FLAG_ALREADY_GIVEN;
+                        }
+                        if (nextArg >= argList.size()) {
+                            return CommandHandler.NO_VALUE_FOR_VALUE_FLAG;
+                        }
+                        values.put(flagName, argList.get(nextArg++));
+                    } else {
+                        booleanFlags.add(flagName);
+                    }
+                }
+            }
+            return Arrays.asList(parsedArgs, booleanFlags, values);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package pluginbase.command;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.command.TestCommandProvider.TestPlayer;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static pluginbase.command.TestCommandProvider.runAll;
+
+public class CommandMetricsTest {
+
+    File dataFolder;
+    TestCommandProvider provider;
+    CommandHandler handler;
+    TestPlayer player;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFolder = Files.createTempDirectory("commands").toFile();
+        provider = new TestCommandProvider(dataFolder);
+        handler = provider.getCommandHandler();
+        handler.registerCommand(CommandRegistrationTest.PlainCommand.class);
+        handler.registerCommand(CommandRegistrationTest.SecretCommand.class);
+        handler.registerCommand(AsyncCommandTest.LookupCommand.class);
+        player = new TestPlayer("player");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.getLog().shutdown();
+        File[] files = dataFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dataFolder.delete();
+    }
+
+    private CommandMetrics.Stats stats(Class<? extends Command> commandClass) {
+        CommandMetrics.Stats stats = handler.getMetrics().getStats(commandClass);
+        assertNotNull(stats);
+        return stats;
+    }
+
+    @Test
+    public void testUses() throws Exception {
+        handler.locateAndRunCommand(player, new String[] {"test", "plain", "one"});
+        handler.locateAndRunCommand(player, new String[] {"test", "plain", "-a", "two"});
+        try {
+            handler.locateAndRunCommand(player, new String[] {"test", "plain"});
+            fail("Too few arguments");
+        } catch (CommandUsageException ignore) { }
+
+        CommandMetrics.Stats stats = stats(CommandRegistrationTest.PlainCommand.class);
+        assertEquals("test plain", stats.getName());
+        assertEquals(3, stats.getInvocations());
+        assertEquals(1, stats.getFailures());
+        assertEquals(0, stats.getPermissionDenials());
+    }
+
+    @Test
+    public void testPermissionDenied() throws Exception {
+        assertFalse(handler.locateAndRunCommand(player, new String[] {"test", "secret", "one"}));
+        CommandMetrics.Stats stats = stats(CommandRegistrationTest.SecretCommand.class);
+        assertEquals(0, stats.getInvocations());
+        assertEquals(1, stats.getPermissionDenials());
+        assertEquals(0, stats.getLatency().getCount());
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        player.permissions.add(AsyncCommandTest.ASYNC_PERM.getName());
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "found"});
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "fail"});
+        CommandMetrics.Stats stats = stats(AsyncCommandTest.LookupCommand.class);
+        // Recorded once the command has actually run.
+        assertEquals(0, stats.getInvocations());
+        runAll(provider.asyncTasks);
+        assertEquals(2, stats.getInvocations());
+        assertEquals(1, stats.getFailures());
+    }
+
+    @Test
+    public void testAllStats() throws Exception {
+        handler.locateAndRunCommand(player, new String[] {"test", "plain", "one"});
+        List<CommandMetrics.Stats> all = handler.getMetrics().getAllStats();
+        assertEquals(3, all.size());
+        assertEquals("test plain", all.get(0).getName());
+        assertEquals("test lookup", all.get(1).getName());
+        assertEquals("test secret", all.get(2).getName());
+
+        handler.getMetrics().reset();
+        assertEquals(0, stats(CommandRegistrationTest.PlainCommand.class).getInvocations());
+    }
+
+    @Test
+    public void testLatencyOnlyWhenTracked() throws Exception {
+        assertFalse(handler.getMetrics().isLatencyTracked());
+        handler.locateAndRunCommand(player, new String[] {"test", "plain", "one"});
+        CommandMetrics.Stats stats = stats(CommandRegistrationTest.PlainCommand.class);
+        assertEquals(1, stats.getInvocations());
+        assertEquals(0, stats.getLatency().getCount());
+
+        handler.getMetrics().setLatencyTracked(true);
+        handler.locateAndRunCommand(player, new String[] {"test", "plain", "two"});
+        player.permissions.add(AsyncCommandTest.ASYNC_PERM.getName());
+        handler.locateAndRunCommand(player, new String[] {"test", "lookup", "found"});
+        runAll(provider.asyncTasks);
+        assertEquals(2, stats.getInvocations());
+        assertEquals(1, stats.getLatency().getCount());
+        assertEquals(1, stats(AsyncCommandTest.LookupCommand.class).getLatency().getCount());
+
+        handler.getMetrics().setLatencyTracked(false);
+        handler.locateAndRunCommand(player, new String[] {"test", "plain", "three"});
+        assertEquals(3, stats.getInvocations());
+        assertEquals(1, stats.getLatency().getCount());
+
+        handler.getMetrics().reset();
+        assertEquals(0, stats.getLatency().getCount());
+    }
+
+    @Test
+    public void testRecording() throws Exception {
+        CommandMetrics.Stats stats = new CommandMetrics.Stats(CommandRegistrationTest.PlainCommand.class, "plain");
+        stats.record(true);
+        stats.record(false);
+        stats.record(true);
+        stats.permissionDenied();
+        assertEquals(3, stats.getInvocations());
+        assertEquals(1, stats.getFailures());
+        assertEquals(1, stats.getPermissionDenials());
+        assertEquals(0, stats.getLatency().getCount());
+
+        stats.recordLatency(1000L);
+        assertEquals(1, stats.getLatency().getCount());
+        assertEquals(3, stats.getInvocations());
+    }
+}
@@ -0,0 +1,275 @@
+package pluginbase.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.command.TestCommandProvider.TestPlayer;
+import pluginbase.messages.BundledMessage;
+import pluginbase.messages.Message;
+import pluginbase.minecraft.BasePlayer;
+import pluginbase.permission.Perm;
+import pluginbase.permission.PermFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CommandRegistrationTest {
+
+    static int created = 0;
+    static CommandContext lastContext = null;
+
+    File dataFolder;
+    TestCommandProvider provider;
+    CommandHandler handler;
+    TestPlayer player;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFolder = Files.createTempDirectory("commands").toFile();
+        provider = new TestCommandProvider(dataFolder);
+        handler = provider.getCommandHandler();
+        player = new TestPlayer("player");
+        created = 0;
+        lastContext = null;
+        changingPerm = null;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.getLog().shutdown();
+        deleteAll(dataFolder);
+    }
+
+    private static void deleteAll(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                deleteAll(child);
+            }
+        }
+        file.delete();
+    }
+
+    @CommandInfo(primaryAlias = "plain", desc = "A plain command.", usage = "<thing>", flags = "ab:c", min = 1, max = 2)
+    static class PlainCommand extends Command {
+        PlainCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+            created++;
+        }
+
+        @Nullable
+        @Override
+        public Perm getPerm() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Message getHelp() {
+            return null;
+        }
+
+        @Override
+        public boolean runCommand(@NotNull BasePlayer sender, @NotNull CommandContext context) {
+            lastContext = context;
+            return true;
+        }
+    }
+
+    @CommandInfo(primaryAlias = "single", desc = "A singleton command.", singleton = true)
+    static class SingletonCommand extends PlainCommand {
+        SingletonCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+    }
+
+    @CommandInfo(primaryAlias = "asyncsingle", desc = "An asynchronous singleton command.", singleton = true, async = true)
+    static class AsyncSingletonCommand extends PlainCommand {
+        AsyncSingletonCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+    }
+
+    static final Perm SECRET_PERM;
+
+    static {
+        PermFactory.useBasicPermissionFactory();
+        PermFactory.registerPermissionName(CommandRegistrationTest.class, "test");
+        SECRET_PERM = PermFactory.newPerm(CommandRegistrationTest.class, "secret").build();
+    }
+
+    @CommandInfo(primaryAlias = "secret", desc = "A command requiring permission.", singleton = true)
+    static class SecretCommand extends PlainCommand {
+        SecretCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+
+        @Nullable
+        @Override
+        public Perm getPerm() {
+            return SECRET_PERM;
+        }
+    }
+
+    static Perm changingPerm = null;
+
+    @CommandInfo(primaryAlias = "changing", desc = "A command whose permission changes.")
+    static class ChangingPermCommand extends PlainCommand {
+        ChangingPermCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+
+        @Nullable
+        @Override
+        public Perm getPerm() {
+            return changingPerm;
+        }
+    }
+
+    @CommandInfo(primaryAlias = "queued", desc = "A queued singleton.", singleton = true)
+    static class QueuedSingletonCommand extends QueuedCommand {
+        QueuedSingletonCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+
+        @Nullable
+        @Override
+        public Perm getPerm() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Message getHelp() {
+            return null;
+        }
+
+        @Override
+        public long getExpirationDuration() {
+            return 10;
+        }
+
+        @Override
+        protected boolean preConfirm(@NotNull BasePlayer sender, @NotNull CommandContext context) {
+            return true;
+        }
+
+        @Override
+        protected void onConfirm(@NotNull BasePlayer sender, @NotNull CommandContext context) { }
+
+        @Override
+        protected void onExpire(@NotNull BasePlayer sender, @NotNull CommandContext context) { }
+
+        @NotNull
+        @Override
+        protected BundledMessage getConfirmMessage() {
+            return Message.bundleMessage(CommandHandler.NO_QUEUED_COMMANDS);
+        }
+    }
+
+    @Test
+    public void testCommandInstances() throws Exception {
+        assertTrue(handler.registerCommand(PlainCommand.class));
+        assertTrue(handler.registerCommand(SingletonCommand.class));
+        int registrationInstances = created;
+
+        Command plain = handler.getCommand(new String[] {"test", "plain"});
+        assertTrue(plain instanceof PlainCommand);
+        assertTrue(plain != handler.getCommand(new String[] {"test", "plain"}));
+        assertEquals(registrationInstances + 2, created);
+
+        Command single = handler.getCommand(new String[] {"test", "single"});
+        assertTrue(single instanceof SingletonCommand);
+        assertSame(single, handler.getCommand(new String[] {"test", "single"}));
+        assertTrue(handler.locateAndRunCommand(player, new String[] {"test", "single"}));
+        assertEquals(registrationInstances + 2, created);
+
+        assertTrue(handler.getCommand(new String[] {"test"}) instanceof DirectoryCommand);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testQueuedSingleton() throws Exception {
+        handler.registerCommand(QueuedSingletonCommand.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAsyncSingleton() throws Exception {
+        handler.registerCommand(AsyncSingletonCommand.class);
+    }
+
+    @Test
+    public void testFlagsAndArguments() throws Exception {
+        handler.registerCommand(PlainCommand.class);
+        assertTrue(handler.locateAndRunCommand(player, new String[] {"test", "plain", "-a", "-b", "value", "thing"}));
+        assertTrue(lastContext.hasFlag('a'));
+        assertEquals("value", lastContext.getFlag('b'));
+        assertFalse(lastContext.hasFlag('c'));
+        assertEquals(1, lastContext.argsLength());
+        assertEquals("thing", lastContext.getString(0));
+
+        try {
+            handler.locateAndRunCommand(player, new String[] {"test", "plain"});
+            fail("Too few arguments");
+        } catch (CommandUsageException e) {
+            assertEquals(CommandHandler.TOO_FEW_ARGUMENTS, e.getBundledMessage().getMessage());
+        }
+        try {
+            handler.locateAndRunCommand(player, new String[] {"test", "plain", "1", "2", "3"});
+            fail("Too many arguments");
+        } catch (CommandUsageException e) {
+            assertEquals(CommandHandler.TOO_MANY_ARGUMENTS, e.getBundledMessage().getMessage());
+        }
+        try {
+            handler.locateAndRunCommand(player, new String[] {"test", "plain", "-d", "thing"});
+            fail("Unknown flag");
+        } catch (CommandUsageException e) {
+            assertEquals(CommandHandler.UNKNOWN_FLAG, e.getBundledMessage().getMessage());
+        }
+    }
+
+    @Test
+    public void testPermission() throws Exception {
+        handler.registerCommand(SecretCommand.class);
+        assertFalse(handler.locateAndRunCommand(player, new String[] {"test", "secret"}));
+        assertEquals(1, player.messages.size());
+        assertNull(lastContext);
+
+        player.permissions.add(SECRET_PERM.getName());
+        assertTrue(handler.locateAndRunCommand(player, new String[] {"test", "secret"}));
+        assertNotNull(lastContext);
+    }
+
+    @Test
+    public void testPermissionReadWhenRun() throws Exception {
+        handler.registerCommand(ChangingPermCommand.class);
+        assertTrue(handler.locateAndRunCommand(player, new String[] {"test", "changing"}));
+
+        changingPerm = SECRET_PERM;
+        lastContext = null;
+        assertFalse(handler.locateAndRunCommand(player, new String[] {"test", "changing"}));
+        assertNull(lastContext);
+        assertFalse(handler.tabComplete(player, new String[] {"test", "c"}).contains("changing"));
+
+        player.permissions.add(SECRET_PERM.getName());
+        assertTrue(handler.locateAndRunCommand(player, new String[] {"test", "changing"}));
+        assertTrue(handler.tabComplete(player, new String[] {"test", "c"}).contains("changing"));
+    }
+
+    @Test
+    public void testTabComplete() throws Exception {
+        handler.registerCommand(PlainCommand.class);
+        handler.registerCommand(SingletonCommand.class);
+        handler.registerCommand(SecretCommand.class);
+        assertEquals(Arrays.asList("single"), handler.tabComplete(player, new String[] {"test", "S"}));
+        assertEquals(Arrays.asList("confirm", "plain", "single"), handler.tabComplete(player, new String[] {"test", ""}));
+        player.permissions.add(SECRET_PERM.getName());
+        assertEquals(Arrays.asList("secret", "single"), handler.tabComplete(player, new String[] {"test", "s"}));
+        assertTrue(handler.tabComplete(player, new String[] {"test", "single"}).isEmpty());
+        assertTrue(handler.tabComplete(player, new String[] {"test", "x"}).isEmpty());
+    }
+}
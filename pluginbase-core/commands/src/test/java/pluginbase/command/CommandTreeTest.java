@@ -3,7 +3,11 @@ package pluginbase.command;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -135,4 +139,154 @@ public class CommandTreeTest {
         String[] args = commandTree.joinArgsForKnownCommands(new String[] {"unused", "second"});
         assertArrayEquals(new String[] {"unused second"}, args);
     }
+
+    @Test
+    public void testMixedCase() throws Exception {
+        commandTree.registerKeysForAlias("Mixed Case");
+        assertArrayEquals(new String[] {"mixed case", "Arg"}, commandTree.joinArgsForKnownCommands(new String[] {"MIXED", "case", "Arg"}));
+        assertArrayEquals(new String[] {"parent child", "one"}, commandTree.joinArgsForKnownCommands(new String[] {"Parent", "CHILD", "one"}));
+    }
+
+    @Test
+    public void testUnknownArgs() throws Exception {
+        String[] args = {"Unknown", "args"};
+        assertSame(args, commandTree.joinArgsForKnownCommands(args));
+        // Prefixes of known tokens are not known tokens.
+        assertArrayEquals(new String[] {"pare", "child"}, commandTree.joinArgsForKnownCommands(new String[] {"pare", "child"}));
+        assertArrayEquals(new String[] {"parent", "chil"}, commandTree.joinArgsForKnownCommands(new String[] {"parent", "chil"}));
+        assertArrayEquals(new String[] {"parent", "children"}, commandTree.joinArgsForKnownCommands(new String[] {"parent", "children"}));
+    }
+
+    @Test
+    public void testGetTreeAt() throws Exception {
+        assertNull(commandTree.getTreeAt("test"));
+        assertNull(commandTree.getTreeAt("nothing"));
+        CommandTree parent = commandTree.getTreeAt("parent");
+        assertEquals("parent", parent.getName());
+        assertTrue(parent.isCommand());
+        assertTrue(parent.isDirectory());
+        CommandTree unused = commandTree.getTreeAt("UNUSED");
+        assertFalse(unused.isCommand());
+        assertEquals(new ArrayList<String>(Arrays.asList("unused first", "unused second")),
+                new ArrayList<String>(unused.getSubCommandSet()));
+        assertEquals(new ArrayList<String>(Arrays.asList("parent child baby")),
+                new ArrayList<String>(commandTree.getTreeAt("parent child").getSubCommandSet()));
+    }
+
+    private static List<String> tokens(List<CommandTree> trees) {
+        List<String> tokens = new ArrayList<String>(trees.size());
+        for (CommandTree tree : trees) {
+            tokens.add(tree.getToken());
+        }
+        return tokens;
+    }
+
+    @Test
+    public void testCompletion() throws Exception {
+        commandTree.registerKeysForAlias("parent chat");
+        commandTree.registerKeysForAlias("parent c");
+        commandTree.registerKeysForAlias("parent childish");
+        CommandTree parent = commandTree.getTreeAt("parent");
+        assertEquals(Arrays.asList("c", "chat", "child", "childish"), tokens(parent.getSubTreesStartingWith("")));
+        assertEquals(Arrays.asList("c", "chat", "child", "childish"), tokens(parent.getSubTreesStartingWith("c")));
+        assertEquals(Arrays.asList("chat", "child", "childish"), tokens(parent.getSubTreesStartingWith("ch")));
+        assertEquals(Arrays.asList("child", "childish"), tokens(parent.getSubTreesStartingWith("child")));
+        assertEquals(Arrays.asList("childish"), tokens(parent.getSubTreesStartingWith("childi")));
+        assertTrue(parent.getSubTreesStartingWith("x").isEmpty());
+        assertTrue(parent.getSubTreesStartingWith("childx").isEmpty());
+
+        CommandTree child = parent.getSubTreesStartingWith("child").get(0);
+        assertEquals("parent child", child.getName());
+        assertTrue(child.isCommand());
+        assertTrue(child.isDirectory());
+        assertEquals(Arrays.asList("parent", "test", "two", "unused"), tokens(commandTree.getSubTreesStartingWith("")));
+        assertEquals(Arrays.asList("test", "two"), tokens(commandTree.getSubTreesStartingWith("t")));
+    }
+
+    @Test
+    public void testAliases() throws Exception {
+        commandTree.registerAliasForPath("p", "parent");
+        commandTree.registerAliasForPath("kid", "parent child");
+        commandTree.registerAliasForPath("parent kiddo", "parent child");
+
+        assertArrayEquals(new String[] {"parent"}, commandTree.joinArgsForKnownCommands(new String[] {"p"}));
+        assertArrayEquals(new String[] {"parent child baby", "one"}, commandTree.joinArgsForKnownCommands(new String[] {"p", "child", "baby", "one"}));
+        assertArrayEquals(new String[] {"parent child baby"}, commandTree.joinArgsForKnownCommands(new String[] {"kid", "baby"}));
+        assertArrayEquals(new String[] {"parent child", "one"}, commandTree.joinArgsForKnownCommands(new String[] {"p", "kiddo", "one"}));
+
+        // Commands registered later under the aliased path are reachable through the alias.
+        commandTree.registerKeysForAlias("parent child toddler");
+        assertArrayEquals(new String[] {"parent child toddler"}, commandTree.joinArgsForKnownCommands(new String[] {"kid", "toddler"}));
+        // And registering through an alias registers under the aliased path.
+        commandTree.registerKeysForAlias("p newborn");
+        assertArrayEquals(new String[] {"parent newborn"}, commandTree.joinArgsForKnownCommands(new String[] {"parent", "newborn"}));
+
+        assertEquals("parent", commandTree.getTreeAt("p").getName());
+        assertEquals(Arrays.asList("child", "kiddo", "newborn"), tokens(commandTree.getTreeAt("p").getSubTreesStartingWith("")));
+        CommandTree kiddo = commandTree.getTreeAt("parent").getSubTreesStartingWith("k").get(0);
+        assertEquals("parent kiddo", kiddo.getName());
+        assertEquals("parent child", kiddo.getResolvedName());
+        assertTrue(kiddo.isDirectory());
+
+        commandTree.registerAliasForPath("p", "parent");
+        try {
+            commandTree.registerAliasForPath("p", "test");
+            fail("Alias registered twice");
+        } catch (IllegalArgumentException ignore) { }
+        try {
+            commandTree.registerAliasForPath("test", "parent");
+            fail("Alias registered over a command");
+        } catch (IllegalArgumentException ignore) { }
+        try {
+            commandTree.registerAliasForPath("nothing", "missing");
+            fail("Alias registered for a missing path");
+        } catch (IllegalArgumentException ignore) { }
+    }
+
+    @Test
+    public void testCompletionWithManyCommands() throws Exception {
+        CommandTree tree = new CommandTree();
+        Random random = new Random(42);
+        List<String> allSubCommands = new ArrayList<String>();
+        String[] directories = new String[50];
+        for (int i = 0; i < directories.length; i++) {
+            directories[i] = "dir" + i;
+        }
+        // 5k commands named from a small alphabet so that they share long prefixes.
+        while (allSubCommands.size() < 5000) {
+            StringBuilder name = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int i = 0; i < length; i++) {
+                name.append((char) ('a' + random.nextInt(4)));
+            }
+            String directory = directories[random.nextInt(directories.length)];
+            String alias = directory + " " + name;
+            if (!allSubCommands.contains(alias)) {
+                allSubCommands.add(alias);
+                tree.registerKeysForAlias(alias);
+            }
+        }
+
+        List<String[]> queries = new ArrayList<String[]>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder prefix = new StringBuilder();
+            int length = random.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                prefix.append((char) ('a' + random.nextInt(4)));
+            }
+            queries.add(new String[] {directories[random.nextInt(directories.length)], prefix.toString()});
+        }
+
+        // Checked against a scan of every command.
+        for (String[] query : queries) {
+            List<String> expected = new ArrayList<String>();
+            for (String alias : allSubCommands) {
+                if (alias.startsWith(query[0] + " " + query[1])) {
+                    expected.add(alias.substring(query[0].length() + 1));
+                }
+            }
+            Collections.sort(expected);
+            assertEquals(expected, tokens(tree.getTreeAt(query[0]).getSubTreesStartingWith(query[1])));
+        }
+    }
 }
@@ -0,0 +1,197 @@
+package pluginbase.command;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ExpirationWheelTest {
+
+    /**
+     * Records the tick of the wheel at which it runs.
+     */
+    static final class Recorder implements Runnable {
+        final ExpirationWheel wheel;
+        long expiredAt = -1L;
+        int runs = 0;
+
+        Recorder(ExpirationWheel wheel) {
+            this.wheel = wheel;
+        }
+
+        @Override
+        public void run() {
+            expiredAt = wheel.getCurrentTick();
+            runs++;
+        }
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        assertEquals(ExpirationWheel.DEFAULT_SIZE, ExpirationWheel.DEFAULT_SIZE & -ExpirationWheel.DEFAULT_SIZE);
+        try {
+            new ExpirationWheel(0);
+            fail("Empty wheel");
+        } catch (IllegalArgumentException ignore) { }
+        // A size that is not a power of two still expires at the right ticks.
+        ExpirationWheel wheel = new ExpirationWheel(3);
+        Recorder recorder = new Recorder(wheel);
+        wheel.schedule(recorder, 11);
+        for (int i = 0; i < 20; i++) {
+            wheel.tick();
+        }
+        assertEquals(11, recorder.expiredAt);
+    }
+
+    @Test
+    public void testExpiresAtDeadline() throws Exception {
+        ExpirationWheel wheel = new ExpirationWheel(8);
+        Recorder soon = new Recorder(wheel);
+        Recorder later = new Recorder(wheel);
+        Recorder now = new Recorder(wheel);
+        assertEquals(5, wheel.schedule(soon, 5).getDeadline());
+        // Several turns of the wheel away.
+        assertEquals(21, wheel.schedule(later, 21).getDeadline());
+        assertEquals(1, wheel.schedule(now, 0).getDeadline());
+        assertEquals(3, wheel.size());
+
+        wheel.tick();
+        assertEquals(1, now.expiredAt);
+        for (int i = 1; i < 5; i++) {
+            assertEquals(-1, soon.expiredAt);
+            wheel.tick();
+        }
+        assertEquals(5, soon.expiredAt);
+        while (wheel.getCurrentTick() < 30) {
+            wheel.tick();
+        }
+        assertEquals(21, later.expiredAt);
+        assertEquals(1, later.runs);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testDelayFromCurrentTick() throws Exception {
+        ExpirationWheel wheel = new ExpirationWheel(4);
+        for (int i = 0; i < 10; i++) {
+            wheel.tick();
+        }
+        Recorder recorder = new Recorder(wheel);
+        assertEquals(17, wheel.schedule(recorder, 7).getDeadline());
+        for (int i = 0; i < 10; i++) {
+            wheel.tick();
+        }
+        assertEquals(17, recorder.expiredAt);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        ExpirationWheel wheel = new ExpirationWheel(8);
+        Recorder cancelled = new Recorder(wheel);
+        Recorder kept = new Recorder(wheel);
+        ExpirationWheel.Expiration expiration = wheel.schedule(cancelled, 3);
+        wheel.schedule(kept, 3);
+        wheel.tick();
+        assertTrue(expiration.cancel());
+        assertTrue(expiration.isCancelled());
+        assertFalse(expiration.cancel());
+        assertEquals(1, wheel.size());
+        for (int i = 0; i < 5; i++) {
+            wheel.tick();
+        }
+        assertEquals(0, cancelled.runs);
+        assertEquals(1, kept.runs);
+        // Cancelling after running does nothing.
+        ExpirationWheel.Expiration ran = wheel.schedule(kept, 1);
+        wheel.tick();
+        assertFalse(ran.cancel());
+        assertFalse(ran.isCancelled());
+        assertEquals(2, kept.runs);
+    }
+
+    @Test
+    public void testExceptionsDoNotStopOthers() throws Exception {
+        ExpirationWheel wheel = new ExpirationWheel(8);
+        Recorder recorder = new Recorder(wheel);
+        wheel.schedule(() -> { throw new IllegalStateException("first"); }, 2);
+        wheel.schedule(recorder, 2);
+        wheel.schedule(() -> { throw new IllegalStateException("second"); }, 2);
+        wheel.tick();
+        try {
+            wheel.tick();
+            fail("Exceptions swallowed");
+        } catch (IllegalStateException e) {
+            assertEquals("first", e.getMessage());
+            assertEquals(1, e.getSuppressed().length);
+        }
+        assertEquals(2, recorder.expiredAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testManyExpirations() throws Exception {
+        ExpirationWheel wheel = new ExpirationWheel();
+        Random random = new Random(21);
+        int count = 100000;
+        int maxDelay = 20 * 60;
+        long[] deadlines = new long[count];
+        final long[] expiredAt = new long[count];
+        final AtomicInteger expired = new AtomicInteger();
+        List<ExpirationWheel.Expiration> cancelled = new ArrayList<ExpirationWheel.Expiration>();
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            deadlines[i] = 1 + random.nextInt(maxDelay);
+            ExpirationWheel.Expiration expiration = wheel.schedule(() -> {
+                expiredAt[index] = wheel.getCurrentTick();
+                expired.incrementAndGet();
+            }, deadlines[i]);
+            if (i % 10 == 0) {
+                cancelled.add(expiration);
+            }
+        }
+        for (ExpirationWheel.Expiration expiration : cancelled) {
+            expiration.cancel();
+        }
+        assertEquals(count - cancelled.size(), wheel.size());
+
+        for (int tick = 0; tick <= maxDelay; tick++) {
+            wheel.tick();
+        }
+        assertEquals(count - cancelled.size(), expired.get());
+        assertEquals(0, wheel.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 10 == 0 ? 0L : deadlines[i], expiredAt[i]);
+        }
+    }
+
+    @Test
+    public void testConcurrentScheduling() throws Exception {
+        final ExpirationWheel wheel = new ExpirationWheel(16);
+        final AtomicInteger expired = new AtomicInteger();
+        final int threads = 4;
+        final int perThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    wheel.schedule(expired::incrementAndGet, 1 + i % 50);
+                }
+                done.countDown();
+            }).start();
+        }
+        // Tick while the other threads schedule.
+        while (done.getCount() > 0) {
+            wheel.tick();
+        }
+        for (int i = 0; i < 60; i++) {
+            wheel.tick();
+        }
+        assertEquals(threads * perThread, expired.get());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,84 @@
+package pluginbase.command;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() throws Exception {
+        // Every value falls within its bucket and the buckets are contiguous.
+        long previousHighest = -1L;
+        for (int index = 0; index < 200; index++) {
+            long lowest = LatencyHistogram.lowestValueAt(index);
+            long highest = LatencyHistogram.highestValueAt(index);
+            assertEquals(previousHighest + 1, lowest);
+            assertEquals(index, LatencyHistogram.indexOf(lowest));
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            previousHighest = highest;
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(Long.MAX_VALUE)));
+
+        Random random = new Random(3);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowestValueAt(index) <= value);
+            assertTrue(LatencyHistogram.highestValueAt(index) >= value);
+            // The width of a bucket is at most 1/SUB_BUCKETS of its values.
+            long width = LatencyHistogram.highestValueAt(index) - LatencyHistogram.lowestValueAt(index) + 1;
+            assertTrue(width == 1 || width <= LatencyHistogram.lowestValueAt(index) / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getValueAtPercentile(50D));
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000L);
+        }
+        assertEquals(1000L, histogram.getCount());
+        assertEquals(1000000L, histogram.getMax());
+        assertWithin(500000L, histogram.getValueAtPercentile(50D));
+        assertWithin(990000L, histogram.getValueAtPercentile(99D));
+        assertEquals(1000000L, histogram.getValueAtPercentile(100D));
+        assertWithin(1000L, histogram.getValueAtPercentile(0D));
+
+        histogram.record(-5L);
+        assertEquals(0L, histogram.getValueAtPercentile(0D));
+
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMax());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " ~ " + actual, actual >= expected);
+        assertTrue(expected + " ~ " + actual, actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final int perThread = 100000;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    histogram.record(i + offset);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * (long) perThread, histogram.getCount());
+        assertEquals(perThread - 1 + threads.length - 1, histogram.getMax());
+    }
+}
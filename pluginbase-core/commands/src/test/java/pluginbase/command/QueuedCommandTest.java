@@ -0,0 +1,160 @@
+package pluginbase.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.command.TestCommandProvider.TestPlayer;
+import pluginbase.messages.BundledMessage;
+import pluginbase.messages.Message;
+import pluginbase.minecraft.BasePlayer;
+import pluginbase.permission.Perm;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class QueuedCommandTest {
+
+    static final AtomicInteger confirmed = new AtomicInteger();
+    static final AtomicInteger expired = new AtomicInteger();
+
+    File dataFolder;
+    TestCommandProvider provider;
+    CommandHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFolder = Files.createTempDirectory("commands").toFile();
+        provider = new TestCommandProvider(dataFolder);
+        handler = provider.getCommandHandler();
+        handler.registerCommand(ConfirmedCommand.class);
+        confirmed.set(0);
+        expired.set(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.getLog().shutdown();
+        File[] files = dataFolder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dataFolder.delete();
+    }
+
+    @CommandInfo(primaryAlias = "confirmed", desc = "Needs confirmation.")
+    static class ConfirmedCommand extends QueuedCommand {
+        ConfirmedCommand(@NotNull CommandProvider commandProvider) {
+            super(commandProvider);
+        }
+
+        @Nullable
+        @Override
+        public Perm getPerm() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Message getHelp() {
+            return null;
+        }
+
+        @Override
+        public long getExpirationDuration() {
+            return 2;
+        }
+
+        @Override
+        protected boolean preConfirm(@NotNull BasePlayer sender, @NotNull CommandContext context) {
+            return true;
+        }
+
+        @Override
+        protected void onConfirm(@NotNull BasePlayer sender, @NotNull CommandContext context) {
+            confirmed.incrementAndGet();
+        }
+
+        @Override
+        protected void onExpire(@NotNull BasePlayer sender, @NotNull CommandContext context) {
+            expired.incrementAndGet();
+        }
+
+        @NotNull
+        @Override
+        protected BundledMessage getConfirmMessage() {
+            return Message.bundleMessage(CommandHandler.NO_QUEUED_COMMANDS);
+        }
+    }
+
+    private void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            handler.tickQueuedCommandExpirations();
+        }
+    }
+
+    @Test
+    public void testExpires() throws Exception {
+        TestPlayer player = new TestPlayer("player");
+        handler.locateAndRunCommand(player, new String[] {"test", "confirmed"});
+        tick(39);
+        assertEquals(0, expired.get());
+        tick(1);
+        assertEquals(1, expired.get());
+        assertFalse(handler.confirmCommand(player));
+        tick(100);
+        assertEquals(1, expired.get());
+        assertEquals(0, confirmed.get());
+    }
+
+    @Test
+    public void testConfirmCancelsExpiration() throws Exception {
+        TestPlayer player = new TestPlayer("player");
+        handler.locateAndRunCommand(player, new String[] {"test", "confirmed"});
+        tick(10);
+        assertTrue(handler.confirmCommand(player));
+        assertFalse(handler.confirmCommand(player));
+        tick(100);
+        assertEquals(1, confirmed.get());
+        assertEquals(0, expired.get());
+    }
+
+    @Test
+    public void testReplacedCommandDoesNotExpire() throws Exception {
+        TestPlayer player = new TestPlayer("player");
+        handler.locateAndRunCommand(player, new String[] {"test", "confirmed"});
+        tick(20);
+        handler.locateAndRunCommand(player, new String[] {"test", "confirmed"});
+        tick(20);
+        assertEquals(0, expired.get());
+        tick(20);
+        assertEquals(1, expired.get());
+    }
+
+    @Test
+    public void testConfirmRacesExpiration() throws Exception {
+        final int players = 2000;
+        final TestPlayer[] senders = new TestPlayer[players];
+        for (int i = 0; i < players; i++) {
+            senders[i] = new TestPlayer("player" + i);
+            handler.locateAndRunCommand(senders[i], new String[] {"test", "confirmed"});
+        }
+        tick(39);
+        Thread confirmer = new Thread(() -> {
+            for (TestPlayer sender : senders) {
+                handler.confirmCommand(sender);
+            }
+        });
+        confirmer.start();
+        tick(1);
+        confirmer.join();
+        // Every command was either confirmed or expired, never both.
+        assertEquals(players, confirmed.get() + expired.get());
+    }
+}
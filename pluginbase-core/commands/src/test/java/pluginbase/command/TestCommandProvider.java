@@ -0,0 +1,191 @@
+package pluginbase.command;
+
+import org.jetbrains.annotations.NotNull;
+import pluginbase.logging.PluginLogger;
+import pluginbase.messages.LocalizablePlugin;
+import pluginbase.messages.Message;
+import pluginbase.messages.MessageProvider;
+import pluginbase.messages.messaging.Messager;
+import pluginbase.messages.messaging.Messaging;
+import pluginbase.minecraft.BasePlayer;
+import ninja.leaping.configurate.loader.ConfigurationLoader;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * A command provider for tests whose command handler registers commands without a server and whose messages are
+ * simply their formatted defaults.
+ * <p/>
+ * Tasks for asynchronous commands and for the main thread are queued to be run by the test, and queued commands
+ * expire as the test ticks the command handler.
+ */
+class TestCommandProvider implements CommandProvider<LocalizablePlugin>, MessageProvider {
+
+    private final File dataFolder;
+    private final Messager messager = new Messager(this) { };
+    private final Map<Class<? extends Command>, List<String>> additionalAliases = new HashMap<Class<? extends Command>, List<String>>();
+    final Queue<Runnable> asyncTasks = new ArrayDeque<Runnable>();
+    final Queue<Runnable> mainThreadTasks = new ArrayDeque<Runnable>();
+    final CommandHandler commandHandler = new CommandHandler(this) {
+        @Override
+        protected boolean register(@NotNull CommandRegistration commandInfo, @NotNull Command command) {
+            return true;
+        }
+    };
+
+    TestCommandProvider(@NotNull File dataFolder) {
+        this.dataFolder = dataFolder;
+    }
+
+    @NotNull
+    @Override
+    public String getCommandPrefix() {
+        return "test";
+    }
+
+    @NotNull
+    @Override
+    public CommandHandler getCommandHandler() {
+        return commandHandler;
+    }
+
+    @Override
+    public void scheduleQueuedCommandExpiration(@NotNull QueuedCommand queuedCommand) {
+        commandHandler.scheduleQueuedCommandExpiration(queuedCommand, queuedCommand.getExpirationDuration() * 20L);
+    }
+
+    @Override
+    public boolean useQueuedCommands() {
+        return true;
+    }
+
+    @NotNull
+    @Override
+    public Executor getAsyncCommandExecutor() {
+        return asyncTasks::add;
+    }
+
+    @NotNull
+    @Override
+    public Executor getMainThreadExecutor() {
+        return mainThreadTasks::add;
+    }
+
+    /**
+     * Runs the queued tasks until none are left.
+     *
+     * @param tasks the queue of tasks to run.
+     * @return the number of tasks run.
+     */
+    static int runAll(@NotNull Queue<Runnable> tasks) {
+        int count = 0;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+
+    @NotNull
+    @Override
+    public String[] getAdditionalCommandAliases(@NotNull Class<? extends Command> commandClass) {
+        List<String> aliases = additionalAliases.get(commandClass);
+        return aliases != null ? aliases.toArray(new String[aliases.size()]) : new String[0];
+    }
+
+    @Override
+    public void addCommandAlias(@NotNull Class<? extends Command> commandClass, @NotNull String alias) {
+        List<String> aliases = additionalAliases.get(commandClass);
+        if (aliases == null) {
+            aliases = new ArrayList<String>();
+            additionalAliases.put(commandClass, aliases);
+        }
+        aliases.add(alias);
+    }
+
+    @NotNull
+    @Override
+    public LocalizablePlugin getPlugin() {
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public Messager getMessager() {
+        return messager;
+    }
+
+    @Override
+    public void loadMessages(@NotNull ConfigurationLoader loader, @NotNull Locale locale) { }
+
+    @NotNull
+    @Override
+    public String getName() {
+        return "CommandTest";
+    }
+
+    @NotNull
+    @Override
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    @NotNull
+    @Override
+    public PluginLogger getLog() {
+        return PluginLogger.getLogger(this);
+    }
+
+    @NotNull
+    @Override
+    public String getLocalizedMessage(@NotNull Message key, @NotNull Object... args) {
+        return String.format(key.getDefault(), args);
+    }
+
+    @NotNull
+    @Override
+    public String getLocalizedMessage(@NotNull Object[] key, @NotNull Object... args) {
+        return String.format(key[0].toString(), args);
+    }
+
+    /**
+     * A player holding a fixed set of permissions which records the messages sent to it.
+     */
+    static class TestPlayer extends BasePlayer {
+
+        final List<String> messages = new ArrayList<String>();
+        final Set<String> permissions = new HashSet<String>();
+        private final String name;
+
+        TestPlayer(@NotNull String name) {
+            this.name = name;
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void sendMessage(@NotNull String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public boolean hasPermission(@NotNull String perm) {
+            return permissions.contains(perm);
+        }
+    }
+}
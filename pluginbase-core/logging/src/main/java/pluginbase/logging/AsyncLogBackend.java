@@ -0,0 +1,445 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package pluginbase.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Moves the work of logging off of the threads that log.
+ * <p/>
+ * A {@link PluginLogger} using this backend only decides whether a message should be logged on the calling thread.
+ * The message and its arguments are then put in a bounded ring buffer of pre-allocated events and a single consumer
+ * thread formats them and passes them to the underlying logger and any debug subscriptions.  Any number of threads
+ * may log at once without locking and the events of each thread are logged in the order that thread logged them.
+ * <p/>
+ * Since messages are formatted later, the arguments should not be changed after they are logged.
+ * <p/>
+ * When the buffer is full, the {@link OverflowPolicy} decides what happens.  Events logged after {@link #shutdown()}
+ * or from the consumer thread itself are not buffered; the logger writes them directly instead.
+ * <p/>
+ * Anything thrown while writing an event is reported to the backend's {@link ErrorManager} and the consumer carries on
+ * with the next event.
+ * <p/>
+ * One backend may be shared by the loggers of several plugins.
+ */
+public final class AsyncLogBackend {
+
+    /** The default number of events the buffer can hold. */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * What to do with an event when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait for the consumer to make room.  No events are lost. */
+        BLOCK,
+        /** Drop the oldest buffered event to make room. */
+        DROP_OLDEST,
+        /** Drop the new event if it is a debug message, otherwise wait for room like {@link #BLOCK}. */
+        DROP_DEBUG
+    }
+
+    private static final int YIELDS_BEFORE_WAITING = 100;
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @NotNull
+    private final Event[] events;
+    private final int mask;
+    @NotNull
+    private final OverflowPolicy policy;
+    /** The position the next event is put at. */
+    private final AtomicLong tail = new AtomicLong();
+    /** The position of the next event to take. */
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    @Nullable
+    private volatile CountDownLatch blockedLatch = null;
+    @NotNull
+    private final Thread consumer;
+    private volatile boolean consumerWaiting = false;
+    private volatile boolean closed = false;
+    @NotNull
+    private volatile ErrorManager errorManager = new ErrorManager();
+
+    /**
+     * Creates and starts a backend with {@link #DEFAULT_CAPACITY} that waits for room when full.
+     *
+     * @param name the name of the consumer thread.
+     */
+    public AsyncLogBackend(@NotNull final String name) {
+        this(name, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates and starts a backend.
+     *
+     * @param name the name of the consumer thread.
+     * @param capacity the number of events the buffer can hold, rounded up to a power of two.
+     * @param policy what to do with an event when the buffer is full.
+     */
+    public AsyncLogBackend(@NotNull final String name, final int capacity, @NotNull final OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.events = new Event[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event(i);
+        }
+        this.mask = size - 1;
+        this.policy = policy;
+        this.consumer = new Thread(this::consume, name);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Gets the number of events the buffer can hold.
+     *
+     * @return the number of events the buffer can hold.
+     */
+    public int getCapacity() {
+        return events.length;
+    }
+
+    @NotNull
+    public OverflowPolicy getOverflowPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full.
+     *
+     * @return the number of events dropped.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of events that had to wait for room because the buffer was full.
+     *
+     * @return the number of events that waited for room.
+     */
+    public long getBlockedCount() {
+        return blocked.get();
+    }
+
+    /**
+     * Sets a latch that is counted down each time an event has to wait for room, so that a waiting thread can be
+     * detected without polling.
+     *
+     * @param latch the latch to count down or null for none.
+     */
+    void setBlockedLatch(@Nullable final CountDownLatch latch) {
+        this.blockedLatch = latch;
+    }
+
+    /**
+     * Gets the error manager that is told of anything thrown while writing an event.
+     *
+     * @return the error manager for this backend.
+     */
+    @NotNull
+    public ErrorManager getErrorManager() {
+        return errorManager;
+    }
+
+    /**
+     * Sets the error manager that is told of anything thrown while writing an event.
+     * <p/>
+     * By default this is a plain {@link ErrorManager}, which reports only the first error to {@link System#err}.
+     *
+     * @param errorManager the error manager for this backend.
+     */
+    public void setErrorManager(@NotNull final ErrorManager errorManager) {
+        this.errorManager = errorManager;
+    }
+
+    /**
+     * Buffers a message to be formatted and logged by the consumer thread.
+     *
+     * @return false if the event was not buffered and should be logged by the caller.
+     */
+    boolean offer(@NotNull final PluginLogger logger, @NotNull final Level level, @NotNull final String message,
+                  @NotNull final Object[] args, final boolean debug) {
+        return offer(logger, level, message, args, null, debug, null);
+    }
+
+    /**
+     * Buffers a record to be logged by the consumer thread.
+     *
+     * @return false if the event was not buffered and should be logged by the caller.
+     */
+    boolean offer(@NotNull final PluginLogger logger, @NotNull final LogRecord record, final boolean debug) {
+        return offer(logger, record.getLevel(), null, null, record, debug, null);
+    }
+
+    private boolean offer(@Nullable final PluginLogger logger, @Nullable final Level level,
+                          @Nullable final String message, @Nullable final Object[] args,
+                          @Nullable final LogRecord record, final boolean debug, @Nullable final CountDownLatch flushed) {
+        if (closed || Thread.currentThread() == consumer) {
+            return false;
+        }
+        int waits = 0;
+        while (true) {
+            final long position = tail.get();
+            final Event event = events[(int) (position & mask)];
+            final long difference = event.sequence - position;
+            if (difference == 0L) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    event.set(logger, level, message, args, record, debug, flushed);
+                    // Publishes the event to the consumer.
+                    event.sequence = position + 1;
+                    if (consumerWaiting) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+            } else if (difference < 0L) {
+                // The buffer is full.
+                if (policy == OverflowPolicy.DROP_OLDEST && flushed == null) {
+                    poll(null);
+                    continue;
+                }
+                if (policy == OverflowPolicy.DROP_DEBUG && debug) {
+                    dropped.incrementAndGet();
+                    return true;
+                }
+                if (waits++ == 0) {
+                    blocked.incrementAndGet();
+                    final CountDownLatch latch = blockedLatch;
+                    if (latch != null) {
+                        latch.countDown();
+                    }
+                }
+                if (consumerWaiting) {
+                    LockSupport.unpark(consumer);
+                }
+                // Give the consumer a chance to run before sleeping, which matters most with few processors.
+                if (waits < YIELDS_BEFORE_WAITING) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(WAIT_NANOS);
+                }
+                if (closed) {
+                    return false;
+                }
+            }
+            // Otherwise another thread took this position first.
+        }
+    }
+
+    /**
+     * Takes the oldest event from the buffer.
+     *
+     * @param into the event to copy the taken event into or null to drop it.
+     * @return true if there was an event to take.
+     */
+    private boolean poll(@Nullable final Event into) {
+        while (true) {
+            final long position = head.get();
+            final Event event = events[(int) (position & mask)];
+            final long difference = event.sequence - (position + 1);
+            if (difference == 0L) {
+                if (head.compareAndSet(position, position + 1)) {
+                    if (into != null) {
+                        into.copy(event);
+                    } else if (event.flushed != null) {
+                        // Everything before the flush has been taken, so it may as well be done.
+                        event.flushed.countDown();
+                    } else {
+                        dropped.incrementAndGet();
+                    }
+                    event.clear();
+                    // Frees the slot for the next turn around the buffer.
+                    event.sequence = position + events.length;
+                    return true;
+                }
+            } else if (difference < 0L) {
+                return false;
+            }
+            // Otherwise another thread took this position first.
+        }
+    }
+
+    private boolean isEmpty() {
+        final long position = head.get();
+        return events[(int) (position & mask)].sequence != position + 1;
+    }
+
+    private void consume() {
+        final Event event = new Event(-1);
+        while (true) {
+            if (poll(event)) {
+                dispatch(event);
+                event.clear();
+                continue;
+            }
+            if (closed) {
+                return;
+            }
+            consumerWaiting = true;
+            if (isEmpty() && !closed) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+            consumerWaiting = false;
+        }
+    }
+
+    private void dispatch(@NotNull final Event event) {
+        if (event.flushed != null) {
+            event.flushed.countDown();
+            return;
+        }
+        try {
+            if (event.record != null) {
+                event.logger.writeRecord(event.record);
+            } else {
+                event.logger.write(event.level, event.message, event.args, event.debug, event.millis, event.threadId);
+            }
+        } catch (Throwable t) {
+            // The consumer must carry on, otherwise anything waiting for room in the buffer would wait forever.
+            reportError(event, t);
+        }
+    }
+
+    private void reportError(@NotNull final Event event, @NotNull final Throwable t) {
+        final String message = "Could not write a log message of " + (event.logger != null ? event.logger.getName() : null);
+        try {
+            errorManager.error(message, t instanceof Exception ? (Exception) t : new Exception(t), ErrorManager.WRITE_FAILURE);
+        } catch (Throwable ignore) {
+            // The error manager failed as well and there is nowhere left to report it.
+        }
+    }
+
+    /**
+     * Waits until every event buffered before this call has been logged.
+     *
+     * @param timeout how long to wait at most.
+     * @param unit the unit of the timeout.
+     * @return true if the events were logged within the timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean flush(final long timeout, @NotNull final TimeUnit unit) throws InterruptedException {
+        final CountDownLatch flushed = new CountDownLatch(1);
+        if (!offer(null, null, null, null, null, false, flushed)) {
+            return true;
+        }
+        return flushed.await(timeout, unit);
+    }
+
+    /**
+     * Logs everything left in the buffer and stops the consumer thread.
+     * <p/>
+     * Anything logged afterwards is logged directly by the logging thread.
+     *
+     * @param timeout how long to wait at most for the buffer to empty.
+     * @param unit the unit of the timeout.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void shutdown(final long timeout, @NotNull final TimeUnit unit) throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(consumer);
+        if (Thread.currentThread() != consumer) {
+            consumer.join(unit.toMillis(timeout));
+            if (!consumer.isAlive()) {
+                // Anything buffered while the consumer was stopping.
+                final Event event = new Event(-1);
+                while (poll(event)) {
+                    dispatch(event);
+                    event.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Logs everything left in the buffer and stops the consumer thread, waiting up to 10 seconds.
+     */
+    public void shutdown() {
+        try {
+            shutdown(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isShutdown() {
+        return closed;
+    }
+
+    /**
+     * A slot in the ring buffer.
+     */
+    private static final class Event {
+
+        /**
+         * The position this slot may be written at or, once written, one more than that.
+         */
+        volatile long sequence;
+        PluginLogger logger;
+        Level level;
+        String message;
+        Object[] args;
+        LogRecord record;
+        boolean debug;
+        long millis;
+        int threadId;
+        CountDownLatch flushed;
+
+        Event(final long sequence) {
+            this.sequence = sequence;
+        }
+
+        void set(@Nullable final PluginLogger logger, @Nullable final Level level, @Nullable final String message,
+                 @Nullable final Object[] args, @Nullable final LogRecord record, final boolean debug,
+                 @Nullable final CountDownLatch flushed) {
+            this.logger = logger;
+            this.level = level;
+            this.message = message;
+            this.args = args;
+            this.record = record;
+            this.debug = debug;
+            this.millis = System.currentTimeMillis();
+            this.threadId = (int) Thread.currentThread().getId();
+            this.flushed = flushed;
+        }
+
+        void copy(@NotNull final Event event) {
+            this.logger = event.logger;
+            this.level = event.level;
+            this.message = event.message;
+            this.args = event.args;
+            this.record = event.record;
+            this.debug = event.debug;
+            this.millis = event.millis;
+            this.threadId = event.threadId;
+            this.flushed = event.flushed;
+        }
+
+        void clear() {
+            logger = null;
+            level = null;
+            message = null;
+            args = null;
+            record = null;
+            flushed = null;
+        }
+    }
+}
@@ -10,12 +10,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.logging.FileHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -23,11 +21,12 @@ import java.util.logging.Logger;
 
 /**
  * Maintains a connection to a file debug log for writing debug messages to from PluginLogger.
+ * <p/>
+ * The debug log is written by a {@link RollingLogHandler} so it is rotated when it gets large or old and the rotated
+ * files are compressed and eventually deleted.
  */
 class DebugLog {
 
-    private static final DateFormat DEBUG_FILE_DATE_FORMAT = new SimpleDateFormat("yyyy.MM.dd-HH.mm.ss");
-
     /** Represents the original debug level. */
     static final int ORIGINAL_DEBUG_LEVEL = 0;
 
@@ -86,7 +85,7 @@ class DebugLog {
     }
 
     @Nullable
-    private FileHandler fileHandler = null;
+    private RollingLogHandler fileHandler = null;
     /** The Logger associated with this DebugLog. */
     @NotNull
     final Logger log;
@@ -113,8 +112,7 @@ class DebugLog {
             close();
         }
         try {
-            fileHandler = new FileHandler(debugFolder + File.separator
-                    + DEBUG_FILE_DATE_FORMAT.format(System.currentTimeMillis()) + ".log", true);
+            fileHandler = new RollingLogHandler(debugFolder);
             /*
             final Set<Handler> toRemove = new HashSet<Handler>(log.getHandlers().length);
             Collections.addAll(toRemove, log.getHandlers());
@@ -144,8 +142,17 @@ class DebugLog {
     /**
      * Our log-{@link java.util.logging.Formatter}.
      */
-    private static class LogFormatter extends java.util.logging.Formatter {
-        private final SimpleDateFormat date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    static class LogFormatter extends java.util.logging.Formatter {
+        @NotNull
+        private final TimestampCache date;
+
+        LogFormatter() {
+            this(ZoneId.systemDefault());
+        }
+
+        LogFormatter(@NotNull final ZoneId zone) {
+            this.date = new TimestampCache("yyyy-MM-dd HH:mm:ss", zone);
+        }
 
         /** {@inheritDoc} */
         @Override
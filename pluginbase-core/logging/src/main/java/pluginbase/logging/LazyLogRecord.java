@@ -0,0 +1,105 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package pluginbase.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ObjectStreamException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * A log record whose message is only formatted once something asks for it.
+ * <p/>
+ * Handlers only ask for the message of records they publish, so a record no handler wants is never formatted.  When
+ * an {@link AsyncLogBackend} is used, the handlers and so the formatting run on its consumer thread.
+ */
+final class LazyLogRecord extends LogRecord {
+
+    private static final long serialVersionUID = 1L;
+
+    @Nullable
+    private transient PluginLogger logger;
+    @Nullable
+    private transient String pattern;
+    @Nullable
+    private transient Object[] args;
+    @Nullable
+    private transient Supplier<String> supplier;
+    private final boolean debug;
+    private volatile boolean formatted = false;
+
+    /**
+     * Creates a record for a parameterized or {@link String#format(String, Object...)} style message.
+     */
+    LazyLogRecord(@NotNull final Level level, @NotNull final PluginLogger logger, @NotNull final String pattern,
+                  @NotNull final Object[] args, final boolean debug) {
+        super(level, null);
+        this.logger = logger;
+        this.pattern = pattern;
+        this.args = args;
+        this.debug = debug;
+    }
+
+    /**
+     * Creates a record for a message that is not created until it is needed.
+     */
+    LazyLogRecord(@NotNull final Level level, @NotNull final PluginLogger logger,
+                  @NotNull final Supplier<String> supplier, final boolean debug) {
+        super(level, null);
+        this.logger = logger;
+        this.supplier = supplier;
+        this.debug = debug;
+    }
+
+    /**
+     * Gets the message, formatting it with the plugin's prefix on the first call.
+     *
+     * @return the formatted message.
+     */
+    @Override
+    public String getMessage() {
+        if (!formatted) {
+            format();
+        }
+        return super.getMessage();
+    }
+
+    private synchronized void format() {
+        if (formatted || logger == null) {
+            return;
+        }
+        String message;
+        if (supplier != null) {
+            message = String.valueOf(supplier.get());
+        } else {
+            message = MessageFormatter.format(pattern, args);
+        }
+        super.setMessage(debug ? logger.getDebugString(message) : logger.getPrefixedMessage(message));
+        logger = null;
+        pattern = null;
+        args = null;
+        supplier = null;
+        formatted = true;
+    }
+
+    @Override
+    public void setMessage(final String message) {
+        synchronized (this) {
+            super.setMessage(message);
+            logger = null;
+            pattern = null;
+            args = null;
+            supplier = null;
+            formatted = true;
+        }
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        getMessage();
+        return this;
+    }
+}
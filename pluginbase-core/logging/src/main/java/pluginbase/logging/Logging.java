@@ -7,6 +7,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 /**
@@ -84,90 +85,166 @@ public final class Logging {
     /**
      * Custom log method that always logs to a single static logger.
      * <p/>
-     * Applies String.format() to the message if it is a non-debug level logging and to debug level logging IF debug
-     * logging is enabled.
+     * Formats the message with {@link MessageFormatter} if it is a non-debug level logging and to debug level logging
+     * IF debug logging is enabled.  The message may use "{}" placeholders or String.format() style conversions.
      * <br/>
      * Optionally appends version to prefix.
      *
      * @param level       One of the message level identifiers, e.g. SEVERE.
      * @param message     The string message.
-     * @param args        Arguments for the String.format() that is applied to the message.
+     * @param args        Arguments for the placeholders of the message.
      */
     public static void log(@NotNull final Level level, @NotNull final String message, @NotNull final Object... args) {
         pluginLogger.log(level, message, args);
     }
 
+    /**
+     * Custom log method that always logs to a single static logger.
+     * <p/>
+     * The message is only created if it will be logged.
+     *
+     * @param level           One of the message level identifiers, e.g. SEVERE.
+     * @param messageSupplier A function that creates the message.
+     */
+    public static void log(@NotNull final Level level, @NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.log(level, messageSupplier);
+    }
+
     /**
      * Fine debug level logging.  Use for infrequent messages.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public static void fine(@NotNull final String message, @NotNull final Object...args) {
         pluginLogger.fine(message, args);
     }
 
+    /**
+     * Fine debug level logging.  Use for infrequent messages.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    public static void fine(@NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.fine(messageSupplier);
+    }
+
     /**
      * Finer debug level logging.  Use for somewhat frequent messages.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public static void finer(@NotNull final String message, @NotNull final Object...args) {
         pluginLogger.finer(message, args);
     }
 
+    /**
+     * Finer debug level logging.  Use for somewhat frequent messages.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    public static void finer(@NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.finer(messageSupplier);
+    }
+
     /**
      * Finest debug level logging.  Use for extremely frequent messages.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public static void finest(@NotNull final String message, @NotNull final Object...args) {
         pluginLogger.finest(message, args);
     }
 
+    /**
+     * Finest debug level logging.  Use for extremely frequent messages.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    public static void finest(@NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.finest(messageSupplier);
+    }
+
     /**
      * Config level logging.  Use for messages that should be INFO level but have the option to be disabled
      * via debug level -1.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public static void config(@NotNull final String message, @NotNull final Object...args) {
         pluginLogger.config(message, args);
     }
 
+    /**
+     * Config level logging.  Use for messages that should be INFO level but have the option to be disabled
+     * via debug level -1.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    public static void config(@NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.config(messageSupplier);
+    }
+
     /**
      * Info level logging.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public static void info(@NotNull final String message, @NotNull final Object...args) {
         pluginLogger.info(message, args);
     }
 
+    /**
+     * Info level logging.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    public static void info(@NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.info(messageSupplier);
+    }
+
     /**
      * Warning level logging.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public static void warning(@NotNull final String message, @NotNull final Object...args) {
         pluginLogger.warning(message, args);
     }
 
+    /**
+     * Warning level logging.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    public static void warning(@NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.warning(messageSupplier);
+    }
+
     /**
      * Severe level logging.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public static void severe(@NotNull final String message, @NotNull final Object...args) {
         pluginLogger.severe(message, args);
     }
 
+    /**
+     * Severe level logging.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    public static void severe(@NotNull final Supplier<String> messageSupplier) {
+        pluginLogger.severe(messageSupplier);
+    }
+
 }
 
 
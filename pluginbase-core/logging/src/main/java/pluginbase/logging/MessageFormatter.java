@@ -0,0 +1,174 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package pluginbase.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Formattable;
+
+/**
+ * Formats log messages with a single pass over the message rather than with {@link java.util.Formatter}.
+ * <p/>
+ * Messages with a {@link String#format(String, Object...)} conversion, meaning a {@code %} followed by a letter,
+ * digit or one of {@code %-<}, are formatted in that style for compatibility with existing messages, even if they also
+ * contain {@code {}}.  A {@code %} followed by anything else, such as in {@code "100% done"}, is not a conversion.
+ * The common {@code %s}, {@code %d}, {@code %%} and {@code %n} are handled here and anything more involved, such as a
+ * width or precision, is left to {@link Formatter#format(String, Object...)}.
+ * <p/>
+ * Other messages containing {@code {}} are parameterized messages: each {@code {}} is replaced by the next argument.
+ * A placeholder may be escaped as {@code \{}}.  Placeholders without an argument are left as they are and extra
+ * arguments are ignored.
+ */
+public final class MessageFormatter {
+
+    private static final String PLACEHOLDER = "{}";
+
+    private MessageFormatter() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Formats a parameterized or {@link String#format(String, Object...)} style message.
+     *
+     * @param message the message to format.
+     * @param args the arguments for the message.
+     * @return the formatted message or the original message if it could not be formatted.
+     */
+    @NotNull
+    public static String format(@NotNull final String message, @NotNull final Object... args) {
+        final int percent = message.indexOf('%');
+        final boolean parameterized = message.contains(PLACEHOLDER);
+        if (percent >= 0 && (!parameterized || hasConversion(message, percent))) {
+            return formatCompatible(message, args);
+        }
+        if (parameterized) {
+            return formatParameterized(message, args);
+        }
+        return message;
+    }
+
+    /**
+     * Whether the message has a {@code %} from the given index on that starts a {@link String#format} conversion.
+     */
+    private static boolean hasConversion(@NotNull final String message, int percent) {
+        while (percent >= 0 && percent + 1 < message.length()) {
+            final char next = message.charAt(percent + 1);
+            if (Character.isLetterOrDigit(next) || next == '%' || next == '-' || next == '<') {
+                return true;
+            }
+            percent = message.indexOf('%', percent + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Replaces each {@code {}} in the message with the next argument.
+     *
+     * @param message the message to format.
+     * @param args the arguments for the message.
+     * @return the formatted message.
+     */
+    @NotNull
+    public static String formatParameterized(@NotNull final String message, @NotNull final Object... args) {
+        final StringBuilder builder = new StringBuilder(message.length() + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while ((placeholder = message.indexOf(PLACEHOLDER, start)) >= 0) {
+            if (isEscaped(message, placeholder)) {
+                if (isEscaped(message, placeholder - 1)) {
+                    // An escaped backslash followed by a real placeholder.
+                    builder.append(message, start, placeholder - 1);
+                } else {
+                    builder.append(message, start, placeholder - 1).append(PLACEHOLDER);
+                    start = placeholder + 2;
+                    continue;
+                }
+            } else {
+                builder.append(message, start, placeholder);
+            }
+            if (argIndex < args.length) {
+                appendArg(builder, args[argIndex++]);
+            } else {
+                builder.append(PLACEHOLDER);
+            }
+            start = placeholder + 2;
+        }
+        return builder.append(message, start, message.length()).toString();
+    }
+
+    private static boolean isEscaped(@NotNull final String message, final int index) {
+        return index > 0 && message.charAt(index - 1) == '\\';
+    }
+
+    private static void appendArg(@NotNull final StringBuilder builder, @Nullable final Object arg) {
+        if (arg instanceof Object[]) {
+            builder.append(Arrays.deepToString((Object[]) arg));
+        } else if (arg instanceof int[]) {
+            builder.append(Arrays.toString((int[]) arg));
+        } else if (arg instanceof long[]) {
+            builder.append(Arrays.toString((long[]) arg));
+        } else {
+            builder.append(arg);
+        }
+    }
+
+    /**
+     * Formats a message in the style of {@link String#format(String, Object...)}.
+     * <p/>
+     * Messages using nothing but {@code %s}, {@code %S}, {@code %d}, {@code %%} and {@code %n} are formatted without
+     * {@link java.util.Formatter}.  Anything else is passed on to {@link Formatter#format(String, Object...)} so the
+     * result is always what it would have been.
+     *
+     * @param message the message to format.
+     * @param args the arguments for the message.
+     * @return the formatted message or the original message if it could not be formatted.
+     */
+    @NotNull
+    public static String formatCompatible(@NotNull final String message, @NotNull final Object... args) {
+        final int length = message.length();
+        final StringBuilder builder = new StringBuilder(length + 16 * args.length);
+        int argIndex = 0;
+        int start = 0;
+        int percent;
+        while ((percent = message.indexOf('%', start)) >= 0) {
+            if (percent + 1 >= length) {
+                return Formatter.format(message, args);
+            }
+            builder.append(message, start, percent);
+            final char conversion = message.charAt(percent + 1);
+            if (conversion == '%') {
+                builder.append('%');
+            } else if (conversion == 'n') {
+                builder.append(System.lineSeparator());
+            } else if (argIndex >= args.length) {
+                return Formatter.format(message, args);
+            } else {
+                final Object arg = args[argIndex++];
+                if (conversion == 's' && !(arg instanceof Formattable)) {
+                    builder.append(arg);
+                } else if (conversion == 'S' && !(arg instanceof Formattable)) {
+                    builder.append(String.valueOf(arg).toUpperCase());
+                } else if (conversion == 'd' && isPlainInteger(arg)) {
+                    builder.append(arg);
+                } else {
+                    return Formatter.format(message, args);
+                }
+            }
+            start = percent + 2;
+        }
+        return builder.append(message, start, length).toString();
+    }
+
+    /**
+     * Whether {@code %d} would format the argument exactly as {@link String#valueOf(Object)} does.
+     */
+    private static boolean isPlainInteger(@Nullable final Object arg) {
+        return arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte
+                || arg instanceof BigInteger;
+    }
+}
@@ -8,6 +8,9 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Filter;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -26,10 +29,11 @@ import java.util.logging.Logger;
  * <br/>- {@link Level#FINE}, {@link Level#FINER}, {@link Level#FINEST} show as {@link Level#INFO} with
  *   {@link #setDebugLevel(int)} while also being written to a debug.log file.
  * <br/>- Allows you to share debug logs with another plugin.  (How Multiverse does it..)
- * <br/>- Adds var-arg parameter logging methods for use with messages in the style of
- * {@link String#format(String, Object...)}.
- * <br/>- {@link Level#FINE} and finer message do not perform {@link String#format(String, Object...)} on messages that
- * won't be logged.
+ * <br/>- Adds var-arg parameter logging methods for use with parameterized "{}" messages or messages in the style of
+ * {@link String#format(String, Object...)}.  See {@link MessageFormatter}.
+ * <br/>- Adds {@link Supplier} logging methods for messages that are costly to create.
+ * <br/>- Messages are not formatted until a handler publishes them, so messages that won't be logged cost very little.
+ * <br/>- Optionally formats and writes messages on a background thread with {@link #setAsyncBackend(AsyncLogBackend)}.
  * <p/>
  * Tip: Create a static {@link Logging} class of your own in your own namespace to allow high flexibility in your
  * plugin's logging. (No need to pass an object around everywhere!)
@@ -54,12 +58,14 @@ public class PluginLogger extends Logger {
     @NotNull
     private DebugLog debugLog;
     @Nullable
-    PluginLogger alternateDebugLog = null;
+    volatile PluginLogger alternateDebugLog = null;
     /** The loggable plugin we use for this Plugin Logger. */
     @NotNull
     final LoggablePlugin plugin;
     @NotNull
-    final Set<DebugSubscription> debugSubscriptions = new HashSet<>();
+    final Set<DebugSubscription> debugSubscriptions = new CopyOnWriteArraySet<>();
+    @Nullable
+    private volatile AsyncLogBackend asyncBackend = null;
 
     @NotNull
     private volatile String debugString = ORIGINAL_DEBUG;
@@ -170,14 +176,52 @@ public class PluginLogger extends Logger {
     }
 
     @NotNull
-    synchronized DebugLog getDebugLog() {
+    DebugLog getDebugLog() {
+        final PluginLogger alternateDebugLog = this.alternateDebugLog;
         return alternateDebugLog != null ? alternateDebugLog.getDebugLog() : debugLog;
     }
 
-    private synchronized void privateLog(@NotNull final Level level, @NotNull final String message) {
-        final LogRecord record = new LogRecord(level, message);
+    /**
+     * Sets the backend that formats and writes messages for this logger on its own thread.
+     * <p/>
+     * Until a backend is set, messages are formatted and written by the thread logging them.
+     *
+     * @param asyncBackend the backend to use or null to write messages on the logging thread.
+     */
+    public final void setAsyncBackend(@Nullable final AsyncLogBackend asyncBackend) {
+        this.asyncBackend = asyncBackend;
+    }
+
+    /**
+     * Gets the backend that formats and writes messages for this logger on its own thread.
+     *
+     * @return the backend or null if messages are written on the logging thread.
+     */
+    @Nullable
+    public final AsyncLogBackend getAsyncBackend() {
+        return asyncBackend;
+    }
+
+    /**
+     * Writes a message that has passed the level checks.
+     * <p/>
+     * This is called by the logging thread or the consumer thread of the {@link AsyncLogBackend}.  The message is
+     * formatted by whichever handler first asks for it.
+     */
+    final void write(@NotNull final Level level, @NotNull final String message, @NotNull final Object[] args,
+                     final boolean debug, final long millis, final int threadId) {
+        final LogRecord record = new LazyLogRecord(level, this, message, args, debug);
         record.setLoggerName(getName());
         record.setResourceBundle(getResourceBundle());
+        record.setMillis(millis);
+        record.setThreadID(threadId);
+        privateLog(record);
+    }
+
+    /**
+     * Writes a record that has passed the level checks.
+     */
+    final void writeRecord(@NotNull final LogRecord record) {
         privateLog(record);
     }
 
@@ -196,13 +240,13 @@ public class PluginLogger extends Logger {
 
     /** {@inheritDoc} */
     @Override
-    public final synchronized void log(@NotNull final Level level, @NotNull final String message) {
+    public final void log(@NotNull final Level level, @NotNull final String message) {
         log(level, message, new Object[0]);
     }
 
     /** {@inheritDoc} */
     @Override
-    public final synchronized void log(@NotNull final LogRecord record) {
+    public final void log(@NotNull final LogRecord record) {
         final Level level = record.getLevel();
         final String message = record.getMessage();
         final int debugLevel = getDebugLevel();
@@ -211,18 +255,56 @@ public class PluginLogger extends Logger {
                 || (level == Level.FINEST && debugLevel >= 3)) {
             record.setLevel(Level.INFO);
             record.setMessage(getDebugString(message));
-            privateLog(record);
+            logRecord(record, true);
         } else if (level != Level.FINE && level != Level.FINER && level != Level.FINEST) {
             if (level != Level.CONFIG || showConfig) {
                 if (level == Level.CONFIG) {
                     record.setLevel(Level.INFO);
                 }
                 record.setMessage(getPrefixedMessage(message));
-                privateLog(record);
+                logRecord(record, false);
+            }
+        }
+    }
+
+    /**
+     * Logs a message that is only created if a handler publishes it.
+     * <p/>
+     * When an {@link AsyncLogBackend} is set, the supplier is called on its consumer thread.
+     *
+     * @param level           One of the message level identifiers, e.g. SEVERE.
+     * @param messageSupplier A function that creates the message.
+     */
+    @Override
+    public final void log(@NotNull final Level level, @NotNull final Supplier<String> messageSupplier) {
+        final int debugLevel = getDebugLevel();
+        if ((level == Level.FINE && debugLevel >= 1)
+                || (level == Level.FINER && debugLevel >= 2)
+                || (level == Level.FINEST && debugLevel >= 3)) {
+            logRecord(newLazyRecord(Level.INFO, messageSupplier, true), true);
+        } else if (level != Level.FINE && level != Level.FINER && level != Level.FINEST) {
+            if (level != Level.CONFIG || showConfig) {
+                logRecord(newLazyRecord(level == Level.CONFIG ? Level.INFO : level, messageSupplier, false), false);
             }
         }
     }
 
+    @NotNull
+    private LogRecord newLazyRecord(@NotNull final Level level, @NotNull final Supplier<String> messageSupplier,
+                                    final boolean debug) {
+        final LogRecord record = new LazyLogRecord(level, this, messageSupplier, debug);
+        record.setLoggerName(getName());
+        record.setResourceBundle(getResourceBundle());
+        return record;
+    }
+
+    private void logRecord(@NotNull final LogRecord record, final boolean debug) {
+        final AsyncLogBackend asyncBackend = this.asyncBackend;
+        if (asyncBackend == null || !asyncBackend.offer(this, record, debug)) {
+            writeRecord(record);
+        }
+    }
+
     /**
      * Returns the folder where we will store debug logs.  Package-private for testing purposes.
      *
@@ -239,7 +321,16 @@ public class PluginLogger extends Logger {
     /**
      * Performs any necessary shutdown steps to ensure this logger keeps no open file hooks.
      */
-    public final synchronized void shutdown() {
+    public final void shutdown() {
+        // Not synchronized as the backend's consumer may need the lock to write what is left.
+        final AsyncLogBackend asyncBackend = this.asyncBackend;
+        if (asyncBackend != null) {
+            try {
+                asyncBackend.flush(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         setDebugLevel(0);
     }
 
@@ -268,7 +359,7 @@ public class PluginLogger extends Logger {
      *
      * @return A value 0-3 indicating the debug logging level.
      */
-    public final synchronized int getDebugLevel() {
+    public final int getDebugLevel() {
         return getDebugLog().getDebugLevel();
     }
 
@@ -297,7 +388,7 @@ public class PluginLogger extends Logger {
      * @return Modified message
      */
     @NotNull
-    public final synchronized String getPrefixedMessage(@NotNull final String message) {
+    public final String getPrefixedMessage(@NotNull final String message) {
         if (pluginName.equals(Logging.class.getName())) {
             return message;
         }
@@ -322,7 +413,7 @@ public class PluginLogger extends Logger {
      * @return Modified message
      */
     @NotNull
-    public final synchronized String getDebugString(@NotNull final String message) {
+    public final String getDebugString(@NotNull final String message) {
         if (pluginName.equals(Logging.class.getName())) {
             return "[" + debugString + "] " + message;
         }
@@ -332,18 +423,19 @@ public class PluginLogger extends Logger {
     /**
      * Custom log method.
      * <p/>
-     * Applies String.format() to the message if it is a non-debug level logging and to debug level logging IF debug
-     * logging is enabled.
+     * Formats the message with {@link MessageFormatter} if it is a non-debug level logging and to debug level logging
+     * IF debug logging is enabled.  The message may use "{}" placeholders or String.format() style conversions.
+     * Formatting is put off until a handler publishes the message.
      * <p/>
      * Optionally appends version to prefix.
      *
      * @param level       One of the message level identifiers, e.g. SEVERE.
      * @param message     The string message.
-     * @param args        Arguments for the String.format() that is applied to the message.
+     * @param args        Arguments for the placeholders of the message.
      */
-    public final synchronized void log(@NotNull final Level level,
-                                       @NotNull final String message,
-                                       @NotNull final Object... args) {
+    public final void log(@NotNull final Level level,
+                          @NotNull final String message,
+                          @NotNull final Object... args) {
         final int debugLevel = getDebugLevel();
         if ((level == Level.FINE && debugLevel >= 1)
                 || (level == Level.FINER && debugLevel >= 2)
@@ -352,9 +444,9 @@ public class PluginLogger extends Logger {
         } else if (level != Level.FINE && level != Level.FINER && level != Level.FINEST) {
             if (level != Level.CONFIG || showConfig) {
                 if (level == Level.CONFIG) {
-                    privateLog(Level.INFO, getPrefixedMessage(Formatter.format(message, args)));
+                    logMessage(Level.INFO, message, args, false);
                 } else {
-                    privateLog(level, getPrefixedMessage(Formatter.format(message, args)));
+                    logMessage(level, message, args, false);
                 }
             }
         }
@@ -364,83 +456,162 @@ public class PluginLogger extends Logger {
      * Directly outputs a message with the debug prefix to both the regular logger and the debug logger if one is set.
      *
      * @param message The message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     private void debug(@NotNull final String message, @NotNull final Object...args) {
-        privateLog(Level.INFO, getDebugString(Formatter.format(message, args)));
+        logMessage(Level.INFO, message, args, true);
+    }
+
+    private void logMessage(@NotNull final Level level, @NotNull final String message, @NotNull final Object[] args,
+                            final boolean debug) {
+        final AsyncLogBackend asyncBackend = this.asyncBackend;
+        if (asyncBackend == null || !asyncBackend.offer(this, level, message, args, debug)) {
+            write(level, message, args, debug, System.currentTimeMillis(), (int) Thread.currentThread().getId());
+        }
     }
 
     /**
      * Fine debug level logging.  Use for infrequent messages.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public final void fine(@NotNull final String message, @NotNull final Object...args) {
         log(Level.FINE, message, args);
     }
 
+    /**
+     * Fine debug level logging.  Use for infrequent messages.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    @Override
+    public final void fine(@NotNull final Supplier<String> messageSupplier) {
+        log(Level.FINE, messageSupplier);
+    }
+
     /**
      * Finer debug level logging.  Use for somewhat frequent messages.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public final void finer(@NotNull final String message, @NotNull final Object...args) {
         log(Level.FINER, message, args);
     }
 
+    /**
+     * Finer debug level logging.  Use for somewhat frequent messages.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    @Override
+    public final void finer(@NotNull final Supplier<String> messageSupplier) {
+        log(Level.FINER, messageSupplier);
+    }
+
     /**
      * Finest debug level logging.  Use for extremely frequent messages.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public final void finest(@NotNull final String message, @NotNull final Object...args) {
         log(Level.FINEST, message, args);
     }
 
+    /**
+     * Finest debug level logging.  Use for extremely frequent messages.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    @Override
+    public final void finest(@NotNull final Supplier<String> messageSupplier) {
+        log(Level.FINEST, messageSupplier);
+    }
+
     /**
      * Config level logging.  Use for messages that should be INFO level but have the option to be disabled
      * via debug level -1.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public final void config(@NotNull final String message, @NotNull final Object...args) {
         log(Level.CONFIG, message, args);
     }
 
+    /**
+     * Config level logging.  Use for messages that should be INFO level but have the option to be disabled
+     * via debug level -1.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    @Override
+    public final void config(@NotNull final Supplier<String> messageSupplier) {
+        log(Level.CONFIG, messageSupplier);
+    }
+
     /**
      * Info level logging.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public final void info(@NotNull final String message, @NotNull final Object...args) {
         log(Level.INFO, message, args);
     }
 
+    /**
+     * Info level logging.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    @Override
+    public final void info(@NotNull final Supplier<String> messageSupplier) {
+        log(Level.INFO, messageSupplier);
+    }
+
     /**
      * Warning level logging.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public final void warning(@NotNull final String message, @NotNull final Object...args) {
         log(Level.WARNING, message, args);
     }
 
+    /**
+     * Warning level logging.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    @Override
+    public final void warning(@NotNull final Supplier<String> messageSupplier) {
+        log(Level.WARNING, messageSupplier);
+    }
+
     /**
      * Severe level logging.
      *
      * @param message Message to log.
-     * @param args    Arguments for the String.format() that is applied to the message.
+     * @param args    Arguments for the placeholders of the message.
      */
     public final void severe(@NotNull final String message, @NotNull final Object...args) {
         log(Level.SEVERE, message, args);
     }
 
+    /**
+     * Severe level logging.
+     *
+     * @param messageSupplier A function that creates the message, only called if the message is logged.
+     */
+    @Override
+    public final void severe(@NotNull final Supplier<String> messageSupplier) {
+        log(Level.SEVERE, messageSupplier);
+    }
+
     @Override
     public Handler[] getHandlers() {
         return logger.getHandlers();
@@ -0,0 +1,336 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package pluginbase.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A log file handler that starts a new file when the current one grows too large or too old.
+ * <p/>
+ * Files are named for the time they were started, such as {@code 2014.06.01-12.00.00.log}.  When a file is rotated
+ * out it is compressed to {@code .log.gz} on a background thread and the oldest files beyond the retention count are
+ * deleted.  Files left uncompressed by an earlier handler, such as those of previous sessions, are compressed when a
+ * new handler is created.
+ */
+final class RollingLogHandler extends Handler {
+
+    /** The default size at which a file is rotated: 10 MiB. */
+    static final long DEFAULT_MAX_BYTES = 10L * 1024L * 1024L;
+    /** The default age at which a file is rotated: 1 day. */
+    static final long DEFAULT_ROTATION_MILLIS = 24L * 60L * 60L * 1000L;
+    /** The default number of rotated files kept. */
+    static final int DEFAULT_RETAINED_FILES = 10;
+
+    static final String LOG_EXTENSION = ".log";
+    static final String COMPRESSED_EXTENSION = ".gz";
+    static final String PARTIAL_EXTENSION = ".tmp";
+
+    private static final Pattern FILE_NAME = Pattern.compile(
+            "(\\d{4}\\.\\d{2}\\.\\d{2}-\\d{2}\\.\\d{2}\\.\\d{2})(?:_(\\d+))?\\.log(?:\\.gz)?");
+    /** Oldest first, by the time in the name and then the number added to make the name unique. */
+    private static final Comparator<File> OLDEST_FIRST = (a, b) -> {
+        final Matcher first = FILE_NAME.matcher(a.getName());
+        final Matcher second = FILE_NAME.matcher(b.getName());
+        first.matches();
+        second.matches();
+        final int compare = first.group(1).compareTo(second.group(1));
+        return compare != 0 ? compare : Integer.compare(indexOf(first), indexOf(second));
+    };
+
+    @Nullable
+    private static ExecutorService sharedCompressor = null;
+
+    @NotNull
+    private final File folder;
+    private final long maxBytes;
+    private final long rotationMillis;
+    private final int retainedFiles;
+    @NotNull
+    private final Clock clock;
+    @NotNull
+    private final Executor compressor;
+    @NotNull
+    private final DateTimeFormatter fileNameFormat;
+
+    @Nullable
+    private OutputStream out = null;
+    @Nullable
+    private File currentFile = null;
+    private long written = 0L;
+    private long rotateAt = 0L;
+
+    /**
+     * Creates a handler with the default limits that compresses on a shared background thread.
+     *
+     * @param folder the folder to write the log files in.
+     * @throws IOException if the first file could not be opened.
+     */
+    RollingLogHandler(@NotNull final File folder) throws IOException {
+        this(folder, DEFAULT_MAX_BYTES, DEFAULT_ROTATION_MILLIS, DEFAULT_RETAINED_FILES, Clock.systemDefaultZone(),
+                getSharedCompressor());
+    }
+
+    /**
+     * Creates a handler and opens its first file.
+     *
+     * @param folder the folder to write the log files in.
+     * @param maxBytes the size at which a file is rotated or 0 to never rotate by size.
+     * @param rotationMillis the age in milliseconds at which a file is rotated or 0 to never rotate by age.
+     * @param retainedFiles the number of rotated files to keep.
+     * @param clock the clock used to name and age files.
+     * @param compressor runs the compression of rotated files.
+     * @throws IOException if the first file could not be opened.
+     */
+    RollingLogHandler(@NotNull final File folder, final long maxBytes, final long rotationMillis,
+                      final int retainedFiles, @NotNull final Clock clock, @NotNull final Executor compressor)
+            throws IOException {
+        if (maxBytes < 0L || rotationMillis < 0L || retainedFiles < 0) {
+            throw new IllegalArgumentException("Rotation limits may not be negative");
+        }
+        this.folder = folder;
+        this.maxBytes = maxBytes;
+        this.rotationMillis = rotationMillis;
+        this.retainedFiles = retainedFiles;
+        this.clock = clock;
+        this.compressor = compressor;
+        this.fileNameFormat = DateTimeFormatter.ofPattern("yyyy.MM.dd-HH.mm.ss").withZone(clock.getZone());
+        openNewFile();
+        final List<File> leftovers = findLeftovers();
+        compressor.execute(() -> {
+            for (File leftover : leftovers) {
+                compress(leftover);
+            }
+            prune();
+        });
+    }
+
+    @NotNull
+    private static synchronized Executor getSharedCompressor() {
+        if (sharedCompressor == null) {
+            sharedCompressor = Executors.newSingleThreadExecutor(task -> {
+                final Thread thread = new Thread(task, "PluginBase-DebugLog-Compressor");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        return sharedCompressor;
+    }
+
+    private static int indexOf(@NotNull final Matcher matcher) {
+        return matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+    }
+
+    /**
+     * Gets the file currently being written.
+     *
+     * @return the file currently being written or null if closed.
+     */
+    @Nullable
+    synchronized File getCurrentFile() {
+        return currentFile;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void publish(@NotNull final LogRecord record) {
+        if (out == null || !isLoggable(record)) {
+            return;
+        }
+        final byte[] bytes;
+        try {
+            final String message = getFormatter() != null ? getFormatter().format(record) : record.getMessage();
+            bytes = message.getBytes(getCharset());
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        if (written > 0L && ((maxBytes > 0L && written + bytes.length > maxBytes)
+                || (rotationMillis > 0L && clock.millis() >= rotateAt))) {
+            rotate();
+            if (out == null) {
+                return;
+            }
+        }
+        try {
+            out.write(bytes);
+            out.flush();
+            written += bytes.length;
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    @NotNull
+    private Charset getCharset() {
+        final String encoding = getEncoding();
+        return encoding != null ? Charset.forName(encoding) : Charset.defaultCharset();
+    }
+
+    /**
+     * Closes the current file, queues it for compression and starts a new one.
+     */
+    synchronized void rotate() {
+        final File rotated = currentFile;
+        closeFile();
+        if (rotated != null) {
+            compressor.execute(() -> {
+                compress(rotated);
+                prune();
+            });
+        }
+        try {
+            openNewFile();
+        } catch (IOException e) {
+            reportError("Could not open a new debug log file", e, ErrorManager.OPEN_FAILURE);
+        }
+    }
+
+    private void openNewFile() throws IOException {
+        folder.mkdirs();
+        final long now = clock.millis();
+        final String time = fileNameFormat.format(Instant.ofEpochMilli(now));
+        File file = new File(folder, time + LOG_EXTENSION);
+        for (int i = 1; file.exists() || new File(folder, file.getName() + COMPRESSED_EXTENSION).exists(); i++) {
+            file = new File(folder, time + "_" + i + LOG_EXTENSION);
+        }
+        out = new BufferedOutputStream(new FileOutputStream(file));
+        currentFile = file;
+        written = 0L;
+        rotateAt = now + rotationMillis;
+    }
+
+    private void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.CLOSE_FAILURE);
+            }
+            out = null;
+            currentFile = null;
+        }
+    }
+
+    /**
+     * Finds the uncompressed files other than the one being written and deletes any partly compressed files, which
+     * are left behind if the server stopped while compressing.  The file that was being compressed is still there
+     * and is compressed again.
+     */
+    @NotNull
+    private List<File> findLeftovers() {
+        final List<File> leftovers = new ArrayList<File>();
+        final File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                final String name = file.getName();
+                if (name.endsWith(LOG_EXTENSION) && FILE_NAME.matcher(name).matches() && !file.equals(currentFile)) {
+                    leftovers.add(file);
+                } else if (name.endsWith(COMPRESSED_EXTENSION + PARTIAL_EXTENSION) && FILE_NAME.matcher(
+                        name.substring(0, name.length() - PARTIAL_EXTENSION.length())).matches()) {
+                    file.delete();
+                }
+            }
+        }
+        return leftovers;
+    }
+
+    /**
+     * Replaces a rotated file with a compressed copy.
+     * <p/>
+     * This runs on the compressor and never touches the file being written.
+     */
+    private void compress(@NotNull final File rotated) {
+        if (rotated.exists()) {
+            final File compressed = new File(rotated.getPath() + COMPRESSED_EXTENSION);
+            final File partial = new File(compressed.getPath() + PARTIAL_EXTENSION);
+            try {
+                try (InputStream in = new FileInputStream(rotated);
+                     OutputStream gzip = new GZIPOutputStream(new FileOutputStream(partial), 8192)) {
+                    final byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) >= 0) {
+                        gzip.write(buffer, 0, read);
+                    }
+                }
+                if (!partial.renameTo(compressed)) {
+                    throw new IOException("Could not rename " + partial + " to " + compressed);
+                }
+                rotated.delete();
+            } catch (IOException e) {
+                partial.delete();
+                reportError("Could not compress " + rotated, e, ErrorManager.GENERIC_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest rotated files beyond the retention count.
+     */
+    private void prune() {
+        final File[] files = folder.listFiles();
+        if (files == null) {
+            return;
+        }
+        final File current = getCurrentFile();
+        final List<File> rotatedFiles = new ArrayList<File>(files.length);
+        for (File file : files) {
+            if (FILE_NAME.matcher(file.getName()).matches() && !file.equals(current)) {
+                rotatedFiles.add(file);
+            }
+        }
+        Collections.sort(rotatedFiles, OLDEST_FIRST);
+        for (int i = 0; i < rotatedFiles.size() - retainedFiles; i++) {
+            rotatedFiles.get(i).delete();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.FLUSH_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Closes the current file.
+     * <p/>
+     * The file is left uncompressed until the next handler is created in the same folder.
+     */
+    @Override
+    public synchronized void close() {
+        closeFile();
+    }
+}
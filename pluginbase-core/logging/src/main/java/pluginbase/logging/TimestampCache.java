@@ -0,0 +1,65 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package pluginbase.logging;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formats log timestamps, only formatting again when the millisecond changes.
+ * <p/>
+ * Records logged in bursts usually share a millisecond, so most calls return the last formatted timestamp without
+ * allocating anything.  Unlike {@link java.text.SimpleDateFormat} this is safe to use from any thread.
+ */
+final class TimestampCache {
+
+    @NotNull
+    private final DateTimeFormatter formatter;
+    @NotNull
+    private volatile Entry last = new Entry(Long.MIN_VALUE, "");
+
+    /**
+     * Creates a cache for timestamps in the given pattern and time zone.
+     *
+     * @param pattern the {@link DateTimeFormatter} pattern of the timestamps.
+     * @param zone the time zone of the timestamps.
+     */
+    TimestampCache(@NotNull final String pattern, @NotNull final ZoneId zone) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(zone);
+    }
+
+    /**
+     * Gets the timestamp of the given time.
+     *
+     * @param millis the time in milliseconds since the epoch.
+     * @return the formatted timestamp.
+     */
+    @NotNull
+    String format(final long millis) {
+        final Entry entry = last;
+        if (entry.millis == millis) {
+            return entry.text;
+        }
+        final String text = formatter.format(Instant.ofEpochMilli(millis));
+        last = new Entry(millis, text);
+        return text;
+    }
+
+    /**
+     * A formatted timestamp, immutable so it can be swapped in whole without locking.
+     */
+    private static final class Entry {
+        final long millis;
+        @NotNull
+        final String text;
+
+        Entry(final long millis, @NotNull final String text) {
+            this.millis = millis;
+            this.text = text;
+        }
+    }
+}
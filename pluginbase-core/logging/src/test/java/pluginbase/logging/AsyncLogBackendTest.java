@@ -0,0 +1,294 @@
+package pluginbase.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.Assert.*;
+
+public class AsyncLogBackendTest {
+
+    static final String NAME = "Async-Test";
+
+    final File dataFolder = new File("bin/test/server/plugins/" + NAME);
+    final LoggablePlugin plugin = new LoggablePlugin() {
+        @NotNull
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @NotNull
+        @Override
+        public File getDataFolder() {
+            return dataFolder;
+        }
+    };
+
+    PluginLogger logging;
+    RecordingHandler handler;
+    AsyncLogBackend backend;
+
+    /**
+     * Records the messages logged without their prefix and can hold up the thread logging them.
+     */
+    static class RecordingHandler extends Handler {
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+        final List<Long> threadIds = Collections.synchronizedList(new ArrayList<Long>());
+        volatile CountDownLatch entered = null;
+        volatile CountDownLatch gate = null;
+
+        @Override
+        public void publish(LogRecord record) {
+            if (!isLoggable(record)) {
+                return;
+            }
+            String message = record.getMessage();
+            messages.add(message.substring(message.indexOf("] ") + 2));
+            threadIds.add(Thread.currentThread().getId());
+            CountDownLatch gate = this.gate;
+            if (gate != null) {
+                this.gate = null;
+                entered.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void flush() { }
+
+        @Override
+        public void close() throws SecurityException { }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dataFolder.mkdirs();
+        logging = PluginLogger.getLogger(plugin);
+        logging.setUseParentHandlers(false);
+        handler = new RecordingHandler();
+        logging.addHandler(handler);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (backend != null) {
+            backend.shutdown();
+        }
+        logging.setAsyncBackend(null);
+        logging.shutdown();
+        logging.removeHandler(handler);
+        logging.setUseParentHandlers(true);
+        PluginLogger.INITIALIZED_LOGGERS.clear();
+        FileUtils.deleteFolder(new File("bin"));
+    }
+
+    private void useBackend(int capacity, AsyncLogBackend.OverflowPolicy policy) {
+        backend = new AsyncLogBackend("Async-Test-Logger", capacity, policy);
+        logging.setAsyncBackend(backend);
+    }
+
+    /**
+     * Logs the first message and waits for the consumer to be held up writing it.
+     */
+    private CountDownLatch holdConsumer() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        handler.entered = new CountDownLatch(1);
+        handler.gate = gate;
+        logging.info("held");
+        assertTrue(handler.entered.await(10, TimeUnit.SECONDS));
+        return gate;
+    }
+
+    @Test
+    public void testLogsOnConsumerThread() throws Exception {
+        useBackend(16, AsyncLogBackend.OverflowPolicy.BLOCK);
+        logging.info("A %s message", "formatted");
+        logging.log(new LogRecord(Level.WARNING, "A record"));
+        logging.fine("Not logged");
+        assertTrue(backend.flush(10, TimeUnit.SECONDS));
+        assertEquals(java.util.Arrays.asList("A formatted message", "A record"), handler.messages);
+        assertFalse(handler.threadIds.contains(Thread.currentThread().getId()));
+
+        // After shutting down, messages are written directly.
+        backend.shutdown();
+        assertTrue(backend.isShutdown());
+        logging.info("Direct");
+        assertEquals("Direct", handler.messages.get(2));
+        assertEquals(Long.valueOf(Thread.currentThread().getId()), handler.threadIds.get(2));
+    }
+
+    @Test
+    public void testPerProducerOrdering() throws Exception {
+        useBackend(64, AsyncLogBackend.OverflowPolicy.BLOCK);
+        final int producers = 8;
+        final int perProducer = 5000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    logging.info("%d %d", producer, i);
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(backend.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(producers * perProducer, handler.messages.size());
+        assertEquals(0L, backend.getDroppedCount());
+        int[] next = new int[producers];
+        for (String message : handler.messages) {
+            String[] parts = message.split(" ");
+            int producer = Integer.parseInt(parts[0]);
+            assertEquals(next[producer]++, Integer.parseInt(parts[1]));
+        }
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        useBackend(16, AsyncLogBackend.OverflowPolicy.DROP_OLDEST);
+        CountDownLatch gate = holdConsumer();
+        for (int i = 1; i <= 26; i++) {
+            logging.info("%d", i);
+        }
+        assertEquals(10L, backend.getDroppedCount());
+        assertEquals(0L, backend.getBlockedCount());
+        gate.countDown();
+        assertTrue(backend.flush(10, TimeUnit.SECONDS));
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("held");
+        for (int i = 11; i <= 26; i++) {
+            expected.add(Integer.toString(i));
+        }
+        assertEquals(expected, handler.messages);
+    }
+
+    @Test
+    public void testDropDebugOnly() throws Exception {
+        useBackend(16, AsyncLogBackend.OverflowPolicy.DROP_DEBUG);
+        logging.setDebugLevel(3);
+        CountDownLatch gate = holdConsumer();
+        for (int i = 1; i <= 16; i++) {
+            logging.info("%d", i);
+        }
+        for (int i = 0; i < 5; i++) {
+            logging.finer("debug %d", i);
+        }
+        assertEquals(5L, backend.getDroppedCount());
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        backend.setBlockedLatch(waiting);
+        Thread blocked = new Thread(() -> logging.warning("waited"));
+        blocked.start();
+        assertTrue(waiting.await(10, TimeUnit.SECONDS));
+        assertEquals(1L, backend.getBlockedCount());
+        assertTrue(blocked.isAlive());
+        gate.countDown();
+        blocked.join(10000L);
+        assertFalse(blocked.isAlive());
+        assertTrue(backend.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(18, handler.messages.size());
+        assertEquals("waited", handler.messages.get(17));
+        for (String message : handler.messages) {
+            assertFalse(message.startsWith("debug"));
+        }
+        assertEquals(5L, backend.getDroppedCount());
+    }
+
+    @Test
+    public void testContendedLoggingFormatsOnConsumer() throws Exception {
+        useBackend(64, AsyncLogBackend.OverflowPolicy.BLOCK);
+        final int producers = 8;
+        final int perProducer = 1000;
+        final Set<Long> producerThreads = Collections.synchronizedSet(new HashSet<Long>());
+        final Set<Long> formattingThreads = Collections.synchronizedSet(new HashSet<Long>());
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                producerThreads.add(Thread.currentThread().getId());
+                for (int i = 0; i < perProducer; i++) {
+                    logging.info(() -> {
+                        formattingThreads.add(Thread.currentThread().getId());
+                        return "supplied";
+                    });
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(backend.flush(10, TimeUnit.SECONDS));
+
+        assertEquals(producers * perProducer, handler.messages.size());
+        assertEquals(producers, producerThreads.size());
+        // Every message was created by the consumer thread and none by the threads logging them.
+        assertEquals(1, formattingThreads.size());
+        assertFalse(producerThreads.contains(formattingThreads.iterator().next()));
+        assertEquals(new HashSet<Long>(handler.threadIds), formattingThreads);
+    }
+
+    @Test
+    public void testErrorsDoNotStopConsumer() throws Exception {
+        useBackend(16, AsyncLogBackend.OverflowPolicy.BLOCK);
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        backend.setErrorManager(new ErrorManager() {
+            @Override
+            public void error(String msg, Exception ex, int code) {
+                errors.add(ex);
+            }
+        });
+        Handler failing = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                if (record.getMessage().contains("fail")) {
+                    throw new AssertionError("failed");
+                }
+            }
+
+            @Override
+            public void flush() { }
+
+            @Override
+            public void close() throws SecurityException { }
+        };
+        logging.addHandler(failing);
+        try {
+            logging.info("fail");
+            // More than the buffer holds, so this only finishes if the consumer carries on.
+            for (int i = 0; i < 100; i++) {
+                logging.info("%d", i);
+            }
+            assertTrue(backend.flush(10, TimeUnit.SECONDS));
+        } finally {
+            logging.removeHandler(failing);
+        }
+        assertEquals(101, handler.messages.size());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getCause() instanceof AssertionError);
+    }
+}
@@ -0,0 +1,148 @@
+package pluginbase.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import static org.junit.Assert.*;
+
+public class LazyLoggingTest {
+
+    static final String NAME = "Lazy-Test";
+
+    final File dataFolder = new File("bin/test/server/plugins/" + NAME);
+    final LoggablePlugin plugin = new LoggablePlugin() {
+        @NotNull
+        @Override
+        public String getName() {
+            return NAME;
+        }
+
+        @NotNull
+        @Override
+        public File getDataFolder() {
+            return dataFolder;
+        }
+    };
+
+    PluginLogger logging;
+    AsyncLogBackendTest.RecordingHandler handler;
+    AsyncLogBackend backend;
+
+    /**
+     * An argument that counts how many times it is turned into a string.
+     */
+    static class CountingArg {
+        final AtomicInteger formatted = new AtomicInteger();
+        final AtomicLong threadId = new AtomicLong(-1L);
+
+        @Override
+        public String toString() {
+            formatted.incrementAndGet();
+            threadId.set(Thread.currentThread().getId());
+            return "arg";
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        dataFolder.mkdirs();
+        logging = PluginLogger.getLogger(plugin);
+        logging.setUseParentHandlers(false);
+        handler = new AsyncLogBackendTest.RecordingHandler();
+        logging.addHandler(handler);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (backend != null) {
+            backend.shutdown();
+        }
+        logging.setAsyncBackend(null);
+        logging.shutdown();
+        logging.removeHandler(handler);
+        logging.setUseParentHandlers(true);
+        logging.setLevel(null);
+        handler.setLevel(Level.ALL);
+        PluginLogger.INITIALIZED_LOGGERS.clear();
+        FileUtils.deleteFolder(new File("bin"));
+    }
+
+    @Test
+    public void testParameterizedAndCompatibleMessages() {
+        logging.info("A {} message with {} placeholders", "parameterized", 2);
+        logging.info("A %s message", "formatted");
+        logging.warning("Just a message");
+        assertEquals("A parameterized message with 2 placeholders", handler.messages.get(0));
+        assertEquals("A formatted message", handler.messages.get(1));
+        assertEquals("Just a message", handler.messages.get(2));
+    }
+
+    @Test
+    public void testSupplierMessages() {
+        logging.info(() -> "Supplied");
+        logging.log(Level.WARNING, () -> "Supplied warning");
+        logging.setDebugLevel(1);
+        logging.fine(() -> "Supplied debug");
+        assertEquals(3, handler.messages.size());
+        assertEquals("Supplied", handler.messages.get(0));
+        assertEquals("Supplied warning", handler.messages.get(1));
+        assertEquals("Supplied debug", handler.messages.get(2));
+    }
+
+    @Test
+    public void testDisabledDebugNeverFormats() {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountingArg arg = new CountingArg();
+        logging.fine(() -> "Called " + calls.incrementAndGet());
+        logging.finest("Not logged {}", arg);
+        logging.setDebugLevel(1);
+        logging.finer(() -> "Called " + calls.incrementAndGet());
+        logging.finer("Not logged {}", arg);
+        assertEquals(0, calls.get());
+        assertEquals(0, arg.formatted.get());
+        assertTrue(handler.messages.isEmpty());
+    }
+
+    @Test
+    public void testRejectedRecordsNeverFormat() {
+        final CountingArg arg = new CountingArg();
+        handler.setLevel(Level.WARNING);
+        logging.info("Rejected by the handler {}", arg);
+        assertEquals(0, arg.formatted.get());
+        logging.setLevel(Level.SEVERE);
+        logging.warning("Rejected by the logger {}", arg);
+        assertEquals(0, arg.formatted.get());
+        assertTrue(handler.messages.isEmpty());
+        logging.severe("Accepted {}", arg);
+        assertEquals(1, arg.formatted.get());
+        assertEquals("Accepted arg", handler.messages.get(0));
+    }
+
+    @Test
+    public void testFormatsOnConsumerThread() throws Exception {
+        backend = new AsyncLogBackend("Lazy-Test-Logger", 16, AsyncLogBackend.OverflowPolicy.BLOCK);
+        logging.setAsyncBackend(backend);
+        final CountingArg arg = new CountingArg();
+        final AtomicLong supplierThread = new AtomicLong(-1L);
+        logging.info("Formatted later {}", arg);
+        logging.info(() -> {
+            supplierThread.set(Thread.currentThread().getId());
+            return "Supplied later";
+        });
+        assertTrue(backend.flush(10, TimeUnit.SECONDS));
+        assertEquals("Formatted later arg", handler.messages.get(0));
+        assertEquals("Supplied later", handler.messages.get(1));
+        final long caller = Thread.currentThread().getId();
+        assertTrue(arg.threadId.get() != caller);
+        assertTrue(supplierThread.get() != caller);
+        assertEquals(handler.threadIds.get(0).longValue(), arg.threadId.get());
+    }
+}
@@ -0,0 +1,80 @@
+package pluginbase.logging;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MessageFormatterTest {
+
+    @Test
+    public void testPlaceholders() {
+        assertEquals("a 1 b two c", MessageFormatter.format("a {} b {} c", 1, "two"));
+        assertEquals("12", MessageFormatter.format("{}{}", 1, 2));
+        assertEquals("null", MessageFormatter.format("{}", (Object) null));
+        assertEquals("[1, [2, 3]] [4, 5]", MessageFormatter.format("{} {}", new Object[] {1, new int[] {2, 3}}, new int[] {4, 5}));
+    }
+
+    @Test
+    public void testMissingAndExtraArgs() {
+        assertEquals("1 and {}", MessageFormatter.format("{} and {}", 1));
+        assertEquals("1", MessageFormatter.format("{}", 1, 2, 3));
+        assertEquals("no args {}", MessageFormatter.format("no args {}"));
+    }
+
+    @Test
+    public void testEscapedPlaceholders() {
+        assertEquals("{} 1", MessageFormatter.format("\\{} {}", 1));
+        assertEquals("\\1", MessageFormatter.format("\\\\{}", 1));
+        assertEquals("{ } { 1", MessageFormatter.format("{ } { {}", 1));
+    }
+
+    @Test
+    public void testPlaceholdersIgnorePercent() {
+        assertEquals("100% of 5", MessageFormatter.format("100% of {}", 5));
+    }
+
+    @Test
+    public void testConversionsTakePrecedence() {
+        assertEquals("Set {} to x", MessageFormatter.format("Set {} to %s", "x"));
+        assertEquals("5% of {}", MessageFormatter.format("%d%% of {}", 5));
+        assertEquals("50%, 5", MessageFormatter.format("50%, {}", 5));
+        assertEquals("5 100%", MessageFormatter.format("{} 100%", 5));
+    }
+
+    @Test
+    public void testCompatibleWithStringFormat() {
+        Object[][] cases = {
+                {"A %s message", "formatted"},
+                {"%d of %s", 3, "them"},
+                {"%S!", "loud"},
+                {"100%% done%n"},
+                {"%s and %s", null, 4L},
+                {"%5s|%-3d|", "pad", 7},
+                {"%.2f", 1.23456},
+                {"%1$s %1$s", "twice"},
+                {"%x", 255},
+                {"%b", "yes"},
+                {"no conversions"},
+        };
+        for (Object[] test : cases) {
+            String message = (String) test[0];
+            Object[] args = new Object[test.length - 1];
+            System.arraycopy(test, 1, args, 0, args.length);
+            assertEquals(message, String.format(message, args), MessageFormatter.format(message, args));
+        }
+    }
+
+    @Test
+    public void testIllegalFormatsReturnMessage() {
+        assertEquals("%s and %s", MessageFormatter.format("%s and %s", "one"));
+        assertEquals("%d", MessageFormatter.format("%d", "not a number"));
+        assertEquals("100%", MessageFormatter.format("100%"));
+        assertEquals(Formatter.format("%q", 1), MessageFormatter.format("%q", 1));
+    }
+
+    @Test
+    public void testNoFormattingWithoutPlaceholders() {
+        String message = "nothing to " + "do";
+        assertSame(message, MessageFormatter.format(message, 1, 2));
+    }
+}
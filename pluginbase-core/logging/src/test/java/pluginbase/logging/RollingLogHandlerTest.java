@@ -0,0 +1,268 @@
+package pluginbase.logging;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class RollingLogHandlerTest {
+
+    /** 2014-06-01 12:00:00 UTC */
+    static final long START = 1401624000000L;
+
+    File tempFolder;
+    File folder;
+    FakeClock clock;
+    Queue<Runnable> compressions;
+    RollingLogHandler handler;
+
+    /**
+     * A clock that only moves when told to.
+     */
+    static class FakeClock extends Clock {
+        long millis = START;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        tempFolder = Files.createTempDirectory("pluginbase-rolling").toFile();
+        folder = new File(tempFolder, "debug");
+        clock = new FakeClock();
+        compressions = new LinkedList<Runnable>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (handler != null) {
+            handler.close();
+        }
+        FileUtils.deleteFolder(tempFolder);
+    }
+
+    private void createHandler(long maxBytes, long rotationMillis, int retainedFiles) throws IOException {
+        handler = new RollingLogHandler(folder, maxBytes, rotationMillis, retainedFiles, clock, compressions::add);
+        handler.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage() + "\n";
+            }
+        });
+    }
+
+    private void log(String message) {
+        handler.publish(new LogRecord(Level.INFO, message));
+    }
+
+    private void runCompressions() {
+        Runnable task;
+        while ((task = compressions.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private List<String> fileNames() {
+        String[] names = folder.list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        List<String> lines = new ArrayList<String>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, Charset.defaultCharset()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Test
+    public void testRotatesBySize() throws Exception {
+        createHandler(20, 0, 10);
+        log("123456789");
+        log("abcdefghi");
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log"), fileNames());
+        log("too much");
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log", "2014.06.01-12.00.00_1.log"), fileNames());
+        assertEquals("2014.06.01-12.00.00_1.log", handler.getCurrentFile().getName());
+
+        runCompressions();
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log.gz", "2014.06.01-12.00.00_1.log"), fileNames());
+        assertEquals(Arrays.asList("123456789", "abcdefghi"), readLines(new File(folder, "2014.06.01-12.00.00.log.gz")));
+        assertEquals(Arrays.asList("too much"), readLines(handler.getCurrentFile()));
+    }
+
+    @Test
+    public void testOversizedRecordStillWritten() throws Exception {
+        createHandler(5, 0, 10);
+        log("longer than the limit");
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log"), fileNames());
+        assertEquals(Arrays.asList("longer than the limit"), readLines(handler.getCurrentFile()));
+    }
+
+    @Test
+    public void testRotatesByTime() throws Exception {
+        createHandler(0, 60000L, 10);
+        log("first");
+        clock.millis += 59999L;
+        log("still first");
+        assertEquals(1, fileNames().size());
+        clock.millis += 1L;
+        log("second");
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log", "2014.06.01-12.01.00.log"), fileNames());
+
+        // The age is counted from when the new file was started.
+        clock.millis += 30000L;
+        log("still second");
+        assertEquals(2, fileNames().size());
+        clock.millis += 30000L;
+        log("third");
+        runCompressions();
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log.gz", "2014.06.01-12.01.00.log.gz",
+                "2014.06.01-12.02.00.log"), fileNames());
+        assertEquals(Arrays.asList("second", "still second"), readLines(new File(folder, "2014.06.01-12.01.00.log.gz")));
+    }
+
+    @Test
+    public void testEmptyFileNotRotated() throws Exception {
+        createHandler(0, 1000L, 10);
+        clock.millis += 5000L;
+        log("only");
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log"), fileNames());
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        createHandler(0, 1000L, 2);
+        for (int i = 0; i < 5; i++) {
+            log("message " + i);
+            clock.millis += 1000L;
+        }
+        log("current");
+        runCompressions();
+        assertEquals(Arrays.asList("2014.06.01-12.00.03.log.gz", "2014.06.01-12.00.04.log.gz",
+                "2014.06.01-12.00.05.log"), fileNames());
+        assertEquals(Arrays.asList("message 4"), readLines(new File(folder, "2014.06.01-12.00.04.log.gz")));
+    }
+
+    @Test
+    public void testRetentionOrdersUniqueNames() throws Exception {
+        createHandler(10, 0, 2);
+        for (int i = 0; i < 12; i++) {
+            log("message " + i);
+        }
+        runCompressions();
+        assertEquals(Arrays.asList("2014.06.01-12.00.00_10.log.gz", "2014.06.01-12.00.00_11.log",
+                "2014.06.01-12.00.00_9.log.gz"), fileNames());
+    }
+
+    @Test
+    public void testCompressesLeftovers() throws Exception {
+        assertTrue(folder.mkdirs());
+        File leftover = new File(folder, "2014.05.31-08.00.00.log");
+        try (FileOutputStream out = new FileOutputStream(leftover)) {
+            out.write("old session\n".getBytes(Charset.defaultCharset()));
+        }
+        File partial = new File(folder, "2014.05.31-08.00.00.log.gz.tmp");
+        assertTrue(partial.createNewFile());
+        File unrelated = new File(folder, "notes.log");
+        assertTrue(unrelated.createNewFile());
+        createHandler(0, 0, 10);
+        runCompressions();
+        assertFalse(leftover.exists());
+        assertFalse(partial.exists());
+        assertEquals(Arrays.asList("old session"), readLines(new File(folder, "2014.05.31-08.00.00.log.gz")));
+        assertTrue(unrelated.exists());
+        assertTrue(handler.getCurrentFile().exists());
+    }
+
+    @Test
+    public void testNewHandlerDoesNotReuseFile() throws Exception {
+        createHandler(0, 0, 10);
+        log("first session");
+        handler.close();
+        createHandler(0, 0, 10);
+        log("second session");
+        runCompressions();
+        assertEquals(Arrays.asList("2014.06.01-12.00.00.log.gz", "2014.06.01-12.00.00_1.log"), fileNames());
+        assertEquals(Arrays.asList("second session"), readLines(handler.getCurrentFile()));
+    }
+
+    @Test
+    public void testClosedHandlerIgnoresRecords() throws Exception {
+        createHandler(0, 0, 10);
+        handler.close();
+        log("ignored");
+        assertNull(handler.getCurrentFile());
+        assertEquals(0L, new File(folder, "2014.06.01-12.00.00.log").length());
+    }
+
+    @Test
+    public void testLogFormatterTimestamps() throws Exception {
+        DebugLog.LogFormatter formatter = new DebugLog.LogFormatter(ZoneOffset.UTC);
+        LogRecord record = new LogRecord(Level.INFO, "A message");
+        record.setMillis(START + 42L);
+        assertEquals("2014-06-01 12:00:00 [INFO] A message\n", formatter.format(record));
+        record.setMillis(START + 1043L);
+        assertEquals("2014-06-01 12:00:01 [INFO] A message\n", formatter.format(record));
+    }
+
+    @Test
+    public void testTimestampCache() throws Exception {
+        TimestampCache cache = new TimestampCache("HH:mm:ss.SSS", ZoneOffset.UTC);
+        String first = cache.format(START + 1L);
+        assertEquals("12:00:00.001", first);
+        assertSame(first, cache.format(START + 1L));
+        assertEquals("12:00:00.002", cache.format(START + 2L));
+        assertEquals("12:00:00.001", cache.format(START + 1L));
+    }
+}
@@ -6,7 +6,6 @@ import pluginbase.command.Command;
 import pluginbase.command.CommandException;
 import pluginbase.command.CommandInfo;
 import pluginbase.command.CommandProvider;
-import pluginbase.command.CommandUsageException;
 import pluginbase.config.datasource.DataSource;
 import pluginbase.config.datasource.gson.GsonDataSource;
 import pluginbase.config.datasource.hocon.HoconDataSource;
@@ -22,6 +21,7 @@ import pluginbase.messages.PluginBaseException;
 import pluginbase.messages.messaging.SendablePluginBaseException;
 import pluginbase.minecraft.BasePlayer;
 import pluginbase.plugin.command.builtin.BuiltInCommand;
+import pluginbase.plugin.command.builtin.CommandStatsCommand;
 import pluginbase.plugin.command.builtin.ConfirmCommand;
 import pluginbase.plugin.command.builtin.DebugCommand;
 import pluginbase.plugin.command.builtin.DebugSessionCommand;
@@ -84,6 +84,7 @@ public abstract class PluginAgent<P> {
         _registerCommand(DebugCommand.class);
         _registerCommand(ReloadCommand.class);
         _registerCommand(VersionCommand.class);
+        _registerCommand(CommandStatsCommand.class);
         _registerCommand(DebugSessionCommand.class);
         if (commandProvider.useQueuedCommands()) {
             _registerCommand(ConfirmCommand.class);
@@ -333,12 +334,7 @@ public abstract class PluginAgent<P> {
         try {
             return getPluginBase().getCommandHandler().locateAndRunCommand(sender, allArgs);
         } catch (CommandException e) {
-            e.sendException(getPluginBase().getMessager(), sender);
-            if (e instanceof CommandUsageException) {
-                for (final String usageString : ((CommandUsageException) e).getUsage()) {
-                    sender.sendMessage(usageString);
-                }
-            }
+            getPluginBase().getCommandHandler().sendCommandException(sender, e);
         }
         return true;
     }
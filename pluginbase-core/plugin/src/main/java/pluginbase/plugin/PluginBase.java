@@ -8,6 +8,8 @@ import pluginbase.command.Command;
 import pluginbase.command.CommandHandler;
 import pluginbase.command.CommandProvider;
 import pluginbase.command.QueuedCommand;
+import pluginbase.config.field.FieldMapper;
+import pluginbase.config.serializers.GeneratedSerializers;
 import pluginbase.debugsession.DebugSessionManager;
 import pluginbase.jdbc.JdbcAgent;
 import pluginbase.logging.LoggablePlugin;
@@ -32,6 +34,7 @@ import java.util.IllegalFormatException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 /**
  * This represents the PluginBase plugin itself.
@@ -45,6 +48,9 @@ public final class PluginBase<P> implements LoggablePlugin, Messaging, CommandPr
     private PluginLogger logger;
     private DebugSessionManager debugSessionManager;
     private Settings settings = null;
+    /** Guards {@link #queuedCommandTaskId}, which may be started from any thread that queues a command. */
+    private final Object queuedCommandTaskLock = new Object();
+    private int queuedCommandTaskId = -1;
 
     PluginBase(@NotNull PluginAgent<P> pluginAgent) {
         this.pluginAgent = pluginAgent;
@@ -92,7 +98,16 @@ public final class PluginBase<P> implements LoggablePlugin, Messaging, CommandPr
     }
 
     void onDisable() {
+        synchronized (queuedCommandTaskLock) {
+            if (queuedCommandTaskId != -1) {
+                getServerInterface().cancelTask(queuedCommandTaskId);
+                queuedCommandTaskId = -1;
+            }
+        }
         debugSessionManager.shutdown();
+        // The plugin's classes may be reloaded by a new class loader, so nothing should keep referring to these.
+        FieldMapper.evictFieldMaps(getPluginClass().getClassLoader());
+        GeneratedSerializers.evictGeneratedSerializers(getPluginClass().getClassLoader());
         getLog().shutdown();
     }
 
@@ -254,14 +269,47 @@ public final class PluginBase<P> implements LoggablePlugin, Messaging, CommandPr
         return logger;
     }
 
-    /** {@inheritDoc} */
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Queued commands expire through the command handler, ticked by a single repeating task started with
+     * {@link ServerInterface#runTaskTimer(Runnable, long, long)} when the first command is queued.
+     */
     @Override
     public void scheduleQueuedCommandExpiration(@NotNull QueuedCommand queuedCommand) {
         if (useQueuedCommands()) {
-            getServerInterface().runTaskLater(queuedCommand, queuedCommand.getExpirationDuration() * 20L);
+            final CommandHandler commandHandler = getCommandHandler();
+            synchronized (queuedCommandTaskLock) {
+                if (queuedCommandTaskId == -1) {
+                    queuedCommandTaskId = getServerInterface().runTaskTimer(commandHandler::tickQueuedCommandExpirations, 1L, 1L);
+                }
+            }
+            commandHandler.scheduleQueuedCommandExpiration(queuedCommand, queuedCommand.getExpirationDuration() * 20L);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Runs commands with {@link ServerInterface#runTaskAsynchronously(Runnable)}.
+     */
+    @NotNull
+    @Override
+    public Executor getAsyncCommandExecutor() {
+        return task -> getServerInterface().runTaskAsynchronously(task);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Runs tasks with {@link ServerInterface#runTask(Runnable)}.
+     */
+    @NotNull
+    @Override
+    public Executor getMainThreadExecutor() {
+        return task -> getServerInterface().runTask(task);
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean useQueuedCommands() {
@@ -0,0 +1,112 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package pluginbase.plugin.command.builtin;
+
+import pluginbase.command.CommandContext;
+import pluginbase.command.CommandInfo;
+import pluginbase.command.CommandMetrics;
+import pluginbase.command.LatencyHistogram;
+import pluginbase.messages.Message;
+import pluginbase.messages.Theme;
+import pluginbase.minecraft.BasePlayer;
+import pluginbase.permission.Perm;
+import pluginbase.permission.PermFactory;
+import pluginbase.plugin.PluginBase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+
+/**
+ * Displays how often the plugin's commands are used and how long they take.
+ * <p/>
+ * The statistics come from the command handler's {@link CommandMetrics}.
+ */
+@CommandInfo(
+        primaryAlias = "stats commands",
+        desc = "Displays usage statistics for the plugin's commands.",
+        flags = "rl",
+        max = 0
+)
+public class CommandStatsCommand extends BuiltInCommand {
+
+    public final static Message STATS_HELP = Message.createMessage("cmd.stats.commands.help",
+            Theme.HELP + "Displays how many times each command has been used, failed or been denied and how long it takes to run."
+                    + "\n" + Theme.HELP + "Flags:"
+                    + "\n" + Theme.CMD_FLAG + "  -r " + Theme.HELP + "will reset the statistics after displaying them."
+                    + "\n" + Theme.CMD_FLAG + "  -l " + Theme.HELP + "will turn timing each command on or off.");
+    public final static Message STATS_HEADER = Message.createMessage("cmd.stats.commands.header",
+            Theme.INFO + "===[ Command Statistics ]===");
+    public final static Message STATS_COMMAND = Message.createMessage("cmd.stats.commands.command",
+            Theme.VALUE + "%s" + Theme.INFO + ": %s uses, %s failed, %s denied, p50 %s ms, p99 %s ms, max %s ms");
+    public final static Message STATS_COMMAND_UNTIMED = Message.createMessage("cmd.stats.commands.command-untimed",
+            Theme.VALUE + "%s" + Theme.INFO + ": %s uses, %s failed, %s denied");
+    public final static Message STATS_NONE = Message.createMessage("cmd.stats.commands.none",
+            Theme.INFO + "No commands have been used yet.");
+    public final static Message STATS_RESET = Message.createMessage("cmd.stats.commands.reset",
+            Theme.SUCCESS + "Command statistics have been reset.");
+    public final static Message STATS_TIMING_ON = Message.createMessage("cmd.stats.commands.timing-on",
+            Theme.SUCCESS + "Commands are now timed.");
+    public final static Message STATS_TIMING_OFF = Message.createMessage("cmd.stats.commands.timing-off",
+            Theme.SUCCESS + "Commands are no longer timed.");
+
+    private final Perm perm;
+
+    protected CommandStatsCommand(@NotNull final PluginBase plugin) {
+        super(plugin);
+        perm = PermFactory.newPerm(plugin.getPluginClass(), "cmd.stats.commands").usePluginName().commandPermission()
+                .desc("Displays usage statistics for the plugin's commands.").build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Perm getPerm() {
+        return perm;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Message getHelp() {
+        return STATS_HELP;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean runCommand(@NotNull final BasePlayer sender, @NotNull final CommandContext context) {
+        final CommandMetrics metrics = getCommandProvider().getCommandHandler().getMetrics();
+        getMessager().message(sender, STATS_HEADER);
+        boolean anyUsed = false;
+        for (CommandMetrics.Stats stats : metrics.getAllStats()) {
+            if (stats.getInvocations() == 0L && stats.getPermissionDenials() == 0L) {
+                continue;
+            }
+            anyUsed = true;
+            final LatencyHistogram latency = stats.getLatency();
+            if (latency.getCount() == 0L) {
+                getMessager().message(sender, STATS_COMMAND_UNTIMED, stats.getName(), stats.getInvocations(),
+                        stats.getFailures(), stats.getPermissionDenials());
+                continue;
+            }
+            getMessager().message(sender, STATS_COMMAND, stats.getName(), stats.getInvocations(), stats.getFailures(),
+                    stats.getPermissionDenials(), millis(latency.getValueAtPercentile(50D)),
+                    millis(latency.getValueAtPercentile(99D)), millis(latency.getMax()));
+        }
+        if (!anyUsed) {
+            getMessager().message(sender, STATS_NONE);
+        }
+        if (context.hasFlag('r')) {
+            metrics.reset();
+            getMessager().message(sender, STATS_RESET);
+        }
+        if (context.hasFlag('l')) {
+            metrics.setLatencyTracked(!metrics.isLatencyTracked());
+            getMessager().message(sender, metrics.isLatencyTracked() ? STATS_TIMING_ON : STATS_TIMING_OFF);
+        }
+        return true;
+    }
+
+    @NotNull
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1000000D);
+    }
+}
@@ -3,24 +3,45 @@ package pluginbase.plugin.metadata;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import pluginbase.config.datasource.DataSource;
+import pluginbase.config.datasource.DataSources;
 import pluginbase.messages.messaging.SendablePluginBaseException;
 import pluginbase.minecraft.location.BlockCoordinates;
 import pluginbase.plugin.PluginBase;
+import pluginbase.plugin.metadata.ChunkedBlockMetadata.RegionSnapshot;
 
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
 
 /**
  * Acts as a go-between for block metadata and a storage medium.
  * <p/>
- * This class uses a single worker thread to handle loading and saving, however, loading will always block the main
- * thread.
+ * Metadata is held in memory partitioned by world and 16x16 block chunk and is keyed by block position packed into a
+ * long with {@link BlockPositions}.
+ * <p/>
+ * A registry built with {@link #builder(PluginBase, BlockMetadataStorage)} stores its metadata a region of 32x32 chunks
+ * at a time and only saves changes: chunks are marked dirty when metadata is added or removed, only the regions
+ * containing dirty chunks are saved and a save is skipped entirely when nothing is dirty. Metadata that is changed in
+ * place must be reported with {@link #markDirty(BlockCoordinates)}, otherwise the change is only saved by
+ * {@link #saveAllMetaData(boolean)}. Regions are loaded by
+ * {@link #loadChunk(UUID, int, int)}, typically as the server loads chunks, or when metadata in them is first looked
+ * up, added or removed. Queries over an area never load regions, so they only see the metadata of regions that are
+ * loaded. {@link #builder(PluginBase, Path, String)} is a shortcut for storage in region files and
+ * {@link JdbcBlockMetadataStorage} stores the metadata in a database. A registry built with
+ * {@link #builder(PluginBase, DataSource)} stores all of its metadata in a single data source which must be loaded up
+ * front with {@link #loadMetadata()} and is written in full by every save.
+ * <p/>
+ * This class uses a single worker thread to handle saving and loading the single data source, however, loading will
+ * always block the main thread.
  *
  * @param <DataType> The type of metadata to handle.
  */
@@ -34,7 +55,37 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
      * @return A builder object for a BlockMetadataRegistry.
      */
     public static Builder builder(@NotNull PluginBase plugin, @NotNull DataSource dataSource) {
-        return new Builder(plugin, dataSource);
+        return new Builder(plugin, dataSource, null, null, null);
+    }
+
+    /**
+     * Creates a builder object for a BlockMetadataRegistry which stores its metadata in the given storage a region at
+     * a time.
+     *
+     * @param plugin The plugin owning the metadata.
+     * @param storage The storage for the metadata.
+     * @param <DataType> The type of metadata to handle.
+     * @return A builder object for a BlockMetadataRegistry.
+     */
+    public static <DataType extends BlockMetadatable> Builder<DataType> builder(@NotNull PluginBase plugin,
+                                                                                @NotNull BlockMetadataStorage<DataType> storage) {
+        return new Builder<>(plugin, null, storage, null, null);
+    }
+
+    /**
+     * Creates a builder object for a BlockMetadataRegistry which stores its metadata in region files.
+     * <p/>
+     * Each region file holds the metadata for 32x32 chunks. The files are placed in a directory for each world, named
+     * by the world's UUID, within the given directory. By default, the type of data source used for the files is
+     * determined by the file extension as per {@link DataSources#forPath(Path)}.
+     *
+     * @param plugin The plugin owning the metadata.
+     * @param directory The directory to store the region files in.
+     * @param fileExtension The file extension of the region files, such as "yml".
+     * @return A builder object for a BlockMetadataRegistry.
+     */
+    public static Builder builder(@NotNull PluginBase plugin, @NotNull Path directory, @NotNull String fileExtension) {
+        return new Builder(plugin, null, null, directory, fileExtension);
     }
 
     /**
@@ -46,18 +97,47 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
 
         @NotNull
         private final PluginBase plugin;
-        @NotNull
+        @Nullable
         private final DataSource dataSource;
+        @Nullable
+        private final BlockMetadataStorage<DataType> storage;
+        @Nullable
+        private final Path regionDirectory;
+        @Nullable
+        private final String regionFileExtension;
+        @NotNull
+        private Function<Path, DataSource> regionDataSourceFactory = DataSources::forPath;
         private Consumer<Map<BlockCoordinates, DataType>> cleaner;
 
-        private Builder(@NotNull PluginBase plugin, @NotNull DataSource dataSource) {
+        private Builder(@NotNull PluginBase plugin, @Nullable DataSource dataSource,
+                        @Nullable BlockMetadataStorage<DataType> storage, @Nullable Path regionDirectory,
+                        @Nullable String regionFileExtension) {
             this.plugin = plugin;
             this.dataSource = dataSource;
+            this.storage = storage;
+            this.regionDirectory = regionDirectory;
+            this.regionFileExtension = regionFileExtension;
+        }
+
+        /**
+         * Specifies how the data source for each region file is created. This only applies to registries that store
+         * their metadata in region files.
+         *
+         * @param dataSourceFactory Creates a data source for the region file at the given path.
+         * @return This builder object for method chaining.
+         */
+        @NotNull
+        public Builder setRegionDataSourceFactory(@NotNull Function<Path, DataSource> dataSourceFactory) {
+            this.regionDataSourceFactory = dataSourceFactory;
+            return this;
         }
 
         /**
          * Specifies a consumer that will handle clean up of the metadata whenever it is loaded from the datasource
          * via {@link #loadMetadata()}.
+         * <p/>
+         * For registries that store their metadata a region at a time, the cleaner is given the metadata of each region
+         * as the region is loaded.
          *
          * @param cleaner The cleanup consumer to use.
          * @return This builder object for method chaining.
@@ -75,27 +155,38 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
          */
         @NotNull
         public BlockMetadataRegistry<DataType> build() {
-            return new BlockMetadataRegistry<DataType>(plugin, dataSource, cleaner);
+            BlockMetadataStorage<DataType> regionStorage = storage;
+            if (regionDirectory != null && regionFileExtension != null) {
+                regionStorage = new RegionFileStorage<>(regionDirectory, regionFileExtension, regionDataSourceFactory);
+            }
+            return new BlockMetadataRegistry<DataType>(plugin, dataSource, regionStorage, cleaner);
         }
     }
 
     @NotNull
     private final PluginBase plugin;
-    @NotNull
+    @Nullable
     private final DataSource dataSource;
     @Nullable
+    private final BlockMetadataStorage<DataType> regionStorage;
+    @Nullable
     private final Consumer<Map<BlockCoordinates, DataType>> cleaner;
 
-    private Map<BlockCoordinates, DataType> blockMetadata = new ConcurrentHashMap<>();
+    @NotNull
+    private final ChunkedBlockMetadata<DataType> blockMetadata;
     private final ExecutorService dataWorker = Executors.newSingleThreadExecutor();
 
     private int saveTaskId;
 
-    private BlockMetadataRegistry(@NotNull PluginBase plugin, @NotNull DataSource dataSource,
-                                 @Nullable Consumer<Map<BlockCoordinates, DataType>> cleaner) {
+    private BlockMetadataRegistry(@NotNull PluginBase plugin, @Nullable DataSource dataSource,
+                                  @Nullable BlockMetadataStorage<DataType> regionStorage,
+                                  @Nullable Consumer<Map<BlockCoordinates, DataType>> cleaner) {
         this.plugin = plugin;
         this.dataSource = dataSource;
+        this.regionStorage = regionStorage;
         this.cleaner = cleaner;
+        this.blockMetadata = new ChunkedBlockMetadata<>(regionStorage, metadata -> metadata.setRegistry(this), cleaner,
+                (region, e) -> plugin.getLog().log(Level.WARNING, "Unable to load block metadata for " + region, e));
     }
 
     /**
@@ -103,8 +194,22 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
      * <p/>
      * The loading occurs on a single worker thread belonging to this registry but blocks the main thread until
      * finished loading. Cleanup, if a cleaner was specified, will occur on the main thread after loading.
+     * <p/>
+     * For registries that store their metadata a region at a time, this instead discards all loaded regions, including
+     * any unsaved changes, once any saves in progress have finished. The regions are loaded again as they are accessed.
      */
     public void loadMetadata() {
+        if (regionStorage != null) {
+            Future unloader = dataWorker.submit(blockMetadata::clear);
+            try {
+                unloader.get();
+            } catch (InterruptedException | ExecutionException e) {
+                plugin.getLog().log(Level.WARNING, "Unable to unload block metadata", e);
+            }
+            plugin.getLog().fine("Block metadata will be loaded by region as it is accessed");
+            return;
+        }
+        assert dataSource != null;
         Future<Map<BlockCoordinates, DataType>> lockLoader = dataWorker.submit(() -> {
             try {
                 BlockMetadataStore dataStore = dataSource.load(BlockMetadataStore.class);
@@ -115,48 +220,90 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
                 }
                 return dataStore.loadData(BlockMetadataRegistry.this);
             } catch (SendablePluginBaseException e) {
-                e.printStackTrace();
-                plugin.getLog().severe("Unable to load block metadata");
+                plugin.getLog().log(Level.WARNING, "Unable to load block metadata", e);
                 return new HashMap<>();
             }
         });
+        Map<BlockCoordinates, DataType> loadedMetadata = new HashMap<>();
         try {
-            blockMetadata = lockLoader.get();
+            loadedMetadata = lockLoader.get();
         } catch (InterruptedException | ExecutionException e) {
-            e.printStackTrace();
+            plugin.getLog().log(Level.WARNING, "Unable to load block metadata", e);
         }
         if (cleaner != null) {
-            cleaner.accept(blockMetadata);
+            cleaner.accept(loadedMetadata);
+        }
+        blockMetadata.clear();
+        for (DataType metadata : loadedMetadata.values()) {
+            blockMetadata.putLoaded(metadata);
         }
         plugin.getLog().fine("Loaded metadata for " + blockMetadata.size() + " blocks");
     }
 
     /**
-     * Saves all metadata stored in this registry to the registry's data source.
+     * Saves the metadata that has changed in this registry to the registry's data source.
      * <p/>
-     * This save operation is performed on this registry's single worker thread and can optionally block the main
-     * thread.
+     * The changed metadata is collected on the calling thread. The save operation is then performed on this registry's
+     * single worker thread and can optionally block the main thread. For registries that store their metadata a
+     * region at a time, only the changes to the regions containing changed chunks are saved and nothing is saved if
+     * nothing has changed. Otherwise, all metadata is written to the data source.
      *
      * @param blockMainThread True will cause this operation to block the main thread until complete.
      */
     public void saveMetaData(boolean blockMainThread) {
-        Future lockSaver = dataWorker.submit(() -> {
-            try {
-                dataSource.save(new BlockMetadataStore<DataType>().saveData(blockMetadata));
-            } catch (SendablePluginBaseException e) {
-                e.printStackTrace();
-                plugin.getLog().severe("Could not save block metadata!");
+        // Taken either way so that the dirty state is cleared, but a single data source is always written in full.
+        List<RegionSnapshot<DataType>> dirtyRegions = blockMetadata.takeDirtyRegions();
+        Future lockSaver;
+        if (regionStorage != null) {
+            if (dirtyRegions.isEmpty()) {
+                return;
             }
-        });
+            lockSaver = dataWorker.submit(() -> {
+                for (RegionSnapshot<DataType> region : dirtyRegions) {
+                    try {
+                        regionStorage.saveRegion(region);
+                    } catch (SendablePluginBaseException e) {
+                        region.failed();
+                        plugin.getLog().log(Level.WARNING, "Could not save block metadata for " + region + "!", e);
+                    }
+                }
+            });
+        } else {
+            assert dataSource != null;
+            List<DataType> allMetadata = blockMetadata.values();
+            lockSaver = dataWorker.submit(() -> {
+                try {
+                    BlockMetadataStore<DataType> store = new BlockMetadataStore<>();
+                    store.metadata = allMetadata;
+                    dataSource.save(store);
+                } catch (SendablePluginBaseException e) {
+                    plugin.getLog().log(Level.WARNING, "Could not save block metadata!", e);
+                }
+            });
+        }
         if (blockMainThread) {
             try {
                 lockSaver.get();
             } catch (InterruptedException | ExecutionException e) {
-                e.printStackTrace();
+                plugin.getLog().log(Level.WARNING, "Could not save block metadata!", e);
             }
         }
     }
 
+    /**
+     * Saves all of the loaded metadata in this registry, whether or not it has been marked as changed.
+     * <p/>
+     * This is the fallback for metadata that is changed in place without being reported with
+     * {@link #markDirty(BlockCoordinates)}. Otherwise, {@link #saveMetaData(boolean)} should be preferred as it only
+     * saves what has changed.
+     *
+     * @param blockMainThread True will cause this operation to block the main thread until complete.
+     */
+    public void saveAllMetaData(boolean blockMainThread) {
+        blockMetadata.markAllDirty();
+        saveMetaData(blockMainThread);
+    }
+
     /**
      * Schedules an automatic, non-blocking save to occur after the given number of ticks and repeating until stopped.
      *
@@ -177,9 +324,11 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
      * Adds metadata to this registry.
      *
      * @param metadata The metadata to add.
+     * @throws IllegalArgumentException if the metadata's location is out of the range supported by
+     * {@link BlockPositions}.
      */
     public void addMetaData(@NotNull DataType metadata) {
-        blockMetadata.put(metadata.getLocation(), metadata);
+        blockMetadata.put(metadata);
         metadata.setRegistry(this);
     }
 
@@ -193,21 +342,70 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
         metadata.setRegistry(null);
     }
 
+    /**
+     * Marks the metadata at the given block coordinates as changed so that it is written by the next
+     * {@link #saveMetaData(boolean)}.
+     * <p/>
+     * Adding and removing metadata marks it automatically. Metadata that changes its own state after being added must
+     * call this, for instance from its setters through the registry given to
+     * {@link BlockMetadatable#setRegistry(BlockMetadataRegistry)}, or the change will not be saved.
+     *
+     * @param blockCoordinates The block coordinates of the changed metadata.
+     * @throws IllegalStateException if this registry stores its metadata a region at a time and the region holding
+     * the block is not loaded.
+     */
+    public void markDirty(@NotNull BlockCoordinates blockCoordinates) {
+        blockMetadata.markDirty(blockCoordinates);
+    }
+
+    /**
+     * Loads the stored metadata of the 32x32 chunk region containing the given chunk, if it is not loaded already.
+     * <p/>
+     * This blocks until the region is loaded and is a no-op for registries that store all of their metadata in a
+     * single data source. On Bukkit, {@code pluginbase.bukkit.BlockMetadataChunkListener} calls this as the server
+     * loads chunks.
+     *
+     * @param world The UUID of the world the chunk is in.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     */
+    public void loadChunk(@NotNull UUID world, int chunkX, int chunkZ) {
+        blockMetadata.loadRegion(world, chunkX, chunkZ);
+    }
+
+    /**
+     * Checks whether the metadata of the given chunk has been loaded.
+     *
+     * @param world The UUID of the world the chunk is in.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @return True if the metadata of the chunk is loaded and visible to lookups.
+     */
+    public boolean isChunkLoaded(@NotNull UUID world, int chunkX, int chunkZ) {
+        return blockMetadata.isRegionLoaded(world, chunkX, chunkZ);
+    }
+
     /**
      * Checks whether the given block coordinates have associated metadata in this registry.
      * <p/>
      * It is important to note that this only checks for metadata in this registry. The block could have other types
      * of metadata available in other registries.
+     * <p/>
+     * For registries that store their metadata a region at a time, this loads the region holding the block if it is
+     * not loaded already.
      *
      * @param blockCoordinates The block coordinates to check.
      * @return True if there is metadata for the given block coordinates in this registry.
      */
     public boolean hasMetaData(@NotNull BlockCoordinates blockCoordinates) {
-        return blockMetadata.containsKey(blockCoordinates);
+        return blockMetadata.contains(blockCoordinates);
     }
 
     /**
      * Returns the metadata for the given block coordinates, if any.
+     * <p/>
+     * For registries that store their metadata a region at a time, this loads the region holding the block if it is
+     * not loaded already.
      *
      * @param blockCoordinates The block coordinates to get the metadata for.
      * @return The metadata for the given block coordinates or null if no metadata exists in this registry for those
@@ -217,4 +415,79 @@ public class BlockMetadataRegistry<DataType extends BlockMetadatable> {
     public DataType getMetaData(@NotNull BlockCoordinates blockCoordinates) {
         return blockMetadata.get(blockCoordinates);
     }
+
+    /**
+     * Checks whether the given block position has associated metadata in this registry.
+     *
+     * @param world The UUID of the world the block is in.
+     * @param position The block position packed with {@link BlockPositions#pack(int, int, int)}.
+     * @return True if there is metadata for the given block position in this registry.
+     * @see #hasMetaData(BlockCoordinates)
+     */
+    public boolean hasMetaData(@NotNull UUID world, long position) {
+        return blockMetadata.contains(world, position);
+    }
+
+    /**
+     * Returns the metadata for the given block position, if any.
+     *
+     * @param world The UUID of the world the block is in.
+     * @param position The block position packed with {@link BlockPositions#pack(int, int, int)}.
+     * @return The metadata for the given block position or null if no metadata exists in this registry for that
+     * position.
+     * @see #getMetaData(BlockCoordinates)
+     */
+    @Nullable
+    public DataType getMetaData(@NotNull UUID world, long position) {
+        return blockMetadata.get(world, position);
+    }
+
+    /**
+     * Returns the metadata for the blocks within a cuboid, including the blocks at the minimum and maximum coordinates.
+     * <p/>
+     * The result is iterated lazily a chunk at a time and may be iterated any number of times. Metadata may be added
+     * or removed while iterating: each chunk is read in a consistent state as iteration reaches it, so changes to
+     * chunks which have already been reached are not seen while changes to the rest are.
+     *
+     * @param world The UUID of the world to search.
+     * @param minX The minimum x coordinate.
+     * @param minY The minimum y coordinate.
+     * @param minZ The minimum z coordinate.
+     * @param maxX The maximum x coordinate.
+     * @param maxY The maximum y coordinate.
+     * @param maxZ The maximum z coordinate.
+     * @return The metadata for the blocks within the cuboid in this registry.
+     */
+    @NotNull
+    public Iterable<DataType> getInRegion(@NotNull UUID world, int minX, int minY, int minZ,
+                                          int maxX, int maxY, int maxZ) {
+        return blockMetadata.query(world, minX, minY, minZ, maxX, maxY, maxZ, null);
+    }
+
+    /**
+     * Returns the metadata for the blocks within a 16x16 chunk.
+     *
+     * @param world The UUID of the world to search.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @return The metadata for the blocks within the chunk in this registry.
+     * @see #getInRegion(UUID, int, int, int, int, int, int)
+     */
+    @NotNull
+    public Iterable<DataType> getInChunk(@NotNull UUID world, int chunkX, int chunkZ) {
+        return blockMetadata.queryChunk(world, chunkX, chunkZ);
+    }
+
+    /**
+     * Returns the metadata for the blocks whose distance from the given block is no greater than the radius.
+     *
+     * @param center The block to search around.
+     * @param radius The maximum distance in blocks.
+     * @return The metadata for the blocks within the radius in this registry.
+     * @see #getInRegion(UUID, int, int, int, int, int, int)
+     */
+    @NotNull
+    public Iterable<DataType> getWithinRadius(@NotNull BlockCoordinates center, double radius) {
+        return blockMetadata.queryRadius(center, radius);
+    }
 }
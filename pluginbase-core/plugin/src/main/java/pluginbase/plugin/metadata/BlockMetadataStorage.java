@@ -0,0 +1,90 @@
+package pluginbase.plugin.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores the block metadata of a {@link BlockMetadataRegistry} a region at a time.
+ * <p/>
+ * A region is a 32x32 area of chunks. Region coordinates are chunk coordinates shifted right by 5 bits. Regions are
+ * loaded the first time a block in them is accessed and are saved with the changes made to them since they were last
+ * saved.
+ * <p/>
+ * Both methods are called from the registry's worker thread or the thread accessing a region, never concurrently for
+ * the same region.
+ *
+ * @param <DataType> The type of metadata to store.
+ * @see RegionFileStorage
+ * @see JdbcBlockMetadataStorage
+ */
+public interface BlockMetadataStorage<DataType extends BlockMetadatable> {
+
+    /**
+     * Loads all metadata in a region.
+     *
+     * @param world The UUID of the world the region is in.
+     * @param regionX The x coordinate of the region.
+     * @param regionZ The z coordinate of the region.
+     * @return The metadata in the region which is empty if none has been stored.
+     * @throws SendablePluginBaseException if the region could not be loaded.
+     */
+    @NotNull
+    List<DataType> loadRegion(@NotNull UUID world, int regionX, int regionZ) throws SendablePluginBaseException;
+
+    /**
+     * Saves the changes made to a region.
+     * <p/>
+     * The changes are only considered saved if this method returns normally. Otherwise, they are given again with any
+     * further changes the next time the region is saved.
+     *
+     * @param changes The changes made to the region since it was last saved.
+     * @throws SendablePluginBaseException if the region could not be saved.
+     */
+    void saveRegion(@NotNull RegionChanges<DataType> changes) throws SendablePluginBaseException;
+
+    /**
+     * The changes made to a region of block metadata since it was last saved.
+     * <p/>
+     * Changes are tracked by chunk. Storage that writes a whole region at once should use {@link #getMetadata()} while
+     * storage that writes each block should use {@link #getChangedMetadata()} and {@link #getRemovedPositions()}.
+     *
+     * @param <DataType> The type of metadata.
+     */
+    interface RegionChanges<DataType extends BlockMetadatable> {
+
+        @NotNull
+        UUID getWorld();
+
+        int getRegionX();
+
+        int getRegionZ();
+
+        /**
+         * Returns all metadata in the region, including the chunks that have not changed.
+         *
+         * @return All metadata in the region.
+         */
+        @NotNull
+        List<DataType> getMetadata();
+
+        /**
+         * Returns the metadata in the chunks of the region that have changed.
+         *
+         * @return The metadata in the changed chunks.
+         */
+        @NotNull
+        List<DataType> getChangedMetadata();
+
+        /**
+         * Returns the block positions, packed with {@link BlockPositions}, that metadata has been removed from and not
+         * replaced.
+         *
+         * @return The packed positions of the removed metadata.
+         */
+        @NotNull
+        long[] getRemovedPositions();
+    }
+}
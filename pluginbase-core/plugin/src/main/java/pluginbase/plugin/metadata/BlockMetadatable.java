@@ -24,6 +24,9 @@ public interface BlockMetadatable {
      * Sets the registry which this block metadata is stored in.
      * <p/>
      * Null may be given to disassociate this metadata from a registry.
+     * <p/>
+     * Changes made to this metadata after it has been added must be reported with
+     * {@link BlockMetadataRegistry#markDirty(BlockCoordinates)} on the registry, or they will not be saved.
      *
      * @param registry The block metadata registry to store this metadata in.
      */
@@ -0,0 +1,91 @@
+package pluginbase.plugin.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import pluginbase.minecraft.location.BlockCoordinates;
+
+/**
+ * Packs block positions into a single long.
+ * <p/>
+ * The x and z coordinates take 26 bits each and the y coordinate takes 12 bits, laid out as x, z, y from the most
+ * significant bit. This covers x and z coordinates from -33,554,432 to 33,554,431 and y coordinates from -2048 to
+ * 2047. The world is not part of the packed position, so packed positions are only meaningful within a single world.
+ */
+public class BlockPositions {
+
+    private BlockPositions() {
+        throw new AssertionError();
+    }
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final int Z_SHIFT = Y_BITS;
+    private static final int X_SHIFT = Y_BITS + XZ_BITS;
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    public static final int MIN_XZ = -(1 << (XZ_BITS - 1));
+    public static final int MAX_XZ = (1 << (XZ_BITS - 1)) - 1;
+    public static final int MIN_Y = -(1 << (Y_BITS - 1));
+    public static final int MAX_Y = (1 << (Y_BITS - 1)) - 1;
+
+    /**
+     * Checks whether the given block position is within the range that can be packed.
+     *
+     * @param x The x coordinate of the block.
+     * @param y The y coordinate of the block.
+     * @param z The z coordinate of the block.
+     * @return True if the position can be packed.
+     */
+    public static boolean isPackable(int x, int y, int z) {
+        return x >= MIN_XZ && x <= MAX_XZ && z >= MIN_XZ && z <= MAX_XZ && y >= MIN_Y && y <= MAX_Y;
+    }
+
+    /**
+     * Checks whether the block position of the given coordinates is within the range that can be packed.
+     *
+     * @param coordinates The coordinates of the block.
+     * @return True if the position can be packed.
+     */
+    public static boolean isPackable(@NotNull BlockCoordinates coordinates) {
+        return isPackable(coordinates.getBlockX(), coordinates.getBlockY(), coordinates.getBlockZ());
+    }
+
+    /**
+     * Packs the given block position.
+     *
+     * @param x The x coordinate of the block.
+     * @param y The y coordinate of the block.
+     * @param z The z coordinate of the block.
+     * @return The packed position.
+     * @throws IllegalArgumentException if a coordinate is out of the range that can be packed.
+     */
+    public static long pack(int x, int y, int z) {
+        if (!isPackable(x, y, z)) {
+            throw new IllegalArgumentException("Block position " + x + "," + y + "," + z + " is out of range");
+        }
+        return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+    }
+
+    /**
+     * Packs the block position of the given coordinates.
+     *
+     * @param coordinates The coordinates of the block.
+     * @return The packed position.
+     * @throws IllegalArgumentException if a coordinate is out of the range that can be packed.
+     */
+    public static long pack(@NotNull BlockCoordinates coordinates) {
+        return pack(coordinates.getBlockX(), coordinates.getBlockY(), coordinates.getBlockZ());
+    }
+
+    public static int getX(long position) {
+        return (int) (position >> X_SHIFT);
+    }
+
+    public static int getY(long position) {
+        return (int) (position << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int getZ(long position) {
+        return (int) (position << (64 - X_SHIFT) >> (64 - XZ_BITS));
+    }
+}
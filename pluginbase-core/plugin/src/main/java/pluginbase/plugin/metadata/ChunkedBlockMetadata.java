@@ -0,0 +1,839 @@
+package pluginbase.plugin.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+import pluginbase.minecraft.location.BlockCoordinates;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Holds block metadata partitioned by world, region and chunk.
+ * <p/>
+ * A chunk is a 16x16 column of blocks and a region is a 32x32 area of chunks. When backed by
+ * {@link BlockMetadataStorage}, the metadata for a region is loaded by {@link #loadRegion(UUID, int, int)} or the first
+ * time metadata in it is looked up, added or removed. Queries never create or load regions: they only see the regions
+ * already loaded. Chunks are marked dirty when their metadata is added or removed, or with
+ * {@link #markDirty(BlockCoordinates)} when metadata is changed in place, and only the regions containing dirty chunks
+ * are collected for saving.
+ * <p/>
+ * Within a chunk, metadata is keyed by its block position packed with {@link BlockPositions} in a
+ * {@link Long2ObjectMap}, so no coordinates objects are held as keys.
+ * <p/>
+ * Without storage, regions are considered loaded as soon as they are created and all metadata must be added through
+ * {@link #putLoaded(BlockMetadatable)}.
+ *
+ * @param <DataType> The type of metadata to hold.
+ */
+final class ChunkedBlockMetadata<DataType extends BlockMetadatable> {
+
+    static final int CHUNK_SHIFT = 4;
+    static final int REGION_SHIFT = 5;
+    static final int REGION_SIZE = 1 << REGION_SHIFT;
+    private static final int REGION_MASK = REGION_SIZE - 1;
+
+    @Nullable
+    private final BlockMetadataStorage<DataType> storage;
+    @NotNull
+    private final Consumer<DataType> loadListener;
+    @Nullable
+    private final Consumer<Map<BlockCoordinates, DataType>> cleaner;
+    @NotNull
+    private final BiConsumer<String, SendablePluginBaseException> loadFailureHandler;
+
+    private final Map<UUID, Map<Long, Region<DataType>>> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * @param storage The storage to load regions from lazily or null if all metadata will be added directly.
+     * @param loadListener Receives each piece of metadata loaded from storage.
+     * @param cleaner Cleans up the metadata of each region as it is loaded from storage.
+     * @param loadFailureHandler Receives a description of each region that could not be loaded and the reason why.
+     */
+    ChunkedBlockMetadata(@Nullable BlockMetadataStorage<DataType> storage, @NotNull Consumer<DataType> loadListener,
+                         @Nullable Consumer<Map<BlockCoordinates, DataType>> cleaner,
+                         @NotNull BiConsumer<String, SendablePluginBaseException> loadFailureHandler) {
+        this.storage = storage;
+        this.loadListener = loadListener;
+        this.cleaner = cleaner;
+        this.loadFailureHandler = loadFailureHandler;
+    }
+
+    static int chunkCoordinate(int blockCoordinate) {
+        return blockCoordinate >> CHUNK_SHIFT;
+    }
+
+    static int regionCoordinate(int chunkCoordinate) {
+        return chunkCoordinate >> REGION_SHIFT;
+    }
+
+    private static long regionKey(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xFFFFFFFFL);
+    }
+
+    private static int chunkIndex(int chunkX, int chunkZ) {
+        return ((chunkZ & REGION_MASK) << REGION_SHIFT) | (chunkX & REGION_MASK);
+    }
+
+    /**
+     * Gets the metadata at the given location. Locations out of the packable range never hold metadata.
+     */
+    @Nullable
+    DataType get(@NotNull BlockCoordinates coordinates) {
+        if (!BlockPositions.isPackable(coordinates)) {
+            return null;
+        }
+        return get(coordinates.getWorldUUID(), BlockPositions.pack(coordinates));
+    }
+
+    /**
+     * Gets the metadata at the given position, loading its region first if necessary.
+     */
+    @Nullable
+    DataType get(@NotNull UUID world, long position) {
+        Chunk<DataType> chunk = getExistingChunk(world, position);
+        return chunk != null ? chunk.get(position) : null;
+    }
+
+    boolean contains(@NotNull BlockCoordinates coordinates) {
+        return BlockPositions.isPackable(coordinates) && contains(coordinates.getWorldUUID(), BlockPositions.pack(coordinates));
+    }
+
+    /**
+     * Checks for metadata at the given position, loading its region first if necessary.
+     */
+    boolean contains(@NotNull UUID world, long position) {
+        Chunk<DataType> chunk = getExistingChunk(world, position);
+        return chunk != null && chunk.contains(position);
+    }
+
+    /**
+     * Adds metadata, marking its chunk dirty.
+     *
+     * @return The metadata previously at the same location, if any.
+     */
+    @Nullable
+    DataType put(@NotNull DataType metadata) {
+        BlockCoordinates location = metadata.getLocation();
+        long position = BlockPositions.pack(location);
+        return getChunk(location.getWorldUUID(), position).put(position, metadata, true);
+    }
+
+    /**
+     * Adds metadata without marking its chunk dirty, for metadata which is already stored.
+     */
+    void putLoaded(@NotNull DataType metadata) {
+        BlockCoordinates location = metadata.getLocation();
+        long position = BlockPositions.pack(location);
+        getChunk(location.getWorldUUID(), position).put(position, metadata, false);
+    }
+
+    /**
+     * Removes the metadata at the given location, marking its chunk dirty if there was any.
+     *
+     * @return The removed metadata, if any.
+     */
+    @Nullable
+    DataType remove(@NotNull BlockCoordinates coordinates) {
+        if (!BlockPositions.isPackable(coordinates)) {
+            return null;
+        }
+        return remove(coordinates.getWorldUUID(), BlockPositions.pack(coordinates));
+    }
+
+    /**
+     * Removes the metadata at the given position, marking its chunk dirty if there was any. The region is loaded
+     * first so that the removal of stored metadata is saved.
+     *
+     * @return The removed metadata, if any.
+     */
+    @Nullable
+    DataType remove(@NotNull UUID world, long position) {
+        Chunk<DataType> chunk = getExistingChunk(world, position);
+        return chunk != null ? chunk.remove(position) : null;
+    }
+
+    /**
+     * Marks the chunk holding the given block dirty, for metadata which has been changed in place.
+     *
+     * @throws IllegalStateException if the region holding the block is not loaded, as the change could then never be
+     * saved.
+     */
+    void markDirty(@NotNull BlockCoordinates coordinates) {
+        if (!BlockPositions.isPackable(coordinates)) {
+            return;
+        }
+        long position = BlockPositions.pack(coordinates);
+        int chunkX = chunkCoordinate(BlockPositions.getX(position));
+        int chunkZ = chunkCoordinate(BlockPositions.getZ(position));
+        Region<DataType> region = getLoadedRegion(coordinates.getWorldUUID(),
+                regionCoordinate(chunkX), regionCoordinate(chunkZ));
+        if (region == null) {
+            if (storage != null) {
+                throw new IllegalStateException("Cannot mark the metadata at " + coordinates
+                        + " dirty as its region is not loaded");
+            }
+            return;
+        }
+        Chunk<DataType> chunk = region.getChunk(chunkIndex(chunkX, chunkZ), false);
+        if (chunk != null) {
+            chunk.dirty = true;
+        }
+    }
+
+    /**
+     * Loads the region containing the given chunk from storage if it is not loaded already.
+     */
+    void loadRegion(@NotNull UUID world, int chunkX, int chunkZ) {
+        if (storage != null) {
+            getRegion(world, regionCoordinate(chunkX), regionCoordinate(chunkZ));
+        }
+    }
+
+    /**
+     * Checks whether the region containing the given chunk is loaded. Without storage, every region is.
+     */
+    boolean isRegionLoaded(@NotNull UUID world, int chunkX, int chunkZ) {
+        return storage == null || getLoadedRegion(world, regionCoordinate(chunkX), regionCoordinate(chunkZ)) != null;
+    }
+
+    /**
+     * Marks every loaded chunk dirty so that all loaded metadata is collected by the next save.
+     */
+    void markAllDirty() {
+        for (Map<Long, Region<DataType>> regions : worlds.values()) {
+            for (Region<DataType> region : regions.values()) {
+                for (int i = 0; i < region.chunks.length(); i++) {
+                    Chunk<DataType> chunk = region.chunks.get(i);
+                    if (chunk != null) {
+                        chunk.dirty = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the metadata within a cuboid of blocks, including the minimum and maximum coordinates.
+     * <p/>
+     * The result is iterated lazily a chunk at a time. When iteration reaches a chunk, the matching metadata in the
+     * chunk is copied so that iteration is unaffected by concurrent changes. Changes to a chunk that has not been
+     * reached yet are reflected by the iteration. Only the chunks of regions which are loaded when iteration starts are
+     * visited, so nothing is created or loaded however large the cuboid is.
+     *
+     * @param filter Selects the packed block positions within the cuboid to include or null to include all.
+     */
+    @NotNull
+    Iterable<DataType> query(@NotNull UUID world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                             @Nullable LongPredicate filter) {
+        int clampedMinX = Math.max(minX, BlockPositions.MIN_XZ);
+        int clampedMinY = Math.max(minY, BlockPositions.MIN_Y);
+        int clampedMinZ = Math.max(minZ, BlockPositions.MIN_XZ);
+        int clampedMaxX = Math.min(maxX, BlockPositions.MAX_XZ);
+        int clampedMaxY = Math.min(maxY, BlockPositions.MAX_Y);
+        int clampedMaxZ = Math.min(maxZ, BlockPositions.MAX_XZ);
+        if (clampedMinX > clampedMaxX || clampedMinY > clampedMaxY || clampedMinZ > clampedMaxZ) {
+            return Collections.emptyList();
+        }
+        return () -> new QueryIterator(world, clampedMinX, clampedMinY, clampedMinZ,
+                clampedMaxX, clampedMaxY, clampedMaxZ, filter);
+    }
+
+    /**
+     * Finds the metadata within a chunk.
+     *
+     * @see #query(UUID, int, int, int, int, int, int, LongPredicate)
+     */
+    @NotNull
+    Iterable<DataType> queryChunk(@NotNull UUID world, int chunkX, int chunkZ) {
+        int minX = chunkX << CHUNK_SHIFT;
+        int minZ = chunkZ << CHUNK_SHIFT;
+        int chunkMask = (1 << CHUNK_SHIFT) - 1;
+        return query(world, minX, BlockPositions.MIN_Y, minZ,
+                minX + chunkMask, BlockPositions.MAX_Y, minZ + chunkMask, null);
+    }
+
+    /**
+     * Finds the metadata of blocks no further than the given distance from a center block.
+     *
+     * @see #query(UUID, int, int, int, int, int, int, LongPredicate)
+     */
+    @NotNull
+    Iterable<DataType> queryRadius(@NotNull BlockCoordinates center, double radius) {
+        if (!(radius >= 0)) {
+            return Collections.emptyList();
+        }
+        int x = center.getBlockX();
+        int y = center.getBlockY();
+        int z = center.getBlockZ();
+        // Saturate rather than overflow for huge radii, the bounds are clamped to the packable range anyway.
+        int reach = (int) Math.min(Math.ceil(radius), Integer.MAX_VALUE / 2);
+        double radiusSquared = radius * radius;
+        return query(center.getWorldUUID(), x - reach, y - reach, z - reach, x + reach, y + reach, z + reach,
+                position -> {
+                    long dx = BlockPositions.getX(position) - x;
+                    long dy = BlockPositions.getY(position) - y;
+                    long dz = BlockPositions.getZ(position) - z;
+                    return dx * dx + dy * dy + dz * dz <= radiusSquared;
+                });
+    }
+
+    /**
+     * Counts the metadata in all loaded regions.
+     */
+    int size() {
+        int size = 0;
+        for (Map<Long, Region<DataType>> regions : worlds.values()) {
+            for (Region<DataType> region : regions.values()) {
+                for (int i = 0; i < region.chunks.length(); i++) {
+                    Chunk<DataType> chunk = region.chunks.get(i);
+                    if (chunk != null) {
+                        size += chunk.size();
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Copies the metadata in all loaded regions.
+     */
+    @NotNull
+    List<DataType> values() {
+        List<DataType> values = new ArrayList<>();
+        for (Map<Long, Region<DataType>> regions : worlds.values()) {
+            for (Region<DataType> region : regions.values()) {
+                region.addValuesTo(values);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Discards all loaded regions, including any unsaved changes.
+     */
+    void clear() {
+        worlds.clear();
+    }
+
+    /**
+     * Collects every loaded region containing a dirty chunk and marks those chunks clean.
+     * <p/>
+     * If a snapshot fails to be written, {@link RegionSnapshot#failed()} must be called so that it is collected again
+     * by the next call to this method.
+     *
+     * @return Snapshots of the metadata in each region that needs to be saved.
+     */
+    @NotNull
+    List<RegionSnapshot<DataType>> takeDirtyRegions() {
+        List<RegionSnapshot<DataType>> snapshots = new ArrayList<>();
+        for (Map<Long, Region<DataType>> regions : worlds.values()) {
+            for (Region<DataType> region : regions.values()) {
+                RegionSnapshot<DataType> snapshot = region.takeSnapshotIfDirty();
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Gets the chunk holding the given position, loading its region and creating the chunk if necessary.
+     */
+    @NotNull
+    private Chunk<DataType> getChunk(@NotNull UUID world, long position) {
+        int chunkX = chunkCoordinate(BlockPositions.getX(position));
+        int chunkZ = chunkCoordinate(BlockPositions.getZ(position));
+        Region<DataType> region = getRegion(world, regionCoordinate(chunkX), regionCoordinate(chunkZ));
+        return region.getChunk(chunkIndex(chunkX, chunkZ), true);
+    }
+
+    /**
+     * Gets the chunk holding the given position only if the chunk exists, loading its region from storage first if
+     * necessary. Without storage, no region is created.
+     */
+    @Nullable
+    private Chunk<DataType> getExistingChunk(@NotNull UUID world, long position) {
+        int chunkX = chunkCoordinate(BlockPositions.getX(position));
+        int chunkZ = chunkCoordinate(BlockPositions.getZ(position));
+        int regionX = regionCoordinate(chunkX);
+        int regionZ = regionCoordinate(chunkZ);
+        Region<DataType> region = storage != null ? getRegion(world, regionX, regionZ)
+                : getLoadedRegion(world, regionX, regionZ);
+        return region != null ? region.getChunk(chunkIndex(chunkX, chunkZ), false) : null;
+    }
+
+    @Nullable
+    private Region<DataType> getLoadedRegion(@NotNull UUID world, int regionX, int regionZ) {
+        Map<Long, Region<DataType>> regions = worlds.get(world);
+        if (regions == null) {
+            return null;
+        }
+        Region<DataType> region = regions.get(regionKey(regionX, regionZ));
+        return region != null && region.loaded ? region : null;
+    }
+
+    @NotNull
+    private Region<DataType> getRegion(@NotNull UUID world, int regionX, int regionZ) {
+        Region<DataType> region = worlds.computeIfAbsent(world, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(regionKey(regionX, regionZ), k -> new Region<>(world, regionX, regionZ, storage == null));
+        if (!region.loaded) {
+            synchronized (region) {
+                if (!region.loaded) {
+                    load(region);
+                    region.loaded = true;
+                }
+            }
+        }
+        return region;
+    }
+
+    private void load(@NotNull Region<DataType> region) {
+        assert storage != null;
+        List<DataType> stored;
+        try {
+            stored = storage.loadRegion(region.world, region.x, region.z);
+        } catch (SendablePluginBaseException e) {
+            // The region is never saved so that the stored metadata is not replaced by what is in memory.
+            region.failed = true;
+            loadFailureHandler.accept(region.toString(), e);
+            return;
+        }
+        if (cleaner == null) {
+            for (DataType metadata : stored) {
+                loadListener.accept(metadata);
+                putLoaded(region, metadata);
+            }
+            return;
+        }
+        Map<BlockCoordinates, DataType> loaded = new HashMap<>(stored.size());
+        for (DataType metadata : stored) {
+            loadListener.accept(metadata);
+            loaded.put(metadata.getLocation(), metadata);
+        }
+        cleaner.accept(loaded);
+        for (DataType metadata : loaded.values()) {
+            putLoaded(region, metadata);
+        }
+        // Anything cleaned up must be removed from storage as well.
+        for (DataType metadata : stored) {
+            if (loaded.get(metadata.getLocation()) != metadata) {
+                long position = BlockPositions.pack(metadata.getLocation());
+                Chunk<DataType> chunk = region.getChunk(chunkIndex(position), true);
+                assert chunk != null;
+                chunk.markRemoved(position);
+            }
+        }
+    }
+
+    private void putLoaded(@NotNull Region<DataType> region, @NotNull DataType metadata) {
+        long position = BlockPositions.pack(metadata.getLocation());
+        Chunk<DataType> chunk = region.getChunk(chunkIndex(position), true);
+        assert chunk != null;
+        chunk.put(position, metadata, false);
+    }
+
+    private static int chunkIndex(long position) {
+        return chunkIndex(chunkCoordinate(BlockPositions.getX(position)), chunkCoordinate(BlockPositions.getZ(position)));
+    }
+
+    /**
+     * The metadata in a chunk keyed by packed block position. Access is synchronized on the chunk.
+     */
+    private static final class Chunk<DataType> {
+        private static final long[] NO_POSITIONS = new long[0];
+
+        private final Long2ObjectMap<DataType> blocks = new Long2ObjectMap<>();
+        /** The positions that metadata has been removed from since the chunk was last collected for saving. */
+        @Nullable
+        private Long2ObjectMap<Boolean> removed = null;
+        volatile boolean dirty = false;
+
+        @Nullable
+        synchronized DataType get(long position) {
+            return blocks.get(position);
+        }
+
+        synchronized boolean contains(long position) {
+            return blocks.containsKey(position);
+        }
+
+        @Nullable
+        synchronized DataType put(long position, @NotNull DataType metadata, boolean markDirty) {
+            DataType previous = blocks.put(position, metadata);
+            if (markDirty) {
+                dirty = true;
+            }
+            return previous;
+        }
+
+        @Nullable
+        synchronized DataType remove(long position) {
+            DataType previous = blocks.remove(position);
+            if (previous != null) {
+                markRemoved(position);
+            }
+            return previous;
+        }
+
+        synchronized void markRemoved(long position) {
+            if (removed == null) {
+                removed = new Long2ObjectMap<>();
+            }
+            removed.put(position, Boolean.TRUE);
+            dirty = true;
+        }
+
+        /**
+         * Returns the positions that metadata has been removed from and not replaced since this was last called.
+         */
+        @NotNull
+        synchronized long[] takeRemoved() {
+            if (removed == null) {
+                return NO_POSITIONS;
+            }
+            long[] positions = new long[removed.size()];
+            int[] count = {0};
+            removed.forEach((position, value) -> {
+                if (!blocks.containsKey(position)) {
+                    positions[count[0]++] = position;
+                }
+            });
+            removed = null;
+            return count[0] == positions.length ? positions : Arrays.copyOf(positions, count[0]);
+        }
+
+        synchronized int size() {
+            return blocks.size();
+        }
+
+        synchronized void addValuesTo(@NotNull List<DataType> values) {
+            blocks.forEach((position, metadata) -> values.add(metadata));
+        }
+
+        synchronized void addValuesTo(@NotNull List<DataType> values, int minX, int minY, int minZ,
+                                      int maxX, int maxY, int maxZ, @Nullable LongPredicate filter) {
+            blocks.forEach((position, metadata) -> {
+                int x = BlockPositions.getX(position);
+                int y = BlockPositions.getY(position);
+                int z = BlockPositions.getZ(position);
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ
+                        && (filter == null || filter.test(position))) {
+                    values.add(metadata);
+                }
+            });
+        }
+    }
+
+    /**
+     * Walks the existing chunks of the loaded regions overlapping a cuboid, copying the matching metadata of one chunk
+     * at a time.
+     */
+    private final class QueryIterator implements Iterator<DataType> {
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int maxX;
+        private final int maxY;
+        private final int maxZ;
+        @Nullable
+        private final LongPredicate filter;
+        private final int minChunkX;
+        private final int maxChunkX;
+        private final int minChunkZ;
+        private final int maxChunkZ;
+
+        @NotNull
+        private final List<Region<DataType>> regions;
+        private int regionIndex = -1;
+        @Nullable
+        private Region<DataType> region = null;
+        private int regionMaxChunkX;
+        private int regionMinChunkZ;
+        private int regionMaxChunkZ;
+        private int chunkX;
+        private int chunkZ;
+        private final List<DataType> buffer = new ArrayList<>();
+        private int bufferIndex = 0;
+
+        QueryIterator(@NotNull UUID world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                      @Nullable LongPredicate filter) {
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.maxZ = maxZ;
+            this.filter = filter;
+            this.minChunkX = chunkCoordinate(minX);
+            this.maxChunkX = chunkCoordinate(maxX);
+            this.minChunkZ = chunkCoordinate(minZ);
+            this.maxChunkZ = chunkCoordinate(maxZ);
+            this.regions = findLoadedRegions(world);
+        }
+
+        /**
+         * Finds the loaded regions overlapping the cuboid, looking each one up when there are fewer of them than
+         * there are regions loaded in the world and otherwise filtering the loaded regions.
+         */
+        @NotNull
+        private List<Region<DataType>> findLoadedRegions(@NotNull UUID world) {
+            Map<Long, Region<DataType>> loaded = worlds.get(world);
+            if (loaded == null) {
+                return Collections.emptyList();
+            }
+            int minRegionX = regionCoordinate(minChunkX);
+            int maxRegionX = regionCoordinate(maxChunkX);
+            int minRegionZ = regionCoordinate(minChunkZ);
+            int maxRegionZ = regionCoordinate(maxChunkZ);
+            List<Region<DataType>> found = new ArrayList<>();
+            if ((long) (maxRegionX - minRegionX + 1) * (maxRegionZ - minRegionZ + 1) <= loaded.size()) {
+                for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+                    for (int regionZ = minRegionZ; regionZ <= maxRegionZ; regionZ++) {
+                        Region<DataType> region = loaded.get(regionKey(regionX, regionZ));
+                        if (region != null && region.loaded) {
+                            found.add(region);
+                        }
+                    }
+                }
+            } else {
+                for (Region<DataType> region : loaded.values()) {
+                    if (region.loaded && region.x >= minRegionX && region.x <= maxRegionX
+                            && region.z >= minRegionZ && region.z <= maxRegionZ) {
+                        found.add(region);
+                    }
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Moves on to the next chunk within the cuboid, moving on to the next region when the current one is done.
+         *
+         * @return False if there are no chunks left.
+         */
+        private boolean nextChunk() {
+            if (region != null) {
+                if (chunkZ < regionMaxChunkZ) {
+                    chunkZ++;
+                    return true;
+                } else if (chunkX < regionMaxChunkX) {
+                    chunkX++;
+                    chunkZ = regionMinChunkZ;
+                    return true;
+                }
+            }
+            if (++regionIndex >= regions.size()) {
+                region = null;
+                return false;
+            }
+            region = regions.get(regionIndex);
+            int regionChunkX = region.x << REGION_SHIFT;
+            int regionChunkZ = region.z << REGION_SHIFT;
+            chunkX = Math.max(minChunkX, regionChunkX);
+            regionMaxChunkX = Math.min(maxChunkX, regionChunkX + REGION_MASK);
+            regionMinChunkZ = Math.max(minChunkZ, regionChunkZ);
+            regionMaxChunkZ = Math.min(maxChunkZ, regionChunkZ + REGION_MASK);
+            chunkZ = regionMinChunkZ;
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (bufferIndex >= buffer.size() && nextChunk()) {
+                buffer.clear();
+                bufferIndex = 0;
+                assert region != null;
+                Chunk<DataType> chunk = region.getChunk(chunkIndex(chunkX, chunkZ), false);
+                if (chunk != null) {
+                    chunk.addValuesTo(buffer, minX, minY, minZ, maxX, maxY, maxZ, filter);
+                }
+            }
+            return bufferIndex < buffer.size();
+        }
+
+        @Override
+        public DataType next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.get(bufferIndex++);
+        }
+    }
+
+    private static final class Region<DataType extends BlockMetadatable> {
+        @NotNull
+        final UUID world;
+        final int x;
+        final int z;
+        final AtomicReferenceArray<Chunk<DataType>> chunks = new AtomicReferenceArray<>(REGION_SIZE * REGION_SIZE);
+        volatile boolean loaded;
+        volatile boolean failed = false;
+
+        Region(@NotNull UUID world, int x, int z, boolean loaded) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+            this.loaded = loaded;
+        }
+
+        @Nullable
+        Chunk<DataType> getChunk(int index, boolean create) {
+            Chunk<DataType> chunk = chunks.get(index);
+            if (chunk == null && create) {
+                chunks.compareAndSet(index, null, new Chunk<>());
+                chunk = chunks.get(index);
+            }
+            return chunk;
+        }
+
+        @Nullable
+        RegionSnapshot<DataType> takeSnapshotIfDirty() {
+            if (failed) {
+                return null;
+            }
+            List<Chunk<DataType>> dirtyChunks = null;
+            List<DataType> changed = null;
+            long[] removed = Chunk.NO_POSITIONS;
+            for (int i = 0; i < chunks.length(); i++) {
+                Chunk<DataType> chunk = chunks.get(i);
+                if (chunk != null && chunk.dirty) {
+                    if (dirtyChunks == null) {
+                        dirtyChunks = new ArrayList<>();
+                        changed = new ArrayList<>();
+                    }
+                    // Cleared before the metadata is copied so that changes made while copying are saved next time.
+                    chunk.dirty = false;
+                    dirtyChunks.add(chunk);
+                    chunk.addValuesTo(changed);
+                    long[] chunkRemoved = chunk.takeRemoved();
+                    if (chunkRemoved.length > 0) {
+                        int offset = removed.length;
+                        removed = Arrays.copyOf(removed, offset + chunkRemoved.length);
+                        System.arraycopy(chunkRemoved, 0, removed, offset, chunkRemoved.length);
+                    }
+                }
+            }
+            if (dirtyChunks == null) {
+                return null;
+            }
+            List<DataType> metadata = new ArrayList<>();
+            addValuesTo(metadata);
+            return new RegionSnapshot<>(this, dirtyChunks, metadata, changed, removed);
+        }
+
+        void addValuesTo(@NotNull List<DataType> values) {
+            for (int i = 0; i < chunks.length(); i++) {
+                Chunk<DataType> chunk = chunks.get(i);
+                if (chunk != null) {
+                    chunk.addValuesTo(values);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "region " + x + "," + z + " of world " + world;
+        }
+    }
+
+    /**
+     * The metadata in a region at the time it was collected for saving.
+     *
+     * @param <DataType> The type of metadata.
+     */
+    static final class RegionSnapshot<DataType extends BlockMetadatable>
+            implements BlockMetadataStorage.RegionChanges<DataType> {
+        @NotNull
+        private final Region<DataType> region;
+        @NotNull
+        private final List<Chunk<DataType>> dirtyChunks;
+        @NotNull
+        private final List<DataType> metadata;
+        @NotNull
+        private final List<DataType> changedMetadata;
+        @NotNull
+        private final long[] removedPositions;
+
+        private RegionSnapshot(@NotNull Region<DataType> region, @NotNull List<Chunk<DataType>> dirtyChunks,
+                               @NotNull List<DataType> metadata, @NotNull List<DataType> changedMetadata,
+                               @NotNull long[] removedPositions) {
+            this.region = region;
+            this.dirtyChunks = dirtyChunks;
+            this.metadata = metadata;
+            this.changedMetadata = changedMetadata;
+            this.removedPositions = removedPositions;
+        }
+
+        @NotNull
+        @Override
+        public UUID getWorld() {
+            return region.world;
+        }
+
+        @Override
+        public int getRegionX() {
+            return region.x;
+        }
+
+        @Override
+        public int getRegionZ() {
+            return region.z;
+        }
+
+        @NotNull
+        @Override
+        public List<DataType> getMetadata() {
+            return metadata;
+        }
+
+        @NotNull
+        @Override
+        public List<DataType> getChangedMetadata() {
+            return changedMetadata;
+        }
+
+        @NotNull
+        @Override
+        public long[] getRemovedPositions() {
+            return removedPositions.clone();
+        }
+
+        /**
+         * Marks the chunks that were dirty as dirty again after the snapshot failed to be saved.
+         */
+        void failed() {
+            for (long position : removedPositions) {
+                Chunk<DataType> chunk = region.getChunk(chunkIndex(position), true);
+                assert chunk != null;
+                synchronized (chunk) {
+                    if (!chunk.contains(position)) {
+                        chunk.markRemoved(position);
+                    }
+                }
+            }
+            for (Chunk<DataType> chunk : dirtyChunks) {
+                chunk.dirty = true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return region.toString();
+        }
+    }
+}
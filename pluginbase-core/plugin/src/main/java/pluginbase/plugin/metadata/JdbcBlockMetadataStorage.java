@@ -0,0 +1,222 @@
+package pluginbase.plugin.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.datasource.binary.BinaryDataSource;
+import pluginbase.jdbc.JdbcAgent;
+import pluginbase.messages.Messages;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Stores block metadata in a database table through a {@link JdbcAgent}.
+ * <p/>
+ * Each piece of metadata is a row keyed by the world's UUID and the block position packed with {@link BlockPositions}.
+ * The metadata itself is serialized to a binary payload column. The row also holds the chunk coordinates of the block
+ * which lead the primary key so that rows are clustered by chunk and a chunk or region is loaded with a single range
+ * scan. Since the chunk coordinates are derived from the position, a row is still unique by world and position.
+ * <p/>
+ * Saving a region upserts the metadata of its changed chunks and deletes the metadata removed from them, in batches
+ * within a single transaction. H2, MySQL and SQLite databases are supported. The table is created when first used if
+ * it does not already exist.
+ *
+ * @param <DataType> The type of metadata to store.
+ */
+public class JdbcBlockMetadataStorage<DataType extends BlockMetadatable> implements BlockMetadataStorage<DataType> {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final int BATCH_SIZE = 500;
+
+    @NotNull
+    private final JdbcAgent jdbcAgent;
+    @NotNull
+    private final String tableName;
+    @NotNull
+    private final Class<DataType> metadataType;
+
+    private volatile boolean tableCreated = false;
+
+    /**
+     * @param jdbcAgent The agent providing the database connection.
+     * @param tableName The name of the table to store the metadata in.
+     * @param metadataType The class of the metadata which must be serializable via
+     * {@link pluginbase.config.SerializableConfig}.
+     * @throws IllegalArgumentException if the table name is not a plain SQL identifier.
+     */
+    public JdbcBlockMetadataStorage(@NotNull JdbcAgent jdbcAgent, @NotNull String tableName,
+                                    @NotNull Class<DataType> metadataType) {
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + tableName);
+        }
+        this.jdbcAgent = jdbcAgent;
+        this.tableName = tableName;
+        this.metadataType = metadataType;
+    }
+
+    @NotNull
+    @Override
+    public List<DataType> loadRegion(@NotNull UUID world, int regionX, int regionZ) throws SendablePluginBaseException {
+        int minChunkX = regionX << ChunkedBlockMetadata.REGION_SHIFT;
+        int minChunkZ = regionZ << ChunkedBlockMetadata.REGION_SHIFT;
+        int regionMask = ChunkedBlockMetadata.REGION_SIZE - 1;
+        return load(world, minChunkX, minChunkZ, minChunkX + regionMask, minChunkZ + regionMask);
+    }
+
+    /**
+     * Loads all metadata in a chunk.
+     *
+     * @param world The UUID of the world the chunk is in.
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkZ The z coordinate of the chunk.
+     * @return The metadata in the chunk which is empty if none has been stored.
+     * @throws SendablePluginBaseException if the chunk could not be loaded.
+     */
+    @NotNull
+    public List<DataType> loadChunk(@NotNull UUID world, int chunkX, int chunkZ) throws SendablePluginBaseException {
+        return load(world, chunkX, chunkZ, chunkX, chunkZ);
+    }
+
+    @NotNull
+    private List<DataType> load(@NotNull UUID world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+            throws SendablePluginBaseException {
+        List<DataType> metadata = new ArrayList<>();
+        try (Connection connection = jdbcAgent.getDataSource().getConnection()) {
+            createTable(connection);
+            try (PreparedStatement select = connection.prepareStatement("SELECT payload FROM " + tableName
+                    + " WHERE world = ? AND chunk_x BETWEEN ? AND ? AND chunk_z BETWEEN ? AND ?")) {
+                select.setString(1, world.toString());
+                select.setInt(2, minChunkX);
+                select.setInt(3, maxChunkX);
+                select.setInt(4, minChunkZ);
+                select.setInt(5, maxChunkZ);
+                try (ResultSet results = select.executeQuery()) {
+                    while (results.next()) {
+                        DataType data = deserialize(results.getBytes(1));
+                        if (data != null) {
+                            metadata.add(data);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+        return metadata;
+    }
+
+    @Override
+    public void saveRegion(@NotNull RegionChanges<DataType> changes) throws SendablePluginBaseException {
+        String world = changes.getWorld().toString();
+        // Serialized before connecting so that the connection is not held while serializing.
+        List<DataType> changed = changes.getChangedMetadata();
+        List<byte[]> payloads = new ArrayList<>(changed.size());
+        for (DataType metadata : changed) {
+            payloads.add(serialize(metadata));
+        }
+        long[] removed = changes.getRemovedPositions();
+        try (Connection connection = jdbcAgent.getDataSource().getConnection()) {
+            createTable(connection);
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (removed.length > 0) {
+                    try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + tableName
+                            + " WHERE world = ? AND chunk_x = ? AND chunk_z = ? AND position = ?")) {
+                        for (int i = 0; i < removed.length; i++) {
+                            setKey(delete, world, removed[i]);
+                            delete.addBatch();
+                            if ((i + 1) % BATCH_SIZE == 0) {
+                                delete.executeBatch();
+                            }
+                        }
+                        delete.executeBatch();
+                    }
+                }
+                if (!changed.isEmpty()) {
+                    try (PreparedStatement upsert = connection.prepareStatement(getUpsertStatement())) {
+                        for (int i = 0; i < changed.size(); i++) {
+                            setKey(upsert, world, BlockPositions.pack(changed.get(i).getLocation()));
+                            upsert.setBytes(5, payloads.get(i));
+                            upsert.addBatch();
+                            if ((i + 1) % BATCH_SIZE == 0) {
+                                upsert.executeBatch();
+                            }
+                        }
+                        upsert.executeBatch();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+    }
+
+    private static void setKey(@NotNull PreparedStatement statement, @NotNull String world, long position)
+            throws SQLException {
+        statement.setString(1, world);
+        statement.setInt(2, ChunkedBlockMetadata.chunkCoordinate(BlockPositions.getX(position)));
+        statement.setInt(3, ChunkedBlockMetadata.chunkCoordinate(BlockPositions.getZ(position)));
+        statement.setLong(4, position);
+    }
+
+    @NotNull
+    private String getUpsertStatement() {
+        String columns = tableName + " (world, chunk_x, chunk_z, position, payload)";
+        String databaseType = jdbcAgent.getSettings().getDatabaseType();
+        databaseType = databaseType != null ? databaseType.toLowerCase(Locale.ENGLISH) : "";
+        if (databaseType.contains("mysql") || databaseType.contains("mariadb")) {
+            return "INSERT INTO " + columns + " VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE payload = VALUES(payload)";
+        } else if (databaseType.contains("sqlite")) {
+            return "INSERT OR REPLACE INTO " + columns + " VALUES (?, ?, ?, ?, ?)";
+        } else {
+            return "MERGE INTO " + columns + " KEY (world, chunk_x, chunk_z, position) VALUES (?, ?, ?, ?, ?)";
+        }
+    }
+
+    private void createTable(@NotNull Connection connection) throws SQLException {
+        if (tableCreated) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+                    + "world CHAR(36) NOT NULL, "
+                    + "chunk_x INT NOT NULL, "
+                    + "chunk_z INT NOT NULL, "
+                    + "position BIGINT NOT NULL, "
+                    + "payload BLOB NOT NULL, "
+                    + "PRIMARY KEY (world, chunk_x, chunk_z, position))");
+        }
+        tableCreated = true;
+    }
+
+    @NotNull
+    private byte[] serialize(@NotNull DataType metadata) throws SendablePluginBaseException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryDataSource.builder().setOutputStream(() -> out).build().save(metadata);
+        return out.toByteArray();
+    }
+
+    @Nullable
+    private DataType deserialize(@NotNull byte[] payload) throws SendablePluginBaseException {
+        return BinaryDataSource.builder().setInputStream(() -> new ByteArrayInputStream(payload)).build()
+                .load(metadataType);
+    }
+}
@@ -0,0 +1,189 @@
+package pluginbase.plugin.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive long keys to non-null values using open addressing with linear probing.
+ * <p/>
+ * Keys and values are held in two parallel arrays, so an entry costs a long and a reference rather than an entry
+ * object and a boxed key. A null value marks an empty slot which is why null values are not permitted. Removal shifts
+ * following entries back instead of leaving tombstones.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @param <V> The type of values.
+ */
+final class Long2ObjectMap<V> {
+
+    /**
+     * Receives the entries of a map.
+     *
+     * @param <V> The type of values.
+     */
+    @FunctionalInterface
+    interface EntryConsumer<V> {
+        void accept(long key, @NotNull V value);
+    }
+
+    private static final float LOAD_FACTOR = 0.75F;
+    private static final int MIN_CAPACITY = 4;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int maxFill;
+    private int size = 0;
+
+    Long2ObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize The number of entries the map should hold without resizing.
+     */
+    Long2ObjectMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        int capacity = Integer.highestOneBit(Math.max(needed, MIN_CAPACITY));
+        return capacity < needed ? capacity << 1 : capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * Finds the slot holding the key or the empty slot where it would be inserted.
+     */
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean containsKey(long key) {
+        return values[find(key)] != null;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        return (V) values[find(key)];
+    }
+
+    /**
+     * @return The value previously mapped to the key, if any.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V put(long key, @NotNull V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not permitted");
+        }
+        int slot = find(key);
+        V previous = (V) values[slot];
+        values[slot] = value;
+        if (previous == null) {
+            keys[slot] = key;
+            if (++size > maxFill) {
+                rehash(values.length << 1);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * @return The value that was mapped to the key, if any.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int slot = find(key);
+        V previous = (V) values[slot];
+        if (previous != null) {
+            size--;
+            shiftBack(slot);
+        }
+        return previous;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    void forEach(@NotNull EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            @SuppressWarnings("unchecked")
+            V value = (V) values[i];
+            if (value != null) {
+                consumer.accept(keys[i], value);
+            }
+        }
+    }
+
+    /**
+     * Empties the given slot, moving back any following entries that would no longer be found past the gap.
+     */
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) {
+                break;
+            }
+            int home = mix(keys[slot]) & mask;
+            // The entry may fill the gap unless its home slot lies cyclically after the gap, up to its current slot.
+            boolean canMove = gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot);
+            if (canMove) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package pluginbase.plugin.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import pluginbase.config.datasource.DataSource;
+import pluginbase.messages.Messages;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Stores each region of block metadata in its own file.
+ * <p/>
+ * Files are placed in a directory for each world, named by the world's UUID, and are named {@code r.<x>.<z>.<extension>}
+ * after the region's coordinates. Saving a region rewrites its whole file and saving an empty region deletes it.
+ *
+ * @param <DataType> The type of metadata to store.
+ */
+public class RegionFileStorage<DataType extends BlockMetadatable> implements BlockMetadataStorage<DataType> {
+
+    @NotNull
+    private final Path directory;
+    @NotNull
+    private final String fileExtension;
+    @NotNull
+    private final Function<Path, DataSource> dataSourceFactory;
+
+    /**
+     * @param directory The directory to store the region files in.
+     * @param fileExtension The file extension of the region files, such as "yml".
+     * @param dataSourceFactory Creates a data source for the region file at the given path.
+     */
+    public RegionFileStorage(@NotNull Path directory, @NotNull String fileExtension,
+                             @NotNull Function<Path, DataSource> dataSourceFactory) {
+        this.directory = directory;
+        this.fileExtension = fileExtension;
+        this.dataSourceFactory = dataSourceFactory;
+    }
+
+    @NotNull
+    Path getRegionFile(@NotNull UUID world, int regionX, int regionZ) {
+        return directory.resolve(world.toString()).resolve("r." + regionX + "." + regionZ + "." + fileExtension);
+    }
+
+    @NotNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<DataType> loadRegion(@NotNull UUID world, int regionX, int regionZ) throws SendablePluginBaseException {
+        Path file = getRegionFile(world, regionX, regionZ);
+        if (!Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        BlockMetadataStore<DataType> store = dataSourceFactory.apply(file).load(BlockMetadataStore.class);
+        return store != null ? store.metadata : Collections.<DataType>emptyList();
+    }
+
+    @Override
+    public void saveRegion(@NotNull RegionChanges<DataType> changes) throws SendablePluginBaseException {
+        Path file = getRegionFile(changes.getWorld(), changes.getRegionX(), changes.getRegionZ());
+        List<DataType> metadata = changes.getMetadata();
+        try {
+            if (metadata.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            Files.createDirectories(file.getParent());
+        } catch (IOException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+        BlockMetadataStore<DataType> store = new BlockMetadataStore<>();
+        store.metadata = metadata;
+        dataSourceFactory.apply(file).save(store);
+    }
+}
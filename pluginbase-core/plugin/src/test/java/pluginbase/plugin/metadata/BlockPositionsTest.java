@@ -0,0 +1,49 @@
+package pluginbase.plugin.metadata;
+
+import org.junit.Test;
+import pluginbase.minecraft.location.Locations;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class BlockPositionsTest {
+
+    private static void assertRoundTrip(int x, int y, int z) {
+        long position = BlockPositions.pack(x, y, z);
+        assertEquals(x, BlockPositions.getX(position));
+        assertEquals(y, BlockPositions.getY(position));
+        assertEquals(z, BlockPositions.getZ(position));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        int[] xz = {0, 1, -1, 15, -16, 29999984, -29999984, BlockPositions.MIN_XZ, BlockPositions.MAX_XZ};
+        int[] y = {0, 1, -1, 255, -64, 319, BlockPositions.MIN_Y, BlockPositions.MAX_Y};
+        for (int x : xz) {
+            for (int blockY : y) {
+                for (int z : xz) {
+                    assertRoundTrip(x, blockY, z);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDistinct() throws Exception {
+        assertTrue(BlockPositions.pack(1, 0, 0) != BlockPositions.pack(0, 0, 1));
+        assertTrue(BlockPositions.pack(0, 1, 0) != BlockPositions.pack(0, 0, 1));
+        assertTrue(BlockPositions.pack(-1, 0, 0) != BlockPositions.pack(0, -1, 0));
+    }
+
+    @Test
+    public void testCoordinates() throws Exception {
+        assertEquals(BlockPositions.pack(10, 64, -10),
+                BlockPositions.pack(Locations.getBlockCoordinates("world", UUID.randomUUID(), 10, 64, -10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRange() throws Exception {
+        BlockPositions.pack(0, BlockPositions.MAX_Y + 1, 0);
+    }
+}
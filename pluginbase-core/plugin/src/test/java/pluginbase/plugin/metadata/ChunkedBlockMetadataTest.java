@@ -0,0 +1,543 @@
+package pluginbase.plugin.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.config.datasource.binary.BinaryDataSource;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+import pluginbase.minecraft.location.BlockCoordinates;
+import pluginbase.minecraft.location.Locations;
+import pluginbase.plugin.metadata.ChunkedBlockMetadata.RegionSnapshot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ChunkedBlockMetadataTest {
+
+    static final UUID WORLD = UUID.fromString("3f6b4e2a-7c1d-4a8e-9b0f-1d2c3e4f5a6b");
+
+    public static class TestMetadata implements BlockMetadatable {
+        String world;
+        int x;
+        int y;
+        int z;
+        String value;
+
+        private transient BlockCoordinates location;
+        transient BlockMetadataRegistry registry;
+
+        private TestMetadata() { }
+
+        TestMetadata(@NotNull UUID world, int x, int y, int z, @NotNull String value) {
+            this.world = world.toString();
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.value = value;
+        }
+
+        @NotNull
+        @Override
+        public BlockCoordinates getLocation() {
+            if (location == null) {
+                location = Locations.getBlockCoordinates("world", UUID.fromString(world), x, y, z);
+            }
+            return location;
+        }
+
+        @Override
+        public void setRegistry(@Nullable BlockMetadataRegistry registry) {
+            this.registry = registry;
+        }
+    }
+
+    /**
+     * Keeps regions in memory and counts what is loaded and saved.
+     */
+    static class MemoryStorage implements BlockMetadataStorage<TestMetadata> {
+        final Map<String, List<TestMetadata>> regions = new HashMap<>();
+        final Set<String> failingRegions = new HashSet<>();
+        int regionsLoaded = 0;
+        int regionsSaved = 0;
+        long metadataSaved = 0;
+
+        static String key(UUID world, int regionX, int regionZ) {
+            return world + ":" + regionX + "," + regionZ;
+        }
+
+        @NotNull
+        @Override
+        public List<TestMetadata> loadRegion(@NotNull UUID world, int regionX, int regionZ) throws SendablePluginBaseException {
+            regionsLoaded++;
+            if (failingRegions.contains(key(world, regionX, regionZ))) {
+                throw new SendablePluginBaseException(pluginbase.messages.Messages.EXCEPTION.bundle("Failed"));
+            }
+            List<TestMetadata> region = regions.get(key(world, regionX, regionZ));
+            return region != null ? new ArrayList<>(region) : Collections.<TestMetadata>emptyList();
+        }
+
+        @Override
+        public void saveRegion(@NotNull RegionChanges<TestMetadata> changes) {
+            regionsSaved++;
+            metadataSaved += changes.getMetadata().size();
+            regions.put(key(changes.getWorld(), changes.getRegionX(), changes.getRegionZ()),
+                    new ArrayList<>(changes.getMetadata()));
+        }
+    }
+
+    MemoryStorage storage;
+    List<String> loadFailures;
+    AtomicInteger loadedCount;
+    Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = new MemoryStorage();
+        loadFailures = new ArrayList<>();
+        loadedCount = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (dir != null) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                List<Path> paths = new ArrayList<>();
+                files.forEach(paths::add);
+                Collections.reverse(paths);
+                for (Path path : paths) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private ChunkedBlockMetadata<TestMetadata> create(@Nullable java.util.function.Consumer<Map<BlockCoordinates, TestMetadata>> cleaner) {
+        return new ChunkedBlockMetadata<>(storage, metadata -> loadedCount.incrementAndGet(), cleaner,
+                (region, e) -> loadFailures.add(region));
+    }
+
+    static BlockCoordinates at(int x, int y, int z) {
+        return Locations.getBlockCoordinates("world", WORLD, x, y, z);
+    }
+
+    private static long save(ChunkedBlockMetadata<TestMetadata> metadata, MemoryStorage storage) {
+        long saved = 0;
+        for (RegionSnapshot<TestMetadata> region : metadata.takeDirtyRegions()) {
+            storage.saveRegion(region);
+            saved += region.getMetadata().size();
+        }
+        return saved;
+    }
+
+    @Test
+    public void testCoordinates() throws Exception {
+        assertEquals(0, ChunkedBlockMetadata.chunkCoordinate(15));
+        assertEquals(1, ChunkedBlockMetadata.chunkCoordinate(16));
+        assertEquals(-1, ChunkedBlockMetadata.chunkCoordinate(-1));
+        assertEquals(-1, ChunkedBlockMetadata.chunkCoordinate(-16));
+        assertEquals(-2, ChunkedBlockMetadata.chunkCoordinate(-17));
+        assertEquals(0, ChunkedBlockMetadata.regionCoordinate(31));
+        assertEquals(1, ChunkedBlockMetadata.regionCoordinate(32));
+        assertEquals(-1, ChunkedBlockMetadata.regionCoordinate(-1));
+    }
+
+    @Test
+    public void testSaveScalesWithDirtyChunks() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        // 8x8 regions, each with 8x8 chunks of 256 blocks, for 1,048,576 entries.
+        int regionBlocks = ChunkedBlockMetadata.REGION_SIZE * 16;
+        int count = 0;
+        for (int regionX = 0; regionX < 8; regionX++) {
+            for (int regionZ = 0; regionZ < 8; regionZ++) {
+                for (int x = 0; x < 8 * 16; x++) {
+                    for (int z = 0; z < 8 * 16; z++) {
+                        metadata.put(new TestMetadata(WORLD, regionX * regionBlocks + x, 64, regionZ * regionBlocks + z, "v"));
+                        count++;
+                    }
+                }
+            }
+        }
+        assertEquals(1 << 20, count);
+        assertEquals(count, metadata.size());
+
+        assertEquals(count, save(metadata, storage));
+        assertEquals(64, storage.regionsSaved);
+
+        // Nothing has changed.
+        assertEquals(0, save(metadata, storage));
+        assertEquals(64, storage.regionsSaved);
+
+        // Four chunks in two regions change.
+        metadata.put(new TestMetadata(WORLD, 0, 70, 0, "changed"));
+        metadata.put(new TestMetadata(WORLD, 17, 70, 0, "changed"));
+        metadata.remove(at(40, 64, 40));
+        metadata.put(new TestMetadata(WORLD, 7 * regionBlocks + 3, 70, 7 * regionBlocks + 3, "changed"));
+        long saved = save(metadata, storage);
+        // Only the two regions holding dirty chunks are saved again.
+        assertEquals(66, storage.regionsSaved);
+        // Two entries were added to and one removed from the first region, and one was added to the last.
+        assertEquals(2 * (count / 64) + 2, saved);
+    }
+
+    @Test
+    public void testMarkDirty() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        TestMetadata a = new TestMetadata(WORLD, 1, 64, 1, "a");
+        metadata.put(a);
+        metadata.put(new TestMetadata(WORLD, 1000, 64, 1, "b"));
+        save(metadata, storage);
+
+        // Changed in place without being marked.
+        a.value = "changed";
+        assertTrue(metadata.takeDirtyRegions().isEmpty());
+
+        metadata.markDirty(at(1, 64, 1));
+        List<RegionSnapshot<TestMetadata>> dirty = metadata.takeDirtyRegions();
+        assertEquals(1, dirty.size());
+        assertEquals(Collections.singletonList(a), dirty.get(0).getChangedMetadata());
+
+        metadata.markAllDirty();
+        assertEquals(2, metadata.takeDirtyRegions().size());
+    }
+
+    @Test
+    public void testPackedPositionAccess() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        metadata.put(new TestMetadata(WORLD, -30000000, -64, 30000000, "far"));
+        long position = BlockPositions.pack(-30000000, -64, 30000000);
+        assertEquals("far", metadata.get(WORLD, position).value);
+        assertTrue(metadata.contains(at(-30000000, -64, 30000000)));
+        assertFalse(metadata.contains(UUID.randomUUID(), position));
+        assertEquals("far", metadata.remove(WORLD, position).value);
+        assertNull(metadata.get(at(-30000000, -64, 30000000)));
+    }
+
+    @Test
+    public void testOutOfRangeLookups() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        metadata.put(new TestMetadata(WORLD, BlockPositions.MAX_XZ, BlockPositions.MAX_Y, BlockPositions.MIN_XZ, "edge"));
+        assertEquals("edge", metadata.get(at(BlockPositions.MAX_XZ, BlockPositions.MAX_Y, BlockPositions.MIN_XZ)).value);
+
+        BlockCoordinates[] outOfRange = {
+                at(BlockPositions.MAX_XZ + 1, 64, 0),
+                at(0, 64, BlockPositions.MIN_XZ - 1),
+                at(0, BlockPositions.MAX_Y + 1, 0),
+                at(0, BlockPositions.MIN_Y - 1, 0),
+        };
+        for (BlockCoordinates coordinates : outOfRange) {
+            assertNull(metadata.get(coordinates));
+            assertFalse(metadata.contains(coordinates));
+            assertNull(metadata.remove(coordinates));
+            metadata.markDirty(coordinates);
+        }
+        assertEquals(1, metadata.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRangePutRejected() throws Exception {
+        create(null).put(new TestMetadata(WORLD, 0, BlockPositions.MAX_Y + 1, 0, "too high"));
+    }
+
+    private static Set<String> values(Iterable<TestMetadata> metadata) {
+        Set<String> values = new HashSet<>();
+        for (TestMetadata m : metadata) {
+            assertTrue("Duplicate " + m.value, values.add(m.value));
+        }
+        return values;
+    }
+
+    private static Set<String> bruteForce(List<TestMetadata> all, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        Set<String> values = new HashSet<>();
+        for (TestMetadata m : all) {
+            if (m.x >= minX && m.x <= maxX && m.y >= minY && m.y <= maxY && m.z >= minZ && m.z <= maxZ) {
+                values.add(m.value);
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testSpatialQueries() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        Random random = new Random(15);
+        List<TestMetadata> all = new ArrayList<>();
+        // 1,048,576 entries spread over a 4096x4096 area centered on the origin.
+        while (all.size() < 1 << 20) {
+            TestMetadata m = new TestMetadata(WORLD, random.nextInt(4096) - 2048, random.nextInt(256),
+                    random.nextInt(4096) - 2048, "");
+            m.value = m.x + "," + m.y + "," + m.z;
+            if (metadata.put(m) == null) {
+                all.add(m);
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            int minX = random.nextInt(4200) - 2100;
+            int minY = random.nextInt(300) - 20;
+            int minZ = random.nextInt(4200) - 2100;
+            int maxX = minX + random.nextInt(100);
+            int maxY = minY + random.nextInt(100);
+            int maxZ = minZ + random.nextInt(100);
+            assertEquals(bruteForce(all, minX, minY, minZ, maxX, maxY, maxZ),
+                    values(metadata.query(WORLD, minX, minY, minZ, maxX, maxY, maxZ, null)));
+        }
+
+        assertEquals(bruteForce(all, -16, Integer.MIN_VALUE, 32, -1, Integer.MAX_VALUE, 47),
+                values(metadata.queryChunk(WORLD, -1, 2)));
+        assertTrue(values(metadata.queryChunk(WORLD, 1000, 1000)).isEmpty());
+        assertTrue(values(metadata.queryChunk(UUID.randomUUID(), 0, 0)).isEmpty());
+        assertTrue(values(metadata.query(WORLD, 10, 0, 0, 0, 255, 10, null)).isEmpty());
+
+        for (int i = 0; i < 10; i++) {
+            TestMetadata center = all.get(random.nextInt(all.size()));
+            double radius = random.nextDouble() * 40;
+            Set<String> expected = new HashSet<>();
+            for (TestMetadata m : all) {
+                double dx = m.x - center.x;
+                double dy = m.y - center.y;
+                double dz = m.z - center.z;
+                if (dx * dx + dy * dy + dz * dz <= radius * radius) {
+                    expected.add(m.value);
+                }
+            }
+            assertTrue(expected.contains(center.value));
+            assertEquals(expected, values(metadata.queryRadius(center.getLocation(), radius)));
+        }
+
+        // Even a query covering the whole world only visits the 64 regions which are loaded.
+        assertEquals(64, storage.regionsLoaded);
+        assertEquals(all.size(), values(metadata.query(WORLD, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE,
+                Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, null)).size());
+        assertEquals(64, storage.regionsLoaded);
+        assertFalse(metadata.isRegionLoaded(WORLD, 1 << 20, 1 << 20));
+    }
+
+    @Test
+    public void testQueryIsLazy() throws Exception {
+        storage.regions.put(MemoryStorage.key(WORLD, 0, 0), Collections.singletonList(new TestMetadata(WORLD, 5, 64, 5, "a")));
+        storage.regions.put(MemoryStorage.key(WORLD, 1, 0), Collections.singletonList(new TestMetadata(WORLD, 600, 64, 5, "b")));
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+
+        // Queries never load regions.
+        assertFalse(metadata.query(WORLD, 0, 0, 0, 1000, 255, 15, null).iterator().hasNext());
+        assertEquals(0, storage.regionsLoaded);
+
+        metadata.loadRegion(WORLD, 0, 0);
+        metadata.loadRegion(WORLD, 37, 0);
+        assertEquals(2, storage.regionsLoaded);
+        Iterator<TestMetadata> iterator = metadata.query(WORLD, 0, 0, 0, 1000, 255, 15, null).iterator();
+        assertEquals("a", iterator.next().value);
+        // Added to a chunk which iteration has not reached yet.
+        metadata.put(new TestMetadata(WORLD, 700, 64, 5, "c"));
+        assertEquals("b", iterator.next().value);
+        assertEquals("c", iterator.next().value);
+        assertFalse(iterator.hasNext());
+        assertEquals(2, storage.regionsLoaded);
+    }
+
+    @Test
+    public void testQueryDuringConcurrentChanges() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        Set<String> stable = new HashSet<>();
+        for (int x = 0; x < 256; x += 2) {
+            for (int z = 0; z < 256; z += 2) {
+                TestMetadata m = new TestMetadata(WORLD, x, 64, z, x + "," + z);
+                metadata.put(m);
+                stable.add(m.value);
+            }
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread writer = new Thread(() -> {
+            Random random = new Random(16);
+            try {
+                while (!done.get()) {
+                    int x = random.nextInt(128) * 2 + 1;
+                    int z = random.nextInt(128) * 2 + 1;
+                    if (random.nextBoolean()) {
+                        metadata.put(new TestMetadata(WORLD, x, 64, z, "changing"));
+                    } else {
+                        metadata.remove(at(x, 64, z));
+                    }
+                }
+            } catch (Throwable t) {
+                errors.add(t);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 200; i++) {
+                Set<String> found = new HashSet<>();
+                for (TestMetadata m : metadata.query(WORLD, 0, 0, 0, 255, 255, 255, null)) {
+                    if (!m.value.equals("changing")) {
+                        assertTrue(found.add(m.value));
+                    }
+                }
+                assertEquals(stable, found);
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
+    @Test
+    public void testLoading() throws Exception {
+        storage.regions.put(MemoryStorage.key(WORLD, 0, 0), Collections.singletonList(new TestMetadata(WORLD, 5, 64, 5, "a")));
+        storage.regions.put(MemoryStorage.key(WORLD, -1, 0), Collections.singletonList(new TestMetadata(WORLD, -5, 64, 5, "b")));
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        assertEquals(0, storage.regionsLoaded);
+
+        // Metadata cannot be marked dirty in a region that is not loaded.
+        try {
+            metadata.markDirty(at(5, 64, 5));
+            fail("Marked metadata dirty in a region that is not loaded");
+        } catch (IllegalStateException expected) { }
+        assertEquals(0, storage.regionsLoaded);
+        assertFalse(metadata.isRegionLoaded(WORLD, 0, 0));
+
+        // Lookups load the region on first access.
+        assertEquals("a", metadata.get(at(5, 64, 5)).value);
+        assertTrue(metadata.isRegionLoaded(WORLD, 31, 31));
+        assertFalse(metadata.contains(at(6, 64, 5)));
+        metadata.markDirty(at(5, 64, 5));
+        metadata.loadRegion(WORLD, 1, 1);
+        assertEquals(1, storage.regionsLoaded);
+        assertEquals(1, metadata.takeDirtyRegions().size());
+        // Loading does not make anything dirty.
+        assertTrue(metadata.takeDirtyRegions().isEmpty());
+
+        // Removing loads the region so that the removal is saved.
+        assertEquals("b", metadata.remove(at(-5, 64, 5)).value);
+        assertEquals(2, storage.regionsLoaded);
+        assertEquals(2, loadedCount.get());
+        assertEquals(1, metadata.takeDirtyRegions().size());
+
+        // Regions are loaded before being changed.
+        storage.regions.put(MemoryStorage.key(WORLD, 1, 0), Collections.singletonList(new TestMetadata(WORLD, 600, 64, 5, "c")));
+        metadata.put(new TestMetadata(WORLD, 601, 64, 5, "d"));
+        assertEquals(3, storage.regionsLoaded);
+        List<RegionSnapshot<TestMetadata>> dirty = metadata.takeDirtyRegions();
+        assertEquals(1, dirty.size());
+        assertEquals(2, dirty.get(0).getMetadata().size());
+    }
+
+    @Test
+    public void testCleanerRemovalsAreSaved() throws Exception {
+        List<TestMetadata> stored = new ArrayList<>();
+        stored.add(new TestMetadata(WORLD, 1, 64, 1, "keep"));
+        stored.add(new TestMetadata(WORLD, 100, 64, 100, "remove"));
+        storage.regions.put(MemoryStorage.key(WORLD, 0, 0), stored);
+        ChunkedBlockMetadata<TestMetadata> metadata = create(map -> map.values().removeIf(m -> m.value.equals("remove")));
+
+        metadata.loadRegion(WORLD, 0, 0);
+        assertNull(metadata.get(at(100, 64, 100)));
+        assertEquals(1, save(metadata, storage));
+        assertEquals(1, storage.regions.get(MemoryStorage.key(WORLD, 0, 0)).size());
+    }
+
+    @Test
+    public void testFailedLoadIsNotSaved() throws Exception {
+        storage.failingRegions.add(MemoryStorage.key(WORLD, 0, 0));
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        metadata.put(new TestMetadata(WORLD, 1, 64, 1, "new"));
+        assertEquals(1, loadFailures.size());
+        assertTrue(metadata.takeDirtyRegions().isEmpty());
+    }
+
+    @Test
+    public void testFailedSaveIsRetried() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        metadata.put(new TestMetadata(WORLD, 1, 64, 1, "new"));
+        List<RegionSnapshot<TestMetadata>> dirty = metadata.takeDirtyRegions();
+        assertEquals(1, dirty.size());
+        assertTrue(metadata.takeDirtyRegions().isEmpty());
+        dirty.get(0).failed();
+        assertEquals(1, metadata.takeDirtyRegions().size());
+    }
+
+    @Test
+    public void testRegionChanges() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create(null);
+        metadata.put(new TestMetadata(WORLD, 1, 64, 1, "a"));
+        metadata.put(new TestMetadata(WORLD, 2, 64, 1, "b"));
+        metadata.put(new TestMetadata(WORLD, 20, 64, 1, "c"));
+        metadata.put(new TestMetadata(WORLD, 40, 64, 1, "d"));
+        save(metadata, storage);
+
+        metadata.remove(at(1, 64, 1));
+        metadata.remove(at(2, 64, 1));
+        metadata.put(new TestMetadata(WORLD, 2, 64, 1, "b2"));
+        metadata.put(new TestMetadata(WORLD, 3, 64, 1, "e"));
+        metadata.remove(at(40, 64, 1));
+        List<RegionSnapshot<TestMetadata>> dirty = metadata.takeDirtyRegions();
+        assertEquals(1, dirty.size());
+        RegionSnapshot<TestMetadata> changes = dirty.get(0);
+        assertEquals(3, changes.getMetadata().size());
+        Set<String> changed = new HashSet<>();
+        for (TestMetadata m : changes.getChangedMetadata()) {
+            changed.add(m.value);
+        }
+        // The chunk holding c did not change.
+        assertEquals(new HashSet<>(Arrays.asList("b2", "e")), changed);
+        long[] removed = changes.getRemovedPositions();
+        Arrays.sort(removed);
+        long[] expected = {BlockPositions.pack(1, 64, 1), BlockPositions.pack(40, 64, 1)};
+        Arrays.sort(expected);
+        assertArrayEquals(expected, removed);
+
+        // Removals are given again after a failure.
+        changes.failed();
+        assertEquals(2, metadata.takeDirtyRegions().get(0).getRemovedPositions().length);
+        assertTrue(metadata.takeDirtyRegions().isEmpty());
+    }
+
+    @Test
+    public void testRegionFiles() throws Exception {
+        dir = Files.createTempDirectory("metadata");
+        RegionFileStorage<TestMetadata> files = new RegionFileStorage<>(dir, "bin",
+                path -> BinaryDataSource.builder().setPath(path).build());
+        assertTrue(files.loadRegion(WORLD, 0, -1).isEmpty());
+
+        ChunkedBlockMetadata<TestMetadata> region = create(null);
+        region.put(new TestMetadata(WORLD, 1, 64, -1, "a"));
+        region.put(new TestMetadata(WORLD, 2, 64, -1, "b"));
+        files.saveRegion(region.takeDirtyRegions().get(0));
+        Path file = dir.resolve(WORLD.toString()).resolve("r.0.-1.bin");
+        assertEquals(file, files.getRegionFile(WORLD, 0, -1));
+        assertTrue(Files.exists(file));
+
+        List<TestMetadata> loaded = files.loadRegion(WORLD, 0, -1);
+        assertEquals(2, loaded.size());
+        Map<String, TestMetadata> byValue = new HashMap<>();
+        for (TestMetadata m : loaded) {
+            byValue.put(m.value, m);
+        }
+        assertEquals(at(1, 64, -1), byValue.get("a").getLocation());
+        assertEquals(at(2, 64, -1), byValue.get("b").getLocation());
+
+        region.remove(at(1, 64, -1));
+        region.remove(at(2, 64, -1));
+        files.saveRegion(region.takeDirtyRegions().get(0));
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,172 @@
+package pluginbase.plugin.metadata;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import pluginbase.jdbc.SpringDatabaseSettings;
+import pluginbase.jdbc.SpringJdbcAgent;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+import pluginbase.plugin.metadata.ChunkedBlockMetadata.RegionSnapshot;
+import pluginbase.plugin.metadata.ChunkedBlockMetadataTest.TestMetadata;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static pluginbase.plugin.metadata.ChunkedBlockMetadataTest.WORLD;
+
+public class JdbcBlockMetadataStorageTest {
+
+    SpringJdbcAgent agent;
+    JdbcTemplate jdbc;
+    JdbcBlockMetadataStorage<TestMetadata> storage;
+    List<String> loadFailures;
+
+    @Before
+    public void setUp() throws Exception {
+        SpringDatabaseSettings settings = new SpringDatabaseSettings();
+        settings.getDatabaseInfo().setUrl("jdbc:h2:mem:metadata;DB_CLOSE_DELAY=-1");
+        agent = SpringJdbcAgent.createAgent(settings, new File("."), getClass().getClassLoader());
+        jdbc = agent.createJdbcTemplate();
+        storage = new JdbcBlockMetadataStorage<>(agent, "block_metadata", TestMetadata.class);
+        loadFailures = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jdbc.execute("DROP ALL OBJECTS");
+    }
+
+    private ChunkedBlockMetadata<TestMetadata> create() {
+        return new ChunkedBlockMetadata<>(storage, metadata -> { }, null, (region, e) -> loadFailures.add(region));
+    }
+
+    private void save(ChunkedBlockMetadata<TestMetadata> metadata) throws SendablePluginBaseException {
+        for (RegionSnapshot<TestMetadata> region : metadata.takeDirtyRegions()) {
+            storage.saveRegion(region);
+        }
+    }
+
+    private int rows() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM block_metadata", Integer.class);
+    }
+
+    private static Map<String, TestMetadata> byValue(List<TestMetadata> metadata) {
+        Map<String, TestMetadata> values = new HashMap<>();
+        for (TestMetadata m : metadata) {
+            values.put(m.value, m);
+        }
+        return values;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTableName() throws Exception {
+        new JdbcBlockMetadataStorage<>(agent, "metadata; DROP TABLE x", TestMetadata.class);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        assertTrue(storage.loadRegion(WORLD, 0, 0).isEmpty());
+
+        ChunkedBlockMetadata<TestMetadata> metadata = create();
+        metadata.put(new TestMetadata(WORLD, 1, 64, 1, "a"));
+        metadata.put(new TestMetadata(WORLD, 20, -64, 1, "b"));
+        metadata.put(new TestMetadata(WORLD, -1, 300, -1, "c"));
+        metadata.put(new TestMetadata(WORLD, 600, 64, 1, "d"));
+        UUID otherWorld = UUID.randomUUID();
+        metadata.put(new TestMetadata(otherWorld, 1, 64, 1, "e"));
+        save(metadata);
+        assertEquals(5, rows());
+
+        ChunkedBlockMetadata<TestMetadata> reloaded = create();
+        assertEquals("a", reloaded.get(ChunkedBlockMetadataTest.at(1, 64, 1)).value);
+        assertEquals("b", reloaded.get(WORLD, BlockPositions.pack(20, -64, 1)).value);
+        assertEquals("c", reloaded.get(WORLD, BlockPositions.pack(-1, 300, -1)).value);
+        assertEquals("d", reloaded.get(WORLD, BlockPositions.pack(600, 64, 1)).value);
+        assertEquals("e", reloaded.get(otherWorld, BlockPositions.pack(1, 64, 1)).value);
+        assertTrue(loadFailures.isEmpty());
+
+        assertEquals(2, storage.loadRegion(WORLD, 0, 0).size());
+        assertEquals(1, storage.loadRegion(WORLD, -1, -1).size());
+        assertEquals(1, storage.loadRegion(WORLD, 1, 0).size());
+    }
+
+    @Test
+    public void testLoadChunk() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create();
+        metadata.put(new TestMetadata(WORLD, 1, 64, 1, "a"));
+        metadata.put(new TestMetadata(WORLD, 15, 64, 15, "b"));
+        metadata.put(new TestMetadata(WORLD, 16, 64, 1, "c"));
+        metadata.put(new TestMetadata(WORLD, -1, 64, 1, "d"));
+        save(metadata);
+
+        Map<String, TestMetadata> chunk = byValue(storage.loadChunk(WORLD, 0, 0));
+        assertEquals(2, chunk.size());
+        assertTrue(chunk.containsKey("a"));
+        assertTrue(chunk.containsKey("b"));
+        assertEquals("c", storage.loadChunk(WORLD, 1, 0).get(0).value);
+        assertEquals("d", storage.loadChunk(WORLD, -1, 0).get(0).value);
+        assertTrue(storage.loadChunk(WORLD, 0, 1).isEmpty());
+    }
+
+    @Test
+    public void testUpsertsAndDeletes() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create();
+        metadata.put(new TestMetadata(WORLD, 1, 64, 1, "a"));
+        metadata.put(new TestMetadata(WORLD, 2, 64, 1, "b"));
+        metadata.put(new TestMetadata(WORLD, 20, 64, 1, "c"));
+        save(metadata);
+        assertEquals(3, rows());
+
+        metadata.put(new TestMetadata(WORLD, 1, 64, 1, "a2"));
+        metadata.remove(ChunkedBlockMetadataTest.at(2, 64, 1));
+        metadata.put(new TestMetadata(WORLD, 3, 64, 1, "d"));
+        // Removed and then replaced, so it is upserted rather than deleted.
+        metadata.remove(ChunkedBlockMetadataTest.at(20, 64, 1));
+        metadata.put(new TestMetadata(WORLD, 20, 64, 1, "c2"));
+        save(metadata);
+        assertEquals(3, rows());
+
+        Map<String, TestMetadata> stored = byValue(storage.loadRegion(WORLD, 0, 0));
+        assertEquals(3, stored.size());
+        assertTrue(stored.containsKey("a2"));
+        assertTrue(stored.containsKey("c2"));
+        assertTrue(stored.containsKey("d"));
+
+        // Nothing has changed so nothing is saved.
+        assertTrue(metadata.takeDirtyRegions().isEmpty());
+    }
+
+    @Test
+    public void testBatchedSave() throws Exception {
+        ChunkedBlockMetadata<TestMetadata> metadata = create();
+        // Several batches of entries spread over every chunk in the region.
+        for (int x = 0; x < 512; x += 2) {
+            for (int z = 0; z < 512; z += 16) {
+                metadata.put(new TestMetadata(WORLD, x, 64, z, x + "," + z));
+            }
+        }
+        int count = metadata.size();
+        assertEquals(256 * 32, count);
+        save(metadata);
+        assertEquals(count, rows());
+
+        for (int x = 0; x < 512; x += 4) {
+            for (int z = 0; z < 512; z += 16) {
+                metadata.remove(ChunkedBlockMetadataTest.at(x, 64, z));
+            }
+        }
+        save(metadata);
+        assertEquals(count / 2, rows());
+
+        ChunkedBlockMetadata<TestMetadata> reloaded = create();
+        assertNull(reloaded.get(ChunkedBlockMetadataTest.at(0, 64, 0)));
+        assertEquals("2,16", reloaded.get(ChunkedBlockMetadataTest.at(2, 64, 16)).value);
+        assertEquals(count / 2, reloaded.size());
+    }
+}
@@ -0,0 +1,64 @@
+package pluginbase.plugin.metadata;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Long2ObjectMapTest {
+
+    @Test
+    public void testBasicOperations() throws Exception {
+        Long2ObjectMap<String> map = new Long2ObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1L, "a"));
+        assertNull(map.put(0L, "zero"));
+        assertNull(map.put(-1L, "b"));
+        assertEquals("a", map.put(1L, "c"));
+        assertEquals(3, map.size());
+        assertEquals("c", map.get(1L));
+        assertEquals("zero", map.get(0L));
+        assertTrue(map.containsKey(-1L));
+        assertFalse(map.containsKey(2L));
+        assertEquals("b", map.remove(-1L));
+        assertNull(map.remove(-1L));
+        assertEquals(2, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() throws Exception {
+        new Long2ObjectMap<String>().put(1L, null);
+    }
+
+    @Test
+    public void testMatchesHashMap() throws Exception {
+        Random random = new Random(7);
+        Long2ObjectMap<Long> map = new Long2ObjectMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 500000; i++) {
+            // A small key range forces collisions, wrap-around and removal of clustered entries.
+            long key = BlockPositions.pack(random.nextInt(64) - 32, random.nextInt(16), random.nextInt(64) - 32);
+            switch (random.nextInt(3)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+                    break;
+                default:
+                    assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        Map<Long, Long> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+    }
+}
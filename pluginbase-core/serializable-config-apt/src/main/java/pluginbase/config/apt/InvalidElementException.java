@@ -0,0 +1,25 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Thrown when an element annotated with {@link pluginbase.config.annotation.GenerateSerializer} can not have a
+ * serializer generated for it.
+ */
+class InvalidElementException extends Exception {
+
+    @NotNull
+    private final Element element;
+
+    InvalidElementException(@NotNull String message, @NotNull Element element) {
+        super(message);
+        this.element = element;
+    }
+
+    @NotNull
+    Element getElement() {
+        return element;
+    }
+}
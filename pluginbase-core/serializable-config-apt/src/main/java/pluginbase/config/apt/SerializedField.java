@@ -0,0 +1,117 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The information needed to serialize and deserialize a single field in a generated serializer.
+ * <p/>
+ * All type names are canonical names as they would be written in source, already erased.
+ */
+class SerializedField {
+
+    @NotNull
+    private final String javaName;
+    @NotNull
+    private final String serializedName;
+    private final int declaringClassDepth;
+    @NotNull
+    private final String typeName;
+    @Nullable
+    private final String primitiveTypeName;
+    @Nullable
+    private final String elementTypeName;
+    @Nullable
+    private final String serializeWithName;
+    @Nullable
+    private final String validatorName;
+    @Nullable
+    private final String[] comments;
+    private final boolean directlyAccessible;
+
+    SerializedField(@NotNull String javaName, @NotNull String serializedName, int declaringClassDepth,
+                    @NotNull String typeName, @Nullable String primitiveTypeName, @Nullable String elementTypeName,
+                    @Nullable String serializeWithName, @Nullable String validatorName, @Nullable String[] comments,
+                    boolean directlyAccessible) {
+        this.javaName = javaName;
+        this.serializedName = serializedName;
+        this.declaringClassDepth = declaringClassDepth;
+        this.typeName = typeName;
+        this.primitiveTypeName = primitiveTypeName;
+        this.elementTypeName = elementTypeName;
+        this.serializeWithName = serializeWithName;
+        this.validatorName = validatorName;
+        this.comments = comments;
+        this.directlyAccessible = directlyAccessible;
+    }
+
+    /**
+     * The name of the field in java source.
+     */
+    @NotNull
+    String getJavaName() {
+        return javaName;
+    }
+
+    /**
+     * The name the field is serialized under, which takes {@link pluginbase.config.annotation.Name} into account.
+     */
+    @NotNull
+    String getSerializedName() {
+        return serializedName;
+    }
+
+    /**
+     * How many super classes up from the annotated class the field is declared. 0 if it is declared by the annotated
+     * class itself.
+     */
+    int getDeclaringClassDepth() {
+        return declaringClassDepth;
+    }
+
+    /**
+     * The type of the field with primitives switched for their wrappers.
+     */
+    @NotNull
+    String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * The primitive type of the field or null if the field is not primitive.
+     */
+    @Nullable
+    String getPrimitiveTypeName() {
+        return primitiveTypeName;
+    }
+
+    /**
+     * The collection element type or map value type of the field or null if the field is neither.
+     */
+    @Nullable
+    String getElementTypeName() {
+        return elementTypeName;
+    }
+
+    @Nullable
+    String getSerializeWithName() {
+        return serializeWithName;
+    }
+
+    @Nullable
+    String getValidatorName() {
+        return validatorName;
+    }
+
+    @Nullable
+    String[] getComments() {
+        return comments;
+    }
+
+    /**
+     * Whether the generated serializer can read and write the field directly rather than through an accessor.
+     */
+    boolean isDirectlyAccessible() {
+        return directlyAccessible;
+    }
+}
@@ -0,0 +1,86 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * The information needed to write a generated serializer for a single class.
+ */
+class SerializedType {
+
+    @NotNull
+    private final String packageName;
+    @NotNull
+    private final String typeName;
+    @NotNull
+    private final String serializerSimpleName;
+    @Nullable
+    private final String typeKey;
+    private final boolean directlyInstantiable;
+    @NotNull
+    private final List<SerializedField> fields;
+
+    SerializedType(@NotNull String packageName, @NotNull String typeName, @NotNull String serializerSimpleName,
+                   @Nullable String typeKey, boolean directlyInstantiable, @NotNull List<SerializedField> fields) {
+        this.packageName = packageName;
+        this.typeName = typeName;
+        this.serializerSimpleName = serializerSimpleName;
+        this.typeKey = typeKey;
+        this.directlyInstantiable = directlyInstantiable;
+        this.fields = fields;
+    }
+
+    /**
+     * The package of the class, which is also the package of the generated serializer. Empty for the default package.
+     */
+    @NotNull
+    String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * The canonical name of the class as it would be written in source.
+     */
+    @NotNull
+    String getTypeName() {
+        return typeName;
+    }
+
+    @NotNull
+    String getSerializerSimpleName() {
+        return serializerSimpleName;
+    }
+
+    /**
+     * The fully qualified name of the generated serializer.
+     */
+    @NotNull
+    String getSerializerName() {
+        return packageName.isEmpty() ? serializerSimpleName : packageName + "." + serializerSimpleName;
+    }
+
+    /**
+     * The value of the serialized type key or null if the class is serialized without one.
+     */
+    @Nullable
+    String getTypeKey() {
+        return typeKey;
+    }
+
+    /**
+     * Whether the generated serializer can call the no-arg constructor of the class directly.
+     */
+    boolean isDirectlyInstantiable() {
+        return directlyInstantiable;
+    }
+
+    /**
+     * The persistable fields of the class in the order the reflective field mapping would produce them.
+     */
+    @NotNull
+    List<SerializedField> getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,98 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+import pluginbase.config.annotation.GenerateSerializer;
+import pluginbase.config.serializers.GeneratedSerializer;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates a {@link GeneratedSerializer} for every class annotated with {@link GenerateSerializer} and registers
+ * them in {@code META-INF/services} so they can be found through {@link java.util.ServiceLoader}.
+ * <p/>
+ * Problems with an annotated class, such as fields that cannot be supported, are reported as compile errors on the
+ * offending element.
+ */
+@SupportedAnnotationTypes("pluginbase.config.annotation.GenerateSerializer")
+public class SerializerProcessor extends AbstractProcessor {
+
+    static final String SERVICE_FILE = "META-INF/services/" + GeneratedSerializer.class.getName();
+
+    @NotNull
+    private final Set<String> generatedSerializers = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeReader reader = new TypeReader(processingEnv);
+        SerializerWriter writer = new SerializerWriter(processingEnv);
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateSerializer.class)) {
+            try {
+                SerializedType type = reader.read(element);
+                writer.write(type);
+                generatedSerializers.add(type.getSerializerName());
+            } catch (InvalidElementException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, e.getMessage(), e.getElement());
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "Could not write generated serializer: " + e, element);
+            }
+        }
+        if (roundEnv.processingOver() && !generatedSerializers.isEmpty()) {
+            writeServiceFile();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the service file listing every serializer generated during this compilation, keeping any entries from a
+     * previous compilation that wrote to the same output.
+     */
+    private void writeServiceFile() {
+        Set<String> serializers = new TreeSet<>(generatedSerializers);
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        serializers.add(line);
+                    }
+                }
+            }
+        } catch (IOException ignore) {
+            // There is no existing service file.
+        }
+        try {
+            FileObject serviceFile = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = new OutputStreamWriter(serviceFile.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String serializer : serializers) {
+                    writer.write(serializer);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Could not write " + SERVICE_FILE + ": " + e);
+        }
+    }
+}
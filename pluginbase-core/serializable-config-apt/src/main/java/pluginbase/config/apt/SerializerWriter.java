@@ -0,0 +1,190 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.util.Elements;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the source of a generated serializer for a {@link SerializedType}.
+ * <p/>
+ * The generated class extends {@link pluginbase.config.serializers.GeneratedSerializer}, which handles everything
+ * that is not specific to the fields of the class. Fields that can not be accessed directly from the serializer's
+ * package are read and written through {@link pluginbase.config.field.FieldAccessor}s created once when the
+ * serializer class is initialized.
+ */
+class SerializerWriter {
+
+    private static final String BASE_CLASS = "pluginbase.config.serializers.GeneratedSerializer";
+    private static final String SERIALIZER_SET = "pluginbase.config.serializers.SerializerSet";
+    private static final String FIELD_ACCESSOR = "pluginbase.config.field.FieldAccessor";
+    private static final String VALIDATOR = "pluginbase.config.field.Validator";
+    private static final String VALIDATORS = "pluginbase.config.field.Validators";
+    private static final String PROPERTY_VETO_EXCEPTION = "pluginbase.config.field.PropertyVetoException";
+
+    @NotNull
+    private final ProcessingEnvironment processingEnv;
+    @NotNull
+    private final Elements elements;
+
+    SerializerWriter(@NotNull ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+        this.elements = processingEnv.getElementUtils();
+    }
+
+    void write(@NotNull SerializedType type) throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(type.getSerializerName());
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            write(type, out);
+        }
+    }
+
+    private void write(@NotNull SerializedType type, @NotNull PrintWriter out) {
+        String typeName = type.getTypeName();
+        List<SerializedField> fields = type.getFields();
+
+        if (!type.getPackageName().isEmpty()) {
+            out.println("package " + type.getPackageName() + ";");
+            out.println();
+        }
+        out.println("/**");
+        out.println(" * Serializer for {@link " + typeName + "} generated by the Serializable-Config annotation processor.");
+        out.println(" */");
+        out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        out.println("public final class " + type.getSerializerSimpleName() + " extends " + BASE_CLASS + "<" + typeName + "> {");
+        out.println();
+
+        boolean hasMembers = false;
+        for (int i = 0; i < fields.size(); i++) {
+            SerializedField field = fields.get(i);
+            if (!field.isDirectlyAccessible()) {
+                out.println("    private static final " + FIELD_ACCESSOR + " " + accessorName(i) + " = createAccessor("
+                        + typeName + ".class, " + field.getDeclaringClassDepth() + ", " + literal(field.getJavaName()) + ");");
+                hasMembers = true;
+            }
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            SerializedField field = fields.get(i);
+            if (field.getValidatorName() != null) {
+                out.println("    private final " + VALIDATOR + " " + validatorName(i) + " = " + VALIDATORS + ".getValidator("
+                        + field.getValidatorName() + ".class);");
+                hasMembers = true;
+            }
+        }
+        if (hasMembers) {
+            out.println();
+        }
+
+        out.println("    public " + type.getSerializerSimpleName() + "() {");
+        out.println("        super(" + typeName + ".class, " + (type.getTypeKey() != null ? literal(type.getTypeKey()) : "null") + ");");
+        for (SerializedField field : fields) {
+            String[] comments = field.getComments();
+            if (comments != null) {
+                StringBuilder arguments = new StringBuilder(literal(field.getSerializedName()));
+                for (String comment : comments) {
+                    arguments.append(", ").append(literal(comment));
+                }
+                out.println("        addComments(" + arguments + ");");
+            }
+        }
+        out.println("    }");
+
+        if (type.isDirectlyInstantiable()) {
+            out.println();
+            out.println("    @Override");
+            out.println("    protected " + typeName + " newInstance() {");
+            out.println("        return new " + typeName + "();");
+            out.println("    }");
+        }
+
+        out.println();
+        out.println("    @Override");
+        out.println("    protected void serializeFields(" + typeName + " object, java.util.Map<String, Object> serializedMap, "
+                + SERIALIZER_SET + " serializerSet) {");
+        for (int i = 0; i < fields.size(); i++) {
+            SerializedField field = fields.get(i);
+            out.println("        serializedMap.put(" + literal(field.getSerializedName()) + ", serializeValue("
+                    + read(field, i, "object") + ", " + field.getTypeName() + ".class, "
+                    + classLiteral(field.getSerializeWithName()) + ", serializerSet));");
+        }
+        out.println("    }");
+
+        out.println();
+        out.println("    @Override");
+        out.println("    protected boolean deserializeField(String lowerCaseName, Object serializedFieldData, " + typeName
+                + " target, " + SERIALIZER_SET + " serializerSet) {");
+        out.println("        switch (lowerCaseName) {");
+        for (int i = 0; i < fields.size(); i++) {
+            writeDeserializeCase(fields.get(i), i, out);
+        }
+        out.println("            default:");
+        out.println("                return false;");
+        out.println("        }");
+        out.println("    }");
+        out.println("}");
+    }
+
+    private void writeDeserializeCase(@NotNull SerializedField field, int index, @NotNull PrintWriter out) {
+        String currentValue = read(field, index, "target");
+        String typeLiteral = field.getTypeName() + ".class";
+        String validator = field.getValidatorName() != null ? validatorName(index) : "null";
+
+        out.println("            case " + literal(field.getSerializedName().toLowerCase(Locale.ENGLISH)) + ": {");
+        out.println("                Object value = deserializeValue(serializedFieldData, " + currentValue + ", " + typeLiteral
+                + ", " + classLiteral(field.getElementTypeName()) + ", " + classLiteral(field.getSerializeWithName()) + ", "
+                + literal(field.getJavaName()) + ", serializerSet);");
+        out.println("                try {");
+        if (field.isDirectlyAccessible()) {
+            String newValue = "validate(" + validator + ", value, " + currentValue + ")";
+            if (field.getPrimitiveTypeName() != null) {
+                newValue = "requireValue(" + newValue + ", " + typeLiteral + ")";
+            }
+            out.println("                    target." + field.getJavaName() + " = (" + field.getTypeName() + ") " + newValue + ";");
+            out.println("                } catch (ClassCastException e) {");
+        } else {
+            out.println("                    " + accessorName(index) + ".set(target, validate(" + validator + ", value, " + currentValue + "));");
+            out.println("                } catch (IllegalArgumentException e) {");
+        }
+        out.println("                    throw new IllegalArgumentException(\"The specified value is not an instance of type \" + "
+                + typeLiteral + ", e);");
+        out.println("                } catch (" + PROPERTY_VETO_EXCEPTION + " e) {");
+        out.println("                    e.printStackTrace();");
+        out.println("                }");
+        out.println("                return true;");
+        out.println("            }");
+    }
+
+    @NotNull
+    private String read(@NotNull SerializedField field, int index, @NotNull String object) {
+        if (field.isDirectlyAccessible()) {
+            return object + "." + field.getJavaName();
+        }
+        return accessorName(index) + ".get(" + object + ")";
+    }
+
+    @NotNull
+    private static String accessorName(int index) {
+        return "FIELD_ACCESSOR_" + index;
+    }
+
+    @NotNull
+    private static String validatorName(int index) {
+        return "validator" + index;
+    }
+
+    @NotNull
+    private static String classLiteral(@Nullable String typeName) {
+        return typeName != null ? typeName + ".class" : "null";
+    }
+
+    @NotNull
+    private String literal(@NotNull String value) {
+        return elements.getConstantExpression(value);
+    }
+}
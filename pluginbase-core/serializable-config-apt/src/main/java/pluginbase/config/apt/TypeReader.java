@@ -0,0 +1,305 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.annotation.Comment;
+import pluginbase.config.annotation.IgnoreSuperFields;
+import pluginbase.config.annotation.Name;
+import pluginbase.config.annotation.NoTypeKey;
+import pluginbase.config.annotation.SerializableAs;
+import pluginbase.config.annotation.SerializeWith;
+import pluginbase.config.annotation.ValidateWith;
+import pluginbase.config.field.VirtualField;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a class annotated with {@link pluginbase.config.annotation.GenerateSerializer} into a {@link SerializedType}.
+ * <p/>
+ * Fields are collected and described the same way {@link pluginbase.config.field.FieldMapper} and
+ * {@link pluginbase.config.field.Field} do at runtime so that the generated serializer matches the reflective one.
+ */
+class TypeReader {
+
+    @NotNull
+    private final Elements elements;
+    @NotNull
+    private final Types types;
+    @NotNull
+    private final TypeMirror collectionType;
+    @NotNull
+    private final TypeMirror mapType;
+    @NotNull
+    private final TypeMirror virtualFieldType;
+
+    TypeReader(@NotNull ProcessingEnvironment processingEnv) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.collectionType = erasure(Collection.class);
+        this.mapType = erasure(Map.class);
+        this.virtualFieldType = erasure(VirtualField.class);
+    }
+
+    @NotNull
+    private TypeMirror erasure(@NotNull Class<?> clazz) {
+        return types.erasure(elements.getTypeElement(clazz.getCanonicalName()).asType());
+    }
+
+    @NotNull
+    SerializedType read(@NotNull Element element) throws InvalidElementException {
+        if (element.getKind() != ElementKind.CLASS) {
+            throw new InvalidElementException("@GenerateSerializer may only be applied to classes.", element);
+        }
+        TypeElement type = (TypeElement) element;
+        checkAccessible(type);
+
+        PackageElement packageElement = elements.getPackageOf(type);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(type).toString();
+        String flatName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+
+        return new SerializedType(packageName, type.getQualifiedName().toString(),
+                flatName.replace('$', '_') + "_GeneratedSerializer", getTypeKey(type, binaryName),
+                isDirectlyInstantiable(type), readFields(type, packageElement));
+    }
+
+    private void checkAccessible(@NotNull TypeElement type) throws InvalidElementException {
+        Element current = type;
+        while (current instanceof TypeElement) {
+            TypeElement currentType = (TypeElement) current;
+            if (currentType.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new InvalidElementException("@GenerateSerializer can not be used on private classes.", type);
+            }
+            NestingKind nestingKind = currentType.getNestingKind();
+            if (nestingKind == NestingKind.LOCAL || nestingKind == NestingKind.ANONYMOUS) {
+                throw new InvalidElementException("@GenerateSerializer can not be used on local or anonymous classes.", type);
+            }
+            if (nestingKind == NestingKind.MEMBER && !currentType.getModifiers().contains(Modifier.STATIC)) {
+                throw new InvalidElementException("@GenerateSerializer can not be used on inner classes. Make the class static.", type);
+            }
+            current = current.getEnclosingElement();
+        }
+    }
+
+    /**
+     * Mirrors the type key chosen by {@link pluginbase.config.serializers.SerializationPlan}.
+     */
+    @Nullable
+    private String getTypeKey(@NotNull TypeElement type, @NotNull String binaryName) {
+        if (type.getAnnotation(NoTypeKey.class) != null && type.getModifiers().contains(Modifier.FINAL)) {
+            return null;
+        }
+        SerializableAs alias = type.getAnnotation(SerializableAs.class);
+        if (alias != null) {
+            return alias.value();
+        }
+        return binaryName;
+    }
+
+    private boolean isDirectlyInstantiable(@NotNull TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return !constructor.getModifiers().contains(Modifier.PRIVATE);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the fields of the type and its super classes in the same order as
+     * {@link pluginbase.config.field.FieldMapper}. Two fields with the same lower case serialized name can not both be
+     * read back, and would also produce duplicate case labels in the generated serializer, so they are rejected.
+     */
+    @NotNull
+    private List<SerializedField> readFields(@NotNull TypeElement type, @NotNull PackageElement packageElement) throws InvalidElementException {
+        Map<String, SerializedField> fields = new LinkedHashMap<>();
+        TypeElement current = type;
+        int depth = 0;
+        while (current != null) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                SerializedField serializedField = readField(field, current, depth, packageElement);
+                SerializedField existing = fields.put(serializedField.getSerializedName().toLowerCase(Locale.ENGLISH), serializedField);
+                if (existing != null) {
+                    throw new InvalidElementException("This field is serialized as \"" + serializedField.getSerializedName()
+                            + "\" which clashes with the field " + existing.getJavaName() + ". Use @Name to give one of them a different name.", field);
+                }
+            }
+            if (current.getAnnotation(IgnoreSuperFields.class) != null) {
+                break;
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+            depth++;
+        }
+        return new ArrayList<>(fields.values());
+    }
+
+    @NotNull
+    private SerializedField readField(@NotNull VariableElement field, @NotNull TypeElement declaringType, int depth,
+                                      @NotNull PackageElement packageElement) throws InvalidElementException {
+        TypeMirror fieldType = field.asType();
+        if (types.isAssignable(types.erasure(fieldType), virtualFieldType)) {
+            throw new InvalidElementException("VirtualField fields are not supported by @GenerateSerializer.", field);
+        }
+        checkReferencable(types.erasure(fieldType), packageElement, field);
+        Element fieldTypeElement = fieldType.getKind() == TypeKind.DECLARED ? types.asElement(fieldType) : null;
+
+        String typeName;
+        String primitiveTypeName = null;
+        if (fieldType.getKind().isPrimitive()) {
+            typeName = types.boxedClass((PrimitiveType) fieldType).getQualifiedName().toString();
+            primitiveTypeName = fieldType.toString();
+        } else {
+            typeName = types.erasure(fieldType).toString();
+        }
+
+        String elementTypeName = null;
+        if (types.isAssignable(types.erasure(fieldType), collectionType)) {
+            elementTypeName = getTypeArgument(fieldType, collectionType, 0);
+        } else if (types.isAssignable(types.erasure(fieldType), mapType)) {
+            elementTypeName = getTypeArgument(fieldType, mapType, 1);
+        }
+
+        Set<Modifier> modifiers = field.getModifiers();
+        boolean samePackage = elements.getPackageOf(declaringType).equals(packageElement);
+        boolean directlyAccessible = !modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL)
+                && (samePackage || (modifiers.contains(Modifier.PUBLIC) && declaringType.getModifiers().contains(Modifier.PUBLIC)));
+
+        return new SerializedField(field.getSimpleName().toString(), getSerializedName(field, fieldTypeElement),
+                depth, typeName, primitiveTypeName, elementTypeName,
+                getSerializeWith(field, fieldTypeElement), getClassValue(field, ValidateWith.class),
+                getComments(field, fieldTypeElement), directlyAccessible);
+    }
+
+    /**
+     * Ensures a class literal of the given type can be written in the package of the generated serializer.
+     */
+    private void checkReferencable(@NotNull TypeMirror type, @NotNull PackageElement packageElement, @NotNull Element field) throws InvalidElementException {
+        while (type.getKind() == TypeKind.ARRAY) {
+            type = ((ArrayType) type).getComponentType();
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+        Element element = types.asElement(type);
+        while (element instanceof TypeElement) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)
+                    || (!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(element).equals(packageElement))) {
+                throw new InvalidElementException("The type of this field is not accessible to the generated serializer.", field);
+            }
+            element = element.getEnclosingElement();
+        }
+    }
+
+    @NotNull
+    private String getSerializedName(@NotNull VariableElement field, @Nullable Element fieldTypeElement) {
+        Name name = field.getAnnotation(Name.class);
+        if (name == null && fieldTypeElement != null) {
+            name = fieldTypeElement.getAnnotation(Name.class);
+        }
+        return name != null ? name.value() : field.getSimpleName().toString();
+    }
+
+    @Nullable
+    private String getSerializeWith(@NotNull VariableElement field, @Nullable Element fieldTypeElement) {
+        String serializeWith = getClassValue(field, SerializeWith.class);
+        if (serializeWith == null && fieldTypeElement != null) {
+            serializeWith = getClassValue(fieldTypeElement, SerializeWith.class);
+        }
+        return serializeWith;
+    }
+
+    @Nullable
+    private String[] getComments(@NotNull VariableElement field, @Nullable Element fieldTypeElement) {
+        Comment comment = field.getAnnotation(Comment.class);
+        if (comment == null && fieldTypeElement != null) {
+            comment = fieldTypeElement.getAnnotation(Comment.class);
+        }
+        return comment != null ? comment.value() : null;
+    }
+
+    /**
+     * Determines the element type of a collection or value type of a map field the same way
+     * {@link pluginbase.config.field.Field} does with gentyref. A raw type results in the erased super type itself and
+     * a wildcard results in Object.
+     */
+    @NotNull
+    private String getTypeArgument(@NotNull TypeMirror fieldType, @NotNull TypeMirror superType, int index) {
+        DeclaredType exactSuperType = findSuperType(fieldType, superType);
+        if (exactSuperType == null || exactSuperType.getTypeArguments().size() <= index) {
+            return superType.toString();
+        }
+        TypeMirror argument = exactSuperType.getTypeArguments().get(index);
+        if (argument.getKind() == TypeKind.WILDCARD) {
+            return Object.class.getName();
+        }
+        return types.erasure(argument).toString();
+    }
+
+    @Nullable
+    private DeclaredType findSuperType(@NotNull TypeMirror type, @NotNull TypeMirror erasedSuperType) {
+        if (type.getKind() == TypeKind.DECLARED && types.isSameType(types.erasure(type), erasedSuperType)) {
+            return (DeclaredType) type;
+        }
+        for (TypeMirror directSuperType : types.directSupertypes(type)) {
+            DeclaredType result = findSuperType(directSuperType, erasedSuperType);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the class valued {@code value} of an annotation. The annotation can not simply be retrieved since its
+     * class values are not loaded during compilation.
+     */
+    @Nullable
+    private String getClassValue(@NotNull Element element, @NotNull Class<? extends Annotation> annotationType) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            TypeElement annotationElement = (TypeElement) annotation.getAnnotationType().asElement();
+            if (!annotationElement.getQualifiedName().contentEquals(annotationType.getCanonicalName())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value")) {
+                    return types.erasure((TypeMirror) entry.getValue().getValue()).toString();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.annotation.Comment;
+import pluginbase.config.annotation.GenerateSerializer;
+import pluginbase.config.annotation.Immutable;
+import pluginbase.config.annotation.Name;
+import pluginbase.config.annotation.SerializableAs;
+import pluginbase.config.annotation.SerializeWith;
+import pluginbase.config.annotation.ValidateWith;
+import pluginbase.config.field.PropertyVetoException;
+import pluginbase.config.field.Validator;
+import pluginbase.config.serializers.Serializer;
+import pluginbase.config.serializers.SerializerSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@GenerateSerializer
+@SerializableAs("GeneratedExample")
+public class Example extends ExampleBase {
+
+    public static class LengthValidator implements Validator<String> {
+        @Nullable
+        @Override
+        public String validateChange(@Nullable String newValue, @Nullable String oldValue) throws PropertyVetoException {
+            return newValue != null && newValue.length() >= 4 ? newValue : oldValue;
+        }
+    }
+
+    public static class UpperCaseSerializer implements Serializer<String> {
+        @Nullable
+        @Override
+        public Object serialize(@Nullable String object, @NotNull SerializerSet serializerSet) throws IllegalArgumentException {
+            return object != null ? object.toUpperCase() : null;
+        }
+
+        @Nullable
+        @Override
+        public String deserialize(@Nullable Object serialized, @NotNull Class wantedType, @NotNull SerializerSet serializerSet) throws IllegalArgumentException {
+            return serialized != null ? serialized.toString().toLowerCase() : null;
+        }
+    }
+
+    @Comment({"# The count", "of things"})
+    public int count = 5;
+    public double ratio = 0.5D;
+    public char letter = 'e';
+    @Name("title")
+    public String name = "example";
+    @ValidateWith(LengthValidator.class)
+    public String validated = "valid";
+    @Immutable
+    public long immutable = 10L;
+    public final List<String> words = new ArrayList<>();
+    private Map<String, Point> points = new LinkedHashMap<>();
+    public Point point = new Point(1, 2);
+    @SerializeWith(UpperCaseSerializer.class)
+    public String shouted = "loud";
+    public Tag tag = new Tag("tag");
+    public int[] numbers = {1, 2, 3};
+    public transient int ignored = 3;
+
+    public Example() {
+        words.add("some");
+        words.add("words");
+        points.put("origin", new Point(0, 0));
+    }
+
+    public Map<String, Point> getPoints() {
+        return points;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || o.getClass() != getClass()) return false;
+
+        final Example example = (Example) o;
+
+        return count == example.count
+                && Double.compare(example.ratio, ratio) == 0
+                && letter == example.letter
+                && immutable == example.immutable
+                && isEnabled() == example.isEnabled()
+                && baseName.equals(example.baseName)
+                && name.equals(example.name)
+                && validated.equals(example.validated)
+                && words.equals(example.words)
+                && points.equals(example.points)
+                && point.equals(example.point)
+                && shouted.equals(example.shouted)
+                && tag.equals(example.tag)
+                && java.util.Arrays.equals(numbers, example.numbers);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Example{" +
+                "count=" + count +
+                ", name='" + name + '\'' +
+                ", validated='" + validated + '\'' +
+                ", words=" + words +
+                ", points=" + points +
+                ", point=" + point +
+                ", shouted='" + shouted + '\'' +
+                ", tag=" + tag +
+                '}';
+    }
+}
@@ -0,0 +1,15 @@
+package pluginbase.config.apt;
+
+public class ExampleBase {
+
+    private boolean enabled = true;
+    protected String baseName = "base";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,6 @@
+package pluginbase.config.apt;
+
+public class ExampleSubclass extends Example {
+
+    public String extra = "extra";
+}
@@ -0,0 +1,224 @@
+package pluginbase.config.apt;
+
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.field.Field;
+import pluginbase.config.field.FieldMapper;
+import pluginbase.config.serializers.GeneratedSerializer;
+import pluginbase.config.serializers.GeneratedSerializers;
+import pluginbase.config.serializers.SerializerSet;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class GeneratedSerializerTest {
+
+    private SerializerSet generated;
+    private SerializerSet reflective;
+
+    @Before
+    public void setUp() {
+        SerializableConfig.registerSerializableAsClass(Example.class);
+        generated = SerializerSet.defaultSet();
+        reflective = SerializerSet.builder().setGeneratedSerializersEnabled(false).build();
+    }
+
+    private static Example createExample() {
+        Example example = new Example();
+        example.setEnabled(false);
+        example.baseName = "changed base";
+        example.count = 42;
+        example.ratio = 1.25D;
+        example.letter = 'q';
+        example.name = "changed";
+        example.validated = "changed value";
+        example.immutable = 20L;
+        example.words.add("more");
+        example.getPoints().put("far", new Point(100, -100));
+        example.point = new Point(3, 4);
+        example.shouted = "quiet";
+        example.tag = new Tag("other");
+        example.numbers = new int[] {4, 5};
+        example.ignored = 9;
+        return example;
+    }
+
+    @Test
+    public void testGeneratedSerializersAreRegistered() {
+        assertTrue(generated.getClassSerializer(Example.class) instanceof GeneratedSerializer);
+        assertTrue(generated.getClassSerializer(Point.class) instanceof GeneratedSerializer);
+        assertSame(GeneratedSerializers.getGeneratedSerializer(Example.class), generated.getClassSerializer(Example.class));
+        assertSame(Example.class, GeneratedSerializers.getGeneratedSerializer(Example.class).getType());
+        assertFalse(reflective.getClassSerializer(Example.class) instanceof GeneratedSerializer);
+        assertNull(GeneratedSerializers.getGeneratedSerializer(Tag.class));
+        assertNull(GeneratedSerializers.getGeneratedSerializer(ExampleSubclass.class));
+    }
+
+    @Test
+    public void testSerializeMatchesReflection() {
+        Example example = createExample();
+        Map<?, ?> expected = (Map<?, ?>) SerializableConfig.serialize(example, reflective);
+        Map<?, ?> actual = (Map<?, ?>) SerializableConfig.serialize(example, generated);
+        assertEquals(expected, actual);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        assertEquals("GeneratedExample", actual.get(SerializableConfig.SERIALIZED_TYPE_KEY));
+        assertEquals("QUIET", actual.get("shouted"));
+        assertEquals("#other", actual.get("tag"));
+        assertEquals("changed", actual.get("title"));
+        assertFalse(actual.containsKey("name"));
+        assertFalse(actual.containsKey("ignored"));
+        assertFalse(((Map<?, ?>) actual.get("point")).containsKey(SerializableConfig.SERIALIZED_TYPE_KEY));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Example example = createExample();
+        Object fromGenerated = SerializableConfig.serialize(example, generated);
+        Object fromReflective = SerializableConfig.serialize(example, reflective);
+
+        assertEquals(example, SerializableConfig.deserialize(fromGenerated, generated));
+        assertEquals(example, SerializableConfig.deserialize(fromGenerated, reflective));
+        assertEquals(example, SerializableConfig.deserialize(fromReflective, generated));
+        assertEquals(example, SerializableConfig.deserializeAs(fromReflective, Example.class, generated));
+    }
+
+    @Test
+    public void testDeserializeIsCaseInsensitive() {
+        Map<String, Object> data = (Map<String, Object>) SerializableConfig.serialize(createExample(), generated);
+        data.put("TITLE", data.remove("title"));
+        data.put("Count", data.remove("count"));
+        Example example = SerializableConfig.deserializeAs(data, Example.class, generated);
+        assertEquals("changed", example.name);
+        assertEquals(42, example.count);
+    }
+
+    @Test
+    public void testValidatorApplied() {
+        Map<String, Object> data = (Map<String, Object>) SerializableConfig.serialize(createExample(), generated);
+        data.put("validated", "no");
+        assertEquals("valid", SerializableConfig.deserializeAs(data, Example.class, generated).validated);
+        assertEquals("valid", SerializableConfig.deserializeAs(data, Example.class, reflective).validated);
+    }
+
+    @Test
+    public void testWrongTypeRejected() {
+        Map<String, Object> data = (Map<String, Object>) SerializableConfig.serialize(createExample(), generated);
+        data.put("point", "not a point");
+        try {
+            SerializableConfig.deserializeAs(data, Example.class, reflective);
+            fail();
+        } catch (RuntimeException ignore) { }
+        try {
+            SerializableConfig.deserializeAs(data, Example.class, generated);
+            fail();
+        } catch (RuntimeException ignore) { }
+    }
+
+    @Test
+    public void testCommentsMatchReflection() {
+        GeneratedSerializer<Example> serializer = GeneratedSerializers.getGeneratedSerializer(Example.class);
+        assertNotNull(serializer);
+        for (Field field : FieldMapper.getFieldMap(Example.class)) {
+            if (!field.isPersistable()) {
+                continue;
+            }
+            assertArrayEquals(field.getName(), field.getComments(), serializer.getComments(field.getName()));
+        }
+        assertEquals(Arrays.asList("# The count", "of things"), Arrays.asList(serializer.getComments("count")));
+        assertEquals(Arrays.asList("A tag"), Arrays.asList(serializer.getComments("tag")));
+    }
+
+    @Test
+    public void testSubclassUsesReflection() {
+        ExampleSubclass example = new ExampleSubclass();
+        example.extra = "more";
+        example.count = 7;
+        Map<?, ?> expected = (Map<?, ?>) SerializableConfig.serialize(example, reflective);
+        Map<?, ?> actual = (Map<?, ?>) generated.getClassSerializer(Example.class).serialize(example, generated);
+        assertEquals(expected, actual);
+        assertEquals("more", actual.get("extra"));
+
+        ExampleSubclass target = new ExampleSubclass();
+        generated.getClassSerializer(Example.class).deserializeToObject((Map) actual, target, generated);
+        assertEquals("more", target.extra);
+        assertEquals(7, target.count);
+    }
+
+    @Test
+    public void testPointWithoutTypeKey() {
+        Point point = new Point(5, 6);
+        Object serialized = SerializableConfig.serialize(point, generated);
+        assertEquals(SerializableConfig.serialize(point, reflective), serialized);
+        assertEquals(point, SerializableConfig.deserializeAs(serialized, Point.class, generated));
+    }
+
+    @Test
+    public void testFieldsMatchReflectiveOrder() {
+        List<String> expected = new ArrayList<>();
+        for (Field field : FieldMapper.getFieldMap(Example.class)) {
+            if (field.isPersistable()) {
+                expected.add(field.getName());
+            }
+        }
+        Map<?, ?> actual = (Map<?, ?>) SerializableConfig.serialize(new Example(), generated);
+        List<Object> keys = new ArrayList<>(actual.keySet());
+        keys.remove(SerializableConfig.SERIALIZED_TYPE_KEY);
+        assertEquals(expected, keys);
+    }
+
+    @Test
+    public void testClashingNamesRejected() throws Exception {
+        String source = "package clash;\n"
+                + "@pluginbase.config.annotation.GenerateSerializer\n"
+                + "public class Clash {\n"
+                + "    public String title;\n"
+                + "    @pluginbase.config.annotation.Name(\"Title\")\n"
+                + "    public String name;\n"
+                + "}\n";
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///clash/Clash.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        Path output = Files.createTempDirectory("pluginbase-apt");
+        try {
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                    Arrays.asList("-proc:only", "-s", output.toString(), "-classpath", System.getProperty("java.class.path")),
+                    null, Collections.singletonList(file));
+            task.setProcessors(Collections.singletonList(new SerializerProcessor()));
+            assertFalse(task.call());
+            boolean reported = false;
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getMessage(null).contains("clashes with the field title")) {
+                    reported = true;
+                }
+            }
+            assertTrue(diagnostics.getDiagnostics().toString(), reported);
+            assertFalse(Files.exists(output.resolve("clash")));
+        } finally {
+            try (Stream<Path> paths = Files.walk(output)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package pluginbase.config.apt;
+
+import pluginbase.config.annotation.GenerateSerializer;
+import pluginbase.config.annotation.NoTypeKey;
+
+@GenerateSerializer
+@NoTypeKey
+public final class Point {
+
+    public int x;
+    public int y;
+
+    private Point() { }
+
+    public Point(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Point)) return false;
+
+        final Point point = (Point) o;
+
+        return x == point.x && y == point.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
+
+    @Override
+    public String toString() {
+        return "Point{" +
+                "x=" + x +
+                ", y=" + y +
+                '}';
+    }
+}
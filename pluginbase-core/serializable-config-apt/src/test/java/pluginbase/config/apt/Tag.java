@@ -0,0 +1,53 @@
+package pluginbase.config.apt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.annotation.Comment;
+import pluginbase.config.annotation.SerializeWith;
+import pluginbase.config.serializers.Serializer;
+import pluginbase.config.serializers.SerializerSet;
+
+@Comment("A tag")
+@SerializeWith(Tag.TagSerializer.class)
+public class Tag {
+
+    public static class TagSerializer implements Serializer<Tag> {
+        @Nullable
+        @Override
+        public Object serialize(@Nullable Tag object, @NotNull SerializerSet serializerSet) throws IllegalArgumentException {
+            return object != null ? "#" + object.value : null;
+        }
+
+        @Nullable
+        @Override
+        public Tag deserialize(@Nullable Object serialized, @NotNull Class wantedType, @NotNull SerializerSet serializerSet) throws IllegalArgumentException {
+            return serialized != null ? new Tag(serialized.toString().substring(1)) : null;
+        }
+    }
+
+    private final String value;
+
+    public Tag(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Tag)) return false;
+
+        return value.equals(((Tag) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Tag{" +
+                "value='" + value + '\'' +
+                '}';
+    }
+}
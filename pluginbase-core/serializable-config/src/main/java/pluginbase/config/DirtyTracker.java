@@ -0,0 +1,162 @@
+package pluginbase.config;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks whether an object has changed since it was last loaded or saved by comparing its serialized form against a
+ * snapshot of the serialized form recorded at that time.
+ * <p/>
+ * This allows a {@link pluginbase.config.datasource.DataSource} to skip writing an object that has not changed and
+ * to determine which parts of it have changed. Serializing an object is far cheaper than writing it, so no changes
+ * are required of the tracked classes.
+ * <p/>
+ * Snapshots are deep copies of the serialized maps and lists, with the mutable numbers serialized by default replaced
+ * by their values, so later changes to the object can not affect them.
+ * <p/>
+ * This class is not thread safe.
+ */
+public final class DirtyTracker {
+
+    private boolean recorded = false;
+    @Nullable
+    private Object snapshot = null;
+
+    /**
+     * Determines whether the given serialized form differs from the last one recorded. If nothing has been recorded
+     * it is always considered changed.
+     *
+     * @param serialized the current serialized form of the object.
+     * @return true if the object has changed.
+     */
+    public boolean isChanged(@Nullable Object serialized) {
+        return !recorded || !isEquivalent(snapshot, serialized);
+    }
+
+    /**
+     * Records the given serialized form as the last loaded or saved state.
+     *
+     * @param serialized the serialized form of the object.
+     * @return the recorded snapshot of the serialized form, which will never be modified.
+     */
+    @Nullable
+    public Object record(@Nullable Object serialized) {
+        snapshot = copy(serialized);
+        recorded = true;
+        return snapshot;
+    }
+
+    /**
+     * Gets the last recorded snapshot.
+     *
+     * @return the last recorded snapshot or null if there is none.
+     */
+    @Nullable
+    public Object getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Forgets the last recorded state so that the object is considered changed.
+     */
+    public void reset() {
+        snapshot = null;
+        recorded = false;
+    }
+
+    /**
+     * Makes a deep copy of a serialized form in which every value is immutable.
+     *
+     * @param serialized the serialized form to copy.
+     * @return the copy.
+     */
+    @Nullable
+    public static Object copy(@Nullable Object serialized) {
+        if (serialized instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) serialized;
+            Map<Object, Object> copy = new LinkedHashMap<>(map.size() * 4 / 3 + 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(copy(entry.getKey()), copy(entry.getValue()));
+            }
+            return copy;
+        } else if (serialized instanceof Collection) {
+            Collection<?> collection = (Collection<?>) serialized;
+            List<Object> copy = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        return copyValue(serialized);
+    }
+
+    /**
+     * Determines whether a snapshot made by {@link #copy(Object)} represents the same data as a serialized form.
+     *
+     * @param snapshot the snapshot.
+     * @param serialized the serialized form.
+     * @return true if the snapshot is the same as the serialized form.
+     */
+    public static boolean isEquivalent(@Nullable Object snapshot, @Nullable Object serialized) {
+        if (snapshot instanceof Map) {
+            if (!(serialized instanceof Map)) {
+                return false;
+            }
+            Map<?, ?> snapshotMap = (Map<?, ?>) snapshot;
+            Map<?, ?> map = (Map<?, ?>) serialized;
+            if (snapshotMap.size() != map.size()) {
+                return false;
+            }
+            Iterator<? extends Map.Entry<?, ?>> snapshotEntries = snapshotMap.entrySet().iterator();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                // Order matters as it affects the output.
+                Map.Entry<?, ?> snapshotEntry = snapshotEntries.next();
+                if (!isEquivalent(snapshotEntry.getKey(), entry.getKey())
+                        || !isEquivalent(snapshotEntry.getValue(), entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (snapshot instanceof List) {
+            if (!(serialized instanceof Collection)) {
+                return false;
+            }
+            List<?> snapshotList = (List<?>) snapshot;
+            Collection<?> collection = (Collection<?>) serialized;
+            if (snapshotList.size() != collection.size()) {
+                return false;
+            }
+            int i = 0;
+            for (Object element : collection) {
+                if (!isEquivalent(snapshotList.get(i++), element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (serialized instanceof Map || serialized instanceof Collection) {
+            return false;
+        }
+        Object value = copyValue(serialized);
+        return snapshot == null ? value == null : snapshot.equals(value);
+    }
+
+    @Nullable
+    private static Object copyValue(@Nullable Object value) {
+        // The atomic numbers are serialized as themselves by default.
+        if (value instanceof AtomicInteger) {
+            return ((AtomicInteger) value).get();
+        } else if (value instanceof AtomicLong) {
+            return ((AtomicLong) value).get();
+        }
+        return value;
+    }
+}
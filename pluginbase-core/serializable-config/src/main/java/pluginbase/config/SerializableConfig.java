@@ -32,7 +32,8 @@ public enum SerializableConfig {
      */
     public static final String SERIALIZED_TYPE_KEY = "=$$=";
 
-    private static Map<String, Class> serializableAliases = new HashMap<>();
+    private static final Object ALIAS_LOCK = new Object();
+    private static volatile Map<String, Class> serializableAliases = new HashMap<>();
 
     /**
      * Serializes the given object using the specified serializer set.
@@ -102,9 +103,30 @@ public enum SerializableConfig {
         }
 
         SerializableAs serializableAs = clazz.getAnnotation(SerializableAs.class);
-        Map<String, Class> newCopy = new HashMap<>(serializableAliases);
-        newCopy.put(serializableAs.value(), clazz);
-        serializableAliases = newCopy;
+        registerAliases(Collections.singletonMap(serializableAs.value(), clazz));
+    }
+
+    /**
+     * Registers serialization aliases for many classes at once. Each key is the alias that will appear as the
+     * {@link #SERIALIZED_TYPE_KEY} in serialized data and each value is the class the alias represents.
+     * <p/>
+     * Unlike {@link #registerSerializableAsClass(Class)}, the classes do not need to be annotated with
+     * {@link SerializableAs}. Registering all aliases in a single call is preferable to registering them one at a
+     * time as the alias registry is only copied once.
+     *
+     * @param aliases the aliases to register mapped to the classes they represent.
+     */
+    public static void registerAliases(@NotNull Map<String, ? extends Class<?>> aliases) {
+        for (Map.Entry<String, ? extends Class<?>> entry : aliases.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new IllegalArgumentException("Aliases and their classes may not be null");
+            }
+        }
+        synchronized (ALIAS_LOCK) {
+            Map<String, Class> newCopy = new HashMap<>(serializableAliases);
+            newCopy.putAll(aliases);
+            serializableAliases = newCopy;
+        }
     }
 
     /**
@@ -154,6 +176,23 @@ public enum SerializableConfig {
      */
     @Nullable
     public static Class getClassFromSerializedData(Map data) {
+        return getClassFromSerializedData(data, SerializableConfig.class.getClassLoader());
+    }
+
+    /**
+     * This method attempts to determine the class type from a given set of data. It looks for the {@link #SERIALIZED_TYPE_KEY}
+     * to determine what class the data represents. As such, the data should be in the form of a Map with string keys.
+     * <p/>
+     * Registered aliases take precedence. Otherwise the type key is treated as a class name and resolved with the
+     * given class loader. Resolved names, including names that could not be resolved, are cached separately for each
+     * class loader.
+     *
+     * @param data the serialized data.
+     * @param classLoader the class loader to resolve class names with.
+     * @return the class type represented by the data or null if it could not be determined.
+     */
+    @Nullable
+    public static Class getClassFromSerializedData(Map data, @Nullable ClassLoader classLoader) {
         Object object = data.get(SERIALIZED_TYPE_KEY);
         if (object == null) {
             return null;
@@ -166,14 +205,40 @@ public enum SerializableConfig {
         Class clazz = getClassByAlias(className);
         if (clazz != null) {
             return clazz;
-        } else {
-            try {
-                return Class.forName(className);
-            } catch (ClassNotFoundException e) {
-                Logging.warning("Found serialized type key '%s' but could not find an associated class.", className);
-                return null;
-            }
         }
+        TypeNameCache cache = TypeNameCache.forClassLoader(classLoader);
+        boolean cached = cache.isCached(className);
+        clazz = cache.resolve(className);
+        if (clazz == null && !cached) {
+            Logging.warning("Found serialized type key '%s' but could not find an associated class.", className);
+        }
+        return clazz;
+    }
+
+    /**
+     * This method attempts to determine the class type from a given set of data that is being deserialized as the given
+     * type. Class names are resolved with the class loader of the wanted type, so that data naming a subclass declared
+     * alongside it, such as in the same plugin, can be read regardless of which class loader loaded this library.
+     *
+     * @param data the serialized data.
+     * @param wantedType the type the data is being deserialized as.
+     * @return the class type represented by the data or null if it could not be determined.
+     * @see #getClassFromSerializedData(Map, ClassLoader)
+     */
+    @Nullable
+    public static Class getClassFromSerializedData(Map data, @NotNull Class<?> wantedType) {
+        ClassLoader classLoader = wantedType.getClassLoader();
+        return getClassFromSerializedData(data, classLoader != null ? classLoader : SerializableConfig.class.getClassLoader());
+    }
+
+    /**
+     * Discards the cached class name resolutions for the given class loader. This should be called when a class
+     * loader is being discarded, such as when a plugin is unloaded.
+     *
+     * @param classLoader the class loader to discard cached resolutions for.
+     */
+    public static void evictTypeNameCache(@Nullable ClassLoader classLoader) {
+        TypeNameCache.evict(classLoader);
     }
 
     @Nullable
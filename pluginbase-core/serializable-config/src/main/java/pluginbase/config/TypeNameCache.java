@@ -0,0 +1,131 @@
+package pluginbase.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache of serialized type names to the classes they resolve to for a single class loader.
+ * <p/>
+ * Names that could not be resolved are cached as well so that data containing unknown types does not repeatedly
+ * go through {@link Class#forName(String, boolean, ClassLoader)}. The class loader and the classes are only weakly
+ * referenced so that neither the cache nor {@link #LOADER_CACHES} ever keeps a class loader alive.
+ */
+final class TypeNameCache {
+
+    /**
+     * The maximum number of names cached per class loader.
+     */
+    static final int MAX_SIZE = 1024;
+
+    private static final WeakReference<Class<?>> NOT_FOUND = new WeakReference<Class<?>>(null);
+
+    private static final ClassLoader DEFAULT_CLASS_LOADER = SerializableConfig.class.getClassLoader();
+    private static final TypeNameCache DEFAULT_CACHE = new TypeNameCache(DEFAULT_CLASS_LOADER);
+    private static final Map<ClassLoader, TypeNameCache> LOADER_CACHES = new WeakHashMap<>();
+
+    /**
+     * Returns the cache for the given class loader, creating it if necessary.
+     *
+     * @param classLoader the class loader names are resolved with.
+     * @return the cache for the class loader.
+     */
+    @NotNull
+    static TypeNameCache forClassLoader(@Nullable ClassLoader classLoader) {
+        if (classLoader == DEFAULT_CLASS_LOADER) {
+            return DEFAULT_CACHE;
+        }
+        synchronized (LOADER_CACHES) {
+            TypeNameCache cache = LOADER_CACHES.get(classLoader);
+            if (cache == null) {
+                cache = new TypeNameCache(classLoader);
+                LOADER_CACHES.put(classLoader, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Discards the cached names for the given class loader, including the classes it resolved to.
+     *
+     * @param classLoader the class loader to discard the cache of.
+     */
+    static void evict(@Nullable ClassLoader classLoader) {
+        if (classLoader == DEFAULT_CLASS_LOADER) {
+            DEFAULT_CACHE.cache.clear();
+            return;
+        }
+        synchronized (LOADER_CACHES) {
+            LOADER_CACHES.remove(classLoader);
+        }
+    }
+
+    /**
+     * The class loader names are resolved with or null for the bootstrap class loader.
+     */
+    @Nullable
+    private final WeakReference<ClassLoader> classLoader;
+    private final Map<String, WeakReference<Class<?>>> cache = new ConcurrentHashMap<>();
+
+    private TypeNameCache(@Nullable ClassLoader classLoader) {
+        this.classLoader = classLoader != null ? new WeakReference<>(classLoader) : null;
+    }
+
+    /**
+     * Resolves the given class name with this cache's class loader.
+     *
+     * @param className the binary name of the class.
+     * @return the class or null if no such class could be found.
+     */
+    @Nullable
+    Class<?> resolve(@NotNull String className) {
+        WeakReference<Class<?>> reference = cache.get(className);
+        if (reference != null) {
+            if (reference == NOT_FOUND) {
+                return null;
+            }
+            Class<?> clazz = reference.get();
+            if (clazz != null) {
+                return clazz;
+            }
+        }
+        ClassLoader loader = null;
+        if (classLoader != null) {
+            loader = classLoader.get();
+            if (loader == null) {
+                return null;
+            }
+        }
+        Class<?> clazz;
+        try {
+            clazz = Class.forName(className, true, loader);
+        } catch (ClassNotFoundException e) {
+            clazz = null;
+        }
+        if (cache.size() >= MAX_SIZE) {
+            Iterator<String> it = cache.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        cache.put(className, clazz != null ? new WeakReference<Class<?>>(clazz) : NOT_FOUND);
+        return clazz;
+    }
+
+    /**
+     * Whether the given name is cached, either as a class or as unresolvable.
+     */
+    boolean isCached(@NotNull String className) {
+        return cache.containsKey(className);
+    }
+
+    int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,24 @@
+package pluginbase.config.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which a {@link pluginbase.config.serializers.GeneratedSerializer} should be created at compile
+ * time by the Serializable-Config annotation processor.
+ * <p/>
+ * The generated serializer behaves the same as the default reflective serialization but avoids mapping the fields of
+ * the class through reflection at runtime. It is registered through {@link java.util.ServiceLoader} and will be
+ * preferred over the fallback serializer of a {@link pluginbase.config.serializers.SerializerSet}.
+ * <p/>
+ * This has no effect unless the Serializable-Config-APT artifact is present on the compiler's annotation processor
+ * path. The annotated class must be a top level or static nested class that is not private.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GenerateSerializer {
+}
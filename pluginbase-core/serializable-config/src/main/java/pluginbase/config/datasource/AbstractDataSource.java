@@ -5,31 +5,23 @@ import ninja.leaping.configurate.ConfigurationOptions;
 import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
 import ninja.leaping.configurate.loader.AbstractConfigurationLoader;
-import ninja.leaping.configurate.loader.AtomicFiles;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import pluginbase.config.DirtyTracker;
 import pluginbase.config.SerializableConfig;
 import pluginbase.config.annotation.Comment;
 import pluginbase.config.field.Field;
 import pluginbase.config.field.FieldMap;
 import pluginbase.config.field.FieldMapper;
-import pluginbase.config.serializers.Serializer;
 import pluginbase.config.serializers.SerializerSet;
 import pluginbase.messages.Message;
 import pluginbase.messages.Messages;
 import pluginbase.messages.messaging.SendablePluginBaseException;
 
 import java.io.*;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.function.Predicate;
-import java.util.function.Supplier;
-
-import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * A nearly complete implementation of DataSource that implements the main features of Serializable-Config and acts as
@@ -44,218 +36,48 @@ public abstract class AbstractDataSource implements DataSource {
     @NotNull
     private final SerializerSet serializerSet;
     private final boolean commentsEnabled;
+    @Nullable
+    private final DirtyTracker dirtyTracker;
+
+    private final Object saveLock = new Object();
+    /** The node last saved while tracking changes. */
+    @Nullable
+    private CommentedConfigurationNode savedNode = null;
+    /** The snapshot of the data {@link #savedNode} represents. */
+    @Nullable
+    private Object savedNodeData = null;
+    @Nullable
+    private Class savedNodeType = null;
 
     /**
      * This builder class is used to properly configure and create a DataSource object.
      * <p/>
-     * You may specify both a source and a sink for the storage medium or simply specify a File which counts as both.
-     * <br/>
-     * Once all the options are set for the storage medium, simply call {@link #build()} to create a DataSource tied
-     * to the configured storage medium.
+     * The options shared by all data sources are described by {@link DataSourceBuilder}.
      */
-    public static abstract class Builder<T extends Builder> {
-
-        protected Callable<BufferedReader> source;
-        protected Callable<BufferedWriter> sink;
-        private SerializerSet.Builder serializerSet;
-        private SerializerSet alternateSet;
-        protected boolean commentsEnabled = false;
+    public static abstract class Builder<T extends Builder> extends DataSourceBuilder<T> {
 
         protected Builder() { }
 
-        @NotNull
-        @SuppressWarnings("unchecked")
-        private T self() {
-            return (T) this;
-        }
-
-        /**
-         * A File can be set to be used as a data source and sink.
-         *
-         * @param file the file to be used as the data source and sink.
-         * @return this builder.
-         */
-        @NotNull
-        public T setFile(@NotNull File file) {
-            return setPath(file.toPath());
-        }
-
-        /**
-         * A Path can be set to be used as a data source and sink.
-         *
-         * @param path the path to be used as the data source and sink.
-         * @return this builder.
-         */
-        @NotNull
-        public T setPath(@NotNull Path path) {
-            this.source = () -> Files.newBufferedReader(path, UTF_8);
-            this.sink = AtomicFiles.createAtomicWriterFactory(path, UTF_8);
-            return self();
-        }
-
-        /**
-         * A URL can be set to be used as a data source.
-         *
-         * @param url A url to be used as the data source.
-         * @return this builder.
-         */
-        @NotNull
-        public T setURL(@NotNull URL url) {
-            this.source = () -> new BufferedReader(new InputStreamReader(url.openConnection().getInputStream()));
-            return self();
-        }
-
-        @NotNull
-        public T setSource(@NotNull Callable<BufferedReader> source) {
-            this.source = source;
-            return self();
-        }
-
-        @NotNull
-        public T setSink(@NotNull Callable<BufferedWriter> sink) {
-            this.sink = sink;
-            return self();
-        }
-
-        /**
-         * Refer to the docs for {@link SerializerSet.Builder#addSerializer(Class, Supplier)}.
-         * <br/>
-         * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
-         * to be replaced!
-         */
-        @NotNull
-        public <S> T addSerializer(@NotNull Class<S> clazz, @NotNull Supplier<Serializer<S>> serializer) {
-            alternateSet = null;
-            getSSBuilder().addSerializer(clazz, serializer);
-            return self();
-        }
-
-        /**
-         * Refer to the docs for {@link SerializerSet.Builder#setFallbackSerializer(Supplier)}.
-         * <br/>
-         * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
-         * to be replaced!
-         */
-        public T setFallbackSerializer(@NotNull Supplier<Serializer<Object>> fallbackSerializer) {
-            alternateSet = null;
-            getSSBuilder().setFallbackSerializer(fallbackSerializer);
-            return self();
-        }
-
-        /**
-         * Refer to the docs for {@link SerializerSet.Builder#addOverrideSerializer(Class, Supplier)}.
-         * <br/>
-         * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
-         * to be replaced!
-         */
-        @NotNull
-        public <S> T addOverrideSerializer(@NotNull Class<S> clazz, @NotNull Supplier<Serializer<S>> serializer) {
-            alternateSet = null;
-            getSSBuilder().addOverrideSerializer(clazz, serializer);
-            return self();
-        }
-
-        /**
-         * Refer to the docs for {@link SerializerSet.Builder#registerSerializeWithInstance(Class, Supplier)}.
-         * <br/>
-         * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
-         * to be replaced!
-         */
-        public <S extends Serializer> T registerSerializeWithInstance(@NotNull Class<S> serializerClass, @NotNull Supplier<S> serializer) {
-            getSSBuilder().registerSerializeWithInstance(serializerClass, serializer);
-            return self();
-        }
-
-        /**
-         * Refer to the docs for {@link SerializerSet.Builder#registerClassReplacement(Predicate, Class)}.
-         * <br/>
-         * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
-         * to be replaced!
-         */
-        public T registerClassReplacement(@NotNull Predicate<Class<?>> checker, @NotNull Class replacementClass) {
-            getSSBuilder().registerClassReplacement(checker, replacementClass);
-            return self();
-        }
-
-        /**
-         * Refer to the docs for {@link SerializerSet.Builder#unregisterClassReplacement(Class)}.
-         * <br/>
-         * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
-         * to be replaced!
-         */
-        public T unregisterClassReplacement(@NotNull Class replacementClass) {
-            getSSBuilder().unregisterClassReplacement(replacementClass);
-            return self();
-        }
-
-        private SerializerSet.Builder getSSBuilder() {
-            if (serializerSet == null) {
-                serializerSet = SerializerSet.builder(getDataSourceDefaultSerializerSet());
-            }
-            return serializerSet;
-        }
-
-        /**
-         * Normally a DataSource will be built with a copy of the {@link SerializerSet#defaultSet()}. This method
-         * allows for specifying an alternate already built set.
-         * <br/>
-         * <strong>Note:</strong> some DataSource implementations may introduce custom serializers by default to handle
-         * any special cases in their format. In this case, the implementation should provide a way to obtain a set
-         * containing the special serializers so that a copy can be made if required. Additionally, the implementation
-         * will typically add any special serializers to the set being built by this builder.
-         *
-         * @param serializerSet a replacement SerializerSet for the DataSource being built.
-         * @return this builder object.
-         */
-        @NotNull
-        public T setAlternateSerializerSet(@NotNull SerializerSet serializerSet) {
-            this.alternateSet = serializerSet;
-            return self();
-        }
-
-        @NotNull
-        protected final SerializerSet getBuiltSerializerSet() {
-            return alternateSet != null ? alternateSet : serializerSet != null ? serializerSet.build() : getDataSourceDefaultSerializerSet();
-        }
-
-        /**
-         * Returns the default SerializerSet to use for this DataSource type.
-         *
-         * @return the default SerializerSet to use for this DataSource type.
-         */
-        protected SerializerSet getDataSourceDefaultSerializerSet() {
-            return SerializerSet.defaultSet();
-        }
-
-        /**
-         * Sets whether or not the DataSource should write comments when saving data to a file.
-         * <p/>
-         * Comments can be added to a data object via {@link Comment}.
-         * <p/>
-         * <strong>Note:</strong> Comments are not available on all DataSource implementations. Enabling comments on an
-         * implementation that does not support them will do nothing.
-         *
-         * @param commentsEnabled whether or not the DataSource should write comments when saving data to a file.
-         * @return
-         */
-        public T setCommentsEnabled(boolean commentsEnabled) {
-            this.commentsEnabled = commentsEnabled;
-            return self();
-        }
-
         /**
          * Creates the data source using the options of this builder.
          *
          * @return a new DataSource object usings the options specified in this builder.
          */
         @NotNull
+        @Override
         public abstract AbstractDataSource build();
     }
 
     protected AbstractDataSource(@NotNull AbstractConfigurationLoader loader, @NotNull SerializerSet serializerSet, boolean commentsEnabled) {
+        this(loader, serializerSet, commentsEnabled, false);
+    }
+
+    protected AbstractDataSource(@NotNull AbstractConfigurationLoader loader, @NotNull SerializerSet serializerSet,
+                                 boolean commentsEnabled, boolean dirtyTracking) {
         this.loader = loader;
         this.serializerSet = serializerSet;
         this.commentsEnabled = commentsEnabled;
+        this.dirtyTracker = dirtyTracking ? new DirtyTracker() : null;
     }
 
     /** {@inheritDoc} */
@@ -268,7 +90,7 @@ public abstract class AbstractDataSource implements DataSource {
             if (value == null) {
                 return null;
             }
-            return SerializableConfig.deserialize(value, serializerSet);
+            return loaded(SerializableConfig.deserialize(value, serializerSet));
         } catch (IOException e) {
             throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
         }
@@ -284,7 +106,7 @@ public abstract class AbstractDataSource implements DataSource {
             if (value == null) {
                 return null;
             }
-            return SerializableConfig.deserializeAs(value, wantedType, serializerSet);
+            return loaded(SerializableConfig.deserializeAs(value, wantedType, serializerSet));
         } catch (IOException e) {
             throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
         }
@@ -301,11 +123,11 @@ public abstract class AbstractDataSource implements DataSource {
             }
             ObjectType source = SerializableConfig.deserializeAs(value, (Class<ObjectType>) destination.getClass(), serializerSet);
             if (destination.equals(source)) {
-                return destination;
+                return loaded(destination);
             }
             if (source != null) {
                 destination = FieldMapper.mapFields(source, destination);
-                return destination;
+                return loaded(destination);
             } else {
                 return null;
             }
@@ -317,21 +139,156 @@ public abstract class AbstractDataSource implements DataSource {
     /** {@inheritDoc} */
     @Override
     public void save(@NotNull Object object) throws SendablePluginBaseException {
-        try {
-            String header = getComments(object.getClass(), true);
+        snapshot(object).save();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The object is serialized into a configuration node, with its comments, by this method. Saving the snapshot only
+     * writes the node.
+     * <p/>
+     * When tracking changes, the object is only serialized by this method and the snapshot does nothing if it has not
+     * changed. Otherwise, saving the snapshot updates the changed parts of the last saved node and writes it.
+     */
+    @NotNull
+    @Override
+    public Snapshot snapshot(@NotNull Object object) throws SendablePluginBaseException {
+        if (dirtyTracker != null) {
+            return trackedSnapshot(object);
+        }
+        String header = getComments(object.getClass(), true);
+
+        CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults().setHeader(header));
+        Object serialized = SerializableConfig.serialize(object, serializerSet);
+        node = node.setValue(serialized);
+
+        if (commentsEnabled) {
+            node = addComments(FieldMapper.getFieldMap(object.getClass()), node);
+        }
+
+        final CommentedConfigurationNode snapshot = node;
+        return () -> {
+            try {
+                getLoader().save(snapshot);
+            } catch (IOException e) {
+                throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+            }
+        };
+    }
+
+    @NotNull
+    private Snapshot trackedSnapshot(@NotNull Object object) {
+        Object serialized = SerializableConfig.serialize(object, serializerSet);
+        Object data;
+        synchronized (dirtyTracker) {
+            if (!dirtyTracker.isChanged(serialized)) {
+                return () -> { };
+            }
+            data = dirtyTracker.record(serialized);
+        }
+        Class type = object.getClass();
+        return () -> saveTracked(type, data);
+    }
 
-            CommentedConfigurationNode node = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults().setHeader(header));
+    private void saveTracked(@NotNull Class type, @Nullable Object data) throws SendablePluginBaseException {
+        synchronized (saveLock) {
+            try {
+                CommentedConfigurationNode node = savedNode;
+                if (node == null || !type.equals(savedNodeType)) {
+                    node = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults().setHeader(getComments(type, true)));
+                    node = node.setValue(data);
+                } else {
+                    patchNode(node, savedNodeData, data);
+                }
+                if (commentsEnabled) {
+                    node = addComments(FieldMapper.getFieldMap(type), node);
+                }
+                getLoader().save(node);
+                savedNode = node;
+                savedNodeData = data;
+                savedNodeType = type;
+            } catch (IOException | RuntimeException e) {
+                // The node may have been partly patched and the data may not have been written.
+                savedNode = null;
+                savedNodeData = null;
+                synchronized (dirtyTracker) {
+                    dirtyTracker.reset();
+                }
+                throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+            }
+        }
+    }
+
+    /**
+     * Records the serialized form of loaded data when tracking changes.
+     */
+    @Nullable
+    private <T> T loaded(@Nullable T object) {
+        if (dirtyTracker != null && object != null) {
             Object serialized = SerializableConfig.serialize(object, serializerSet);
-            node = node.setValue(serialized);
+            synchronized (dirtyTracker) {
+                dirtyTracker.record(serialized);
+            }
+        }
+        return object;
+    }
 
-            if (commentsEnabled) {
-                node = addComments(FieldMapper.getFieldMap(object.getClass()), node);
+    /**
+     * Updates the given node, which represents the previous data, so that it represents the current data. Only the
+     * parts of the node whose data has changed are replaced.
+     *
+     * @param node the node to update.
+     * @param previous the snapshot of the data the node represents.
+     * @param current the snapshot of the data the node should represent.
+     */
+    protected void patchNode(@NotNull ConfigurationNode node, @Nullable Object previous, @Nullable Object current) {
+        if (DirtyTracker.isEquivalent(previous, current)) {
+            return;
+        }
+        if (previous instanceof Map && current instanceof Map && node.hasMapChildren()
+                && canPatchMap((Map<?, ?>) previous, (Map<?, ?>) current)) {
+            Map<?, ?> previousMap = (Map<?, ?>) previous;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) current).entrySet()) {
+                if (entry.getValue() == null) {
+                    node.removeChild(entry.getKey());
+                } else {
+                    patchNode(node.getNode(entry.getKey()), previousMap.get(entry.getKey()), entry.getValue());
+                }
             }
+            return;
+        }
+        if (previous instanceof List && current instanceof List && node.hasListChildren()) {
+            List<?> previousList = (List<?>) previous;
+            List<?> currentList = (List<?>) current;
+            List<? extends ConfigurationNode> children = node.getChildrenList();
+            if (previousList.size() == currentList.size() && children.size() == currentList.size()
+                    && !currentList.contains(null)) {
+                for (int i = 0; i < currentList.size(); i++) {
+                    patchNode(children.get(i), previousList.get(i), currentList.get(i));
+                }
+                return;
+            }
+        }
+        node.setValue(current);
+    }
 
-            getLoader().save(node);
-        } catch (IOException e) {
-            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+    /**
+     * Whether every non-null entry of the current map was also present in the previous map. If not, the node for the
+     * map must be replaced to keep the keys in their original order.
+     */
+    private static boolean canPatchMap(@NotNull Map<?, ?> previous, @NotNull Map<?, ?> current) {
+        for (Map.Entry<?, ?> entry : current.entrySet()) {
+            if (entry.getValue() != null && previous.get(entry.getKey()) == null) {
+                return false;
+            }
+        }
+        for (Object key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                return false;
+            }
         }
+        return true;
     }
 
     @NotNull
@@ -0,0 +1,331 @@
+package pluginbase.config.datasource;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.logging.Logging;
+import pluginbase.messages.Messages;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps another DataSource so that saving does not block the calling thread.
+ * <p/>
+ * When an object is saved, its state is captured on the calling thread with {@link DataSource#snapshot(Object)} so the
+ * object may be modified as soon as save returns. The snapshot is then written by the wrapped data source on a
+ * background executor. Any saves made within the coalescing window of the first are combined so that only the latest
+ * snapshot is written. Snapshots are always written one at a time, in the order they were saved.
+ * <p/>
+ * Writes are performed by the wrapped data source exactly as they would be for a synchronous save, so a data source
+ * built with {@link DataSourceBuilder#setPath(java.nio.file.Path)} still replaces its file atomically.
+ * <p/>
+ * Loading waits for any pending writes to complete first. {@link #close()} must be called when the data source is no
+ * longer needed, such as when a plugin is disabled, to ensure all saved data has been written.
+ * <p/>
+ * A single AsyncDataSource should be shared for each file rather than wrapping several data sources for the same file.
+ */
+public class AsyncDataSource implements DataSource, AutoCloseable {
+
+    /**
+     * Creates a builder for an AsyncDataSource wrapping the given data source.
+     *
+     * @param dataSource the data source to load with and write snapshots with.
+     * @return a new builder.
+     */
+    @NotNull
+    public static Builder builder(@NotNull DataSource dataSource) {
+        return new Builder(dataSource);
+    }
+
+    public static class Builder {
+
+        @NotNull
+        private final DataSource dataSource;
+        @Nullable
+        private ScheduledExecutorService executor = null;
+        private long coalesceWindowNanos = TimeUnit.SECONDS.toNanos(1);
+
+        protected Builder(@NotNull DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Sets the executor that snapshots are written on. The executor will not be shut down when the data source is
+         * closed.
+         * <p/>
+         * By default each AsyncDataSource writes on its own daemon thread which is stopped when it is closed.
+         *
+         * @param executor the executor to write snapshots on.
+         * @return this builder.
+         */
+        @NotNull
+        public Builder setExecutor(@NotNull ScheduledExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait after a save before writing it, during which further saves replace it. Defaults to
+         * 1 second.
+         *
+         * @param window the length of the window, 0 to write as soon as possible.
+         * @param unit the unit of the window.
+         * @return this builder.
+         */
+        @NotNull
+        public Builder setCoalesceWindow(long window, @NotNull TimeUnit unit) {
+            if (window < 0) {
+                throw new IllegalArgumentException("The coalesce window may not be negative");
+            }
+            this.coalesceWindowNanos = unit.toNanos(window);
+            return this;
+        }
+
+        @NotNull
+        public AsyncDataSource build() {
+            if (executor != null) {
+                return new AsyncDataSource(dataSource, executor, false, coalesceWindowNanos);
+            }
+            ScheduledExecutorService ownExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "PluginBase async DataSource writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            return new AsyncDataSource(dataSource, ownExecutor, true, coalesceWindowNanos);
+        }
+    }
+
+    @NotNull
+    private final DataSource dataSource;
+    @NotNull
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final long coalesceWindowNanos;
+
+    private final Object lock = new Object();
+    /** The latest snapshot which has not started being written. */
+    @Nullable
+    private Snapshot pending = null;
+    /** Whether a write of the pending snapshot is scheduled on the executor. */
+    private boolean scheduled = false;
+    /** Whether a snapshot is being written. */
+    private boolean writing = false;
+    private boolean closed = false;
+    /** The latest failure since the last flush. */
+    @Nullable
+    private SendablePluginBaseException failure = null;
+
+    private AsyncDataSource(@NotNull DataSource dataSource, @NotNull ScheduledExecutorService executor,
+                            boolean ownsExecutor, long coalesceWindowNanos) {
+        this.dataSource = dataSource;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.coalesceWindowNanos = coalesceWindowNanos;
+    }
+
+    /**
+     * Gets the data source this wraps.
+     *
+     * @return the wrapped data source.
+     */
+    @NotNull
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Waits for any pending writes to complete before loading.
+     */
+    @Nullable
+    @Override
+    public <ObjectType> ObjectType load(Class<ObjectType> wantedType) throws SendablePluginBaseException {
+        awaitWrites();
+        return dataSource.load(wantedType);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Waits for any pending writes to complete before loading.
+     */
+    @Nullable
+    @Override
+    public Object load() throws SendablePluginBaseException {
+        awaitWrites();
+        return dataSource.load();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Waits for any pending writes to complete before loading.
+     */
+    @Nullable
+    @Override
+    public <ObjectType> ObjectType loadToObject(@NotNull ObjectType destination) throws SendablePluginBaseException {
+        awaitWrites();
+        return dataSource.loadToObject(destination);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The object's state is captured before this method returns but it is written in the background. Failures to
+     * write are logged and reported by the next call to {@link #flush()}.
+     *
+     * @throws SendablePluginBaseException if the object could not be serialized.
+     * @throws IllegalStateException if this data source has been closed.
+     */
+    @Override
+    public void save(@NotNull Object object) throws SendablePluginBaseException {
+        enqueue(dataSource.snapshot(object));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Saving the returned snapshot writes it in the background as if it had been passed to {@link #save(Object)}.
+     */
+    @NotNull
+    @Override
+    public Snapshot snapshot(@NotNull Object object) throws SendablePluginBaseException {
+        Snapshot snapshot = dataSource.snapshot(object);
+        return () -> enqueue(snapshot);
+    }
+
+    /**
+     * Writes any pending snapshot immediately and waits for all writes to complete.
+     *
+     * @throws SendablePluginBaseException if any write has failed since the last flush, or if interrupted while
+     *                                     waiting.
+     */
+    public void flush() throws SendablePluginBaseException {
+        awaitWrites();
+        SendablePluginBaseException failure;
+        synchronized (lock) {
+            failure = this.failure;
+            this.failure = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Flushes any pending snapshot and prevents further saves. The background thread is stopped if this data source
+     * created its own.
+     *
+     * @throws SendablePluginBaseException if any write has failed since the last flush.
+     */
+    @Override
+    public void close() throws SendablePluginBaseException {
+        synchronized (lock) {
+            closed = true;
+        }
+        try {
+            flush();
+        } finally {
+            if (ownsExecutor) {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private void enqueue(@NotNull Snapshot snapshot) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("This data source has been closed");
+            }
+            pending = snapshot;
+            if (!scheduled) {
+                schedule(coalesceWindowNanos);
+            }
+        }
+    }
+
+    /**
+     * Schedules the pending snapshot to be written. Must be called while holding the lock.
+     */
+    private void schedule(long delayNanos) {
+        try {
+            executor.schedule(this::writePending, delayNanos, TimeUnit.NANOSECONDS);
+            scheduled = true;
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("The executor for this data source has been shut down", e);
+        }
+    }
+
+    private void writePending() {
+        Snapshot snapshot;
+        synchronized (lock) {
+            scheduled = false;
+            if (writing || pending == null) {
+                // Whoever is writing will schedule the pending snapshot when they are done.
+                return;
+            }
+            snapshot = pending;
+            pending = null;
+            writing = true;
+        }
+        write(snapshot);
+    }
+
+    /**
+     * Writes a snapshot taken from {@link #pending}. Must only be called after setting {@link #writing}.
+     */
+    private void write(@NotNull Snapshot snapshot) {
+        SendablePluginBaseException error = null;
+        try {
+            snapshot.save();
+        } catch (SendablePluginBaseException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            error = new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        } finally {
+            synchronized (lock) {
+                writing = false;
+                if (error != null) {
+                    failure = error;
+                }
+                if (pending != null && !scheduled && !executor.isShutdown()) {
+                    schedule(coalesceWindowNanos);
+                }
+                lock.notifyAll();
+            }
+        }
+        if (error != null) {
+            Logging.warning("Failed to save data in the background: %s", error.getMessage());
+        }
+    }
+
+    /**
+     * Writes any pending snapshot on the calling thread and waits for any write in progress to complete.
+     */
+    private void awaitWrites() throws SendablePluginBaseException {
+        while (true) {
+            Snapshot snapshot;
+            synchronized (lock) {
+                while (writing) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                snapshot = pending;
+                pending = null;
+                writing = true;
+            }
+            write(snapshot);
+        }
+    }
+}
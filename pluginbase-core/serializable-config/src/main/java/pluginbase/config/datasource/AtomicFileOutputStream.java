@@ -0,0 +1,109 @@
+package pluginbase.config.datasource;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+
+/**
+ * An output stream for a file that writes to a temporary file beside it and moves the temporary file over the file
+ * when closed.
+ * <p/>
+ * If the stream is {@link #discard() discarded} before it is closed, closing it deletes the temporary file instead
+ * and the file is left as it was. Data sources discard the stream when writing fails part way through so that a
+ * failed save never replaces a file with an incomplete one.
+ */
+public class AtomicFileOutputStream extends OutputStream {
+
+    /**
+     * Creates a factory for streams that replace the file at the given path.
+     *
+     * @param path the file to replace.
+     * @return a factory that opens a new stream for the file each time it is called.
+     */
+    @NotNull
+    public static Callable<OutputStream> factory(@NotNull Path path) {
+        return () -> new AtomicFileOutputStream(path);
+    }
+
+    @NotNull
+    private final Path path;
+    @NotNull
+    private final Path temp;
+    @NotNull
+    private final OutputStream out;
+    private boolean discarded = false;
+    private boolean closed = false;
+
+    /**
+     * Creates a stream that replaces the file at the given path when closed.
+     *
+     * @param path the file to replace.
+     * @throws IOException if the temporary file could not be created.
+     */
+    public AtomicFileOutputStream(@NotNull Path path) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.temp = Files.createTempFile(this.path.getParent(), this.path.getFileName().toString(), ".tmp");
+        this.out = Files.newOutputStream(temp);
+    }
+
+    /**
+     * Marks the stream so that closing it deletes what was written rather than replacing the file.
+     */
+    public void discard() {
+        discarded = true;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+    }
+
+    @Override
+    public void write(@NotNull byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Closes the temporary file and either moves it over the file or, if the stream was discarded or could not be
+     * closed, deletes it.
+     *
+     * @throws IOException if the temporary file could not be closed or moved.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+            if (!discarded) {
+                move();
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.deleteIfExists(temp);
+    }
+
+    private void move() throws IOException {
+        try {
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pluginbase.config.datasource;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+/**
+ * A writer for a file that only replaces the file once it is closed, through an {@link AtomicFileOutputStream}.
+ * <p/>
+ * If the writer is {@link #discard() discarded} before it is closed, the file is left as it was.
+ */
+public class AtomicFileWriter extends BufferedWriter {
+
+    /**
+     * Creates a factory for writers that replace the file at the given path.
+     *
+     * @param path the file to replace.
+     * @param charset the charset to encode the text with.
+     * @return a factory that opens a new writer for the file each time it is called.
+     */
+    @NotNull
+    public static Callable<BufferedWriter> factory(@NotNull Path path, @NotNull Charset charset) {
+        return () -> new AtomicFileWriter(path, charset);
+    }
+
+    @NotNull
+    private final AtomicFileOutputStream out;
+
+    /**
+     * Creates a writer that replaces the file at the given path when closed.
+     *
+     * @param path the file to replace.
+     * @param charset the charset to encode the text with.
+     * @throws IOException if the temporary file could not be created.
+     */
+    public AtomicFileWriter(@NotNull Path path, @NotNull Charset charset) throws IOException {
+        this(new AtomicFileOutputStream(path), charset);
+    }
+
+    private AtomicFileWriter(@NotNull AtomicFileOutputStream out, @NotNull Charset charset) {
+        super(new OutputStreamWriter(out, charset));
+        this.out = out;
+    }
+
+    /**
+     * Marks the writer so that closing it deletes what was written rather than replacing the file.
+     */
+    public void discard() {
+        out.discard();
+    }
+}
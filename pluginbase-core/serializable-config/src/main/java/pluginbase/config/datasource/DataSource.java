@@ -2,6 +2,8 @@ package pluginbase.config.datasource;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import pluginbase.config.SerializableConfig;
+import pluginbase.messages.Messages;
 import pluginbase.messages.messaging.SendablePluginBaseException;
 
 /**
@@ -49,4 +51,55 @@ public interface DataSource {
      * @throws SendablePluginBaseException if any sort of error occurs with writing or generating the configuration.
      */
     void save(Object object) throws SendablePluginBaseException;
+
+    /**
+     * Captures the current state of the given object so that it can be written to this storage medium later, possibly
+     * from another thread.
+     * <p/>
+     * The object is serialized by this method so that it may be freely modified once this method returns. The
+     * default implementation serializes it with the default {@link pluginbase.config.serializers.SerializerSet} and,
+     * when the snapshot is saved, saves a copy of the object deserialized from that state. Implementations that can
+     * write their serialized form directly, or that use other serializers, should override this method.
+     *
+     * @param object The object to capture the state of.
+     * @return a snapshot which writes the captured state to this storage medium when saved.
+     * @throws SendablePluginBaseException if any sort of error occurs with serializing the object.
+     */
+    @NotNull
+    default Snapshot snapshot(@NotNull Object object) throws SendablePluginBaseException {
+        Class<?> type = object.getClass();
+        Object serialized;
+        try {
+            serialized = SerializableConfig.serialize(object);
+        } catch (RuntimeException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+        return () -> {
+            Object copy;
+            try {
+                copy = serialized != null ? SerializableConfig.deserializeAs(serialized, type) : null;
+            } catch (RuntimeException e) {
+                throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+            }
+            if (copy != null) {
+                save(copy);
+            }
+        };
+    }
+
+    /**
+     * The captured state of an object which can be written to the storage medium it was captured for.
+     *
+     * @see #snapshot(Object)
+     */
+    @FunctionalInterface
+    interface Snapshot {
+
+        /**
+         * Writes the captured state to the storage medium.
+         *
+         * @throws SendablePluginBaseException if any sort of error occurs with writing or generating the configuration.
+         */
+        void save() throws SendablePluginBaseException;
+    }
 }
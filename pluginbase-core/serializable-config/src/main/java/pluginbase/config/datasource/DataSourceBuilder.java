@@ -0,0 +1,252 @@
+package pluginbase.config.datasource;
+
+import org.jetbrains.annotations.NotNull;
+import pluginbase.config.DirtyTracker;
+import pluginbase.config.annotation.Comment;
+import pluginbase.config.serializers.Serializer;
+import pluginbase.config.serializers.SerializerSet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * This builder class is used to properly configure and create a DataSource object.
+ * <p/>
+ * You may specify both a source and a sink for the storage medium or simply specify a File which counts as both.
+ * <br/>
+ * Once all the options are set for the storage medium, simply call {@link #build()} to create a DataSource tied
+ * to the configured storage medium.
+ * <p/>
+ * Builders for data sources based on {@link AbstractDataSource} extend {@link AbstractDataSource.Builder}.
+ */
+public abstract class DataSourceBuilder<T extends DataSourceBuilder> {
+
+    protected Callable<BufferedReader> source;
+    protected Callable<BufferedWriter> sink;
+    private SerializerSet.Builder serializerSet;
+    private SerializerSet alternateSet;
+    protected boolean commentsEnabled = false;
+    protected boolean dirtyTracking = false;
+
+    protected DataSourceBuilder() { }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private T self() {
+        return (T) this;
+    }
+
+    /**
+     * A File can be set to be used as a data source and sink.
+     *
+     * @param file the file to be used as the data source and sink.
+     * @return this builder.
+     */
+    @NotNull
+    public T setFile(@NotNull File file) {
+        return setPath(file.toPath());
+    }
+
+    /**
+     * A Path can be set to be used as a data source and sink.
+     *
+     * @param path the path to be used as the data source and sink.
+     * @return this builder.
+     */
+    @NotNull
+    public T setPath(@NotNull Path path) {
+        this.source = () -> Files.newBufferedReader(path, UTF_8);
+        this.sink = AtomicFileWriter.factory(path, UTF_8);
+        return self();
+    }
+
+    /**
+     * A URL can be set to be used as a data source.
+     *
+     * @param url A url to be used as the data source.
+     * @return this builder.
+     */
+    @NotNull
+    public T setURL(@NotNull URL url) {
+        this.source = () -> new BufferedReader(new InputStreamReader(url.openConnection().getInputStream()));
+        return self();
+    }
+
+    @NotNull
+    public T setSource(@NotNull Callable<BufferedReader> source) {
+        this.source = source;
+        return self();
+    }
+
+    @NotNull
+    public T setSink(@NotNull Callable<BufferedWriter> sink) {
+        this.sink = sink;
+        return self();
+    }
+
+    /**
+     * Refer to the docs for {@link SerializerSet.Builder#addSerializer(Class, Supplier)}.
+     * <br/>
+     * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
+     * to be replaced!
+     */
+    @NotNull
+    public <S> T addSerializer(@NotNull Class<S> clazz, @NotNull Supplier<Serializer<S>> serializer) {
+        alternateSet = null;
+        getSSBuilder().addSerializer(clazz, serializer);
+        return self();
+    }
+
+    /**
+     * Refer to the docs for {@link SerializerSet.Builder#setFallbackSerializer(Supplier)}.
+     * <br/>
+     * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
+     * to be replaced!
+     */
+    public T setFallbackSerializer(@NotNull Supplier<Serializer<Object>> fallbackSerializer) {
+        alternateSet = null;
+        getSSBuilder().setFallbackSerializer(fallbackSerializer);
+        return self();
+    }
+
+    /**
+     * Refer to the docs for {@link SerializerSet.Builder#addOverrideSerializer(Class, Supplier)}.
+     * <br/>
+     * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
+     * to be replaced!
+     */
+    @NotNull
+    public <S> T addOverrideSerializer(@NotNull Class<S> clazz, @NotNull Supplier<Serializer<S>> serializer) {
+        alternateSet = null;
+        getSSBuilder().addOverrideSerializer(clazz, serializer);
+        return self();
+    }
+
+    /**
+     * Refer to the docs for {@link SerializerSet.Builder#registerSerializeWithInstance(Class, Supplier)}.
+     * <br/>
+     * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
+     * to be replaced!
+     */
+    public <S extends Serializer> T registerSerializeWithInstance(@NotNull Class<S> serializerClass, @NotNull Supplier<S> serializer) {
+        getSSBuilder().registerSerializeWithInstance(serializerClass, serializer);
+        return self();
+    }
+
+    /**
+     * Refer to the docs for {@link SerializerSet.Builder#registerClassReplacement(Predicate, Class)}.
+     * <br/>
+     * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
+     * to be replaced!
+     */
+    public T registerClassReplacement(@NotNull Predicate<Class<?>> checker, @NotNull Class replacementClass) {
+        getSSBuilder().registerClassReplacement(checker, replacementClass);
+        return self();
+    }
+
+    /**
+     * Refer to the docs for {@link SerializerSet.Builder#unregisterClassReplacement(Class)}.
+     * <br/>
+     * <strong>Note:</strong> using this method will cause any SerializerSet provided through {@link #setAlternateSerializerSet(SerializerSet)}
+     * to be replaced!
+     */
+    public T unregisterClassReplacement(@NotNull Class replacementClass) {
+        getSSBuilder().unregisterClassReplacement(replacementClass);
+        return self();
+    }
+
+    private SerializerSet.Builder getSSBuilder() {
+        if (serializerSet == null) {
+            serializerSet = SerializerSet.builder(getDataSourceDefaultSerializerSet());
+        }
+        return serializerSet;
+    }
+
+    /**
+     * Normally a DataSource will be built with a copy of the {@link SerializerSet#defaultSet()}. This method
+     * allows for specifying an alternate already built set.
+     * <br/>
+     * <strong>Note:</strong> some DataSource implementations may introduce custom serializers by default to handle
+     * any special cases in their format. In this case, the implementation should provide a way to obtain a set
+     * containing the special serializers so that a copy can be made if required. Additionally, the implementation
+     * will typically add any special serializers to the set being built by this builder.
+     *
+     * @param serializerSet a replacement SerializerSet for the DataSource being built.
+     * @return this builder object.
+     */
+    @NotNull
+    public T setAlternateSerializerSet(@NotNull SerializerSet serializerSet) {
+        this.alternateSet = serializerSet;
+        return self();
+    }
+
+    @NotNull
+    protected final SerializerSet getBuiltSerializerSet() {
+        return alternateSet != null ? alternateSet : serializerSet != null ? serializerSet.build() : getDataSourceDefaultSerializerSet();
+    }
+
+    /**
+     * Returns the default SerializerSet to use for this DataSource type.
+     *
+     * @return the default SerializerSet to use for this DataSource type.
+     */
+    protected SerializerSet getDataSourceDefaultSerializerSet() {
+        return SerializerSet.defaultSet();
+    }
+
+    /**
+     * Sets whether or not the DataSource should write comments when saving data to a file.
+     * <p/>
+     * Comments can be added to a data object via {@link Comment}.
+     * <p/>
+     * <strong>Note:</strong> Comments are not available on all DataSource implementations. Enabling comments on an
+     * implementation that does not support them will do nothing.
+     *
+     * @param commentsEnabled whether or not the DataSource should write comments when saving data to a file.
+     * @return
+     */
+    public T setCommentsEnabled(boolean commentsEnabled) {
+        this.commentsEnabled = commentsEnabled;
+        return self();
+    }
+
+    /**
+     * Sets whether or not the DataSource should track changes to the data it loads and saves so that saving data
+     * which has not changed since it was last loaded or saved does not write anything.
+     * <p/>
+     * Data sources that write a configuration tree additionally keep the tree they last saved and only replace
+     * the parts of it that have changed when saving again.
+     * <p/>
+     * Changes are detected using a {@link DirtyTracker}. Tracking assumes that the DataSource is the only thing
+     * writing to its sink.
+     * <p/>
+     * <strong>Note:</strong> Dirty tracking is not available on all DataSource implementations. Enabling it on an
+     * implementation that does not support it will do nothing.
+     *
+     * @param dirtyTracking whether or not the DataSource should skip saving data that has not changed.
+     * @return this builder.
+     */
+    @NotNull
+    public T setDirtyTracking(boolean dirtyTracking) {
+        this.dirtyTracking = dirtyTracking;
+        return self();
+    }
+
+    /**
+     * Creates the data source using the options of this builder.
+     *
+     * @return a new DataSource object usings the options specified in this builder.
+     */
+    @NotNull
+    public abstract DataSource build();
+}
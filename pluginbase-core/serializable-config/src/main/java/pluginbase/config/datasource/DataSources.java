@@ -0,0 +1,212 @@
+package pluginbase.config.datasource;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.datasource.binary.BinaryDataSource;
+import pluginbase.config.datasource.hocon.HoconDataSource;
+import pluginbase.config.datasource.json.JsonDataSource;
+import pluginbase.config.datasource.yaml.YamlDataSource;
+import pluginbase.logging.Logging;
+import pluginbase.messages.Messages;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Utilities for working with many data sources at once.
+ */
+public enum DataSources {
+    ;
+
+    /**
+     * Creates a data source for the given file based on its extension.
+     * <p/>
+     * Files ending in .yml or .yaml use {@link YamlDataSource}, .json uses {@link JsonDataSource}, .conf or .hocon
+     * use {@link HoconDataSource} and .bin uses {@link BinaryDataSource}. The data source is created with its
+     * builder's defaults.
+     *
+     * @param path the file to create a data source for.
+     * @return a new data source for the file.
+     * @throws IllegalArgumentException if the file's extension is not recognized.
+     */
+    @NotNull
+    public static DataSource forPath(@NotNull Path path) {
+        String fileName = path.getFileName().toString();
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ENGLISH);
+        switch (extension) {
+            case "yml":
+            case "yaml":
+                return YamlDataSource.builder().setPath(path).build();
+            case "json":
+                return JsonDataSource.builder().setPath(path).build();
+            case "conf":
+            case "hocon":
+                return HoconDataSource.builder().setPath(path).build();
+            case "bin":
+                return BinaryDataSource.builder().setPath(path).build();
+            default:
+                throw new IllegalArgumentException("No data source is known for the file " + fileName);
+        }
+    }
+
+    /**
+     * Loads every file in a directory whose name matches the given glob, creating a data source for each file with
+     * {@link #forPath(Path)}.
+     * <p/>
+     * Files that fail to load are logged and left out of the result.
+     *
+     * @param directory the directory to load files from. Sub-directories are not searched.
+     * @param glob the glob pattern file names must match, such as {@code "*.yml"}.
+     * @param wantedType the type to load each file as.
+     * @param executor the executor to read and deserialize the files on.
+     * @param <T> the type to load each file as.
+     * @return the loaded objects, in order of their paths.
+     * @throws SendablePluginBaseException if the directory could not be listed or the calling thread was interrupted
+     * while waiting for the files to load.
+     * @see #loadAll(Path, String, Class, Executor, Function, BiConsumer)
+     */
+    @NotNull
+    public static <T> Map<Path, T> loadAll(@NotNull Path directory, @NotNull String glob, @NotNull Class<T> wantedType,
+                                           @NotNull Executor executor) throws SendablePluginBaseException {
+        return loadAll(directory, glob, wantedType, executor, DataSources::forPath,
+                (path, e) -> Logging.warning("Could not load %s: %s", path, e.getMessage()));
+    }
+
+    /**
+     * Loads every file in a directory whose name matches the given glob.
+     * <p/>
+     * Each file is read and deserialized as its own task on the given executor, so files are loaded in parallel when
+     * the executor has more than one thread. This method waits for every file to be loaded before returning, so it
+     * must not be called from a thread of the given executor: if every thread of the executor is busy waiting in
+     * this method, the tasks can never run and this method never returns.
+     * <p/>
+     * A file that fails to load with an exception does not stop the other files from loading. Each failure is passed
+     * to the failure handler on the calling thread once all files have been loaded, in order of their paths, and the
+     * file is left out of the result. Files with no data are also left out of the result but are not considered
+     * failures. An {@link Error} thrown while loading a file is thrown by this method instead.
+     *
+     * @param directory the directory to load files from. Sub-directories are not searched.
+     * @param glob the glob pattern file names must match, such as {@code "*.yml"}.
+     * @param wantedType the type to load each file as.
+     * @param executor the executor to read and deserialize the files on.
+     * @param dataSourceFactory creates the data source for each file. This is called on the executor.
+     * @param failureHandler receives each file that could not be loaded and the reason why.
+     * @param <T> the type to load each file as.
+     * @return the loaded objects, in order of their paths.
+     * @throws SendablePluginBaseException if the directory could not be listed or the calling thread was interrupted
+     * while waiting for the files to load.
+     */
+    @NotNull
+    public static <T> Map<Path, T> loadAll(@NotNull Path directory, @NotNull String glob, @NotNull Class<T> wantedType,
+                                           @NotNull Executor executor,
+                                           @NotNull Function<Path, ? extends DataSource> dataSourceFactory,
+                                           @NotNull BiConsumer<Path, SendablePluginBaseException> failureHandler)
+            throws SendablePluginBaseException {
+        List<Path> paths = findFiles(directory, glob);
+
+        List<CompletableFuture<LoadResult<T>>> results = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            CompletableFuture<LoadResult<T>> result;
+            try {
+                result = CompletableFuture.supplyAsync(() -> load(path, wantedType, dataSourceFactory), executor);
+            } catch (RejectedExecutionException e) {
+                result = CompletableFuture.completedFuture(new LoadResult<T>(null, wrap(e)));
+            }
+            results.add(result);
+        }
+
+        Map<Path, T> loaded = new LinkedHashMap<>(paths.size() * 4 / 3 + 1);
+        for (int i = 0; i < paths.size(); i++) {
+            LoadResult<T> result = getResult(results.get(i));
+            if (result.failure != null) {
+                failureHandler.accept(paths.get(i), result.failure);
+            } else if (result.value != null) {
+                loaded.put(paths.get(i), result.value);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Waits for a load task, throwing anything the task could not catch itself as it was thrown.
+     */
+    @NotNull
+    private static <T> LoadResult<T> getResult(@NotNull CompletableFuture<LoadResult<T>> result)
+            throws SendablePluginBaseException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw wrap(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw wrap(cause);
+        }
+    }
+
+    @NotNull
+    private static List<Path> findFiles(@NotNull Path directory, @NotNull String glob) throws SendablePluginBaseException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path)) {
+                    paths.add(path);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw wrap(e);
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    @NotNull
+    private static <T> LoadResult<T> load(@NotNull Path path, @NotNull Class<T> wantedType,
+                                          @NotNull Function<Path, ? extends DataSource> dataSourceFactory) {
+        try {
+            return new LoadResult<>(dataSourceFactory.apply(path).load(wantedType), null);
+        } catch (SendablePluginBaseException e) {
+            return new LoadResult<>(null, e);
+        } catch (RuntimeException e) {
+            return new LoadResult<>(null, wrap(e));
+        }
+    }
+
+    @NotNull
+    private static SendablePluginBaseException wrap(@NotNull Throwable e) {
+        return new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+    }
+
+    private static final class LoadResult<T> {
+        @Nullable
+        final T value;
+        @Nullable
+        final SendablePluginBaseException failure;
+
+        LoadResult(@Nullable T value, @Nullable SendablePluginBaseException failure) {
+            this.value = value;
+            this.failure = failure;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package pluginbase.config.datasource;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.annotation.Comment;
+import pluginbase.config.field.FieldMapper;
+import pluginbase.config.serializers.SerializedDataReader;
+import pluginbase.config.serializers.SerializedDataWriter;
+import pluginbase.config.serializers.SerializerSet;
+import pluginbase.config.serializers.StreamMapper;
+import pluginbase.messages.Messages;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.Callable;
+
+/**
+ * A DataSource that reads and writes its data as a stream of parser events rather than through a Configurate node
+ * tree.
+ * <p/>
+ * {@link AbstractDataSource} holds the entire file in memory as a node tree and then again as a tree of maps and
+ * lists before the object graph is created. Implementations of this class map the events of their format's parser
+ * straight into object fields and write objects straight to their format's emitter through a {@link StreamMapper},
+ * which keeps memory use close to the size of the object graph itself. This is preferable for large data files.
+ * <p/>
+ * Streaming data sources are configured with the same builder options as {@link AbstractDataSource}, through a
+ * {@link DataSourceBuilder}.
+ */
+public abstract class StreamingDataSource implements DataSource {
+
+    @Nullable
+    private final Callable<BufferedReader> source;
+    @Nullable
+    private final Callable<BufferedWriter> sink;
+    @NotNull
+    private final SerializerSet serializerSet;
+    @NotNull
+    private final StreamMapper mapper;
+
+    protected StreamingDataSource(@Nullable Callable<BufferedReader> source, @Nullable Callable<BufferedWriter> sink,
+                                  @NotNull SerializerSet serializerSet, boolean commentsEnabled) {
+        this.source = source;
+        this.sink = sink;
+        this.serializerSet = serializerSet;
+        this.mapper = new StreamMapper(serializerSet, commentsEnabled);
+    }
+
+    /**
+     * Creates a reader for this data source's format.
+     *
+     * @param reader the source to read from.
+     * @return a new reader for the source.
+     * @throws IOException if the reader could not be created.
+     */
+    @NotNull
+    protected abstract SerializedDataReader createReader(@NotNull BufferedReader reader) throws IOException;
+
+    /**
+     * Creates a writer for this data source's format.
+     *
+     * @param writer the sink to write to.
+     * @return a new writer for the sink.
+     * @throws IOException if the writer could not be created.
+     */
+    @NotNull
+    protected abstract SerializedDataWriter createWriter(@NotNull BufferedWriter writer) throws IOException;
+
+    /** {@inheritDoc} */
+    @Nullable
+    @Override
+    public Object load() throws SendablePluginBaseException {
+        return read(null);
+    }
+
+    /** {@inheritDoc} */
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <ObjectType> ObjectType load(Class<ObjectType> wantedType) throws SendablePluginBaseException {
+        return (ObjectType) read(wantedType);
+    }
+
+    /** {@inheritDoc} */
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <ObjectType> ObjectType loadToObject(@NotNull ObjectType destination) throws SendablePluginBaseException {
+        ObjectType source = (ObjectType) read(destination.getClass());
+        if (destination.equals(source)) {
+            return destination;
+        }
+        if (source != null) {
+            return FieldMapper.mapFields(source, destination);
+        } else {
+            return null;
+        }
+    }
+
+    @Nullable
+    private Object read(@Nullable Class<?> wantedType) throws SendablePluginBaseException {
+        if (source == null) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle("No source present"));
+        }
+        try (BufferedReader reader = openSource(source);
+             SerializedDataReader dataReader = createReader(reader)) {
+            return mapper.read(dataReader, wantedType);
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The object is written to the sink as it is serialized and the sink is closed even if serialization fails part
+     * way through. A sink set with {@link DataSourceBuilder#setPath(java.nio.file.Path)} is an {@link AtomicFileWriter}
+     * which is discarded when serialization fails, so the file keeps its previous contents.
+     */
+    @Override
+    public void save(@NotNull Object object) throws SendablePluginBaseException {
+        Comment header = object.getClass().getAnnotation(Comment.class);
+        write(object, header != null ? header.value() : null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The object is serialized into memory by this method, so the snapshot does not benefit from streaming and field
+     * comments are not written when the snapshot is saved. The header comment is kept.
+     */
+    @NotNull
+    @Override
+    public Snapshot snapshot(@NotNull Object object) throws SendablePluginBaseException {
+        Object serialized;
+        try {
+            serialized = SerializableConfig.serialize(object, serializerSet);
+        } catch (RuntimeException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+        Comment header = object.getClass().getAnnotation(Comment.class);
+        String[] headerComments = header != null ? header.value() : null;
+        return () -> {
+            if (serialized != null) {
+                write(serialized, headerComments);
+            }
+        };
+    }
+
+    private void write(@NotNull Object object, @Nullable String[] header) throws SendablePluginBaseException {
+        if (sink == null) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle("No sink present"));
+        }
+        BufferedWriter writer = null;
+        boolean written = false;
+        try {
+            writer = openSink(sink);
+            SerializedDataWriter dataWriter = createWriter(writer);
+            if (header != null) {
+                dataWriter.header(header);
+            }
+            mapper.write(object, dataWriter);
+            dataWriter.close();
+            written = true;
+        } catch (IOException | RuntimeException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        } finally {
+            if (writer != null && !written) {
+                abandon(writer);
+            }
+        }
+    }
+
+    /**
+     * Closes a sink that could not be written completely, discarding it first if it would otherwise replace a file.
+     */
+    private static void abandon(@NotNull BufferedWriter writer) {
+        if (writer instanceof AtomicFileWriter) {
+            ((AtomicFileWriter) writer).discard();
+        }
+        try {
+            writer.close();
+        } catch (IOException ignore) { }
+    }
+
+    @NotNull
+    private static BufferedReader openSource(@NotNull Callable<BufferedReader> source) throws IOException {
+        try {
+            return source.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    @NotNull
+    private static BufferedWriter openSink(@NotNull Callable<BufferedWriter> sink) throws IOException {
+        try {
+            return sink.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package pluginbase.config.datasource.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.DirtyTracker;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.datasource.AtomicFileOutputStream;
+import pluginbase.config.datasource.DataSource;
+import pluginbase.config.datasource.DataSourceBuilder;
+import pluginbase.config.field.FieldMapper;
+import pluginbase.config.serializers.SerializerSet;
+import pluginbase.messages.Messages;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+
+/**
+ * A DataSource that stores data in a compact binary format.
+ * <p/>
+ * The serialized form of an object is written with its map keys and serialized type names stored once in a string
+ * table, its numbers stored as varints and a checksum to detect corruption. This makes it much smaller and faster to
+ * read than the text formats, which is preferable for large amounts of machine written data. The format does not
+ * keep comments, so {@link Builder#setCommentsEnabled(boolean)} may not enable them.
+ * <p/>
+ * As the data is binary, the source and sink are normally byte streams set with {@link Builder#setInputStream(Callable)}
+ * and {@link Builder#setOutputStream(Callable)}. A character source or sink set with {@link Builder#setSource(Callable)}
+ * or {@link Builder#setSink(Callable)} reads and writes the data as Base64 text instead.
+ */
+public class BinaryDataSource implements DataSource {
+
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder extends DataSourceBuilder<Builder> {
+
+        private Callable<InputStream> inputStream;
+        private Callable<OutputStream> outputStream;
+
+        protected Builder() { }
+
+        /**
+         * A Path can be set to be used as a data source and sink.
+         * <p/>
+         * Data is written through an {@link AtomicFileOutputStream}, so the file at the path is only replaced once it
+         * has been written completely.
+         *
+         * @param path the path to be used as the data source and sink.
+         * @return this builder.
+         */
+        @NotNull
+        @Override
+        public Builder setPath(@NotNull Path path) {
+            setInputStream(() -> Files.newInputStream(path));
+            setOutputStream(AtomicFileOutputStream.factory(path));
+            return this;
+        }
+
+        /** {@inheritDoc} */
+        @NotNull
+        @Override
+        public Builder setURL(@NotNull URL url) {
+            return setInputStream(() -> url.openConnection().getInputStream());
+        }
+
+        @NotNull
+        public Builder setInputStream(@NotNull Callable<InputStream> inputStream) {
+            this.inputStream = inputStream;
+            this.source = null;
+            return this;
+        }
+
+        @NotNull
+        public Builder setOutputStream(@NotNull Callable<OutputStream> outputStream) {
+            this.outputStream = outputStream;
+            this.sink = null;
+            return this;
+        }
+
+        /**
+         * Sets a character source to read the data from as Base64 text.
+         *
+         * @param source the source of the Base64 text.
+         * @return this builder.
+         * @see #setInputStream(Callable)
+         */
+        @NotNull
+        @Override
+        public Builder setSource(@NotNull Callable<BufferedReader> source) {
+            this.inputStream = null;
+            return super.setSource(source);
+        }
+
+        /**
+         * Sets a character sink to write the data to as Base64 text.
+         *
+         * @param sink the sink for the Base64 text.
+         * @return this builder.
+         * @see #setOutputStream(Callable)
+         */
+        @NotNull
+        @Override
+        public Builder setSink(@NotNull Callable<BufferedWriter> sink) {
+            this.outputStream = null;
+            return super.setSink(sink);
+        }
+
+        /**
+         * Comments can not be enabled as the binary format does not keep them.
+         *
+         * @param commentsEnabled must be false.
+         * @return this builder.
+         * @throws IllegalArgumentException if comments are enabled.
+         */
+        @NotNull
+        @Override
+        public Builder setCommentsEnabled(boolean commentsEnabled) {
+            if (commentsEnabled) {
+                throw new IllegalArgumentException("The binary format does not keep comments");
+            }
+            return super.setCommentsEnabled(false);
+        }
+
+        @NotNull
+        @Override
+        public BinaryDataSource build() {
+            Callable<InputStream> in = inputStream;
+            Callable<OutputStream> out = outputStream;
+            if (in == null && source != null) {
+                Callable<BufferedReader> text = source;
+                in = () -> Base64.getMimeDecoder().wrap(new Latin1InputStream(text.call()));
+            }
+            if (out == null && sink != null) {
+                Callable<BufferedWriter> text = sink;
+                out = () -> Base64.getMimeEncoder().wrap(new Latin1OutputStream(text.call()));
+            }
+            return new BinaryDataSource(in, out, getBuiltSerializerSet(), dirtyTracking);
+        }
+    }
+
+    @Nullable
+    private final Callable<InputStream> inputStream;
+    @Nullable
+    private final Callable<OutputStream> outputStream;
+    @NotNull
+    private final SerializerSet serializerSet;
+    @Nullable
+    private final DirtyTracker dirtyTracker;
+
+    private BinaryDataSource(@Nullable Callable<InputStream> inputStream, @Nullable Callable<OutputStream> outputStream,
+                             @NotNull SerializerSet serializerSet, boolean dirtyTracking) {
+        this.inputStream = inputStream;
+        this.outputStream = outputStream;
+        this.serializerSet = serializerSet;
+        this.dirtyTracker = dirtyTracking ? new DirtyTracker() : null;
+    }
+
+    /** {@inheritDoc} */
+    @Nullable
+    @Override
+    public Object load() throws SendablePluginBaseException {
+        Object value = read();
+        if (value == null) {
+            return null;
+        }
+        try {
+            return loaded(SerializableConfig.deserialize(value, serializerSet));
+        } catch (RuntimeException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Nullable
+    @Override
+    public <ObjectType> ObjectType load(Class<ObjectType> wantedType) throws SendablePluginBaseException {
+        Object value = read();
+        if (value == null) {
+            return null;
+        }
+        try {
+            return loaded(SerializableConfig.deserializeAs(value, wantedType, serializerSet));
+        } catch (RuntimeException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public <ObjectType> ObjectType loadToObject(@NotNull ObjectType destination) throws SendablePluginBaseException {
+        ObjectType source = load((Class<ObjectType>) destination.getClass());
+        if (destination.equals(source)) {
+            return destination;
+        }
+        if (source != null) {
+            return loaded(FieldMapper.mapFields(source, destination));
+        } else {
+            return null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void save(@NotNull Object object) throws SendablePluginBaseException {
+        snapshot(object).save();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The object is serialized by this method. Saving the snapshot encodes and writes the serialized data. When
+     * tracking changes, the snapshot does nothing if the object has not changed.
+     */
+    @NotNull
+    @Override
+    public Snapshot snapshot(@NotNull Object object) throws SendablePluginBaseException {
+        Object serialized;
+        try {
+            serialized = SerializableConfig.serialize(object, serializerSet);
+        } catch (RuntimeException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+        if (dirtyTracker != null) {
+            synchronized (dirtyTracker) {
+                if (!dirtyTracker.isChanged(serialized)) {
+                    return () -> { };
+                }
+                Object data = dirtyTracker.record(serialized);
+                return () -> write(data);
+            }
+        }
+        return () -> write(serialized);
+    }
+
+    private void write(@Nullable Object serialized) throws SendablePluginBaseException {
+        if (outputStream == null) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle("No sink present"));
+        }
+        try {
+            byte[] bytes = BinaryFormat.encode(serialized);
+            try (OutputStream out = outputStream.call()) {
+                try {
+                    out.write(bytes);
+                } catch (IOException | RuntimeException e) {
+                    if (out instanceof AtomicFileOutputStream) {
+                        ((AtomicFileOutputStream) out).discard();
+                    }
+                    throw e;
+                }
+            }
+        } catch (Exception e) {
+            if (dirtyTracker != null) {
+                synchronized (dirtyTracker) {
+                    dirtyTracker.reset();
+                }
+            }
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+    }
+
+    /**
+     * Records the serialized form of loaded data when tracking changes.
+     */
+    @Nullable
+    private <T> T loaded(@Nullable T object) {
+        if (dirtyTracker != null && object != null) {
+            Object serialized = SerializableConfig.serialize(object, serializerSet);
+            synchronized (dirtyTracker) {
+                dirtyTracker.record(serialized);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Reads the serialized data from the source.
+     *
+     * @return the serialized data or null if there is none.
+     */
+    @Nullable
+    private Object read() throws SendablePluginBaseException {
+        if (inputStream == null) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle("No source present"));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (InputStream in = inputStream.call()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+        if (bytes.size() == 0) {
+            return null;
+        }
+        try {
+            return BinaryFormat.decode(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new SendablePluginBaseException(Messages.EXCEPTION.bundle(e), e);
+        }
+    }
+
+    /**
+     * Writes each byte as the character with the same value. Only used for Base64 text, which is all ASCII.
+     */
+    private static final class Latin1OutputStream extends OutputStream {
+
+        @NotNull
+        private final Writer writer;
+
+        Latin1OutputStream(@NotNull Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writer.write(b & 0xFF);
+        }
+
+        @Override
+        public void write(@NotNull byte[] b, int off, int len) throws IOException {
+            char[] chars = new char[Math.min(len, 8192)];
+            while (len > 0) {
+                int count = Math.min(len, chars.length);
+                for (int i = 0; i < count; i++) {
+                    chars[i] = (char) (b[off + i] & 0xFF);
+                }
+                writer.write(chars, 0, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Reads each character as the byte with the same value. Only used for Base64 text, which is all ASCII.
+     */
+    private static final class Latin1InputStream extends InputStream {
+
+        @NotNull
+        private final Reader reader;
+
+        Latin1InputStream(@NotNull Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = reader.read();
+            return c < 0 ? -1 : c & 0xFF;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
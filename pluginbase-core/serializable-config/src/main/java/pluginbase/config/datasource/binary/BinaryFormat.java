@@ -0,0 +1,353 @@
+package pluginbase.config.datasource.binary;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.SerializableConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes and decodes the serialized form of objects, a tree of maps, lists and scalars, in a compact binary form.
+ * <p/>
+ * The data begins with the {@link #MAGIC} bytes and a format version and ends with a CRC-32 of everything before it.
+ * Between these is a single value. Each value is a one byte tag followed by its payload. Integers are written as
+ * zig-zag varints and strings, lists and maps are prefixed with their varint length.
+ * <p/>
+ * Map keys and serialized type names are written to a string table as they are first encountered and referred to by
+ * their index in the table after that, so the keys of many objects of the same type cost only a byte or two each.
+ */
+final class BinaryFormat {
+
+    static final byte[] MAGIC = {'P', 'B', 'S', 'C'};
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int BYTE = 3;
+    static final int SHORT = 4;
+    static final int INT = 5;
+    static final int LONG = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+    static final int STRING = 9;
+    static final int TABLE_STRING = 10;
+    static final int TABLE_REFERENCE = 11;
+    static final int LIST = 12;
+    static final int MAP = 13;
+
+    private static final int CHECKSUM_LENGTH = 4;
+
+    private BinaryFormat() { }
+
+    /**
+     * Encodes the given serialized data.
+     *
+     * @param data the serialized form of an object.
+     * @return the encoded data, including the header and checksum.
+     */
+    @NotNull
+    static byte[] encode(@Nullable Object data) {
+        Encoder encoder = new Encoder();
+        encoder.writeBytes(MAGIC);
+        encoder.writeVarint(VERSION);
+        encoder.writeValue(data, false);
+        CRC32 crc = new CRC32();
+        crc.update(encoder.buffer, 0, encoder.length);
+        long checksum = crc.getValue();
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            encoder.writeByte((int) (checksum >>> shift));
+        }
+        return Arrays.copyOf(encoder.buffer, encoder.length);
+    }
+
+    /**
+     * Decodes data produced by {@link #encode(Object)}.
+     *
+     * @param bytes the encoded data.
+     * @return the serialized form of an object.
+     * @throws IOException if the data is not in this format, was written by a newer version of the format or has been
+     *                     corrupted.
+     */
+    @Nullable
+    static Object decode(@NotNull byte[] bytes) throws IOException {
+        int length = bytes.length;
+        if (length < MAGIC.length + 1 + CHECKSUM_LENGTH) {
+            throw new IOException("The data is too short to be binary data");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                throw new IOException("The data is not binary data");
+            }
+        }
+        int end = length - CHECKSUM_LENGTH;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, end);
+        long checksum = 0;
+        for (int i = end; i < length; i++) {
+            checksum = (checksum << 8) | (bytes[i] & 0xFF);
+        }
+        if (crc.getValue() != checksum) {
+            throw new IOException("The binary data is corrupt: checksum mismatch");
+        }
+        Decoder decoder = new Decoder(bytes, MAGIC.length, end);
+        int version = decoder.readVarint();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary data version " + version + ", expected " + VERSION);
+        }
+        Object value = decoder.readValue();
+        if (decoder.position != end) {
+            throw new IOException("Unexpected data after the root value");
+        }
+        return value;
+    }
+
+    private static final class Encoder {
+
+        private final Map<String, Integer> table = new HashMap<>();
+        private byte[] buffer = new byte[256];
+        private int length = 0;
+
+        void writeValue(@Nullable Object value, boolean tableString) {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeString((String) value, tableString);
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer || value instanceof AtomicInteger) {
+                writeByte(INT);
+                writeVarlong(zigZag(((Number) value).intValue()));
+            } else if (value instanceof Long || value instanceof AtomicLong) {
+                writeByte(LONG);
+                writeVarlong(zigZag(((Number) value).longValue()));
+            } else if (value instanceof Double) {
+                writeByte(DOUBLE);
+                writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+            } else if (value instanceof Float) {
+                writeByte(FLOAT);
+                writeFixed(Float.floatToRawIntBits((Float) value), 4);
+            } else if (value instanceof Short) {
+                writeByte(SHORT);
+                writeVarlong(zigZag((Short) value));
+            } else if (value instanceof Byte) {
+                writeByte(BYTE);
+                writeByte((Byte) value);
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                writeByte(MAP);
+                writeVarint(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey(), true);
+                    writeValue(entry.getValue(), SerializableConfig.SERIALIZED_TYPE_KEY.equals(entry.getKey()));
+                }
+            } else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                writeByte(LIST);
+                writeVarint(collection.size());
+                for (Object element : collection) {
+                    writeValue(element, false);
+                }
+            } else {
+                // Anything else is written the same way a text format would write it.
+                writeString(value.toString(), false);
+            }
+        }
+
+        void writeString(@NotNull String string, boolean tableString) {
+            if (tableString) {
+                Integer index = table.get(string);
+                if (index != null) {
+                    writeByte(TABLE_REFERENCE);
+                    writeVarint(index);
+                    return;
+                }
+                table.put(string, table.size());
+                writeByte(TABLE_STRING);
+            } else {
+                writeByte(STRING);
+            }
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[length++] = (byte) value;
+        }
+
+        void writeFixed(long value, int bytes) {
+            ensureCapacity(bytes);
+            for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+                buffer[length++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[length++] = (byte) value;
+        }
+
+        void writeBytes(@NotNull byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + additional));
+            }
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Decoder {
+
+        private final List<String> table = new ArrayList<>();
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+
+        Decoder(@NotNull byte[] bytes, int position, int end) {
+            this.bytes = bytes;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Nullable
+        Object readValue() throws IOException {
+            int tag = readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case BYTE:
+                    return (byte) readByte();
+                case SHORT:
+                    return (short) unZigZag(readVarlong());
+                case INT:
+                    return (int) unZigZag(readVarlong());
+                case LONG:
+                    return unZigZag(readVarlong());
+                case FLOAT:
+                    return Float.intBitsToFloat((int) readFixed(4));
+                case DOUBLE:
+                    return Double.longBitsToDouble(readFixed(8));
+                case STRING:
+                    return readString();
+                case TABLE_STRING:
+                    String string = readString();
+                    table.add(string);
+                    return string;
+                case TABLE_REFERENCE:
+                    int index = readVarint();
+                    if (index >= table.size()) {
+                        throw new IOException("Invalid string table reference " + index + " at " + position);
+                    }
+                    return table.get(index);
+                case LIST:
+                    int size = readLength();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                case MAP:
+                    size = readLength();
+                    Map<Object, Object> map = new LinkedHashMap<>(size * 4 / 3 + 1);
+                    for (int i = 0; i < size; i++) {
+                        Object key = readValue();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                default:
+                    throw new IOException("Unknown value tag " + tag + " at " + (position - 1));
+            }
+        }
+
+        @NotNull
+        private String readString() throws IOException {
+            int length = readLength();
+            String string = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return string;
+        }
+
+        /**
+         * Reads the length of a string, list or map, which can never be more than the number of bytes remaining.
+         */
+        private int readLength() throws IOException {
+            int length = readVarint();
+            if (length < 0 || length > end - position) {
+                throw new IOException("Invalid length " + length + " at " + position);
+            }
+            return length;
+        }
+
+        private int readVarint() throws IOException {
+            long value = readVarlong();
+            if ((value & ~0xFFFFFFFFL) != 0) {
+                throw new IOException("Varint too large at " + position);
+            }
+            return (int) value;
+        }
+
+        private long readVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint at " + position);
+        }
+
+        private long readFixed(int count) throws IOException {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= end) {
+                throw new IOException("Unexpected end of binary data");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * This packages provides a compact binary implementation of {@link pluginbase.config.datasource.DataSource}.
+ * <p/>
+ * The binary format has no dependencies beyond Serializable-Config itself and is intended for large amounts of machine
+ * written data where a human readable format is not needed.
+ */
+package pluginbase.config.datasource.binary;
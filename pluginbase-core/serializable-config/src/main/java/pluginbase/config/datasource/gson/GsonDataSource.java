@@ -47,11 +47,11 @@ public class GsonDataSource extends AbstractDataSource {
         @NotNull
         @Override
         public GsonDataSource build() {
-            return new GsonDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet());
+            return new GsonDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet(), dirtyTracking);
         }
     }
 
-    private GsonDataSource(@NotNull GsonConfigurationLoader loader, @NotNull SerializerSet serializerSet) {
-        super(loader, serializerSet, false);
+    private GsonDataSource(@NotNull GsonConfigurationLoader loader, @NotNull SerializerSet serializerSet, boolean dirtyTracking) {
+        super(loader, serializerSet, false, dirtyTracking);
     }
 }
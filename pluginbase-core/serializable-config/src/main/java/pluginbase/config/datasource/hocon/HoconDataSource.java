@@ -51,11 +51,12 @@ public class HoconDataSource extends AbstractDataSource {
         @NotNull
         @Override
         public HoconDataSource build() {
-            return new HoconDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet(), commentsEnabled);
+            return new HoconDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet(), commentsEnabled, dirtyTracking);
         }
     }
 
-    private HoconDataSource(@NotNull HoconConfigurationLoader loader, @NotNull SerializerSet serializerSet, boolean commentsEnabled) {
-        super(loader, serializerSet, commentsEnabled);
+    private HoconDataSource(@NotNull HoconConfigurationLoader loader, @NotNull SerializerSet serializerSet, boolean commentsEnabled,
+                            boolean dirtyTracking) {
+        super(loader, serializerSet, commentsEnabled, dirtyTracking);
     }
 }
@@ -14,7 +14,7 @@ public class JsonDataSource extends AbstractDataSource {
 
     private static final LongAsStringSerializer LONG_AS_STRING_SERIALIZER = new LongAsStringSerializer();
     private static final DoubleAsStringSerializer DOUBLE_AS_STRING_SERIALIZER  = new DoubleAsStringSerializer();
-    private static final SerializerSet DEFAULT_SERIALIZER_SET = SerializerSet.builder()
+    static final SerializerSet DEFAULT_SERIALIZER_SET = SerializerSet.builder()
             .addSerializer(Long.class, () -> LONG_AS_STRING_SERIALIZER)
             .addSerializer(Double.class, () -> DOUBLE_AS_STRING_SERIALIZER)
             .build();
@@ -52,11 +52,11 @@ public class JsonDataSource extends AbstractDataSource {
         @NotNull
         @Override
         public JsonDataSource build() {
-            return new JsonDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet());
+            return new JsonDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet(), dirtyTracking);
         }
     }
 
-    private JsonDataSource(@NotNull JSONConfigurationLoader loader, @NotNull SerializerSet serializerSet) {
-        super(loader, serializerSet, false);
+    private JsonDataSource(@NotNull JSONConfigurationLoader loader, @NotNull SerializerSet serializerSet, boolean dirtyTracking) {
+        super(loader, serializerSet, false, dirtyTracking);
     }
 }
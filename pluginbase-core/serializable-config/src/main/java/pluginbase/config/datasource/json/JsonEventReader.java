@@ -0,0 +1,82 @@
+package pluginbase.config.datasource.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.serializers.SerializedDataReader;
+
+import java.io.IOException;
+
+/**
+ * Reads JSON through Jackson's pull parser.
+ */
+class JsonEventReader implements SerializedDataReader {
+
+    @NotNull
+    private final JsonParser parser;
+
+    private Object key;
+    private Object value;
+
+    JsonEventReader(@NotNull JsonParser parser) {
+        this.parser = parser;
+    }
+
+    @NotNull
+    @Override
+    public Token next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return Token.END;
+        }
+        switch (token) {
+            case START_OBJECT:
+                return Token.BEGIN_MAP;
+            case END_OBJECT:
+                return Token.END_MAP;
+            case START_ARRAY:
+                return Token.BEGIN_LIST;
+            case END_ARRAY:
+                return Token.END_LIST;
+            case FIELD_NAME:
+                key = parser.getCurrentName();
+                return Token.KEY;
+            case VALUE_STRING:
+                value = parser.getText();
+                return Token.VALUE;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                value = parser.getNumberValue();
+                return Token.VALUE;
+            case VALUE_TRUE:
+                value = Boolean.TRUE;
+                return Token.VALUE;
+            case VALUE_FALSE:
+                value = Boolean.FALSE;
+                return Token.VALUE;
+            case VALUE_NULL:
+                value = null;
+                return Token.VALUE;
+            default:
+                throw new IOException("Unsupported JSON token " + token + " at " + parser.getCurrentLocation());
+        }
+    }
+
+    @NotNull
+    @Override
+    public Object getKey() {
+        return key;
+    }
+
+    @Nullable
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,75 @@
+package pluginbase.config.datasource.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.serializers.SerializedDataWriter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Writes JSON through a Jackson generator. Comments are not supported by JSON and are ignored.
+ */
+class JsonStreamWriter implements SerializedDataWriter {
+
+    @NotNull
+    private final JsonGenerator generator;
+
+    JsonStreamWriter(@NotNull JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    @Override
+    public void header(@NotNull String[] comments) { }
+
+    @Override
+    public void beginMap() throws IOException {
+        generator.writeStartObject();
+    }
+
+    @Override
+    public void key(@NotNull Object key, @Nullable String[] comments) throws IOException {
+        generator.writeFieldName(key.toString());
+    }
+
+    @Override
+    public void endMap() throws IOException {
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void beginList() throws IOException {
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void endList() throws IOException {
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void value(@Nullable Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
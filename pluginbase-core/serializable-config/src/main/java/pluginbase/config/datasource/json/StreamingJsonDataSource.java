@@ -0,0 +1,88 @@
+package pluginbase.config.datasource.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.datasource.DataSourceBuilder;
+import pluginbase.config.datasource.StreamingDataSource;
+import pluginbase.config.serializers.SerializedDataReader;
+import pluginbase.config.serializers.SerializedDataWriter;
+import pluginbase.config.serializers.SerializerSet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * A JSON {@link StreamingDataSource} which reads through Jackson's pull parser and writes through a Jackson generator.
+ * <p/>
+ * By default this uses the same serializers as {@link JsonDataSource} so that the files of either can be read by the
+ * other.
+ */
+public class StreamingJsonDataSource extends StreamingDataSource {
+
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder extends DataSourceBuilder<Builder> {
+
+        private final JsonFactory factory = new JsonFactory();
+        private int indent = 2;
+
+        protected Builder() { }
+
+        public JsonFactory getFactory() {
+            return factory;
+        }
+
+        public Builder setIndent(int indent) {
+            this.indent = indent;
+            return this;
+        }
+
+        @Override
+        protected SerializerSet getDataSourceDefaultSerializerSet() {
+            return JsonDataSource.DEFAULT_SERIALIZER_SET;
+        }
+
+        @NotNull
+        @Override
+        public StreamingJsonDataSource build() {
+            return new StreamingJsonDataSource(source, sink, getBuiltSerializerSet(), factory, indent);
+        }
+    }
+
+    @NotNull
+    private final JsonFactory factory;
+    private final int indent;
+
+    private StreamingJsonDataSource(@Nullable Callable<BufferedReader> source, @Nullable Callable<BufferedWriter> sink,
+                                    @NotNull SerializerSet serializerSet, @NotNull JsonFactory factory, int indent) {
+        super(source, sink, serializerSet, false);
+        this.factory = factory;
+        this.indent = indent;
+    }
+
+    @NotNull
+    @Override
+    protected SerializedDataReader createReader(@NotNull BufferedReader reader) throws IOException {
+        return new JsonEventReader(factory.createParser(reader));
+    }
+
+    @NotNull
+    @Override
+    protected SerializedDataWriter createWriter(@NotNull BufferedWriter writer) throws IOException {
+        JsonGenerator generator = factory.createGenerator(writer);
+        if (indent > 0) {
+            DefaultIndenter indenter = new DefaultIndenter(new String(new char[indent]).replace('\0', ' '), "\n");
+            generator.setPrettyPrinter(new DefaultPrettyPrinter().withObjectIndenter(indenter).withArrayIndenter(indenter));
+        }
+        return new JsonStreamWriter(generator);
+    }
+}
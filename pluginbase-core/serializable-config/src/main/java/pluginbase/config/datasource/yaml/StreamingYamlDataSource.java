@@ -0,0 +1,64 @@
+package pluginbase.config.datasource.yaml;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.datasource.DataSourceBuilder;
+import pluginbase.config.datasource.StreamingDataSource;
+import pluginbase.config.serializers.SerializedDataReader;
+import pluginbase.config.serializers.SerializedDataWriter;
+import pluginbase.config.serializers.SerializerSet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.util.concurrent.Callable;
+
+/**
+ * A YAML {@link StreamingDataSource} which reads through SnakeYAML's event parser and writes block style YAML.
+ * <p/>
+ * YAML anchors and aliases are not supported when loading.
+ */
+public class StreamingYamlDataSource extends StreamingDataSource {
+
+    @NotNull
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder extends DataSourceBuilder<Builder> {
+
+        private int indent = 4;
+
+        protected Builder() { }
+
+        public Builder setIndent(int indent) {
+            this.indent = indent;
+            return this;
+        }
+
+        @NotNull
+        @Override
+        public StreamingYamlDataSource build() {
+            return new StreamingYamlDataSource(source, sink, getBuiltSerializerSet(), commentsEnabled, indent);
+        }
+    }
+
+    private final int indent;
+
+    private StreamingYamlDataSource(@Nullable Callable<BufferedReader> source, @Nullable Callable<BufferedWriter> sink,
+                                    @NotNull SerializerSet serializerSet, boolean commentsEnabled, int indent) {
+        super(source, sink, serializerSet, commentsEnabled);
+        this.indent = indent;
+    }
+
+    @NotNull
+    @Override
+    protected SerializedDataReader createReader(@NotNull BufferedReader reader) {
+        return new YamlEventReader(reader);
+    }
+
+    @NotNull
+    @Override
+    protected SerializedDataWriter createWriter(@NotNull BufferedWriter writer) {
+        return new YamlStreamWriter(writer, indent);
+    }
+}
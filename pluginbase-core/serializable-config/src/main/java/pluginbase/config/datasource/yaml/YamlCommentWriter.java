@@ -0,0 +1,212 @@
+package pluginbase.config.datasource.yaml;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A Writer that adds comments to YAML as it is written through it.
+ * <p/>
+ * Each line is held back only until it is complete. If the line is a YAML node with comments in the
+ * {@link YamlCommentMap}, the comments are written ahead of it. This allows a YAML emitter to dump straight to a file
+ * with comments added in the same pass, rather than dumping to a string that is then split into lines and rebuilt.
+ * <p/>
+ * The output is the same as that of {@link YamlFileCommentInstrumenter#addCommentsToYamlString(String)}: every line
+ * ends with a line separator and trailing blank lines are dropped. {@link #finish()} must be called after the last
+ * character is written for the final line to be written.
+ * <p/>
+ * <b>Note: </b> The indentation must be uniform for comments to be placed correctly.
+ */
+class YamlCommentWriter extends Writer {
+
+    @NotNull
+    private final Writer out;
+    @NotNull
+    private final YamlCommentMap commentMap;
+    private final int indentLength;
+
+    private final StringBuilder line = new StringBuilder(128);
+    private final StringBuilder path = new StringBuilder(64);
+    private int lastNodeDepth = 0;
+    /** Blank lines are only written once it is known they are not trailing. */
+    private int pendingBlankLines = 0;
+    private boolean written = false;
+    private boolean finished = false;
+
+    YamlCommentWriter(@NotNull Writer out, @NotNull YamlCommentMap commentMap, int indentLength) {
+        this.out = out;
+        this.commentMap = commentMap;
+        this.indentLength = indentLength;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        checkNotFinished();
+        written = true;
+        if (c == '\n') {
+            endLine();
+        } else {
+            line.append((char) c);
+        }
+    }
+
+    @Override
+    public void write(@NotNull char[] cbuf, int off, int len) throws IOException {
+        checkNotFinished();
+        if (len > 0) {
+            written = true;
+        }
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            if (cbuf[i] == '\n') {
+                line.append(cbuf, start, i - start);
+                endLine();
+                start = i + 1;
+            }
+        }
+        line.append(cbuf, start, end - start);
+    }
+
+    @Override
+    public void write(@NotNull String str, int off, int len) throws IOException {
+        checkNotFinished();
+        if (len > 0) {
+            written = true;
+        }
+        int end = off + len;
+        int start = off;
+        int newLine;
+        while ((newLine = str.indexOf('\n', start)) >= 0 && newLine < end) {
+            line.append(str, start, newLine);
+            endLine();
+            start = newLine + 1;
+        }
+        line.append(str, start, end);
+    }
+
+    /**
+     * Flushes the underlying writer. A line that has not been completed is not written until it is completed or
+     * {@link #finish()} is called.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes the final line and flushes the underlying writer without closing it. Nothing may be written after this
+     * has been called.
+     *
+     * @throws IOException if the underlying writer could not be written to.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (line.length() > 0) {
+            endLine();
+        } else if (!written) {
+            // Matches the instrumenter, which writes a single line for empty YAML.
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        out.close();
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Comment writer has already been finished");
+        }
+    }
+
+    private void endLine() throws IOException {
+        if (line.length() == 0) {
+            pendingBlankLines++;
+            return;
+        }
+        for (; pendingBlankLines > 0; pendingBlankLines--) {
+            out.write('\n');
+        }
+        writeComments();
+        line.append('\n');
+        out.append(line);
+        line.setLength(0);
+    }
+
+    /**
+     * Writes the comments for the current line if it is a YAML node, keeping track of the node's path.
+     */
+    private void writeComments() throws IOException {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end || line.charAt(start) == '#') {
+            return;
+        }
+        int nameEnd = -1;
+        for (int i = start; i < end - 1; i++) {
+            if (line.charAt(i) == ':' && line.charAt(i + 1) == ' ') {
+                nameEnd = i;
+                break;
+            }
+        }
+        if (nameEnd < 0) {
+            if (end - start > 1 && line.charAt(end - 1) == ':') {
+                nameEnd = end - 1;
+            } else {
+                return;
+            }
+        }
+
+        if (path.length() == 0) {
+            // Only happens on the first node.
+            path.append(line, start, nameEnd);
+        } else {
+            int depth = 0;
+            while (depth < line.length() && line.charAt(depth) == ' ') {
+                depth++;
+            }
+            depth /= indentLength;
+            if (depth > lastNodeDepth) {
+                path.append(YamlFileCommentInstrumenter.PATH_SEPARATOR_CHAR);
+            } else {
+                for (int i = depth; i < lastNodeDepth; i++) {
+                    path.setLength(Math.max(lastPathSeparator(), 0));
+                }
+                path.setLength(lastPathSeparator() + 1);
+            }
+            path.append(line, start, nameEnd);
+            lastNodeDepth = depth;
+        }
+
+        if (commentMap.hasComments()) {
+            String comments = commentMap.getCommentsForPath(path.toString());
+            if (!comments.isEmpty()) {
+                out.write(comments);
+                out.write('\n');
+            }
+        }
+    }
+
+    private int lastPathSeparator() {
+        for (int i = path.length() - 1; i >= 0; i--) {
+            if (path.charAt(i) == YamlFileCommentInstrumenter.PATH_SEPARATOR_CHAR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -103,10 +103,11 @@ class YamlConfigLoader extends AbstractConfigurationLoader<ConfigurationNode> {
             if (!(value instanceof Map)) {
                 throw new IOException("Data must be in the form of a Map");
             }
-            String dump = yaml.get().dump(value);
             YamlFileCommentInstrumenter commentInstrumenter = YamlCommentsMapper.createYamlCommentInstrumenter((Map<?, ?>) value, options.getIndent());
-            dump = commentInstrumenter.addCommentsToYamlString(dump);
-            writer.write(dump);
+            // Comments are added as the dump is written rather than by rebuilding the dumped string.
+            YamlCommentWriter commentWriter = commentInstrumenter.createCommentWriter(writer);
+            yaml.get().dump(value, commentWriter);
+            commentWriter.finish();
         } else {
             yaml.get().dump(node.getValue(), writer);
         }
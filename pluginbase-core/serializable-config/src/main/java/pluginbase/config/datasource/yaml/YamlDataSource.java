@@ -58,11 +58,12 @@ public class YamlDataSource extends AbstractDataSource {
         @NotNull
         @Override
         public YamlDataSource build() {
-            return new YamlDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet(), commentsEnabled);
+            return new YamlDataSource(builder.setSource(source).setSink(sink).build(), getBuiltSerializerSet(), commentsEnabled, dirtyTracking);
         }
     }
 
-    private YamlDataSource(@NotNull YamlConfigLoader loader, @NotNull SerializerSet serializerSet, boolean commentsEnabled) {
-        super(loader, serializerSet, commentsEnabled);
+    private YamlDataSource(@NotNull YamlConfigLoader loader, @NotNull SerializerSet serializerSet, boolean commentsEnabled,
+                           boolean dirtyTracking) {
+        super(loader, serializerSet, commentsEnabled, dirtyTracking);
     }
 }
@@ -0,0 +1,254 @@
+package pluginbase.config.datasource.yaml;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+import pluginbase.config.serializers.SerializedDataReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Reads YAML through SnakeYAML's event parser.
+ * <p/>
+ * Scalars are resolved to the same types SnakeYAML's safe constructor would produce for them. Anchors and aliases
+ * are not supported.
+ */
+class YamlEventReader implements SerializedDataReader {
+
+    private static final Resolver RESOLVER = new Resolver();
+    private static final BigInteger MIN_LONG = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger MAX_LONG = BigInteger.valueOf(Long.MAX_VALUE);
+
+    @NotNull
+    private final Reader reader;
+    @NotNull
+    private final Iterator<Event> events;
+    /**
+     * For each open collection, whether it is a mapping and whether that mapping expects a key next.
+     */
+    private final Deque<Frame> collections = new ArrayDeque<>();
+
+    private static final class Frame {
+        final boolean map;
+        boolean expectingKey;
+
+        Frame(boolean map) {
+            this.map = map;
+            this.expectingKey = map;
+        }
+    }
+
+    private Object key;
+    private Object value;
+
+    YamlEventReader(@NotNull Reader reader) {
+        this.reader = reader;
+        this.events = new Yaml().parse(reader).iterator();
+    }
+
+    @NotNull
+    @Override
+    public Token next() throws IOException {
+        try {
+            while (events.hasNext()) {
+                Event event = events.next();
+                if (event instanceof ScalarEvent) {
+                    Object scalar = resolve((ScalarEvent) event);
+                    if (expectingKey()) {
+                        if (scalar == null) {
+                            throw new IOException("Null map keys are not supported: " + event.getStartMark());
+                        }
+                        key = scalar;
+                        collections.peek().expectingKey = false;
+                        return Token.KEY;
+                    }
+                    valueRead();
+                    value = scalar;
+                    return Token.VALUE;
+                } else if (event instanceof MappingStartEvent) {
+                    checkNotKey(event);
+                    collections.push(new Frame(true));
+                    return Token.BEGIN_MAP;
+                } else if (event instanceof MappingEndEvent) {
+                    collections.pop();
+                    valueRead();
+                    return Token.END_MAP;
+                } else if (event instanceof SequenceStartEvent) {
+                    checkNotKey(event);
+                    collections.push(new Frame(false));
+                    return Token.BEGIN_LIST;
+                } else if (event instanceof SequenceEndEvent) {
+                    collections.pop();
+                    valueRead();
+                    return Token.END_LIST;
+                } else if (event instanceof AliasEvent) {
+                    throw new IOException("YAML aliases are not supported by streaming data sources: " + event.getStartMark());
+                } else if (event instanceof StreamEndEvent) {
+                    return Token.END;
+                }
+            }
+            return Token.END;
+        } catch (YAMLException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private boolean expectingKey() {
+        Frame collection = collections.peek();
+        return collection != null && collection.expectingKey;
+    }
+
+    private void checkNotKey(@NotNull Event event) throws IOException {
+        if (expectingKey()) {
+            throw new IOException("Complex map keys are not supported: " + event.getStartMark());
+        }
+    }
+
+    /**
+     * Marks that the value of the current map entry has been read, if inside a map.
+     */
+    private void valueRead() {
+        Frame collection = collections.peek();
+        if (collection != null && collection.map) {
+            collection.expectingKey = true;
+        }
+    }
+
+    @NotNull
+    @Override
+    public Object getKey() {
+        return key;
+    }
+
+    @Nullable
+    @Override
+    public Object getValue() {
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    @Nullable
+    private static Object resolve(@NotNull ScalarEvent event) {
+        String value = event.getValue();
+        Tag tag;
+        String explicitTag = event.getTag();
+        if (explicitTag != null && !explicitTag.equals("!")) {
+            tag = new Tag(explicitTag);
+        } else {
+            tag = RESOLVER.resolve(NodeId.scalar, value, event.getImplicit().canOmitTagInPlainScalar());
+        }
+        if (tag.equals(Tag.NULL)) {
+            return null;
+        } else if (tag.equals(Tag.BOOL)) {
+            return resolveBoolean(value);
+        } else if (tag.equals(Tag.INT)) {
+            return resolveInteger(value);
+        } else if (tag.equals(Tag.FLOAT)) {
+            return resolveFloat(value);
+        }
+        return value;
+    }
+
+    @NotNull
+    private static Boolean resolveBoolean(@NotNull String value) {
+        switch (value.toLowerCase(Locale.ENGLISH)) {
+            case "yes":
+            case "true":
+            case "on":
+                return Boolean.TRUE;
+            default:
+                return Boolean.FALSE;
+        }
+    }
+
+    @NotNull
+    private static Number resolveInteger(@NotNull String value) {
+        String number = value.replace("_", "");
+        int sign = 1;
+        if (number.startsWith("-")) {
+            sign = -1;
+            number = number.substring(1);
+        } else if (number.startsWith("+")) {
+            number = number.substring(1);
+        }
+        BigInteger result;
+        if (number.equals("0")) {
+            return 0;
+        } else if (number.startsWith("0b")) {
+            result = new BigInteger(number.substring(2), 2);
+        } else if (number.startsWith("0x")) {
+            result = new BigInteger(number.substring(2), 16);
+        } else if (number.startsWith("0")) {
+            result = new BigInteger(number.substring(1), 8);
+        } else if (number.indexOf(':') >= 0) {
+            result = BigInteger.ZERO;
+            for (String digits : number.split(":")) {
+                result = result.multiply(BigInteger.valueOf(60)).add(new BigInteger(digits));
+            }
+        } else {
+            result = new BigInteger(number);
+        }
+        if (sign < 0) {
+            result = result.negate();
+        }
+        if (result.bitLength() < 32) {
+            return result.intValue();
+        } else if (result.compareTo(MIN_LONG) >= 0 && result.compareTo(MAX_LONG) <= 0) {
+            return result.longValue();
+        }
+        return result;
+    }
+
+    @NotNull
+    private static Double resolveFloat(@NotNull String value) {
+        String number = value.replace("_", "").toLowerCase(Locale.ENGLISH);
+        switch (number) {
+            case ".inf":
+            case "+.inf":
+                return Double.POSITIVE_INFINITY;
+            case "-.inf":
+                return Double.NEGATIVE_INFINITY;
+            case ".nan":
+                return Double.NaN;
+            default:
+                break;
+        }
+        if (number.indexOf(':') >= 0) {
+            int sign = 1;
+            if (number.startsWith("-")) {
+                sign = -1;
+                number = number.substring(1);
+            } else if (number.startsWith("+")) {
+                number = number.substring(1);
+            }
+            double result = 0;
+            for (String digits : number.split(":")) {
+                result = result * 60 + Double.parseDouble(digits);
+            }
+            return sign * result;
+        }
+        return Double.valueOf(number);
+    }
+}
@@ -9,6 +9,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 
 /**
  * A utility for adding in comments to a YAML file.
@@ -22,12 +24,6 @@ class YamlFileCommentInstrumenter {
     private final YamlCommentMap commentMap;
     private final int indentLength;
 
-    private StringBuilder finalFileContents;
-    private StringBuilder lastYamlPath;
-    private int lastNodeDepth;
-
-    private String currentLine;
-
     /**
      * Creates an YamlFileCommentInstrumenter which will allow you to add comments to a YAML file.
      * <p/>
@@ -72,118 +68,31 @@ class YamlFileCommentInstrumenter {
         }
     }
 
+    /**
+     * Adds comments to the given YAML.
+     * <p/>
+     * This is equivalent to writing the YAML through a {@link YamlCommentWriter}, which should be preferred when the
+     * YAML is being written to a file or stream.
+     */
     public String addCommentsToYamlString(@NotNull final String yamlString) {
-        finalFileContents = new StringBuilder();
-        lastYamlPath = new StringBuilder();
-        lastNodeDepth = 0;
-
-        final String[] yamlLines = splitStringByLines(yamlString);
-        for (String line : yamlLines) {
-            String instrumentedLine = instrumentLine(line);
-            finalFileContents.append(instrumentedLine);
+        StringWriter writer = new StringWriter(yamlString.length() + 256);
+        try (YamlCommentWriter commentWriter = createCommentWriter(writer)) {
+            commentWriter.write(yamlString);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringWriter should not throw IOException", e);
         }
-        return finalFileContents.toString();
-    }
-
-    private String[] splitStringByLines(final String stringToSplit) {
-        return stringToSplit.split(LINE_SEPARATOR);
+        return writer.toString();
     }
 
-    private String instrumentLine(final String lineFromFile) {
-        currentLine = lineFromFile;
-        StringBuilder replacementForCurrentLine = new StringBuilder(currentLine);
-        if (currentLineIsYamlNode()) {
-            String comments = getCommentsForCurrentNode();
-            if (comments != null && !comments.isEmpty()) {
-                replacementForCurrentLine.insert(0, LINE_SEPARATOR);
-                replacementForCurrentLine.insert(0, comments);
-            }
-        }
-        replacementForCurrentLine.append(LINE_SEPARATOR);
-        return replacementForCurrentLine.toString();
-    }
-
-    private boolean currentLineIsYamlNode() {
-        String trimmedLine = currentLine.trim();
-        return notEmptyOrComment(trimmedLine) &&
-                (trimmedLine.contains(": ") || (trimmedLine.length() > 1 && trimmedLine.charAt(trimmedLine.length() - 1) == ':'));
-    }
-
-    private boolean notEmptyOrComment(String trimmedLine) {
-        return !trimmedLine.isEmpty() && !trimmedLine.startsWith("#");
-    }
-
-    private String getCommentsForCurrentNode() {
-        String currentNodePath = determineCurrentNodePath();
-        return commentMap.getCommentsForPath(currentNodePath);
-    }
-
-    private String determineCurrentNodePath() {
-        String currentNodeName = getCurrentNodeName();
-        if (lastYamlPath.length() == 0) {
-            // Only happens on first node in the file
-            lastYamlPath.append(currentNodeName);
-        } else {
-            int currentNodeDepth = getCurrentNodeDepth();
-            if (currentNodeDepth > lastNodeDepth) {
-                lastYamlPath.append(PATH_SEPARATOR);
-            } else if (currentNodeDepth < lastNodeDepth) {
-                removeDepthFromPath(lastNodeDepth - currentNodeDepth);
-                removeFinalNodeFromPath();
-            } else {
-                removeFinalNodeFromPath();
-            }
-            lastYamlPath.append(currentNodeName);
-            lastNodeDepth = currentNodeDepth;
-        }
-        return lastYamlPath.toString();
-    }
-
-    private String getCurrentNodeName() {
-        String trimmedLine = currentLine.trim();
-        int nodeNameLength = getNodeNameLengthIncludingWhiteSpace(trimmedLine);
-        return trimmedLine.substring(0, nodeNameLength);
-    }
-
-    private int getNodeNameLengthIncludingWhiteSpace(final String trimmedLine) {
-        // TODO probably needs better detection of node name end
-        int nodeNameLength = trimmedLine.indexOf(": ");
-        if (nodeNameLength < 0) {
-            nodeNameLength = trimmedLine.length() - 1;
-        }
-        return nodeNameLength;
-    }
-
-    private int getCurrentNodeDepth() {
-        int currentWhiteSpaceAmount = getWhiteSpacePrecedingCurrentLine();
-        return currentWhiteSpaceAmount / indentLength;
-    }
-
-    private int getWhiteSpacePrecedingCurrentLine() {
-        int whiteSpace = 0;
-        for (int n = 0; n < currentLine.length(); n++) {
-            if (currentLine.charAt(n) == ' ') {
-                whiteSpace++;
-            } else {
-                break;
-            }
-        }
-        return whiteSpace;
-    }
-
-    private void removeDepthFromPath(int depthToRemove) {
-        for (int i = 0; i < depthToRemove; i++) {
-            lastYamlPath.delete(lastYamlPath.lastIndexOf(PATH_SEPARATOR), lastYamlPath.length());
-        }
-    }
-
-    private void removeFinalNodeFromPath() {
-        int finalPathSeparatorIndex = lastYamlPath.lastIndexOf(PATH_SEPARATOR);
-        if (finalPathSeparatorIndex < 0) {
-            lastYamlPath.delete(0, lastYamlPath.length());
-        } else {
-            lastYamlPath.delete(finalPathSeparatorIndex + 1, lastYamlPath.length());
-        }
+    /**
+     * Creates a Writer that adds this instrumenter's comments to YAML as it is written to the given writer.
+     *
+     * @param writer the writer to write the commented YAML to.
+     * @return a new comment writer for the given writer.
+     */
+    @NotNull
+    YamlCommentWriter createCommentWriter(@NotNull final Writer writer) {
+        return new YamlCommentWriter(writer, commentMap, indentLength);
     }
 
     private void saveNewContentsToFile(final String newContents, final File file) throws IOException {
@@ -0,0 +1,340 @@
+package pluginbase.config.datasource.yaml;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+import pluginbase.config.serializers.SerializedDataWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Writes block style YAML as data is written to it, laid out the same way SnakeYAML dumps it.
+ * <p/>
+ * Comments are written on the lines preceding their key, at the key's indentation.
+ */
+class YamlStreamWriter implements SerializedDataWriter {
+
+    private static final Resolver RESOLVER = new Resolver();
+
+    /**
+     * Where the value currently being written is placed.
+     */
+    private enum Position {
+        NONE,
+        ROOT,
+        KEY,
+        ITEM
+    }
+
+    private static final class Frame {
+        final boolean map;
+        /** The column the children of this map or list are written at. */
+        final int column;
+        /** Where this map or list was placed. */
+        final Position position;
+        boolean opened = false;
+
+        Frame(boolean map, int column, @NotNull Position position) {
+            this.map = map;
+            this.column = column;
+            this.position = position;
+        }
+    }
+
+    @NotNull
+    private final Writer out;
+    private final int indent;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    /** The current line, which is held back until complete so that comments can be written before it. */
+    private final StringBuilder line = new StringBuilder();
+
+    private Position position = Position.NONE;
+    private int positionColumn = 0;
+    private boolean started = false;
+
+    YamlStreamWriter(@NotNull Writer out, int indent) {
+        if (indent < 2) {
+            throw new IllegalArgumentException("Indent must be at least 2");
+        }
+        this.out = out;
+        this.indent = indent;
+    }
+
+    @Override
+    public void header(@NotNull String[] comments) throws IOException {
+        if (started) {
+            throw new IllegalStateException("The header must be written first");
+        }
+        writeComments(comments, 0);
+        out.write('\n');
+    }
+
+    @Override
+    public void beginMap() throws IOException {
+        beforeValue();
+        frames.push(new Frame(true, position == Position.ROOT ? 0 : positionColumn + indent, position));
+        position = Position.NONE;
+    }
+
+    @Override
+    public void key(@NotNull Object key, @Nullable String[] comments) throws IOException {
+        Frame frame = frames.peek();
+        if (frame == null || !frame.map || position != Position.NONE) {
+            throw new IllegalStateException("A key may only be written in a map");
+        }
+        open(frame);
+        if (comments != null) {
+            writeComments(comments, frame.column);
+        }
+        if (line.length() == 0) {
+            appendSpaces(frame.column);
+        }
+        line.append(format(key)).append(':');
+        position = Position.KEY;
+        positionColumn = frame.column;
+    }
+
+    @Override
+    public void endMap() throws IOException {
+        end(true, "{}");
+    }
+
+    @Override
+    public void beginList() throws IOException {
+        beforeValue();
+        int column;
+        switch (position) {
+            case KEY:
+                // Block sequences in a mapping are not indented.
+                column = positionColumn;
+                break;
+            case ITEM:
+                column = positionColumn + indent;
+                break;
+            default:
+                column = 0;
+        }
+        frames.push(new Frame(false, column, position));
+        position = Position.NONE;
+    }
+
+    @Override
+    public void endList() throws IOException {
+        end(false, "[]");
+    }
+
+    @Override
+    public void value(@Nullable Object value) throws IOException {
+        beforeValue();
+        if (position != Position.ROOT) {
+            line.append(' ');
+        }
+        line.append(format(value));
+        endLine();
+        position = Position.NONE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (line.length() > 0) {
+            endLine();
+        }
+        out.close();
+    }
+
+    /**
+     * Determines where the value about to be written is placed, starting a list item if in a list.
+     */
+    private void beforeValue() throws IOException {
+        Frame frame = frames.peek();
+        if (frame == null) {
+            if (started) {
+                throw new IllegalStateException("Only a single root value may be written");
+            }
+            started = true;
+            position = Position.ROOT;
+        } else if (frame.map) {
+            if (position != Position.KEY) {
+                throw new IllegalStateException("A value in a map must follow a key");
+            }
+        } else {
+            open(frame);
+            if (line.length() == 0) {
+                appendSpaces(frame.column);
+            }
+            line.append('-');
+            position = Position.ITEM;
+            positionColumn = frame.column;
+        }
+    }
+
+    /**
+     * Called before the first child of a map or list is written.
+     */
+    private void open(@NotNull Frame frame) throws IOException {
+        if (frame.opened) {
+            return;
+        }
+        frame.opened = true;
+        if (frame.position == Position.KEY) {
+            endLine();
+        } else if (frame.position == Position.ITEM) {
+            // The first child goes on the same line as the item's dash.
+            appendSpaces(frame.column - line.length());
+        }
+    }
+
+    private void end(boolean map, @NotNull String empty) throws IOException {
+        Frame frame = frames.poll();
+        if (frame == null || frame.map != map || position != Position.NONE) {
+            throw new IllegalStateException("There is no " + (map ? "map" : "list") + " to end");
+        }
+        if (!frame.opened) {
+            if (frame.position != Position.ROOT) {
+                line.append(' ');
+            }
+            line.append(empty);
+            endLine();
+        }
+    }
+
+    private void writeComments(@NotNull String[] comments, int column) throws IOException {
+        for (String comment : comments) {
+            if (!comment.isEmpty()) {
+                for (int i = 0; i < column; i++) {
+                    out.write(' ');
+                }
+                if (comment.charAt(0) != '#') {
+                    out.write("# ");
+                }
+                out.write(comment);
+            }
+            out.write('\n');
+        }
+    }
+
+    private void appendSpaces(int count) {
+        for (int i = 0; i < count; i++) {
+            line.append(' ');
+        }
+    }
+
+    private void endLine() throws IOException {
+        line.append('\n');
+        out.append(line);
+        line.setLength(0);
+    }
+
+    @NotNull
+    static String format(@Nullable Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger) {
+            return value.toString();
+        }
+        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+            String number = formatDecimal((Number) value);
+            if (RESOLVER.resolve(NodeId.scalar, number, true).equals(Tag.FLOAT)) {
+                return number;
+            }
+        }
+        String string = value.toString();
+        return isPlain(string) ? string : quote(string);
+    }
+
+    @NotNull
+    private static String formatDecimal(@NotNull Number number) {
+        double d = number.doubleValue();
+        if (!(number instanceof BigDecimal)) {
+            if (Double.isNaN(d)) {
+                return ".NaN";
+            } else if (d == Double.POSITIVE_INFINITY) {
+                return ".inf";
+            } else if (d == Double.NEGATIVE_INFINITY) {
+                return "-.inf";
+            }
+        }
+        String string = number.toString();
+        int exponent = string.indexOf('E');
+        if (exponent >= 0 && exponent + 1 < string.length() && string.charAt(exponent + 1) != '-'
+                && string.charAt(exponent + 1) != '+') {
+            // YAML 1.1 floats require a signed exponent.
+            string = string.substring(0, exponent + 1) + '+' + string.substring(exponent + 1);
+        }
+        return string;
+    }
+
+    /**
+     * Whether the string can be written without quotes and still be read back as the same string.
+     */
+    private static boolean isPlain(@NotNull String string) {
+        if (string.isEmpty()) {
+            return false;
+        }
+        char first = string.charAt(0);
+        if (first >= 128 || (!Character.isLetterOrDigit(first) && first != '_' && first != '/')) {
+            return false;
+        }
+        if (string.charAt(string.length() - 1) == ' ') {
+            return false;
+        }
+        for (int i = 1; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (!(c < 128 && (Character.isLetterOrDigit(c) || c == ' ' || c == '_' || c == '.' || c == '-' || c == '/'
+                    || c == '(' || c == ')' || c == '\''))) {
+                return false;
+            }
+        }
+        return RESOLVER.resolve(NodeId.scalar, string, true).equals(Tag.STR);
+    }
+
+    @NotNull
+    private static String quote(@NotNull String string) {
+        StringBuilder quoted = new StringBuilder(string.length() + 2);
+        quoted.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (isPrintable(c)) {
+                        quoted.append(c);
+                    } else {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    }
+            }
+        }
+        quoted.append('"');
+        return quoted.toString();
+    }
+
+    private static boolean isPrintable(char c) {
+        return (c >= 0x20 && c <= 0x7E) || c == 0x85 || (c >= 0xA0 && c <= 0xFFFD && c != 0x2028 && c != 0x2029);
+    }
+}
@@ -28,7 +28,10 @@ public class Field extends FieldMap {
 
     @NotNull
     private final java.lang.reflect.Field field;
+    @NotNull
+    private final FieldAccessor accessor;
     private final boolean persistable;
+    private final boolean virtual;
     private final boolean immutable;
     private final String name;
     private final Type type;
@@ -60,14 +63,16 @@ public class Field extends FieldMap {
         return new FieldInstance(object, name).locateField();
     }
 
-    Field(@NotNull java.lang.reflect.Field field) {
-        this(field, null);
+    Field(@NotNull java.lang.reflect.Field field, @NotNull FieldAccessor accessor) {
+        this(field, accessor, null);
     }
 
-    Field(@NotNull java.lang.reflect.Field field, @Nullable FieldMap children) {
+    Field(@NotNull java.lang.reflect.Field field, @NotNull FieldAccessor accessor, @Nullable FieldMap children) {
         super(children == null ? null : children.fieldMap);
         this.field = field;
+        this.accessor = accessor;
         this.persistable = !Modifier.isTransient(field.getModifiers());
+        this.virtual = VirtualField.class.isAssignableFrom(field.getType());
         this.name = getName(field);
         this.immutable = field.getAnnotation(Immutable.class) != null;
         this.type = determineActualType(field);
@@ -235,6 +240,15 @@ public class Field extends FieldMap {
         return immutable;
     }
 
+    /**
+     * Indicates whether the underlying java field is a {@link VirtualField}.
+     *
+     * @return true if the underlying java field is a VirtualField.
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
     @Nullable
     public Class getSerializerClass() {
         return serializerClass;
@@ -266,25 +280,15 @@ public class Field extends FieldMap {
 
     @Nullable
     public Object getValue(@NotNull Object object) {
-        boolean accessible = field.isAccessible();
-        if (!accessible) {
-            field.setAccessible(true);
-        }
         try {
-            if (VirtualField.class.isAssignableFrom(field.getType())) {
-                VirtualField vProp = (VirtualField) field.get(object);
+            if (virtual) {
+                VirtualField vProp = (VirtualField) accessor.get(object);
                 return vProp != null ? vProp.get() : null;
             } else {
-                return field.get(object);
+                return accessor.get(object);
             }
-        } catch (IllegalAccessException e) {
-            throw new IllegalAccessError("This should never happen.");
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("The specified object does not contain this field.", e);
-        } finally {
-            if (!accessible) {
-                field.setAccessible(false);
-            }
         }
     }
 
@@ -295,19 +299,44 @@ public class Field extends FieldMap {
         forceSet(object, value);
     }
 
-    public void forceSet(@NotNull Object object, @Nullable Object value) throws PropertyVetoException {
-        boolean accessible = field.isAccessible();
-        if (!accessible) {
-            field.setAccessible(true);
+    /**
+     * Copies the value of this field from one object to another as {@link #setValue(Object, Object)} would.
+     * <p/>
+     * {@code int}, {@code long} and {@code double} fields without a validator are copied through the primitive
+     * methods of the field's {@link FieldAccessor} so that the value is never boxed.
+     *
+     * @param source the object to copy the value from.
+     * @param destination the object to copy the value to.
+     * @throws PropertyVetoException if the field's validator rejects the value.
+     */
+    void copyValue(@NotNull Object source, @NotNull Object destination) throws PropertyVetoException {
+        Class<?> primitiveType = field.getType();
+        if (immutable || virtual || validatorClass != null || !primitiveType.isPrimitive()) {
+            setValue(destination, getValue(source));
+            return;
+        }
+        try {
+            if (primitiveType == int.class) {
+                accessor.setInt(destination, accessor.getInt(source));
+            } else if (primitiveType == long.class) {
+                accessor.setLong(destination, accessor.getLong(source));
+            } else if (primitiveType == double.class) {
+                accessor.setDouble(destination, accessor.getDouble(source));
+            } else {
+                accessor.set(destination, accessor.get(source));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("The specified object does not contain " + this, e);
         }
+    }
+
+    public void forceSet(@NotNull Object object, @Nullable Object value) throws PropertyVetoException {
         try {
-            if (VirtualField.class.isAssignableFrom(field.getType())) {
-                setVirtualProperty((VirtualField) field.get(object), value);
+            if (virtual) {
+                setVirtualProperty((VirtualField) accessor.get(object), value);
             } else {
                 setProperty(object, value);
             }
-        } catch (IllegalAccessException e) {
-            throw new IllegalAccessError("This should never happen.");
         } catch (IllegalArgumentException e) {
             try {
                 FieldMap fieldMap = FieldMapper.getFieldMap(object.getClass());
@@ -316,10 +345,6 @@ public class Field extends FieldMap {
                 }
             } catch (IllegalArgumentException ignore) { }
             throw new IllegalArgumentException("The specified object does not contain " + this, e);
-        } finally {
-            if (!accessible) {
-                field.setAccessible(false);
-            }
         }
     }
 
@@ -335,20 +360,45 @@ public class Field extends FieldMap {
         }
     }
 
-    private void setProperty(@NotNull Object object, @Nullable Object value) throws IllegalAccessException, PropertyVetoException {
+    private void setProperty(@NotNull Object object, @Nullable Object value) throws PropertyVetoException {
         Validator validator = getValidator();
         if (validator != null) {
-            field.set(object, validator.validateChange(value, field.get(object)));
+            accessor.set(object, validator.validateChange(value, accessor.get(object)));
         } else {
-            field.set(object, value);
+            accessor.set(object, value);
         }
     }
 
+    /**
+     * Returns the accessor used to read and write the underlying java field of this Field.
+     * <p/>
+     * Note that for {@link VirtualField}s the accessor operates on the VirtualField object itself rather than the
+     * virtual value.
+     *
+     * @return the accessor for the underlying java field.
+     */
+    @NotNull
+    public FieldAccessor getAccessor() {
+        return accessor;
+    }
+
     @NotNull
     public Class getType() {
         return typeClass;
     }
 
+    /**
+     * Returns the full generic type of this field as determined by gentyref.
+     * <p/>
+     * For {@link VirtualField}s this is the type of the virtual value rather than the VirtualField itself.
+     *
+     * @return the generic type of this field.
+     */
+    @NotNull
+    public Type getGenericType() {
+        return type;
+    }
+
     @Nullable
     public Class getCollectionType() {
         return collectionType;
@@ -0,0 +1,64 @@
+package pluginbase.config.field;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides read and write access to the value of a single field on any instance of the field's declaring class.
+ * <p/>
+ * Accessors are created once per field by {@link FieldMapper} and then reused for every get and set, so
+ * implementations should perform any expensive setup (such as access checks) up front. The primitive accessor methods
+ * exist so that implementations can avoid boxing for {@code int}, {@code long} and {@code double} fields. By default
+ * they simply box/unbox through {@link #get(Object)} and {@link #set(Object, Object)}. {@link FieldMapper#mapFields}
+ * copies fields of these types through them.
+ * <p/>
+ * Implementations should throw {@link IllegalArgumentException} when the given object does not contain the field or
+ * the given value is not of a compatible type.
+ *
+ * @see FieldAccessors
+ */
+public interface FieldAccessor {
+
+    /**
+     * Retrieves the value of the field from the given object.
+     *
+     * @param object the object to retrieve the field value from.
+     * @return the value of the field which may be null.
+     * @throws IllegalArgumentException if the object does not contain the field.
+     */
+    @Nullable
+    Object get(@NotNull Object object) throws IllegalArgumentException;
+
+    /**
+     * Sets the value of the field on the given object.
+     *
+     * @param object the object to set the field value on.
+     * @param value the new value for the field.
+     * @throws IllegalArgumentException if the object does not contain the field or the value is of the wrong type.
+     */
+    void set(@NotNull Object object, @Nullable Object value) throws IllegalArgumentException;
+
+    default int getInt(@NotNull Object object) throws IllegalArgumentException {
+        return (Integer) get(object);
+    }
+
+    default void setInt(@NotNull Object object, int value) throws IllegalArgumentException {
+        set(object, value);
+    }
+
+    default long getLong(@NotNull Object object) throws IllegalArgumentException {
+        return (Long) get(object);
+    }
+
+    default void setLong(@NotNull Object object, long value) throws IllegalArgumentException {
+        set(object, value);
+    }
+
+    default double getDouble(@NotNull Object object) throws IllegalArgumentException {
+        return (Double) get(object);
+    }
+
+    default void setDouble(@NotNull Object object, double value) throws IllegalArgumentException {
+        set(object, value);
+    }
+}
@@ -0,0 +1,73 @@
+package pluginbase.config.field;
+
+import org.jetbrains.annotations.NotNull;
+import pluginbase.logging.Logging;
+
+import java.util.function.Function;
+
+/**
+ * Creates the {@link FieldAccessor}s used by {@link FieldMapper}.
+ * <p/>
+ * By default, method handle based accessors are used for regular fields and reflection is used for fields of
+ * {@link VirtualField} type or any field that method handles cannot be obtained for. An alternate factory may be
+ * supplied through {@link #setAccessorFactory(Function)}. It will only affect fields mapped after it is set.
+ */
+public enum FieldAccessors {
+    ;
+
+    private static final Function<java.lang.reflect.Field, FieldAccessor> DEFAULT_FACTORY = FieldAccessors::createDefaultAccessor;
+
+    @NotNull
+    private static volatile Function<java.lang.reflect.Field, FieldAccessor> accessorFactory = DEFAULT_FACTORY;
+
+    /**
+     * Creates an accessor for the given field using the current accessor factory.
+     *
+     * @param field the field to create an accessor for.
+     * @return a new accessor for the given field.
+     */
+    @NotNull
+    public static FieldAccessor createAccessor(@NotNull java.lang.reflect.Field field) {
+        return accessorFactory.apply(field);
+    }
+
+    /**
+     * Creates an accessor for the given field that uses plain reflection for every access.
+     *
+     * @param field the field to create an accessor for.
+     * @return a new reflective accessor for the given field.
+     */
+    @NotNull
+    public static FieldAccessor createReflectiveAccessor(@NotNull java.lang.reflect.Field field) {
+        return new ReflectiveFieldAccessor(field);
+    }
+
+    /**
+     * Replaces the factory used to create field accessors.
+     *
+     * @param accessorFactory the new accessor factory.
+     */
+    public static void setAccessorFactory(@NotNull Function<java.lang.reflect.Field, FieldAccessor> accessorFactory) {
+        FieldAccessors.accessorFactory = accessorFactory;
+    }
+
+    /**
+     * Restores the default accessor factory.
+     */
+    public static void resetAccessorFactory() {
+        accessorFactory = DEFAULT_FACTORY;
+    }
+
+    @NotNull
+    private static FieldAccessor createDefaultAccessor(@NotNull java.lang.reflect.Field field) {
+        if (VirtualField.class.isAssignableFrom(field.getType())) {
+            return createReflectiveAccessor(field);
+        }
+        try {
+            return MethodHandleFieldAccessor.create(field);
+        } catch (IllegalAccessException | RuntimeException e) {
+            Logging.finest("Falling back to reflective access for %s: %s", field, e);
+            return createReflectiveAccessor(field);
+        }
+    }
+}
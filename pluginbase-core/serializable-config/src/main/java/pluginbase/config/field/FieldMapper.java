@@ -13,7 +13,19 @@ import java.util.*;
 
 public class FieldMapper {
 
-    private static final Map<Class, FieldMap> compiledFieldMaps = new HashMap<Class, FieldMap>();
+    /**
+     * The compiled FieldMap for each class. ClassValue does not keep classes from being unloaded, so maps for classes
+     * of a discarded class loader are released along with it.
+     */
+    private static final ClassValue<CompiledFieldMap> compiledFieldMaps = new ClassValue<CompiledFieldMap>() {
+        @Override
+        protected CompiledFieldMap computeValue(Class<?> type) {
+            return new CompiledFieldMap(type);
+        }
+    };
+
+    /** Weakly tracks every class a FieldMap has been compiled for so they can be evicted by class loader. */
+    private static final Set<Class<?>> mappedClasses = Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>());
 
     private final Class clazz;
 
@@ -39,7 +51,7 @@ public class FieldMapper {
                 }
             } else {
                 try {
-                    field.setValue(destination, field.getValue(source));
+                    field.copyValue(source, destination);
                 } catch (PropertyVetoException e) {
                     e.printStackTrace();
                 }
@@ -49,13 +61,79 @@ public class FieldMapper {
     }
 
     public static FieldMap getFieldMap(@NotNull Class clazz) {
-        if (compiledFieldMaps.containsKey(clazz)) {
-            return compiledFieldMaps.get(clazz);
+        return compiledFieldMaps.get(clazz).getFieldMap();
+    }
+
+    /**
+     * Discards the compiled FieldMap for the given class so that it will be rebuilt on next use.
+     * <p/>
+     * FieldMaps of other classes that contain the given class as a child are not affected.
+     *
+     * @param clazz the class to discard the FieldMap for.
+     */
+    public static void evictFieldMap(@NotNull Class clazz) {
+        compiledFieldMaps.remove(clazz);
+        synchronized (mappedClasses) {
+            mappedClasses.remove(clazz);
+        }
+    }
+
+    /**
+     * Discards the compiled FieldMaps for all classes defined by the given class loader.
+     * <p/>
+     * PluginBase calls this when a plugin is disabled so that nothing continues to refer to the old plugin classes
+     * once they are reloaded.
+     *
+     * @param classLoader the class loader to discard the FieldMaps for.
+     */
+    public static void evictFieldMaps(@NotNull ClassLoader classLoader) {
+        List<Class<?>> toEvict = new ArrayList<>();
+        synchronized (mappedClasses) {
+            for (Class<?> clazz : mappedClasses) {
+                if (clazz.getClassLoader() == classLoader) {
+                    toEvict.add(clazz);
+                }
+            }
+        }
+        for (Class<?> clazz : toEvict) {
+            evictFieldMap(clazz);
+        }
+    }
+
+    /**
+     * Lazily builds the FieldMap for a single class.
+     * <p/>
+     * ClassValue may compute a value more than once when threads race, but only one of the computed values is ever
+     * returned. Keeping the expensive mapping out of computeValue and behind this holder means the mapping itself
+     * happens exactly once per class.
+     */
+    private static class CompiledFieldMap {
+
+        @NotNull
+        private final Class<?> clazz;
+        private volatile FieldMap fieldMap;
+
+        CompiledFieldMap(@NotNull Class<?> clazz) {
+            this.clazz = clazz;
+        }
+
+        @NotNull
+        FieldMap getFieldMap() {
+            FieldMap fieldMap = this.fieldMap;
+            if (fieldMap == null) {
+                synchronized (this) {
+                    fieldMap = this.fieldMap;
+                    if (fieldMap == null) {
+                        fieldMap = new FieldMap(new FieldMapper(clazz).mapFields());
+                        synchronized (mappedClasses) {
+                            mappedClasses.add(clazz);
+                        }
+                        this.fieldMap = fieldMap;
+                    }
+                }
+            }
+            return fieldMap;
         }
-        FieldMapper fieldMapper = new FieldMapper(clazz);
-        FieldMap fieldMap = new FieldMap(fieldMapper.mapFields());
-        compiledFieldMaps.put(clazz, fieldMap);
-        return fieldMap;
     }
 
     private FieldMapper(@NotNull Class clazz) {
@@ -79,12 +157,12 @@ public class FieldMapper {
                         || field.getType().isArray()
                         || SerializerSet.defaultSet().hasSerializerForClass(fieldType)
                         || VirtualField.class.isAssignableFrom(fieldType)) {
-                    localField = new Field(field);
+                    localField = new Field(field, FieldAccessors.createAccessor(field));
                 } else {
                     if (fieldType.equals(clazz)) {
                         throw new IllegalStateException("Mapping fields for " + clazz + " would result in infinite recursion due self containment.");
                     }
-                    localField = new Field(field, getFieldMap(fieldType));
+                    localField = new Field(field, FieldAccessors.createAccessor(field), getFieldMap(fieldType));
                 }
                 resultMap.put(localField.getName().toLowerCase(), localField);
             }
@@ -0,0 +1,196 @@
+package pluginbase.config.field;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * A FieldAccessor backed by method handles that are looked up once when the accessor is created.
+ * <p/>
+ * Access checks are only performed during creation so each get and set is a direct invocation of the handle. Fields
+ * of type {@code int}, {@code long} and {@code double} additionally get handles typed with the primitive so the
+ * primitive accessor methods do not need to box.
+ */
+class MethodHandleFieldAccessor implements FieldAccessor {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    @NotNull
+    private final java.lang.reflect.Field field;
+    @NotNull
+    private final MethodHandle getter;
+    @NotNull
+    private final MethodHandle setter;
+    @Nullable
+    private final Class<?> primitiveType;
+    @Nullable
+    private final MethodHandle primitiveGetter;
+    @Nullable
+    private final MethodHandle primitiveSetter;
+
+    /**
+     * Creates a new accessor for the given field.
+     *
+     * @param field the field to create an accessor for.
+     * @return a new method handle based accessor for the field.
+     * @throws IllegalAccessException if handles could not be obtained for the field.
+     */
+    @NotNull
+    static MethodHandleFieldAccessor create(@NotNull java.lang.reflect.Field field) throws IllegalAccessException {
+        boolean accessible = field.isAccessible();
+        if (!accessible) {
+            field.setAccessible(true);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle getter = lookup.unreflectGetter(field);
+            MethodHandle setter = lookup.unreflectSetter(field);
+            return new MethodHandleFieldAccessor(field, getter, setter);
+        } finally {
+            if (!accessible) {
+                field.setAccessible(false);
+            }
+        }
+    }
+
+    private MethodHandleFieldAccessor(@NotNull java.lang.reflect.Field field, @NotNull MethodHandle getter, @NotNull MethodHandle setter) {
+        this.field = field;
+        this.getter = getter.asType(GETTER_TYPE);
+        this.setter = setter.asType(SETTER_TYPE);
+        Class<?> type = field.getType();
+        if (type == int.class || type == long.class || type == double.class) {
+            this.primitiveType = type;
+            this.primitiveGetter = getter.asType(MethodType.methodType(type, Object.class));
+            this.primitiveSetter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+        } else {
+            this.primitiveType = null;
+            this.primitiveGetter = null;
+            this.primitiveSetter = null;
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object get(@NotNull Object object) throws IllegalArgumentException {
+        try {
+            return (Object) getter.invokeExact(object);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    @Override
+    public void set(@NotNull Object object, @Nullable Object value) throws IllegalArgumentException {
+        try {
+            setter.invokeExact(object, value);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    @Override
+    public int getInt(@NotNull Object object) throws IllegalArgumentException {
+        if (primitiveType != int.class) {
+            return FieldAccessor.super.getInt(object);
+        }
+        try {
+            return (int) primitiveGetter.invokeExact(object);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    @Override
+    public void setInt(@NotNull Object object, int value) throws IllegalArgumentException {
+        if (primitiveType != int.class) {
+            FieldAccessor.super.setInt(object, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(object, value);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    @Override
+    public long getLong(@NotNull Object object) throws IllegalArgumentException {
+        if (primitiveType != long.class) {
+            return FieldAccessor.super.getLong(object);
+        }
+        try {
+            return (long) primitiveGetter.invokeExact(object);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    @Override
+    public void setLong(@NotNull Object object, long value) throws IllegalArgumentException {
+        if (primitiveType != long.class) {
+            FieldAccessor.super.setLong(object, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(object, value);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    @Override
+    public double getDouble(@NotNull Object object) throws IllegalArgumentException {
+        if (primitiveType != double.class) {
+            return FieldAccessor.super.getDouble(object);
+        }
+        try {
+            return (double) primitiveGetter.invokeExact(object);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    @Override
+    public void setDouble(@NotNull Object object, double value) throws IllegalArgumentException {
+        if (primitiveType != double.class) {
+            FieldAccessor.super.setDouble(object, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(object, value);
+        } catch (Throwable t) {
+            throw accessFailure(t);
+        }
+    }
+
+    /**
+     * Translates a failure from invoking one of the handles into the exception types used by reflection.
+     * <p/>
+     * Handles report a wrong target object or value type as a ClassCastException and a null value for a primitive
+     * field as a NullPointerException where reflection would throw an IllegalArgumentException.
+     */
+    @NotNull
+    private RuntimeException accessFailure(@NotNull Throwable t) {
+        if (t instanceof ClassCastException || t instanceof NullPointerException) {
+            return new IllegalArgumentException("Could not access " + field, t);
+        }
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new RuntimeException(t);
+    }
+
+    @Override
+    public String toString() {
+        return "MethodHandleFieldAccessor{" +
+                "field=" + field +
+                '}';
+    }
+}
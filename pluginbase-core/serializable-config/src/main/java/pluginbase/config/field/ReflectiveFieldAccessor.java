@@ -0,0 +1,49 @@
+package pluginbase.config.field;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A FieldAccessor that uses plain reflection.
+ * <p/>
+ * The accessible flag is set once when the accessor is created rather than toggled around each access so that the
+ * accessor may be used from multiple threads at once.
+ * <p/>
+ * This is used for {@link VirtualField} fields and whenever a {@link MethodHandleFieldAccessor} cannot be created.
+ */
+class ReflectiveFieldAccessor implements FieldAccessor {
+
+    @NotNull
+    private final java.lang.reflect.Field field;
+
+    ReflectiveFieldAccessor(@NotNull java.lang.reflect.Field field) {
+        this.field = field;
+        field.setAccessible(true);
+    }
+
+    @Nullable
+    @Override
+    public Object get(@NotNull Object object) throws IllegalArgumentException {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new IllegalAccessError("This should never happen.");
+        }
+    }
+
+    @Override
+    public void set(@NotNull Object object, @Nullable Object value) throws IllegalArgumentException {
+        try {
+            field.set(object, value);
+        } catch (IllegalAccessException e) {
+            throw new IllegalAccessError("This should never happen.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReflectiveFieldAccessor{" +
+                "field=" + field +
+                '}';
+    }
+}
@@ -2,17 +2,18 @@ package pluginbase.config.field;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public enum Validators {
     ;
 
-    private static Map<Class<? extends Validator>, Validator> validatorMap = new HashMap<Class<? extends Validator>, Validator>();
+    private static Map<Class<? extends Validator>, Validator> validatorMap = new ConcurrentHashMap<Class<? extends Validator>, Validator>();
 
     public static <T, V extends Validator<T>> Validator<T> getValidator(Class<V> validatorClass) {
-        if (validatorMap.containsKey(validatorClass)) {
-            return validatorMap.get(validatorClass);
+        Validator<T> cached = validatorMap.get(validatorClass);
+        if (cached != null) {
+            return cached;
         }
         Constructor constructor = null;
         boolean accessible = true;
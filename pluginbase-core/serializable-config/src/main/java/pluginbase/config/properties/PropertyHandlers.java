@@ -2,17 +2,18 @@ package pluginbase.config.properties;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public enum PropertyHandlers {
     ;
 
-    private static final Map<Class<? extends PropertyHandler>, PropertyHandler> HANDLER_MAP = new HashMap<Class<? extends PropertyHandler>, PropertyHandler>();
+    private static final Map<Class<? extends PropertyHandler>, PropertyHandler> HANDLER_MAP = new ConcurrentHashMap<Class<? extends PropertyHandler>, PropertyHandler>();
 
     public static <T extends PropertyHandler> PropertyHandler getHandler(Class<T> handlerClass) {
-        if (HANDLER_MAP.containsKey(handlerClass)) {
-            return HANDLER_MAP.get(handlerClass);
+        PropertyHandler cached = HANDLER_MAP.get(handlerClass);
+        if (cached != null) {
+            return cached;
         }
         try {
             Constructor<T> constructor = handlerClass.getDeclaredConstructor();
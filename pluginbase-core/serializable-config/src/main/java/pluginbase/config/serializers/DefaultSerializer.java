@@ -3,16 +3,10 @@ package pluginbase.config.serializers;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import pluginbase.config.SerializableConfig;
-import pluginbase.config.annotation.NoTypeKey;
-import pluginbase.config.annotation.SerializableAs;
 import pluginbase.config.field.Field;
-import pluginbase.config.field.FieldMap;
-import pluginbase.config.field.FieldMapper;
-import pluginbase.config.field.PropertyVetoException;
 
 import java.lang.reflect.Modifier;
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 class DefaultSerializer implements Serializer<Object> {
@@ -23,42 +17,9 @@ class DefaultSerializer implements Serializer<Object> {
         if (object == null) {
             return null;
         }
-        FieldMap fieldMap = FieldMapper.getFieldMap(object.getClass());
-        Map<String, Object> serializedMap = new LinkedHashMap<>(fieldMap.size() + 1);
-        if (!(object.getClass().isAnnotationPresent(NoTypeKey.class) && Modifier.isFinal(object.getClass().getModifiers()))) {
-            serializedMap.put(SerializableConfig.SERIALIZED_TYPE_KEY, getAlias(object.getClass()));
-        }
-        for (Field field : fieldMap) {
-            if (field.isPersistable()) {
-                serializedMap.put(field.getName(), serializeField(object, field, serializerSet));
-            }
-        }
-        return serializedMap;
-    }
-
-    @NotNull
-    private String getAlias(@NotNull Class clazz) {
-        SerializableAs alias = (SerializableAs) clazz.getAnnotation(SerializableAs.class);
-
-        if ((alias != null) && (alias.value() != null)) {
-            return alias.value();
-        }
-
-        return clazz.getName();
-    }
-
-
-    @Nullable
-    @SuppressWarnings("unchecked")
-    protected Object serializeField(@NotNull Object object, @NotNull Field field, @NotNull SerializerSet serializerSet) {
-        Object value = field.getValue(object);
-        if (value == null) {
-            return null;
-        }
-        return field.getSerializer(serializerSet).serialize(value, serializerSet);
+        return serializerSet.getSerializationPlan(object.getClass()).serialize(object, serializerSet);
     }
 
-
     @Nullable
     @Override
     public Object deserialize(@Nullable Object serialized, @NotNull Class wantedType, @NotNull SerializerSet serializerSet) throws IllegalArgumentException {
@@ -88,7 +49,7 @@ class DefaultSerializer implements Serializer<Object> {
         } else if (Modifier.isFinal(wantedType.getModifiers())) {
             typeInstance = InstanceUtil.createInstance(wantedType);
         } else {
-            Class clazz = SerializableConfig.getClassFromSerializedData(data);
+            Class clazz = SerializableConfig.getClassFromSerializedData(data, wantedType);
             if (clazz != null) {
                 typeInstance = InstanceUtil.createInstance(clazz);
             } else {
@@ -103,11 +64,14 @@ class DefaultSerializer implements Serializer<Object> {
     }
 
     protected static Collection<?> deserializeCollection(@NotNull Field field, @NotNull Collection<?> data, @NotNull Class asClass, @NotNull SerializerSet serializerSet) {
+        return deserializeCollection(field.getCollectionType(), data, asClass, serializerSet);
+    }
+
+    static Collection<?> deserializeCollection(@Nullable Class collectionType, @NotNull Collection<?> data, @NotNull Class asClass, @NotNull SerializerSet serializerSet) {
         Collection collection = CollectionSerializer.createCollection(asClass, data.size());
         for (Object object : data) {
-            Class collectionType = field.getCollectionType();
             if (collectionType != null && !collectionType.equals(Object.class)) {
-                collection.add(SerializableConfig.deserializeAs(object, field.getCollectionType(), serializerSet));
+                collection.add(SerializableConfig.deserializeAs(object, collectionType, serializerSet));
             } else {
                 collection.add(SerializableConfig.deserialize(object, serializerSet));
             }
@@ -116,9 +80,12 @@ class DefaultSerializer implements Serializer<Object> {
     }
 
     protected static Map<?, ?> deserializeMap(@NotNull Field field, @NotNull Map<?, ?> data, @NotNull Class asClass, @NotNull SerializerSet serializerSet) {
+        return deserializeMap(field.getMapType(), data, asClass, serializerSet);
+    }
+
+    static Map<?, ?> deserializeMap(@Nullable Class mapType, @NotNull Map<?, ?> data, @NotNull Class asClass, @NotNull SerializerSet serializerSet) {
         Map map = MapSerializer.createMap(asClass, data.size());
         for (Map.Entry entry : data.entrySet()) {
-            Class mapType = field.getMapType();
             if (mapType != null && !mapType.equals(Object.class)) {
                 map.put(SerializableConfig.deserialize(entry.getKey(), serializerSet), SerializableConfig.deserializeAs(entry.getValue(), mapType, serializerSet));
             } else {
@@ -127,12 +94,4 @@ class DefaultSerializer implements Serializer<Object> {
         }
         return map;
     }
-
-    protected static Object deserializeFieldAs(@NotNull Field field, @NotNull Object data, @NotNull Class asClass, @NotNull SerializerSet serializerSet) {
-        try {
-            return field.getSerializer(serializerSet).deserialize(data, asClass, serializerSet);
-        } catch (Exception e) {
-            throw new RuntimeException("Exception while deserializing field '" + field + "' as class '" + asClass + "'", e);
-        }
-    }
 }
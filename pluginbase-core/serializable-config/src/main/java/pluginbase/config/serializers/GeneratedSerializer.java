@@ -0,0 +1,331 @@
+package pluginbase.config.serializers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.field.FieldAccessor;
+import pluginbase.config.field.FieldAccessors;
+import pluginbase.config.field.PropertyVetoException;
+import pluginbase.config.field.Validator;
+
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The base class for serializers created at compile time for classes annotated with
+ * {@link pluginbase.config.annotation.GenerateSerializer}.
+ * <p/>
+ * Generated serializers produce the same serialized form as the default reflective serialization and deserialize it
+ * the same way, but do so with code written specifically for one class instead of walking a
+ * {@link pluginbase.config.field.FieldMap}. Objects whose runtime class is not exactly the class the serializer was
+ * generated for are handed to that class's {@link SerializationPlan}, just as the default serializer would.
+ * <p/>
+ * Implementations are discovered through {@link java.util.ServiceLoader} by {@link GeneratedSerializers} and must
+ * have a public no-arg constructor.
+ *
+ * @param <T> the type the serializer was generated for.
+ */
+public abstract class GeneratedSerializer<T> implements Serializer<T> {
+
+    @NotNull
+    private final Class<T> type;
+    @Nullable
+    private final String typeKey;
+    @NotNull
+    private final Map<String, String[]> comments = new HashMap<>();
+
+    /**
+     * Creates the generated serializer.
+     *
+     * @param type the type this serializer was generated for.
+     * @param typeKey the value stored under {@link SerializableConfig#SERIALIZED_TYPE_KEY} or null if objects of the
+     *                type are serialized without one.
+     */
+    protected GeneratedSerializer(@NotNull Class<T> type, @Nullable String typeKey) {
+        this.type = type;
+        this.typeKey = typeKey;
+    }
+
+    /**
+     * Returns the type this serializer was generated for.
+     *
+     * @return the type this serializer was generated for.
+     */
+    @NotNull
+    public final Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the comments for the field with the given serialized name.
+     *
+     * @param fieldName the serialized name of the field.
+     * @return a copy of the comments for the field or null if it has none.
+     */
+    @Nullable
+    public final String[] getComments(@NotNull String fieldName) {
+        String[] comments = this.comments.get(fieldName);
+        return comments != null ? comments.clone() : null;
+    }
+
+    /**
+     * Returns the serialized names of all fields that have comments, mapped to their comments.
+     *
+     * @return an unmodifiable map of field names to comments.
+     */
+    @NotNull
+    public final Map<String, String[]> getAllComments() {
+        return Collections.unmodifiableMap(comments);
+    }
+
+    @Nullable
+    @Override
+    public final Object serialize(@Nullable T object, @NotNull SerializerSet serializerSet) throws IllegalArgumentException {
+        if (object == null) {
+            return null;
+        }
+        if (object.getClass() != type) {
+            return serializerSet.getSerializationPlan(object.getClass()).serialize(object, serializerSet);
+        }
+        Map<String, Object> serializedMap = new LinkedHashMap<>();
+        if (typeKey != null) {
+            serializedMap.put(SerializableConfig.SERIALIZED_TYPE_KEY, typeKey);
+        }
+        serializeFields(object, serializedMap, serializerSet);
+        return serializedMap;
+    }
+
+    @Nullable
+    @Override
+    @SuppressWarnings("unchecked")
+    public final T deserialize(@Nullable Object serialized, @NotNull Class wantedType, @NotNull SerializerSet serializerSet) throws IllegalArgumentException {
+        if (serialized == null) {
+            return null;
+        }
+        if (wantedType.isAssignableFrom(serialized.getClass())) {
+            // Already deserialized
+            return (T) serialized;
+        }
+        if (!(serialized instanceof Map)) {
+            throw new IllegalArgumentException("Serialized value must be a map to be deserialized as an object");
+        }
+        Map data = (Map) serialized;
+        Object typeInstance;
+        if (Modifier.isFinal(wantedType.getModifiers())) {
+            typeInstance = createInstance(wantedType);
+        } else {
+            Class clazz = SerializableConfig.getClassFromSerializedData(data, wantedType);
+            if (clazz != null) {
+                typeInstance = createInstance(clazz);
+            } else {
+                try {
+                    typeInstance = createInstance(wantedType);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("The serialized form does not contain enough information to deserialize", e);
+                }
+            }
+        }
+        return deserializeToObject(data, (T) typeInstance, serializerSet);
+    }
+
+    @NotNull
+    private Object createInstance(@NotNull Class clazz) {
+        if (clazz == type) {
+            return newInstance();
+        }
+        return InstanceUtil.createInstance(clazz);
+    }
+
+    @NotNull
+    @Override
+    public final T deserializeToObject(@NotNull Map data, @NotNull T target, @NotNull SerializerSet serializerSet) {
+        if (target.getClass() != type) {
+            return serializerSet.getSerializationPlan(target.getClass()).deserializeToObject(data, target, serializerSet);
+        }
+        for (Object entry : data.entrySet()) {
+            Map.Entry<?, ?> dataEntry = (Map.Entry<?, ?>) entry;
+            Object key = dataEntry.getKey();
+            if (key.equals(SerializableConfig.SERIALIZED_TYPE_KEY)) {
+                continue;
+            }
+            deserializeField(key.toString().toLowerCase(Locale.ENGLISH), dataEntry.getValue(), target, serializerSet);
+        }
+        return target;
+    }
+
+    /**
+     * Creates a new instance of the type this serializer was generated for.
+     * <p/>
+     * Generated serializers override this to call the no-arg constructor directly when it is accessible.
+     *
+     * @return a new instance of the type.
+     */
+    @NotNull
+    protected T newInstance() {
+        return InstanceUtil.createInstance(type);
+    }
+
+    /**
+     * Adds the serialized value of every persistable field of the given object to the given map, in field order.
+     *
+     * @param object the object to serialize the fields of.
+     * @param serializedMap the map to add the serialized fields to.
+     * @param serializerSet the serializer set in use.
+     */
+    protected abstract void serializeFields(@NotNull T object, @NotNull Map<String, Object> serializedMap, @NotNull SerializerSet serializerSet);
+
+    /**
+     * Deserializes the given data into the field with the given lower case name, if there is such a field.
+     * <p/>
+     * Names are lower cased with {@link Locale#ENGLISH} both here and when the serializer is generated.
+     *
+     * @param lowerCaseName the lower case serialized name of the field.
+     * @param serializedFieldData the serialized data for the field.
+     * @param target the object to set the field of.
+     * @param serializerSet the serializer set in use.
+     * @return true if the object has a field of the given name.
+     */
+    protected abstract boolean deserializeField(@NotNull String lowerCaseName, @Nullable Object serializedFieldData, @NotNull T target, @NotNull SerializerSet serializerSet);
+
+    /**
+     * Registers comments for a field. Meant to be called from the constructor of generated serializers.
+     *
+     * @param fieldName the serialized name of the field.
+     * @param comments the comments for the field.
+     */
+    protected final void addComments(@NotNull String fieldName, @NotNull String... comments) {
+        this.comments.put(fieldName, comments);
+    }
+
+    /**
+     * Serializes the value of a single field.
+     *
+     * @param value the value of the field.
+     * @param fieldType the type of the field, with primitives switched for their wrappers.
+     * @param serializeWith the serializer class from a {@link pluginbase.config.annotation.SerializeWith} on the field
+     *                      or the field's type or null if there is none.
+     * @param serializerSet the serializer set in use.
+     * @return the serialized value.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    protected static Object serializeValue(@Nullable Object value, @NotNull Class fieldType,
+                                           @Nullable Class<? extends Serializer> serializeWith,
+                                           @NotNull SerializerSet serializerSet) {
+        if (value == null) {
+            return null;
+        }
+        return getSerializer(fieldType, serializeWith, serializerSet).serialize(value, serializerSet);
+    }
+
+    /**
+     * Deserializes the value of a single field in the same manner as the default serialization.
+     *
+     * @param serializedFieldData the serialized data for the field.
+     * @param currentValue the current value of the field.
+     * @param fieldType the type of the field, with primitives switched for their wrappers.
+     * @param elementType the element type for collection fields, the value type for map fields and otherwise null.
+     * @param serializeWith the serializer class from a {@link pluginbase.config.annotation.SerializeWith} on the field
+     *                      or the field's type or null if there is none.
+     * @param fieldName the name of the field, used for error messages.
+     * @param serializerSet the serializer set in use.
+     * @return the deserialized value.
+     */
+    @Nullable
+    protected final Object deserializeValue(@Nullable Object serializedFieldData, @Nullable Object currentValue,
+                                            @NotNull Class fieldType, @Nullable Class elementType,
+                                            @Nullable Class<? extends Serializer> serializeWith,
+                                            @NotNull String fieldName, @NotNull SerializerSet serializerSet) {
+        if (serializedFieldData == null) {
+            return null;
+        }
+        Class asClass = currentValue != null ? currentValue.getClass() : fieldType;
+        if (Collection.class.isAssignableFrom(fieldType) && serializedFieldData instanceof Collection) {
+            return DefaultSerializer.deserializeCollection(elementType, (Collection<?>) serializedFieldData, asClass, serializerSet);
+        } else if (Map.class.isAssignableFrom(fieldType) && serializedFieldData instanceof Map) {
+            return DefaultSerializer.deserializeMap(elementType, (Map<?, ?>) serializedFieldData, asClass, serializerSet);
+        } else if (currentValue != null && serializedFieldData instanceof Map) {
+            asClass = currentValue.getClass();
+        } else {
+            asClass = fieldType;
+        }
+        try {
+            return getSerializer(fieldType, serializeWith, serializerSet).deserialize(serializedFieldData, asClass, serializerSet);
+        } catch (Exception e) {
+            throw new RuntimeException("Exception while deserializing field '" + type.getName() + "." + fieldName + "' as class '" + asClass + "'", e);
+        }
+    }
+
+    @NotNull
+    private static Serializer getSerializer(@NotNull Class fieldType, @Nullable Class<? extends Serializer> serializeWith,
+                                            @NotNull SerializerSet serializerSet) {
+        if (serializeWith != null) {
+            return serializerSet.getSerializerInstance(serializeWith);
+        }
+        return serializerSet.getClassSerializer(fieldType);
+    }
+
+    /**
+     * Passes a new field value through the given validator.
+     *
+     * @param validator the validator of the field or null if it has none.
+     * @param newValue the new value for the field.
+     * @param oldValue the current value of the field.
+     * @return the value the field should be set to.
+     * @throws PropertyVetoException if the validator vetoes the change.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    protected static Object validate(@Nullable Validator validator, @Nullable Object newValue, @Nullable Object oldValue) throws PropertyVetoException {
+        return validator != null ? validator.validateChange(newValue, oldValue) : newValue;
+    }
+
+    /**
+     * Ensures a value being assigned to a primitive field is not null.
+     *
+     * @param value the value to assign.
+     * @param fieldType the wrapper type of the field.
+     * @return the given value.
+     * @throws IllegalArgumentException if the value is null.
+     */
+    @NotNull
+    protected static Object requireValue(@Nullable Object value, @NotNull Class fieldType) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("The specified value is not an instance of type " + fieldType);
+        }
+        return value;
+    }
+
+    /**
+     * Creates an accessor for a field that generated code cannot access directly, such as private or final fields.
+     *
+     * @param type the class the serializer was generated for.
+     * @param superclassDepth how many super classes up from the given class the field is declared.
+     * @param name the java name of the field.
+     * @return an accessor for the field.
+     */
+    @NotNull
+    protected static FieldAccessor createAccessor(@NotNull Class<?> type, int superclassDepth, @NotNull String name) {
+        Class<?> declaringClass = type;
+        for (int i = 0; i < superclassDepth; i++) {
+            declaringClass = declaringClass.getSuperclass();
+        }
+        try {
+            return FieldAccessors.createAccessor(declaringClass.getDeclaredField(name));
+        } catch (NoSuchFieldException | NullPointerException e) {
+            throw new IllegalStateException("Generated serializer is out of date with " + type, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "type=" + type +
+                '}';
+    }
+}
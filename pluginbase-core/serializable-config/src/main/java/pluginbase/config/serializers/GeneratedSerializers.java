@@ -0,0 +1,104 @@
+package pluginbase.config.serializers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.logging.Logging;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+
+/**
+ * Locates the {@link GeneratedSerializer}s registered through {@link ServiceLoader}.
+ * <p/>
+ * Generated serializers are looked up using the class loader of the class being serialized, so serializers generated
+ * for plugin classes are found through the plugin's own class loader. The services of a class loader are loaded the
+ * first time a class of that loader is looked up and the serializer found is then remembered by the class itself.
+ * <p/>
+ * The services loaded for a class loader are kept until {@link #evictGeneratedSerializers(ClassLoader)} is called for
+ * it, so they are never loaded again while the loader is in use. As the services refer to classes of their loader,
+ * this keeps the loader reachable: a plugin's serializers must be evicted when it is disabled, which PluginBase does.
+ */
+public enum GeneratedSerializers {
+    ;
+
+    /**
+     * The services loaded per class loader, until they are evicted.
+     */
+    private static final Map<ClassLoader, Map<Class<?>, GeneratedSerializer<?>>> LOADED_SERIALIZERS = new WeakHashMap<>();
+
+    /**
+     * The generated serializer of each class, stored with the class so it does not outlive the class loader.
+     */
+    private static final ClassValue<Optional<GeneratedSerializer<?>>> SERIALIZERS = new ClassValue<Optional<GeneratedSerializer<?>>>() {
+        @Override
+        protected Optional<GeneratedSerializer<?>> computeValue(Class<?> type) {
+            ClassLoader classLoader = type.getClassLoader();
+            if (classLoader == null) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(getLoadedSerializers(classLoader).get(type));
+        }
+    };
+
+    /**
+     * Retrieves the generated serializer for exactly the given class.
+     *
+     * @param clazz the class to find the generated serializer for.
+     * @param <T> the type of the class.
+     * @return the generated serializer for the class or null if there is none.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> GeneratedSerializer<T> getGeneratedSerializer(@NotNull Class<T> clazz) {
+        return (GeneratedSerializer<T>) SERIALIZERS.get(clazz).orElse(null);
+    }
+
+    /**
+     * Forgets the generated serializers loaded for the given class loader.
+     * <p/>
+     * Classes that were already looked up keep their serializer until they are collected.
+     *
+     * @param classLoader the class loader to forget the generated serializers of.
+     */
+    public static void evictGeneratedSerializers(@NotNull ClassLoader classLoader) {
+        synchronized (LOADED_SERIALIZERS) {
+            LOADED_SERIALIZERS.remove(classLoader);
+        }
+    }
+
+    @NotNull
+    private static Map<Class<?>, GeneratedSerializer<?>> getLoadedSerializers(@NotNull ClassLoader classLoader) {
+        synchronized (LOADED_SERIALIZERS) {
+            Map<Class<?>, GeneratedSerializer<?>> serializers = LOADED_SERIALIZERS.get(classLoader);
+            if (serializers == null) {
+                serializers = loadSerializers(classLoader);
+                LOADED_SERIALIZERS.put(classLoader, serializers);
+            }
+            return serializers;
+        }
+    }
+
+    @NotNull
+    private static Map<Class<?>, GeneratedSerializer<?>> loadSerializers(@NotNull ClassLoader classLoader) {
+        Map<Class<?>, GeneratedSerializer<?>> serializers = new HashMap<>();
+        Iterator<GeneratedSerializer> iterator = ServiceLoader.load(GeneratedSerializer.class, classLoader).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                GeneratedSerializer<?> serializer = iterator.next();
+                serializers.put(serializer.getType(), serializer);
+                Logging.finest("Loaded generated serializer %s", serializer);
+            } catch (ServiceConfigurationError e) {
+                Logging.warning("Could not load a generated serializer: %s", e.getMessage());
+            }
+        }
+        return serializers;
+    }
+}
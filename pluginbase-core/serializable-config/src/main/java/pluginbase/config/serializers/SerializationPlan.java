@@ -0,0 +1,404 @@
+package pluginbase.config.serializers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.annotation.NoTypeKey;
+import pluginbase.config.annotation.SerializableAs;
+import pluginbase.config.field.Field;
+import pluginbase.config.field.FieldAccessor;
+import pluginbase.config.field.FieldMap;
+import pluginbase.config.field.FieldMapper;
+import pluginbase.config.field.PropertyVetoException;
+import pluginbase.config.field.Validator;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The precompiled steps required to serialize and deserialize objects of a single class with a single
+ * {@link SerializerSet}.
+ * <p/>
+ * A plan holds an ordered array of {@link Slot}s, one for each persistable field of the class, with the field's
+ * serializer supplier, validator and accessor already resolved. This turns the per object work of the default serialization
+ * into a loop over the slots rather than repeated lookups for every field of every object.
+ * <p/>
+ * Plans are obtained through {@link SerializerSet#getSerializationPlan(Class)} which compiles each plan once and
+ * caches it for the lifetime of the serializer set. Only the choice of each field's serializer supplier is made when the
+ * plan is compiled; the supplier is still asked for a serializer every time one is needed, just as with
+ * {@link SerializerSet#getClassSerializer(Class)}. Serializers for {@link pluginbase.config.annotation.SerializeWith}
+ * should be registered with {@link SerializerSet.Builder#registerSerializeWithInstance(Class, Supplier)} before the
+ * classes using them are first serialized.
+ */
+public final class SerializationPlan {
+
+    @NotNull
+    private final Class<?> type;
+    @NotNull
+    private final FieldMap fieldMap;
+    @Nullable
+    private final String typeKey;
+    @NotNull
+    private final Slot[] slots;
+    @NotNull
+    private final Map<String, Slot> slotsByName;
+    @NotNull
+    private final Map<String, Slot> slotsByLowerCaseName;
+
+    SerializationPlan(@NotNull Class<?> type, @NotNull SerializerSet serializerSet) {
+        this.type = type;
+        this.fieldMap = FieldMapper.getFieldMap(type);
+        this.typeKey = (type.isAnnotationPresent(NoTypeKey.class) && Modifier.isFinal(type.getModifiers())) ? null : getAlias(type);
+        List<Slot> slots = new ArrayList<>(fieldMap.size());
+        Map<String, Slot> slotsByName = new HashMap<>(fieldMap.size() * 2);
+        Map<String, Slot> slotsByLowerCaseName = new HashMap<>(fieldMap.size() * 2);
+        for (Field field : fieldMap) {
+            Slot slot = new Slot(field, serializerSet);
+            slotsByName.put(field.getName(), slot);
+            slotsByLowerCaseName.put(field.getName().toLowerCase(), slot);
+            if (field.isPersistable()) {
+                slots.add(slot);
+            }
+        }
+        this.slots = slots.toArray(new Slot[slots.size()]);
+        this.slotsByName = slotsByName;
+        this.slotsByLowerCaseName = slotsByLowerCaseName;
+    }
+
+    @NotNull
+    private static String getAlias(@NotNull Class<?> clazz) {
+        SerializableAs alias = clazz.getAnnotation(SerializableAs.class);
+
+        if ((alias != null) && (alias.value() != null)) {
+            return alias.value();
+        }
+
+        return clazz.getName();
+    }
+
+    /**
+     * Checks if this plan was compiled from the given FieldMap. If not, the field map for the class has been evicted
+     * since this plan was compiled and the plan should be discarded.
+     */
+    boolean isCompiledFrom(@NotNull FieldMap fieldMap) {
+        return this.fieldMap == fieldMap;
+    }
+
+    /**
+     * Returns the class this plan was compiled for.
+     *
+     * @return the class this plan was compiled for.
+     */
+    @NotNull
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Returns the value stored under {@link SerializableConfig#SERIALIZED_TYPE_KEY} when serializing objects of this
+     * plan's class.
+     *
+     * @return the serialized type key value or null if the class is serialized without one.
+     */
+    @Nullable
+    public String getTypeKey() {
+        return typeKey;
+    }
+
+    /**
+     * Returns the slots for every persistable field, in the order they will be serialized.
+     *
+     * @return an unmodifiable list of the slots of this plan.
+     */
+    @NotNull
+    public List<Slot> getSlots() {
+        return Collections.unmodifiableList(Arrays.asList(slots));
+    }
+
+    /**
+     * Retrieves the slot for the field with the given name. Names are matched case insensitively.
+     *
+     * @param name the name of the field.
+     * @return the slot for the field or null if the class has no such field.
+     */
+    @Nullable
+    public Slot getSlot(@NotNull String name) {
+        Slot slot = slotsByName.get(name);
+        return slot != null ? slot : slotsByLowerCaseName.get(name.toLowerCase());
+    }
+
+    /**
+     * Serializes the given object according to this plan.
+     *
+     * @param object the object to serialize which must be an instance of this plan's class.
+     * @param serializerSet the serializer set this plan was obtained from.
+     * @return the serialized form of the object.
+     */
+    @NotNull
+    public Map<String, Object> serialize(@NotNull Object object, @NotNull SerializerSet serializerSet) {
+        Map<String, Object> serializedMap = new LinkedHashMap<>(slots.length + 1);
+        if (typeKey != null) {
+            serializedMap.put(SerializableConfig.SERIALIZED_TYPE_KEY, typeKey);
+        }
+        for (Slot slot : slots) {
+            serializedMap.put(slot.name, slot.serialize(object, serializerSet));
+        }
+        return serializedMap;
+    }
+
+    /**
+     * Populates the fields of the given target object with the given serialized data according to this plan.
+     * <p/>
+     * The keys in the data map should represent the field names that will be set with the deserialized value. Keys
+     * that do not correspond with a field are ignored.
+     *
+     * @param data the Map of serialized data with keys representing field names.
+     * @param target the object to populate the fields of which must be an instance of this plan's class.
+     * @param serializerSet the serializer set this plan was obtained from.
+     * @return the given target object.
+     */
+    @NotNull
+    public <T> T deserializeToObject(@NotNull Map<?, ?> data, @NotNull T target, @NotNull SerializerSet serializerSet) {
+        for (Map.Entry<?, ?> entry : data.entrySet()) {
+            Object key = entry.getKey();
+            if (key.equals(SerializableConfig.SERIALIZED_TYPE_KEY)) {
+                continue;
+            }
+            Slot slot = getSlot(key.toString());
+            if (slot != null) {
+                slot.deserialize(entry.getValue(), target, serializerSet);
+            }
+        }
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return "SerializationPlan{" +
+                "type=" + type +
+                ", slots=" + Arrays.toString(slots) +
+                '}';
+    }
+
+    /**
+     * The precompiled information for a single field of a {@link SerializationPlan}.
+     */
+    public static final class Slot {
+
+        @NotNull
+        private final Field field;
+        @NotNull
+        private final String name;
+        @NotNull
+        private final FieldAccessor accessor;
+        @Nullable
+        private final Supplier<Serializer> serializer;
+        @Nullable
+        private final Validator validator;
+        @NotNull
+        private final Type genericType;
+        @NotNull
+        private final Class fieldType;
+        @NotNull
+        private final List<String> comments;
+        private final boolean virtual;
+        private final boolean collection;
+        private final boolean map;
+
+        private Slot(@NotNull Field field, @NotNull SerializerSet serializerSet) {
+            this.field = field;
+            this.name = field.getName();
+            this.accessor = field.getAccessor();
+            this.serializer = resolveSerializer(field, serializerSet);
+            this.validator = field.getValidator();
+            this.genericType = field.getGenericType();
+            this.fieldType = field.getType();
+            String[] comments = field.getComments();
+            this.comments = comments != null ? Collections.unmodifiableList(Arrays.asList(comments)) : Collections.<String>emptyList();
+            this.virtual = field.isVirtual();
+            this.collection = Collection.class.isAssignableFrom(fieldType);
+            this.map = Map.class.isAssignableFrom(fieldType);
+        }
+
+        /**
+         * Chooses the supplier of the field's serializer the same way {@link Field#getSerializer(SerializerSet)} chooses
+         * the serializer.
+         * <p/>
+         * A field's serializer is normally only needed when it has a non-null value. If it cannot be obtained now it is
+         * left to be looked up on use so that any failure happens where it would have without a plan.
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        private static Supplier<Serializer> resolveSerializer(@NotNull Field field, @NotNull SerializerSet serializerSet) {
+            try {
+                Class<? extends Serializer> serializerClass = field.getSerializerClass();
+                if (serializerClass != null) {
+                    return serializerSet.getSerializerInstanceSupplier(serializerClass);
+                }
+                return serializerSet.getClassSerializerSupplier(field.getType());
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @NotNull
+        public Field getField() {
+            return field;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the serializer for the field.
+         *
+         * @param serializerSet the serializer set this slot's plan was obtained from.
+         * @return the serializer for the field.
+         */
+        @NotNull
+        public Serializer getSerializer(@NotNull SerializerSet serializerSet) {
+            return serializer != null ? serializer.get() : field.getSerializer(serializerSet);
+        }
+
+        @Nullable
+        public Validator getValidator() {
+            return validator;
+        }
+
+        /**
+         * Returns the generic type of the field as determined by gentyref.
+         *
+         * @return the generic type of the field.
+         */
+        @NotNull
+        public Type getGenericType() {
+            return genericType;
+        }
+
+        /**
+         * Returns the comments of the field.
+         *
+         * @return an unmodifiable list of the field's comments which is empty if the field has none.
+         */
+        @NotNull
+        public List<String> getComments() {
+            return comments;
+        }
+
+        @Nullable
+        @SuppressWarnings("unchecked")
+        Object serialize(@NotNull Object object, @NotNull SerializerSet serializerSet) {
+            Object value = getValue(object);
+            if (value == null) {
+                return null;
+            }
+            return getSerializer(serializerSet).serialize(value, serializerSet);
+        }
+
+        @SuppressWarnings("unchecked")
+        void deserialize(@Nullable Object serializedFieldData, @NotNull Object target, @NotNull SerializerSet serializerSet) {
+            Object fieldValue = getValue(target);
+            if (serializedFieldData == null) {
+                fieldValue = null;
+            } else {
+                Class asClass = fieldValue != null ? fieldValue.getClass() : fieldType;
+                if (collection && serializedFieldData instanceof Collection) {
+                    fieldValue = DefaultSerializer.deserializeCollection(field, (Collection<?>) serializedFieldData, asClass, serializerSet);
+                } else if (map && serializedFieldData instanceof Map) {
+                    fieldValue = DefaultSerializer.deserializeMap(field, (Map<?, ?>) serializedFieldData, asClass, serializerSet);
+                } else if (fieldValue != null && serializedFieldData instanceof Map) {
+                    fieldValue = deserializeAs(serializedFieldData, fieldValue.getClass(), serializerSet);
+                } else {
+                    fieldValue = deserializeAs(serializedFieldData, fieldType, serializerSet);
+                }
+            }
+            assign(target, fieldValue);
+        }
+
+        /**
+         * Sets an already deserialized value on the target, applying the field's validator.
+         */
+        void assign(@NotNull Object target, @Nullable Object fieldValue) {
+            try {
+                setValue(target, fieldValue);
+            } catch (PropertyVetoException e) {
+                e.printStackTrace();
+            }
+        }
+
+        @Nullable
+        private Object deserializeAs(@NotNull Object data, @NotNull Class asClass, @NotNull SerializerSet serializerSet) {
+            try {
+                return getSerializer(serializerSet).deserialize(data, asClass, serializerSet);
+            } catch (Exception e) {
+                throw deserializationFailure(asClass, e);
+            }
+        }
+
+        @NotNull
+        RuntimeException deserializationFailure(@NotNull Class asClass, @NotNull Exception cause) {
+            return new RuntimeException("Exception while deserializing field '" + field + "' as class '" + asClass + "'", cause);
+        }
+
+        @NotNull
+        Class getFieldType() {
+            return fieldType;
+        }
+
+        boolean isCollection() {
+            return collection;
+        }
+
+        boolean isMap() {
+            return map;
+        }
+
+        @Nullable
+        Object getValue(@NotNull Object object) {
+            if (virtual) {
+                return field.getValue(object);
+            }
+            try {
+                return accessor.get(object);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("The specified object does not contain this field.", e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void setValue(@NotNull Object target, @Nullable Object value) throws PropertyVetoException {
+            if (virtual) {
+                field.forceSet(target, value);
+                return;
+            }
+            try {
+                if (validator != null) {
+                    accessor.set(target, validator.validateChange(value, accessor.get(target)));
+                } else {
+                    accessor.set(target, value);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("The specified value is not an instance of type " + fieldType, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Slot{" +
+                    "field=" + field +
+                    ", serializer=" + serializer +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pluginbase.config.serializers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A pull style reader of serialized data used by {@link StreamMapper}.
+ * <p/>
+ * Implementations adapt the events of a specific format's parser into a sequence of {@link Token}s. A map is read as
+ * {@link Token#BEGIN_MAP}, then a {@link Token#KEY} followed by its value for each entry, then {@link Token#END_MAP}.
+ * A list is read as {@link Token#BEGIN_LIST}, each of its values, then {@link Token#END_LIST}.
+ */
+public interface SerializedDataReader extends Closeable {
+
+    enum Token {
+        BEGIN_MAP,
+        KEY,
+        END_MAP,
+        BEGIN_LIST,
+        END_LIST,
+        /** A scalar value, which may be null. */
+        VALUE,
+        /** There is no more data to read. */
+        END
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return the next token.
+     * @throws IOException if the underlying data could not be read or parsed.
+     */
+    @NotNull
+    Token next() throws IOException;
+
+    /**
+     * Returns the key of the current {@link Token#KEY}.
+     *
+     * @return the key of the current map entry.
+     */
+    @NotNull
+    Object getKey();
+
+    /**
+     * Returns the value of the current {@link Token#VALUE}.
+     * <p/>
+     * The value will be a String, Number or Boolean, or null.
+     *
+     * @return the current scalar value.
+     */
+    @Nullable
+    Object getValue();
+}
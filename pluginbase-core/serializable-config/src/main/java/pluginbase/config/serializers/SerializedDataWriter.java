@@ -0,0 +1,52 @@
+package pluginbase.config.serializers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A push style writer of serialized data used by {@link StreamMapper}.
+ * <p/>
+ * Calls mirror the tokens of {@link SerializedDataReader}: a map is written with {@link #beginMap()}, a call to
+ * {@link #key(Object, String[])} followed by a value for each entry and then {@link #endMap()}.
+ */
+public interface SerializedDataWriter extends Closeable {
+
+    /**
+     * Writes comments that describe the whole document. This may only be called before anything else is written.
+     * <p/>
+     * Formats that do not support comments will ignore this.
+     *
+     * @param comments the lines of the header.
+     * @throws IOException if the data could not be written.
+     */
+    void header(@NotNull String[] comments) throws IOException;
+
+    void beginMap() throws IOException;
+
+    /**
+     * Writes the key of a map entry.
+     *
+     * @param key the key of the entry.
+     * @param comments the comments for the entry or null if it has none. Formats that do not support comments will
+     *                 ignore these.
+     * @throws IOException if the data could not be written.
+     */
+    void key(@NotNull Object key, @Nullable String[] comments) throws IOException;
+
+    void endMap() throws IOException;
+
+    void beginList() throws IOException;
+
+    void endList() throws IOException;
+
+    /**
+     * Writes a scalar value.
+     *
+     * @param value a String, Number, Boolean or any other object which will be written as its string form.
+     * @throws IOException if the data could not be written.
+     */
+    void value(@Nullable Object value) throws IOException;
+}
@@ -2,13 +2,7 @@ package pluginbase.config.serializers;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import pluginbase.config.SerializableConfig;
-import pluginbase.config.field.Field;
-import pluginbase.config.field.FieldMap;
-import pluginbase.config.field.FieldMapper;
-import pluginbase.config.field.PropertyVetoException;
 
-import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -74,6 +68,8 @@ public interface Serializer<T> {
      * This method attempts to map the values contained in the given data Map to the fields of the given target object.
      * <p/>
      * The keys in the data map should represent the field names that will be set with the deserialized value.
+     * <p/>
+     * The default implementation uses the {@link SerializationPlan} of the target's class.
      *
      * @param data the Map of serialized data with keys representing field names.
      * @param target the object to populate the fields of.
@@ -82,39 +78,7 @@ public interface Serializer<T> {
      */
     @NotNull
     default T deserializeToObject(@NotNull Map data, @NotNull T target, @NotNull SerializerSet serializerSet) {
-        FieldMap fieldMap = FieldMapper.getFieldMap(target.getClass());
-        for (Object key : data.keySet()) {
-            if (key.equals(SerializableConfig.SERIALIZED_TYPE_KEY)) {
-                continue;
-            }
-            Field field = fieldMap.getField(key.toString());
-            if (field != null) {
-                Object fieldValue = field.getValue(target);
-                Object serializedFieldData = data.get(key);
-                if (serializedFieldData == null) {
-                    fieldValue = null;
-                } else {
-                    Class asClass = fieldValue != null ? fieldValue.getClass() : field.getType();
-                    if (Collection.class.isAssignableFrom(field.getType()) && serializedFieldData instanceof Collection) {
-                        fieldValue = DefaultSerializer.deserializeCollection(field, (Collection<?>) serializedFieldData, asClass, serializerSet);
-                    } else if (Map.class.isAssignableFrom(field.getType()) && serializedFieldData instanceof Map) {
-                        fieldValue = DefaultSerializer.deserializeMap(field, (Map<?, ?>) serializedFieldData, asClass, serializerSet);
-                    } else if (fieldValue != null && serializedFieldData instanceof Map) {
-                        fieldValue = DefaultSerializer.deserializeFieldAs(field, serializedFieldData, fieldValue.getClass(), serializerSet);
-                    } else {
-                        fieldValue = DefaultSerializer.deserializeFieldAs(field, serializedFieldData, field.getType(), serializerSet);
-                    }
-                }
-                try {
-                    field.forceSet(target, fieldValue);
-                } catch (PropertyVetoException e) {
-                    e.printStackTrace();
-                }
-            } else {
-                // TODO fail silently or no?
-            }
-        }
-        return target;
+        return serializerSet.getSerializationPlan(target.getClass()).deserializeToObject(data, target, serializerSet);
     }
 
     @NotNull
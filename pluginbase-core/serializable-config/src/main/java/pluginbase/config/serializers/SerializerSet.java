@@ -5,6 +5,7 @@ import org.jetbrains.annotations.Nullable;
 import pluginbase.config.SerializableConfig;
 import pluginbase.config.annotation.FauxEnum;
 import pluginbase.config.annotation.SerializeWith;
+import pluginbase.config.field.FieldMapper;
 import pluginbase.config.serializers.NumberSerializer.AtomicIntegerSerializer;
 import pluginbase.config.serializers.NumberSerializer.AtomicLongSerializer;
 import pluginbase.config.serializers.NumberSerializer.BigNumberSerializer;
@@ -101,6 +102,21 @@ public final class SerializerSet {
     private final Map<Class<? extends Serializer>, Supplier<Serializer>> serializeWithSerializers;
     @NotNull
     private final Map<Predicate<Class<?>>, Class> classReplacements;
+    private final boolean generatedSerializersEnabled;
+    @NotNull
+    private final ClassValue<Supplier<Serializer>> resolvedSerializers = new ClassValue<Supplier<Serializer>>() {
+        @Override
+        protected Supplier<Serializer> computeValue(Class<?> type) {
+            return resolveClassSerializer(type);
+        }
+    };
+    @NotNull
+    private final ClassValue<SerializationPlan> serializationPlans = new ClassValue<SerializationPlan>() {
+        @Override
+        protected SerializationPlan computeValue(Class<?> type) {
+            return new SerializationPlan(type, SerializerSet.this);
+        }
+    };
 
     /**
      * A builder class used to construct an immutable SerializerSet.
@@ -117,6 +133,7 @@ public final class SerializerSet {
         private final Map<Class<? extends Serializer>, Supplier<Serializer>> serializeWithSerializers;
         @NotNull
         private final Map<Predicate<Class<?>>, Class> classReplacements;
+        private boolean generatedSerializersEnabled;
 
         private Builder(@NotNull SerializerSet setToCopy) {
             serializers.putAll(setToCopy.serializers);
@@ -124,6 +141,7 @@ public final class SerializerSet {
             fallbackSerializer = setToCopy.fallbackSerializer;
             serializeWithSerializers = new HashMap<>(setToCopy.serializeWithSerializers);
             classReplacements = new LinkedHashMap<>(setToCopy.classReplacements);
+            generatedSerializersEnabled = setToCopy.generatedSerializersEnabled;
         }
 
         /**
@@ -178,6 +196,20 @@ public final class SerializerSet {
             return this;
         }
 
+        /**
+         * Specifies whether serializers generated for classes annotated with
+         * {@link pluginbase.config.annotation.GenerateSerializer} should be used in place of the fallback serializer.
+         * <p/>
+         * This is enabled by default.
+         *
+         * @param generatedSerializersEnabled true to use generated serializers when available.
+         * @return this builder object.
+         */
+        public Builder setGeneratedSerializersEnabled(boolean generatedSerializersEnabled) {
+            this.generatedSerializersEnabled = generatedSerializersEnabled;
+            return this;
+        }
+
         /**
          * Registers an instance of a given Serializer class for use with {@link SerializeWith}.
          * <p/>
@@ -255,18 +287,19 @@ public final class SerializerSet {
          */
         @NotNull
         public SerializerSet build() {
-            return new SerializerSet(serializers, overrideSerializers, fallbackSerializer, serializeWithSerializers, classReplacements);
+            return new SerializerSet(serializers, overrideSerializers, fallbackSerializer, serializeWithSerializers, classReplacements, generatedSerializersEnabled);
         }
     }
 
     private SerializerSet(@NotNull Map<Class, Supplier<Serializer>> serializers, @NotNull Map<Class, Supplier<Serializer>> overrideSerializers,
                           @NotNull Supplier<Serializer> fallbackSerializer, @NotNull Map<Class<? extends Serializer>, Supplier<Serializer>> serializeWithSerializers,
-                          @NotNull Map<Predicate<Class<?>>, Class> classReplacements) {
+                          @NotNull Map<Predicate<Class<?>>, Class> classReplacements, boolean generatedSerializersEnabled) {
         this.serializers = Collections.unmodifiableMap(new HashMap<>(serializers));
         this.overrideSerializers = Collections.unmodifiableMap(new HashMap<>(overrideSerializers));
         this.fallbackSerializer = fallbackSerializer;
         this.serializeWithSerializers = new ConcurrentHashMap<>(serializeWithSerializers);
         this.classReplacements = Collections.unmodifiableMap(new LinkedHashMap<>(classReplacements));
+        this.generatedSerializersEnabled = generatedSerializersEnabled;
     }
 
     /**
@@ -285,6 +318,7 @@ public final class SerializerSet {
      *     <li>An override serializer specified in the given SerializerSet</li>
      *     <li>The serializer specified by @SerializeWith</li>
      *     <li>A standard serializer specified in the given SerializerSet</li>
+     *     <li>A {@link GeneratedSerializer} for the exact class, unless disabled for the serializer set</li>
      *     <li>The serializer set's fallback serializer</li>
      * </ol>
      * <strong>Note:</strong> An exception to this order is the case of a field (rather than a type) annotated by
@@ -296,10 +330,37 @@ public final class SerializerSet {
      * @return the most appropriate serializer for the given class.
      */
     @NotNull
+    @SuppressWarnings("unchecked")
     public <T> Serializer<T> getClassSerializer(@NotNull Class<T> clazz) {
+        return resolvedSerializers.get(clazz).get();
+    }
+
+    /**
+     * Retrieves the supplier that {@link #getClassSerializer(Class)} gets the serializer for the given class from.
+     *
+     * @param clazz the class to get the serializer supplier for.
+     * @return the supplier of the most appropriate serializer for the given class.
+     */
+    @NotNull
+    Supplier<Serializer> getClassSerializerSupplier(@NotNull Class<?> clazz) {
+        return resolvedSerializers.get(clazz);
+    }
+
+    /**
+     * Performs the actual lookup described in {@link #getClassSerializer(Class)}.
+     * <p/>
+     * The result of this lookup is cached per class for the lifetime of this serializer set, which is safe since
+     * serializer sets are immutable. Only the choice of supplier is cached, so suppliers that create new serializer
+     * instances will continue to do so.
+     *
+     * @param clazz the class to resolve a serializer supplier for.
+     * @return the supplier for the most appropriate serializer for the given class.
+     */
+    @NotNull
+    private Supplier<Serializer> resolveClassSerializer(@NotNull Class<?> clazz) {
         clazz = PrimitivesUtil.switchForWrapper(clazz);
 
-        Serializer<T> serializer = getOverrideSerializer(clazz);
+        Supplier<Serializer> serializer = overrideSerializers.get(clazz);
         if (serializer != null) {
             return serializer;
         }
@@ -307,7 +368,9 @@ public final class SerializerSet {
         SerializeWith serializeWith = clazz.getAnnotation(SerializeWith.class);
         if (serializeWith != null) {
             try {
-                return getSerializerInstance(serializeWith.value());
+                // Ensures the instance is created and registered before grabbing its supplier.
+                getSerializerInstance(serializeWith.value());
+                return serializeWithSerializers.get(serializeWith.value());
             } catch (Exception e) {
                 Logging.warning("Class %s is annotated with SerializeWith and specified the serializer class %s but "
                                 + "could not obtain an instance of that serializer. Consider registering the serializer "
@@ -316,14 +379,14 @@ public final class SerializerSet {
             }
         }
 
-        serializer = getSerializer(clazz);
+        serializer = serializers.get(clazz);
         if (serializer != null) {
             return serializer;
         }
 
         for (Entry<Predicate<Class<?>>, Class> entry : classReplacements.entrySet()) {
             if (entry.getKey().test(clazz)) {
-                serializer = getSerializer(entry.getValue());
+                serializer = serializers.get(entry.getValue());
                 break;
             }
         }
@@ -332,7 +395,34 @@ public final class SerializerSet {
             return serializer;
         }
 
-        return getFallbackSerializer();
+        if (generatedSerializersEnabled) {
+            GeneratedSerializer generatedSerializer = GeneratedSerializers.getGeneratedSerializer(clazz);
+            if (generatedSerializer != null) {
+                return () -> generatedSerializer;
+            }
+        }
+
+        return fallbackSerializer;
+    }
+
+    /**
+     * Retrieves the {@link SerializationPlan} used by the default serializer for the given class.
+     * <p/>
+     * The plan is compiled the first time it is requested and cached for the lifetime of this serializer set. If the
+     * class's field map has been evicted from {@link pluginbase.config.field.FieldMapper} since, the plan is compiled
+     * again.
+     *
+     * @param clazz the class to get the serialization plan for.
+     * @return the serialization plan for the given class.
+     */
+    @NotNull
+    public SerializationPlan getSerializationPlan(@NotNull Class<?> clazz) {
+        SerializationPlan plan = serializationPlans.get(clazz);
+        if (!plan.isCompiledFrom(FieldMapper.getFieldMap(clazz))) {
+            serializationPlans.remove(clazz);
+            plan = serializationPlans.get(clazz);
+        }
+        return plan;
     }
 
     /**
@@ -374,37 +464,18 @@ public final class SerializerSet {
     }
 
     /**
-     * Retrieves the standard serializer for the specific given type. This is the last serializer choice checked before
-     * the fallback serializer is used.
+     * Retrieves the supplier that {@link #getSerializerInstance(Class)} gets the global instance of the given serializer
+     * class from, registering an instance first if needed.
      *
-     * @see #getClassSerializer(Class)
-     *
-     * @param serializableClass the class to get the serializer for.
-     * @param <T> the type of the class.
-     * @return the standard serializer for the given type or null if non-existent.
-     */
-    @Nullable
-    @SuppressWarnings("unchecked")
-    private <T> Serializer<T> getSerializer(Class<T> serializableClass) {
-        Supplier<Serializer> serializer = serializers.get(serializableClass);
-        return serializer != null ? serializer.get() : null;
-    }
-
-    /**
-     * Retrieves the override serializer for the specific given type. This is the first serializer choice for a given
-     * class except in rare circumstances.
-     *
-     * @see #getClassSerializer(Class)
-     *
-     * @param serializableClass the class to get the serializer for.
-     * @param <T> the type of the class.
-     * @return the override serializer for the given type or null if non-existent.
+     * @param serializerClass The serializer class to get the supplier for.
+     * @return The supplier of the global instance of the given serializer class.
+     * @throws IllegalArgumentException thrown when a previously unregistered serializer class is given that does not
+     * have a 0-arg constructor.
      */
-    @Nullable
-    @SuppressWarnings("unchecked")
-    private <T> Serializer<T> getOverrideSerializer(Class<T> serializableClass) {
-        Supplier<Serializer> serializer = overrideSerializers.get(serializableClass);
-        return serializer != null ? serializer.get() : null;
+    @NotNull
+    Supplier<Serializer> getSerializerInstanceSupplier(@NotNull Class<? extends Serializer> serializerClass) throws IllegalArgumentException {
+        getSerializerInstance(serializerClass);
+        return serializeWithSerializers.get(serializerClass);
     }
 
     /**
@@ -526,6 +597,6 @@ public final class SerializerSet {
         inheritanceReplacements.put(Enum.class::isAssignableFrom, Enum.class);
         inheritanceReplacements.put(Class::isArray, Array.class);
 
-        DEFAULT_SET = new SerializerSet(serializers, new HashMap<>(), () -> DEFAULT_SERIALIZER, new HashMap<>(), inheritanceReplacements);
+        DEFAULT_SET = new SerializerSet(serializers, new HashMap<>(), () -> DEFAULT_SERIALIZER, new HashMap<>(), inheritanceReplacements, true);
     }
 }
@@ -0,0 +1,373 @@
+package pluginbase.config.serializers;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.field.Field;
+import pluginbase.config.serializers.SerializedDataReader.Token;
+import pluginbase.config.util.PrimitivesUtil;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps objects directly to and from a stream of serialized data without building the complete serialized form in
+ * memory first.
+ * <p/>
+ * Objects that are handled by the default serializer or a {@link GeneratedSerializer} are read and written field by
+ * field through their {@link SerializationPlan}, as are collection and map fields. Everything else, such as values
+ * with a custom {@link Serializer}, is handled exactly as {@link SerializableConfig} would handle it, with only that
+ * value's serialized form held in memory.
+ */
+public final class StreamMapper {
+
+    @NotNull
+    private final SerializerSet serializerSet;
+    private final boolean commentsEnabled;
+
+    /**
+     * Creates a stream mapper.
+     *
+     * @param serializerSet the serializer set to look for serializers in.
+     * @param commentsEnabled whether field comments should be passed on to writers.
+     */
+    public StreamMapper(@NotNull SerializerSet serializerSet, boolean commentsEnabled) {
+        this.serializerSet = serializerSet;
+        this.commentsEnabled = commentsEnabled;
+    }
+
+    /**
+     * Reads a single value from the given reader.
+     *
+     * @param reader the reader to read from.
+     * @param wantedType the type to deserialize the data as or null to determine it from the data like
+     *                   {@link SerializableConfig#deserialize(Object, SerializerSet)}.
+     * @return the deserialized value or null if the reader has no data.
+     * @throws IOException if the data could not be read.
+     */
+    @Nullable
+    public Object read(@NotNull SerializedDataReader reader, @Nullable Class<?> wantedType) throws IOException {
+        Token token = reader.next();
+        if (token == Token.END) {
+            return null;
+        }
+        return readValue(reader, token, wantedType != null ? PrimitivesUtil.switchForWrapper(wantedType) : null);
+    }
+
+    /**
+     * Writes the given object to the given writer.
+     *
+     * @param object the object to write.
+     * @param writer the writer to write to.
+     * @throws IOException if the data could not be written.
+     */
+    public void write(@NotNull Object object, @NotNull SerializedDataWriter writer) throws IOException {
+        writeValue(object, null, writer);
+    }
+
+    /**
+     * Whether the given serializer serializes objects exactly as described by their {@link SerializationPlan}.
+     */
+    private static boolean isPlanSerializer(@NotNull Serializer serializer) {
+        return serializer.getClass() == DefaultSerializer.class || serializer instanceof GeneratedSerializer;
+    }
+
+    @Nullable
+    private Object readValue(@NotNull SerializedDataReader reader, @NotNull Token token, @Nullable Class wantedType) throws IOException {
+        switch (token) {
+            case VALUE:
+                return deserialize(reader.getValue(), wantedType);
+            case BEGIN_LIST:
+                Class listType = wantedType != null ? wantedType : ArrayList.class;
+                if (serializerSet.getClassSerializer(listType) instanceof CollectionSerializer) {
+                    Collection collection = CollectionSerializer.createCollection(listType, 16);
+                    readCollection(reader, collection, null);
+                    return collection;
+                }
+                return deserialize(readTree(reader, token), wantedType);
+            case BEGIN_MAP:
+                return readMap(reader, wantedType, null);
+            default:
+                throw new IOException("Expected a value but found " + token);
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private Object deserialize(@Nullable Object data, @Nullable Class wantedType) {
+        if (data == null) {
+            return null;
+        }
+        if (wantedType == null || wantedType.equals(Object.class)) {
+            return SerializableConfig.deserialize(data, serializerSet);
+        }
+        return SerializableConfig.deserializeAs(data, wantedType, serializerSet);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readCollection(@NotNull SerializedDataReader reader, @NotNull Collection collection,
+                                @Nullable Class elementType) throws IOException {
+        Token token;
+        while ((token = reader.next()) != Token.END_LIST) {
+            collection.add(readValue(reader, token, elementType));
+        }
+    }
+
+    /**
+     * Reads a map which has had its {@link Token#BEGIN_MAP} consumed.
+     *
+     * @param serializer the serializer that would deserialize the map in the tree based approach or null to use the
+     *                   serializer for the type the data represents.
+     */
+    @Nullable
+    private Object readMap(@NotNull SerializedDataReader reader, @Nullable Class wantedType,
+                           @Nullable Serializer serializer) throws IOException {
+        Map<Object, Object> data = new LinkedHashMap<>();
+        Token token = reader.next();
+        Class typeKeyClass = null;
+        if (token == Token.KEY && SerializableConfig.SERIALIZED_TYPE_KEY.equals(reader.getKey())) {
+            Object typeValue = readTree(reader, reader.next());
+            data.put(SerializableConfig.SERIALIZED_TYPE_KEY, typeValue);
+            typeKeyClass = wantedType != null ? SerializableConfig.getClassFromSerializedData(data, wantedType)
+                    : SerializableConfig.getClassFromSerializedData(data);
+            token = reader.next();
+        }
+
+        Class serializedAs = wantedType != null ? wantedType : typeKeyClass;
+        if (serializedAs != null && serializer == null) {
+            serializer = serializerSet.getClassSerializer(serializedAs);
+        }
+        if (serializedAs == null || serializedAs.isEnum() || serializedAs.isAssignableFrom(LinkedHashMap.class)
+                || !isPlanSerializer(serializer)) {
+            // Handle the data exactly as it would be handled after being read into memory.
+            while (token != Token.END_MAP) {
+                Object key = expectKey(reader, token);
+                data.put(key, readTree(reader, reader.next()));
+                token = reader.next();
+            }
+            if (wantedType != null && serializer != null) {
+                return serializer.deserialize(data, wantedType, serializerSet);
+            }
+            return deserialize(data, wantedType);
+        }
+
+        Class instanceType = serializedAs;
+        if (!Modifier.isFinal(serializedAs.getModifiers()) && typeKeyClass != null) {
+            instanceType = typeKeyClass;
+        }
+        Object instance;
+        try {
+            instance = InstanceUtil.createInstance(instanceType);
+        } catch (RuntimeException e) {
+            if (instanceType != typeKeyClass && !Modifier.isFinal(instanceType.getModifiers())) {
+                throw new IllegalArgumentException("The serialized form does not contain enough information to deserialize", e);
+            }
+            throw e;
+        }
+        readFields(reader, token, serializerSet.getSerializationPlan(instanceType), instance);
+        return instance;
+    }
+
+    private void readFields(@NotNull SerializedDataReader reader, @NotNull Token token, @NotNull SerializationPlan plan,
+                            @NotNull Object target) throws IOException {
+        while (token != Token.END_MAP) {
+            Object key = expectKey(reader, token);
+            SerializationPlan.Slot slot = SerializableConfig.SERIALIZED_TYPE_KEY.equals(key) ? null : plan.getSlot(key.toString());
+            if (slot == null) {
+                skipValue(reader, reader.next());
+            } else {
+                readSlot(reader, reader.next(), slot, target);
+            }
+            token = reader.next();
+        }
+    }
+
+    private void readSlot(@NotNull SerializedDataReader reader, @NotNull Token token, @NotNull SerializationPlan.Slot slot,
+                          @NotNull Object target) throws IOException {
+        Object currentValue = slot.getValue(target);
+        Class asClass = currentValue != null ? currentValue.getClass() : slot.getFieldType();
+        Field field = slot.getField();
+        if (token == Token.BEGIN_LIST && slot.isCollection()) {
+            Collection collection = CollectionSerializer.createCollection(asClass, 16);
+            try {
+                readCollection(reader, collection, elementType(field.getCollectionType()));
+            } catch (RuntimeException e) {
+                throw slot.deserializationFailure(asClass, e);
+            }
+            slot.assign(target, collection);
+        } else if (token == Token.BEGIN_MAP && slot.isMap()) {
+            Map map = MapSerializer.createMap(asClass, 16);
+            try {
+                readMapEntries(reader, map, elementType(field.getMapType()));
+            } catch (RuntimeException e) {
+                throw slot.deserializationFailure(asClass, e);
+            }
+            slot.assign(target, map);
+        } else if (token == Token.BEGIN_MAP && isPlanSerializer(slot.getSerializer(serializerSet))) {
+            Object value;
+            try {
+                value = readMap(reader, asClass, slot.getSerializer(serializerSet));
+            } catch (RuntimeException e) {
+                throw slot.deserializationFailure(asClass, e);
+            }
+            slot.assign(target, value);
+        } else {
+            slot.deserialize(readTree(reader, token), target, serializerSet);
+        }
+    }
+
+    @Nullable
+    private static Class elementType(@Nullable Class type) {
+        return type != null && !type.equals(Object.class) ? type : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readMapEntries(@NotNull SerializedDataReader reader, @NotNull Map map, @Nullable Class valueType) throws IOException {
+        Token token;
+        while ((token = reader.next()) != Token.END_MAP) {
+            Object key = SerializableConfig.deserialize(expectKey(reader, token), serializerSet);
+            map.put(key, readValue(reader, reader.next(), valueType));
+        }
+    }
+
+    @NotNull
+    private static Object expectKey(@NotNull SerializedDataReader reader, @NotNull Token token) throws IOException {
+        if (token != Token.KEY) {
+            throw new IOException("Expected a map key but found " + token);
+        }
+        return reader.getKey();
+    }
+
+    /**
+     * Reads a value into its serialized form of maps, lists and scalars.
+     */
+    @Nullable
+    private static Object readTree(@NotNull SerializedDataReader reader, @NotNull Token token) throws IOException {
+        switch (token) {
+            case VALUE:
+                return reader.getValue();
+            case BEGIN_LIST:
+                List<Object> list = new ArrayList<>();
+                while ((token = reader.next()) != Token.END_LIST) {
+                    list.add(readTree(reader, token));
+                }
+                return list;
+            case BEGIN_MAP:
+                Map<Object, Object> map = new LinkedHashMap<>();
+                while ((token = reader.next()) != Token.END_MAP) {
+                    Object key = expectKey(reader, token);
+                    map.put(key, readTree(reader, reader.next()));
+                }
+                return map;
+            default:
+                throw new IOException("Expected a value but found " + token);
+        }
+    }
+
+    private static void skipValue(@NotNull SerializedDataReader reader, @NotNull Token token) throws IOException {
+        int depth = 0;
+        do {
+            switch (token) {
+                case BEGIN_MAP:
+                case BEGIN_LIST:
+                    depth++;
+                    break;
+                case END_MAP:
+                case END_LIST:
+                    depth--;
+                    break;
+                case END:
+                    throw new IOException("Unexpected end of data");
+                default:
+                    break;
+            }
+            if (depth > 0) {
+                token = reader.next();
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Writes a value.
+     *
+     * @param serializer the serializer that would serialize the value in the tree based approach or null to use the
+     *                   serializer for the value's class.
+     */
+    @SuppressWarnings("unchecked")
+    private void writeValue(@Nullable Object value, @Nullable Serializer serializer, @NotNull SerializedDataWriter writer) throws IOException {
+        if (value == null) {
+            writer.value(null);
+            return;
+        }
+        if (serializer == null) {
+            serializer = serializerSet.getClassSerializer(PrimitivesUtil.switchForWrapper(value.getClass()));
+        }
+        if (isPlanSerializer(serializer)) {
+            writeObject(value, writer);
+        } else if (serializer instanceof CollectionSerializer && value instanceof Collection) {
+            writer.beginList();
+            for (Object element : (Collection<?>) value) {
+                writeValue(element, null, writer);
+            }
+            writer.endList();
+        } else if (serializer instanceof MapSerializer && value instanceof Map) {
+            writer.beginMap();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    writer.key(entry.getKey().toString(), null);
+                    writeValue(entry.getValue(), null, writer);
+                }
+            }
+            writer.endMap();
+        } else {
+            writeTree(serializer.serialize(value, serializerSet), writer);
+        }
+    }
+
+    private void writeObject(@NotNull Object object, @NotNull SerializedDataWriter writer) throws IOException {
+        SerializationPlan plan = serializerSet.getSerializationPlan(object.getClass());
+        writer.beginMap();
+        if (plan.getTypeKey() != null) {
+            writer.key(SerializableConfig.SERIALIZED_TYPE_KEY, null);
+            writer.value(plan.getTypeKey());
+        }
+        for (SerializationPlan.Slot slot : plan.getSlots()) {
+            Object value = slot.getValue(object);
+            if (value == null) {
+                // Tree based data sources drop null values so they are not written here either.
+                continue;
+            }
+            List<String> comments = commentsEnabled ? slot.getComments() : Collections.<String>emptyList();
+            writer.key(slot.getName(), comments.isEmpty() ? null : comments.toArray(new String[comments.size()]));
+            writeValue(value, slot.getSerializer(serializerSet), writer);
+        }
+        writer.endMap();
+    }
+
+    private static void writeTree(@Nullable Object serialized, @NotNull SerializedDataWriter writer) throws IOException {
+        if (serialized instanceof Map) {
+            writer.beginMap();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) serialized).entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    writer.key(entry.getKey(), null);
+                    writeTree(entry.getValue(), writer);
+                }
+            }
+            writer.endMap();
+        } else if (serialized instanceof Collection) {
+            writer.beginList();
+            for (Object element : (Collection<?>) serialized) {
+                writeTree(element, writer);
+            }
+            writer.endList();
+        } else {
+            writer.value(serialized);
+        }
+    }
+}
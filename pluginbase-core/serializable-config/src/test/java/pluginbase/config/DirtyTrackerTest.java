@@ -0,0 +1,87 @@
+package pluginbase.config;
+
+import org.junit.Test;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.Parent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class DirtyTrackerTest extends TestBase {
+
+    @Test
+    public void testNothingRecordedIsChanged() {
+        DirtyTracker tracker = new DirtyTracker();
+        assertTrue(tracker.isChanged(null));
+        assertTrue(tracker.isChanged("data"));
+    }
+
+    @Test
+    public void testUnchangedObject() {
+        DirtyTracker tracker = new DirtyTracker();
+        Comprehensive comprehensive = new Comprehensive();
+        tracker.record(SerializableConfig.serialize(comprehensive));
+        assertFalse(tracker.isChanged(SerializableConfig.serialize(comprehensive)));
+        assertFalse(tracker.isChanged(SerializableConfig.serialize(new Comprehensive())));
+    }
+
+    @Test
+    public void testNestedChangeDetected() {
+        DirtyTracker tracker = new DirtyTracker();
+        Comprehensive comprehensive = new Comprehensive();
+        tracker.record(SerializableConfig.serialize(comprehensive));
+        Parent parent = (Parent) comprehensive.stringObjectMap.get("parent");
+        boolean original = parent.aChild.aBoolean;
+        try {
+            parent.aChild.aBoolean = !original;
+            assertTrue(tracker.isChanged(SerializableConfig.serialize(comprehensive)));
+        } finally {
+            parent.aChild.aBoolean = original;
+        }
+    }
+
+    @Test
+    public void testSnapshotUnaffectedByLaterChanges() {
+        DirtyTracker tracker = new DirtyTracker();
+        List<Object> list = new ArrayList<>(Arrays.asList("a", "b"));
+        AtomicLong number = new AtomicLong(5);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("list", list);
+        data.put("number", number);
+        tracker.record(data);
+
+        list.add("c");
+        assertTrue(tracker.isChanged(data));
+        list.remove("c");
+        assertFalse(tracker.isChanged(data));
+        number.set(6);
+        assertTrue(tracker.isChanged(data));
+    }
+
+    @Test
+    public void testKeyOrderMatters() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", 2);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", 2);
+        second.put("a", 1);
+        assertTrue(DirtyTracker.isEquivalent(DirtyTracker.copy(first), first));
+        assertFalse(DirtyTracker.isEquivalent(DirtyTracker.copy(first), second));
+    }
+
+    @Test
+    public void testReset() {
+        DirtyTracker tracker = new DirtyTracker();
+        tracker.record("data");
+        assertFalse(tracker.isChanged("data"));
+        tracker.reset();
+        assertTrue(tracker.isChanged("data"));
+    }
+}
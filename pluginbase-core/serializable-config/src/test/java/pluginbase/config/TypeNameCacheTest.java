@@ -0,0 +1,121 @@
+package pluginbase.config;
+
+import org.junit.Test;
+import pluginbase.config.examples.Child;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.Parent;
+import pluginbase.config.examples.Simple;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TypeNameCacheTest extends TestBase {
+
+    private static Map<String, Object> typeKeyOnly(String typeName) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(SerializableConfig.SERIALIZED_TYPE_KEY, typeName);
+        return data;
+    }
+
+    @Test
+    public void testClassNameResolved() {
+        ClassLoader loader = getClass().getClassLoader();
+        assertSame(Simple.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly(Simple.class.getName()), loader));
+        assertTrue(TypeNameCache.forClassLoader(loader).isCached(Simple.class.getName()));
+        assertSame(Simple.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly(Simple.class.getName()), loader));
+    }
+
+    @Test
+    public void testUnknownNameCached() {
+        ClassLoader loader = getClass().getClassLoader();
+        String name = "pluginbase.config.examples.DoesNotExist";
+        assertNull(SerializableConfig.getClassFromSerializedData(typeKeyOnly(name), loader));
+        assertTrue(TypeNameCache.forClassLoader(loader).isCached(name));
+        assertNull(SerializableConfig.getClassFromSerializedData(typeKeyOnly(name), loader));
+    }
+
+    @Test
+    public void testAliasTakesPrecedence() {
+        String name = "pluginbase.config.examples.AliasedName";
+        Map<String, Class<?>> aliases = new HashMap<>();
+        aliases.put(name, Child.class);
+        aliases.put("AnotherAlias", Parent.class);
+        assertNull(SerializableConfig.getClassFromSerializedData(typeKeyOnly(name)));
+        SerializableConfig.registerAliases(aliases);
+        assertSame(Child.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly(name)));
+        assertSame(Parent.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly("AnotherAlias")));
+        assertSame(Comprehensive.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly("ComprehensiveTestClass")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullAliasRejected() {
+        Map<String, Class<?>> aliases = new HashMap<>();
+        aliases.put(null, Child.class);
+        SerializableConfig.registerAliases(aliases);
+    }
+
+    @Test
+    public void testCachedPerClassLoader() {
+        URLClassLoader other = new URLClassLoader(new URL[0], null);
+        assertNotSame(TypeNameCache.forClassLoader(getClass().getClassLoader()), TypeNameCache.forClassLoader(other));
+        assertSame(TypeNameCache.forClassLoader(other), TypeNameCache.forClassLoader(other));
+
+        // The isolated loader can not see the test classes.
+        assertSame(Simple.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly(Simple.class.getName()), getClass().getClassLoader()));
+        assertNull(SerializableConfig.getClassFromSerializedData(typeKeyOnly(Simple.class.getName()), other));
+        assertSame(String.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly(String.class.getName()), other));
+
+        TypeNameCache cache = TypeNameCache.forClassLoader(other);
+        SerializableConfig.evictTypeNameCache(other);
+        assertNotSame(cache, TypeNameCache.forClassLoader(other));
+    }
+
+    @Test
+    public void testResolvedWithWantedTypeLoader() {
+        URLClassLoader other = new URLClassLoader(new URL[0], null);
+        Map<String, Object> data = typeKeyOnly(String.class.getName());
+        assertSame(String.class, SerializableConfig.getClassFromSerializedData(data, Object.class));
+        assertTrue(TypeNameCache.forClassLoader(SerializableConfig.class.getClassLoader()).isCached(String.class.getName()));
+        assertFalse(TypeNameCache.forClassLoader(other).isCached(String.class.getName()));
+
+        SerializableConfig.evictTypeNameCache(Parent.class.getClassLoader());
+        assertSame(Child.class, SerializableConfig.getClassFromSerializedData(typeKeyOnly(Child.class.getName()), Parent.class));
+        assertTrue(TypeNameCache.forClassLoader(Parent.class.getClassLoader()).isCached(Child.class.getName()));
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        URLClassLoader other = new URLClassLoader(new URL[0], null);
+        TypeNameCache cache = TypeNameCache.forClassLoader(other);
+        for (int i = 0; i < TypeNameCache.MAX_SIZE * 2; i++) {
+            assertNull(cache.resolve("does.not.Exist" + i));
+        }
+        assertTrue(cache.size() <= TypeNameCache.MAX_SIZE);
+    }
+
+    @Test
+    public void testLargePolymorphicList() {
+        List<Object> list = new ArrayList<>(100000);
+        for (int i = 0; i < 100000; i++) {
+            switch (i % 3) {
+                case 0:
+                    list.add(new Simple("simple" + i));
+                    break;
+                case 1:
+                    list.add(new Child(i % 2 == 0));
+                    break;
+                default:
+                    list.add(new Parent(new Child(true)));
+            }
+        }
+        Object serialized = SerializableConfig.serialize(list);
+        assertEquals(list, SerializableConfig.deserialize(serialized));
+        assertTrue(TypeNameCache.forClassLoader(SerializableConfig.class.getClassLoader()).isCached(Parent.class.getName()));
+    }
+}
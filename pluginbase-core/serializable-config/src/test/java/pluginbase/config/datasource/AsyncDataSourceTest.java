@@ -0,0 +1,411 @@
+package pluginbase.config.datasource;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.config.TestBase;
+import pluginbase.config.datasource.binary.BinaryDataSource;
+import pluginbase.config.datasource.json.StreamingJsonDataSource;
+import pluginbase.config.datasource.yaml.StreamingYamlDataSource;
+import pluginbase.config.serializers.Serializer;
+import pluginbase.config.serializers.SerializerSet;
+import pluginbase.messages.Messages;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class AsyncDataSourceTest extends TestBase {
+
+    public static class Counter {
+        public int count;
+        public Poison poison;
+
+        public Counter() { }
+
+        Counter(int count) {
+            this.count = count;
+        }
+    }
+
+    /** Serializes to a value that cannot be written. */
+    public static class Poison { }
+
+    public static class PoisonSerializer implements Serializer<Poison> {
+        @Nullable
+        @Override
+        public Object serialize(@Nullable Poison object, @NotNull SerializerSet serializerSet) {
+            return new Object() {
+                @Override
+                public String toString() {
+                    throw new IllegalStateException("Poisoned");
+                }
+            };
+        }
+
+        @Nullable
+        @Override
+        public Poison deserialize(@Nullable Object serialized, @NotNull Class wantedType, @NotNull SerializerSet serializerSet) {
+            return new Poison();
+        }
+    }
+
+    /** Records the counts it writes, which it captures when snapshot. */
+    static class RecordingDataSource implements DataSource {
+        final List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger concurrentWrites = new AtomicInteger();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        volatile long writeMillis = 0;
+        volatile boolean fail = false;
+
+        @Override
+        public <ObjectType> ObjectType load(Class<ObjectType> wantedType) {
+            return wantedType.cast(load());
+        }
+
+        @Override
+        public Object load() {
+            synchronized (written) {
+                return written.isEmpty() ? null : new Counter(written.get(written.size() - 1));
+            }
+        }
+
+        @Override
+        public <ObjectType> ObjectType loadToObject(@NotNull ObjectType destination) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void save(Object object) throws SendablePluginBaseException {
+            snapshot(object).save();
+        }
+
+        @NotNull
+        @Override
+        public Snapshot snapshot(@NotNull Object object) {
+            int count = ((Counter) object).count;
+            return () -> {
+                if (concurrentWrites.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                try {
+                    if (writeMillis > 0) {
+                        Thread.sleep(writeMillis);
+                    }
+                    if (fail) {
+                        throw new SendablePluginBaseException(Messages.EXCEPTION.bundle("Failed"));
+                    }
+                    written.add(count);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrentWrites.decrementAndGet();
+                }
+            };
+        }
+    }
+
+    /** Holds scheduled tasks until the test runs them, recording the delays they were scheduled with. */
+    static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        final List<Long> delays = new ArrayList<>();
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public synchronized ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            delays.add(unit.toNanos(delay));
+            tasks.add(command);
+            return null;
+        }
+
+        void runScheduled() {
+            Runnable task;
+            while ((task = nextTask()) != null) {
+                task.run();
+            }
+        }
+
+        private synchronized Runnable nextTask() {
+            return tasks.poll();
+        }
+    }
+
+    RecordingDataSource recording;
+    ScheduledExecutorService executor;
+    Path dir;
+
+    @Before
+    public void setup() throws Exception {
+        recording = new RecordingDataSource();
+        executor = Executors.newScheduledThreadPool(4);
+        dir = Files.createTempDirectory("async");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testSavesCoalesce() throws Exception {
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setExecutor(executor)
+                .setCoalesceWindow(10, TimeUnit.SECONDS).build();
+        for (int i = 1; i <= 100; i++) {
+            dataSource.save(new Counter(i));
+        }
+        assertTrue(recording.written.isEmpty());
+        dataSource.flush();
+        assertEquals(Collections.singletonList(100), recording.written);
+    }
+
+    @Test
+    public void testWrittenAfterWindow() throws Exception {
+        ManualScheduler scheduler = new ManualScheduler();
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setExecutor(scheduler)
+                .setCoalesceWindow(10, TimeUnit.MILLISECONDS).build();
+        dataSource.save(new Counter(1));
+        dataSource.save(new Counter(2));
+        assertEquals(Collections.singletonList(TimeUnit.MILLISECONDS.toNanos(10)), scheduler.delays);
+        assertTrue(recording.written.isEmpty());
+        scheduler.runScheduled();
+        assertEquals(Collections.singletonList(2), recording.written);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testStateCapturedOnCaller() throws Exception {
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setExecutor(executor)
+                .setCoalesceWindow(10, TimeUnit.SECONDS).build();
+        Counter counter = new Counter(1);
+        dataSource.save(counter);
+        counter.count = 2;
+        dataSource.flush();
+        assertEquals(Collections.singletonList(1), recording.written);
+    }
+
+    @Test
+    public void testWritesInOrderOneAtATime() throws Exception {
+        recording.writeMillis = 1;
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setExecutor(executor)
+                .setCoalesceWindow(0, TimeUnit.MILLISECONDS).build();
+        for (int i = 1; i <= 300; i++) {
+            dataSource.save(new Counter(i));
+            if (i % 50 == 0) {
+                Thread.sleep(2);
+            }
+        }
+        dataSource.flush();
+        assertFalse(recording.overlapped.get());
+        List<Integer> written = new ArrayList<>(recording.written);
+        assertEquals(300, (int) written.get(written.size() - 1));
+        for (int i = 1; i < written.size(); i++) {
+            assertTrue("Written out of order: " + written, written.get(i - 1) < written.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentSavesLatestWins() throws Exception {
+        recording.writeMillis = 1;
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setExecutor(executor)
+                .setCoalesceWindow(0, TimeUnit.MILLISECONDS).build();
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> savers = new ArrayList<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        dataSource.save(new Counter(i * threads + offset));
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            thread.start();
+            savers.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : savers) {
+            thread.join();
+        }
+        assertNull(error.get());
+        dataSource.save(new Counter(Integer.MAX_VALUE));
+        dataSource.flush();
+        assertFalse(recording.overlapped.get());
+        assertEquals(Integer.MAX_VALUE, (int) recording.written.get(recording.written.size() - 1));
+    }
+
+    @Test
+    public void testLoadWaitsForPendingSave() throws Exception {
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setExecutor(executor)
+                .setCoalesceWindow(10, TimeUnit.SECONDS).build();
+        dataSource.save(new Counter(7));
+        assertEquals(7, dataSource.load(Counter.class).count);
+    }
+
+    @Test
+    public void testFailureReportedByFlush() throws Exception {
+        recording.fail = true;
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setExecutor(executor)
+                .setCoalesceWindow(0, TimeUnit.MILLISECONDS).build();
+        dataSource.save(new Counter(1));
+        try {
+            dataSource.flush();
+            fail("The failure was not reported");
+        } catch (SendablePluginBaseException ignore) { }
+        recording.fail = false;
+        dataSource.save(new Counter(2));
+        dataSource.flush();
+        assertEquals(Collections.singletonList(2), recording.written);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        AsyncDataSource dataSource = AsyncDataSource.builder(recording).setCoalesceWindow(10, TimeUnit.SECONDS).build();
+        dataSource.save(new Counter(3));
+        dataSource.close();
+        assertEquals(Collections.singletonList(3), recording.written);
+        try {
+            dataSource.save(new Counter(4));
+            fail("Saved after close");
+        } catch (IllegalStateException ignore) { }
+    }
+
+    @Test
+    public void testShippedSnapshotsCaptureState() throws Exception {
+        List<DataSource> dataSources = new ArrayList<>();
+        dataSources.add(BinaryDataSource.builder().setPath(dir.resolve("counter.bin")).build());
+        dataSources.add(StreamingYamlDataSource.builder().setPath(dir.resolve("counter.yml")).build());
+        dataSources.add(StreamingJsonDataSource.builder().setPath(dir.resolve("counter.json")).build());
+        for (DataSource dataSource : dataSources) {
+            Counter counter = new Counter(1);
+            DataSource.Snapshot snapshot = dataSource.snapshot(counter);
+            counter.count = 2;
+            snapshot.save();
+            assertEquals(dataSource.toString(), 1, dataSource.load(Counter.class).count);
+        }
+    }
+
+    @Test
+    public void testDefaultSnapshotCapturesState() throws Exception {
+        List<Object> saved = new ArrayList<>();
+        DataSource dataSource = new DataSource() {
+            @Override
+            public <ObjectType> ObjectType load(Class<ObjectType> wantedType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Object load() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <ObjectType> ObjectType loadToObject(@NotNull ObjectType destination) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void save(Object object) {
+                saved.add(object);
+            }
+        };
+        Counter counter = new Counter(1);
+        DataSource.Snapshot snapshot = dataSource.snapshot(counter);
+        counter.count = 2;
+        snapshot.save();
+        assertEquals(1, saved.size());
+        assertNotSame(counter, saved.get(0));
+        assertEquals(1, ((Counter) saved.get(0)).count);
+    }
+
+    @Test
+    public void testFailedWriteLeavesFileIntact() throws Exception {
+        Path file = dir.resolve("counter.bin");
+        DataSource binary = BinaryDataSource.builder().setPath(file)
+                .addSerializer(Poison.class, PoisonSerializer::new).build();
+        AsyncDataSource dataSource = AsyncDataSource.builder(binary).setExecutor(executor)
+                .setCoalesceWindow(0, TimeUnit.MILLISECONDS).build();
+        dataSource.save(new Counter(1));
+        dataSource.flush();
+
+        Counter poisoned = new Counter(2);
+        poisoned.poison = new Poison();
+        dataSource.save(poisoned);
+        try {
+            dataSource.flush();
+            fail("The failure was not reported");
+        } catch (SendablePluginBaseException ignore) { }
+
+        assertEquals(1, BinaryDataSource.builder().setPath(file).build().load(Counter.class).count);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testReadersOnlySeeCompleteFiles() throws Exception {
+        Path file = dir.resolve("counter.bin");
+        AsyncDataSource dataSource = AsyncDataSource.builder(BinaryDataSource.builder().setPath(file).build())
+                .setExecutor(executor).setCoalesceWindow(0, TimeUnit.MILLISECONDS).build();
+        dataSource.save(new Counter(0));
+        dataSource.flush();
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            DataSource plain = BinaryDataSource.builder().setPath(file).build();
+            int last = 0;
+            try {
+                while (!done.get()) {
+                    Counter counter = plain.load(Counter.class);
+                    assertNotNull(counter);
+                    assertTrue(counter.count >= last);
+                    last = counter.count;
+                }
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 500; i++) {
+            dataSource.save(new Counter(i));
+        }
+        dataSource.flush();
+        done.set(true);
+        reader.join();
+        assertNull(error.get());
+        assertEquals(500, dataSource.load(Counter.class).count);
+    }
+}
@@ -12,6 +12,10 @@ import pluginbase.config.examples.Comprehensive;
 import pluginbase.config.examples.Parent;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -82,4 +86,30 @@ public class ConfigDataSourceTest extends TestBase {
         Comprehensive actual = (Comprehensive) dataSource.load();
         assertEquals(expected, actual);
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testYamlDirtyTracking() throws Exception {
+        YamlDataSource dataSource = YamlDataSource.builder().setFile(yamlFile).setDirtyTracking(true).build();
+        Map<String, Object> data = new LinkedHashMap<>();
+        List<Object> entries = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", "entry" + i);
+            entry.put("value", i);
+            entries.add(entry);
+        }
+        data.put("entries", entries);
+        dataSource.save(data);
+
+        yamlFile.delete();
+        dataSource.save(data);
+        assertFalse(yamlFile.exists());
+
+        for (int i = 0; i < entries.size(); i += 100) {
+            ((Map<String, Object>) entries.get(i)).put("value", -i);
+        }
+        dataSource.save(data);
+        assertEquals(data, YamlDataSource.builder().setFile(yamlFile).build().load());
+    }
 }
@@ -0,0 +1,158 @@
+package pluginbase.config.datasource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.config.TestBase;
+import pluginbase.config.datasource.binary.BinaryDataSource;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class DataSourcesTest extends TestBase {
+
+    private static final int FILE_COUNT = 3000;
+
+    Path dir;
+    ExecutorService executor;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("datasources");
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        delete(dir);
+    }
+
+    private static void delete(Path path) throws Exception {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                for (Path child : (Iterable<Path>) files::iterator) {
+                    delete(child);
+                }
+            }
+        }
+        Files.delete(path);
+    }
+
+    private static DataSource binary(Path path) {
+        return BinaryDataSource.builder().setPath(path).build();
+    }
+
+    private void createFiles() throws Exception {
+        for (int i = 0; i < FILE_COUNT; i++) {
+            Comprehensive comprehensive = new Comprehensive();
+            comprehensive.aInt = i;
+            comprehensive.name = "file" + i;
+            binary(dir.resolve(String.format("data%05d.bin", i))).save(comprehensive);
+        }
+    }
+
+    @Test
+    public void testMatchesSerialLoading() throws Exception {
+        createFiles();
+        Files.write(dir.resolve("ignored.txt"), new byte[] {1, 2, 3});
+        Files.createDirectory(dir.resolve("directory.bin"));
+
+        List<Path> failures = new ArrayList<>();
+        Map<Path, Comprehensive> loaded = DataSources.loadAll(dir, "*.bin", Comprehensive.class, executor,
+                DataSourcesTest::binary, (path, e) -> failures.add(path));
+
+        Map<Path, Comprehensive> expected = new LinkedHashMap<>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            Path path = dir.resolve(String.format("data%05d.bin", i));
+            expected.put(path, binary(path).load(Comprehensive.class));
+        }
+        assertTrue(failures.isEmpty());
+        assertEquals(expected, loaded);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(loaded.keySet()));
+        assertEquals(FILE_COUNT - 1, loaded.get(dir.resolve(String.format("data%05d.bin", FILE_COUNT - 1))).aInt);
+    }
+
+    @Test
+    public void testFailuresReportedSeparately() throws Exception {
+        createFiles();
+        List<Path> corrupt = new ArrayList<>();
+        for (int i = 0; i < FILE_COUNT; i += 100) {
+            Path path = dir.resolve(String.format("data%05d.bin", i));
+            Files.write(path, new byte[] {'P', 'B', 'S', 'C', 1, 9, 9});
+            corrupt.add(path);
+        }
+        Path empty = dir.resolve("data-empty.bin");
+        Files.write(empty, new byte[0]);
+
+        Map<Path, SendablePluginBaseException> failures = new LinkedHashMap<>();
+        Map<Path, Comprehensive> loaded = DataSources.loadAll(dir, "data*.bin", Comprehensive.class, executor,
+                DataSourcesTest::binary, failures::put);
+
+        assertEquals(corrupt, new ArrayList<>(failures.keySet()));
+        for (SendablePluginBaseException e : failures.values()) {
+            assertNotNull(e);
+        }
+        assertEquals(FILE_COUNT - corrupt.size(), loaded.size());
+        for (Path path : corrupt) {
+            assertFalse(loaded.containsKey(path));
+        }
+        assertFalse(failures.containsKey(empty));
+        assertFalse(loaded.containsKey(empty));
+    }
+
+    @Test
+    public void testFactoryFailure() throws Exception {
+        Files.write(dir.resolve("a.bin"), new byte[0]);
+        Files.write(dir.resolve("b.unknown"), new byte[0]);
+
+        Map<Path, SendablePluginBaseException> failures = new LinkedHashMap<>();
+        Map<Path, Object> loaded = DataSources.loadAll(dir, "*", Object.class, executor,
+                DataSources::forPath, failures::put);
+
+        assertTrue(loaded.isEmpty());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(dir.resolve("b.unknown")).getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testErrorPropagates() throws Exception {
+        createFiles();
+        Path broken = dir.resolve(String.format("data%05d.bin", 5));
+
+        List<Path> failures = new ArrayList<>();
+        try {
+            DataSources.loadAll(dir, "*.bin", Comprehensive.class, executor, path -> {
+                if (path.equals(broken)) {
+                    throw new AssertionError("Broken");
+                }
+                return binary(path);
+            }, (path, e) -> failures.add(path));
+            fail();
+        } catch (AssertionError e) {
+            assertEquals("Broken", e.getMessage());
+        }
+        assertTrue(failures.isEmpty());
+    }
+
+    @Test
+    public void testEmptyDirectory() throws Exception {
+        assertTrue(DataSources.loadAll(dir, "*.yml", Comprehensive.class, executor).isEmpty());
+    }
+
+    @Test(expected = SendablePluginBaseException.class)
+    public void testMissingDirectory() throws Exception {
+        DataSources.loadAll(dir.resolve("missing"), "*.yml", Comprehensive.class, executor);
+    }
+}
@@ -0,0 +1,257 @@
+package pluginbase.config.datasource.binary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.config.TestBase;
+import pluginbase.config.datasource.DataSource;
+import pluginbase.config.datasource.json.StreamingJsonDataSource;
+import pluginbase.config.datasource.yaml.StreamingYamlDataSource;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.Parent;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class BinaryDataSourceTest extends TestBase {
+
+    public static class Record {
+        public String name;
+        public int x;
+        public int y;
+        public int z;
+        public boolean enabled;
+
+        public Record() { }
+    }
+
+    public static class RecordHolder {
+        public List<Record> records = new ArrayList<>();
+
+        public RecordHolder() { }
+    }
+
+    Path dir;
+    Path file;
+    Comprehensive expected;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("binary");
+        file = dir.resolve("test.bin");
+
+        expected = new Comprehensive();
+        expected.aInt = 5;
+        ((Parent) expected.stringObjectMap.get("parent")).aChild.aBoolean = false;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        BinaryDataSource.builder().setPath(file).build().save(expected);
+        Comprehensive actual = (Comprehensive) BinaryDataSource.builder().setPath(file).build().load();
+        assertEquals(expected, actual);
+        actual = BinaryDataSource.builder().setPath(file).build().load(Comprehensive.class);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testLoadToObject() throws Exception {
+        BinaryDataSource.builder().setPath(file).build().save(expected);
+        Comprehensive actual = new Comprehensive();
+        assertSame(actual, BinaryDataSource.builder().setPath(file).build().loadToObject(actual));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testScalarTypesPreserved() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("byte", (byte) -12);
+        data.put("short", (short) -1234);
+        data.put("int", Integer.MIN_VALUE);
+        data.put("long", Long.MAX_VALUE);
+        data.put("float", 1.5F);
+        data.put("double", -0.1D);
+        data.put("nan", Double.NaN);
+        data.put("true", true);
+        data.put("false", false);
+        data.put("null", null);
+        data.put("string", "caf\u00e9 \ud83d\ude00");
+        data.put("empty", "");
+        data.put("list", new ArrayList<>(Arrays.asList(1, "two", 3L, new ArrayList<>())));
+        data.put("map", new LinkedHashMap<>());
+
+        Object decoded = BinaryFormat.decode(BinaryFormat.encode(data));
+        assertEquals(data, decoded);
+        assertEquals(new ArrayList<>(data.keySet()), new ArrayList<>(((Map<?, ?>) decoded).keySet()));
+    }
+
+    @Test
+    public void testBigNumbersRoundTrip() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("big", new BigInteger("123456789012345678901234567890"));
+        Map<?, ?> decoded = (Map<?, ?>) BinaryFormat.decode(BinaryFormat.encode(data));
+        assertEquals("123456789012345678901234567890", decoded.get("big"));
+    }
+
+    @Test
+    public void testStringTable() throws Exception {
+        List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("a_rather_long_key_name", i);
+            list.add(map);
+        }
+        byte[] encoded = BinaryFormat.encode(list);
+        // The key is written once, then each map costs about seven bytes.
+        assertTrue(encoded.length < "a_rather_long_key_name".length() + 100 * 8 + 20);
+        assertEquals(list, BinaryFormat.decode(encoded));
+    }
+
+    @Test
+    public void testCorruptionDetected() throws Exception {
+        byte[] encoded = BinaryFormat.encode(Arrays.asList("some", "data", 123));
+        encoded[encoded.length / 2] ^= 0x10;
+        Files.write(file, encoded);
+        try {
+            BinaryDataSource.builder().setPath(file).build().load();
+            fail("Corrupt data was loaded");
+        } catch (SendablePluginBaseException e) {
+            assertTrue(e.getCause().getMessage().contains("checksum"));
+        }
+    }
+
+    @Test
+    public void testWrongMagicRejected() throws Exception {
+        Files.write(file, "records:\n- name: test\n".getBytes("UTF-8"));
+        try {
+            BinaryDataSource.builder().setPath(file).build().load();
+            fail("Text data was loaded");
+        } catch (SendablePluginBaseException ignore) { }
+    }
+
+    @Test
+    public void testMissingAndEmptyFile() throws Exception {
+        assertNull(BinaryDataSource.builder().setPath(file).build().load());
+        Files.createFile(file);
+        assertNull(BinaryDataSource.builder().setPath(file).build().load());
+    }
+
+    @Test
+    public void testStreams() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryDataSource.builder().setOutputStream(() -> out).build().save(expected);
+        Comprehensive actual = BinaryDataSource.builder().setInputStream(() -> new ByteArrayInputStream(out.toByteArray()))
+                .build().load(Comprehensive.class);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testCharacterSourceUsesBase64() throws Exception {
+        StringWriter out = new StringWriter();
+        BinaryDataSource.builder().setSink(() -> new BufferedWriter(out)).build().save(expected);
+        String text = out.toString();
+        assertTrue(text.matches("[A-Za-z0-9+/=\\r\\n]+"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryDataSource.builder().setOutputStream(() -> bytes).build().save(expected);
+        assertArrayEquals(bytes.toByteArray(), Base64.getMimeDecoder().decode(text));
+
+        Comprehensive actual = BinaryDataSource.builder().setSource(() -> new BufferedReader(new StringReader(text)))
+                .build().load(Comprehensive.class);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testPathMatchesStreams() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryDataSource.builder().setOutputStream(() -> bytes).build().save(expected);
+        BinaryDataSource.builder().setPath(file).build().save(expected);
+        assertArrayEquals(bytes.toByteArray(), Files.readAllBytes(file));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1L, files.count());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCommentsRejected() throws Exception {
+        BinaryDataSource.builder().setCommentsEnabled(true);
+    }
+
+    @Test
+    public void testSmallerThanTextFormats() throws Exception {
+        RecordHolder holder = new RecordHolder();
+        for (int i = 0; i < 1000; i++) {
+            Record record = new Record();
+            record.name = "record" + i;
+            record.x = i * 16;
+            record.y = 64;
+            record.z = -i * 16;
+            record.enabled = i % 2 == 0;
+            holder.records.add(record);
+        }
+        Path yamlFile = dir.resolve("test.yml");
+        Path jsonFile = dir.resolve("test.json");
+        BinaryDataSource.builder().setPath(file).build().save(holder);
+        StreamingYamlDataSource.builder().setPath(yamlFile).build().save(holder);
+        StreamingJsonDataSource.builder().setPath(jsonFile).setIndent(0).build().save(holder);
+
+        assertTrue(Files.size(file) < Files.size(yamlFile) / 2);
+        assertTrue(Files.size(file) < Files.size(jsonFile) / 2);
+        RecordHolder actual = BinaryDataSource.builder().setPath(file).build().load(RecordHolder.class);
+        assertEquals(1000, actual.records.size());
+        assertEquals("record999", actual.records.get(999).name);
+        assertEquals(-999 * 16, actual.records.get(999).z);
+    }
+
+    @Test
+    public void testDirtyTrackingSkipsUnchanged() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        DataSource dataSource = BinaryDataSource.builder().setPath(file).setDirtyTracking(true)
+                .setOutputStream(() -> {
+                    writes.incrementAndGet();
+                    return Files.newOutputStream(file);
+                }).build();
+        dataSource.save(expected);
+        dataSource.save(expected);
+        assertEquals(1, writes.get());
+        expected.aInt = 6;
+        dataSource.save(expected);
+        assertEquals(2, writes.get());
+
+        Comprehensive loaded = dataSource.load(Comprehensive.class);
+        dataSource.save(loaded);
+        assertEquals(2, writes.get());
+        ((Parent) loaded.stringObjectMap.get("parent")).aChild.aBoolean = true;
+        dataSource.save(loaded);
+        assertEquals(3, writes.get());
+        assertEquals(loaded, BinaryDataSource.builder().setPath(file).build().load());
+    }
+}
@@ -0,0 +1,58 @@
+package pluginbase.config.datasource.json;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pluginbase.config.TestBase;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.Parent;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class StreamingJsonDataSourceTest extends TestBase {
+
+    File jsonFile = new File("bin/streaming-test.json");
+    Comprehensive expected;
+
+    @Before
+    public void setup() throws Exception {
+        jsonFile.getParentFile().mkdirs();
+
+        expected = new Comprehensive();
+        expected.aInt = 5;
+        ((Parent) expected.stringObjectMap.get("parent")).aChild.aBoolean = false;
+    }
+
+    @After
+    public void tearDown() {
+        jsonFile.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        StreamingJsonDataSource.builder().setFile(jsonFile).build().save(expected);
+        Comprehensive actual = (Comprehensive) StreamingJsonDataSource.builder().setFile(jsonFile).build().load();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testCompactRoundTrip() throws Exception {
+        StreamingJsonDataSource.builder().setFile(jsonFile).setIndent(0).build().save(expected);
+        Comprehensive actual = StreamingJsonDataSource.builder().setFile(jsonFile).build().load(Comprehensive.class);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testReadsJsonDataSourceOutput() throws Exception {
+        JsonDataSource.builder().setFile(jsonFile).build().save(expected);
+        Comprehensive actual = StreamingJsonDataSource.builder().setFile(jsonFile).build().load(Comprehensive.class);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        assertNull(StreamingJsonDataSource.builder().setFile(new File("bin/missing.json")).build().load());
+    }
+}
@@ -0,0 +1,263 @@
+package pluginbase.config.datasource.yaml;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.yaml.snakeyaml.Yaml;
+import pluginbase.config.TestBase;
+import pluginbase.config.annotation.SerializeWith;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.Parent;
+import pluginbase.config.serializers.Serializer;
+import pluginbase.config.serializers.SerializerSet;
+import pluginbase.messages.messaging.SendablePluginBaseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class StreamingYamlDataSourceTest extends TestBase {
+
+    public static class Record {
+        public String name;
+        public int value;
+        @SerializeWith(ProgressSerializer.class)
+        public String padding;
+
+        public Record() { }
+    }
+
+    public static class RecordHolder {
+        public List<Record> records = new ArrayList<>();
+
+        public RecordHolder() { }
+    }
+
+    Path dir;
+    Path file;
+    Comprehensive expected;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("streaming-yaml");
+        file = dir.resolve("test.yml");
+
+        expected = new Comprehensive();
+        expected.aInt = 5;
+        ((Parent) expected.stringObjectMap.get("parent")).aChild.aBoolean = false;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        StreamingYamlDataSource.builder().setPath(file).build().save(expected);
+        Comprehensive actual = (Comprehensive) StreamingYamlDataSource.builder().setPath(file).build().load();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testRoundTripWithComments() throws Exception {
+        StreamingYamlDataSource.builder().setPath(file).setCommentsEnabled(true).build().save(expected);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertTrue(lines.contains("# " + Comprehensive.A_INT_COMMENT_1));
+        assertTrue(lines.contains("# " + Comprehensive.A_INT_COMMENT_2));
+        Comprehensive actual = StreamingYamlDataSource.builder().setPath(file).build().load(Comprehensive.class);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testOutputReadableByYaml() throws Exception {
+        StreamingYamlDataSource.builder().setPath(file).setCommentsEnabled(true).build().save(expected);
+        Object data;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            data = new Yaml().load(reader);
+        }
+        assertTrue(data instanceof Map);
+        assertEquals(5, ((Map) data).get("aInt"));
+    }
+
+    @Test
+    public void testReadsYamlDataSourceOutput() throws Exception {
+        YamlDataSource.builder().setPath(file).build().save(expected);
+        Comprehensive actual = StreamingYamlDataSource.builder().setPath(file).build().load(Comprehensive.class);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testLoadToObject() throws Exception {
+        StreamingYamlDataSource.builder().setPath(file).build().save(expected);
+        Comprehensive actual = new Comprehensive();
+        assertSame(actual, StreamingYamlDataSource.builder().setPath(file).build().loadToObject(actual));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        assertNull(StreamingYamlDataSource.builder().setPath(dir.resolve("missing.yml")).build().load());
+    }
+
+    @Test
+    public void testStreamsIncrementally() throws Exception {
+        int count = 1000;
+        char[] padding = new char[1000];
+        Arrays.fill(padding, 'x');
+        RecordHolder holder = new RecordHolder();
+        for (int i = 0; i < count; i++) {
+            Record record = new Record();
+            record.name = "record" + i;
+            record.value = i;
+            record.padding = new String(padding);
+            holder.records.add(record);
+        }
+
+        CountingWriter counter = new CountingWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+        ProgressSerializer.progress = counter::count;
+        ProgressSerializer.seen.clear();
+        StreamingYamlDataSource.builder().setSink(() -> new BufferedWriter(counter)).build().save(holder);
+        long size = Files.size(file);
+        assertTrue(size > count * 1000L);
+        // Earlier records have already reached the sink by the time the last one is serialized.
+        assertEquals(count, ProgressSerializer.seen.size());
+        assertTrue(ProgressSerializer.seen.get(count - 1) > size / 2);
+
+        CountingReader reader = new CountingReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        ProgressSerializer.progress = reader::count;
+        ProgressSerializer.seen.clear();
+        RecordHolder actual = StreamingYamlDataSource.builder().setSource(() -> new BufferedReader(reader)).build()
+                .load(RecordHolder.class);
+        assertEquals(count, actual.records.size());
+        assertEquals("record" + (count - 1), actual.records.get(count - 1).name);
+        assertEquals(count - 1, actual.records.get(count - 1).value);
+        // The first record is read before most of the file has been.
+        assertEquals(count, ProgressSerializer.seen.size());
+        assertTrue(ProgressSerializer.seen.get(0) < size / 2);
+    }
+
+    @Test
+    public void testFailedSaveKeepsOriginalFile() throws Exception {
+        Files.write(file, Arrays.asList("records: []"), StandardCharsets.UTF_8);
+        RecordHolder holder = new RecordHolder();
+        Record record = new Record();
+        record.padding = "padding";
+        holder.records.add(record);
+        ProgressSerializer.progress = () -> {
+            throw new IllegalStateException("Fails part way");
+        };
+        try {
+            StreamingYamlDataSource.builder().setPath(file).build().save(holder);
+            fail();
+        } catch (SendablePluginBaseException ignore) { }
+        assertEquals(Arrays.asList("records: []"), Files.readAllLines(file, StandardCharsets.UTF_8));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1L, files.count());
+        }
+    }
+
+    /**
+     * Records how much of the sink or source has been used each time a value is serialized or deserialized.
+     */
+    public static class ProgressSerializer implements Serializer<String> {
+        static LongSupplier progress = () -> 0L;
+        static final List<Long> seen = new ArrayList<>();
+
+        @Nullable
+        @Override
+        public Object serialize(@Nullable String object, @NotNull SerializerSet serializerSet) {
+            seen.add(progress.getAsLong());
+            return object;
+        }
+
+        @Nullable
+        @Override
+        public String deserialize(@Nullable Object serialized, @NotNull Class wantedType, @NotNull SerializerSet serializerSet) {
+            seen.add(progress.getAsLong());
+            return serialized != null ? serialized.toString() : null;
+        }
+    }
+
+    static class CountingWriter extends FilterWriter {
+        private long count = 0L;
+
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            super.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            super.write(str, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    static class CountingReader extends FilterReader {
+        private long count = 0L;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c >= 0) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int read = super.read(cbuf, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package pluginbase.config.datasource.yaml;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class YamlCommentWriterTest {
+
+    private static final int INDENT_LENGTH = 2;
+
+    private static String write(YamlCommentMap commentMap, String yaml, int chunkSize) throws Exception {
+        StringWriter out = new StringWriter();
+        YamlCommentWriter writer = new YamlCommentWriter(out, commentMap, INDENT_LENGTH);
+        for (int i = 0; i < yaml.length(); i += chunkSize) {
+            writer.write(yaml, i, Math.min(chunkSize, yaml.length() - i));
+        }
+        writer.finish();
+        return out.toString();
+    }
+
+    @Test
+    public void testLargeConfig() throws Exception {
+        YamlCommentMap commentMap = YamlCommentMap.getYamlCommentMap(INDENT_LENGTH, '.');
+        StringBuilder yaml = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        int lines = 0;
+        for (int section = 0; section < 1000; section++) {
+            String sectionPath = "section" + section;
+            yaml.append(sectionPath).append(":\n");
+            if (section % 3 == 0) {
+                commentMap.setCommentsForPath(sectionPath, "Section " + section);
+                expected.append("# Section ").append(section).append('\n');
+            }
+            expected.append(sectionPath).append(":\n");
+            lines++;
+            for (int entry = 0; entry < 5; entry++) {
+                String line = "  entry" + entry + ": " + (section * entry) + "\n";
+                if (entry == 2) {
+                    commentMap.setCommentsForPath(sectionPath + ".entry" + entry, "Entry " + entry);
+                    expected.append("  # Entry ").append(entry).append('\n');
+                }
+                yaml.append(line);
+                expected.append(line);
+                lines++;
+            }
+            yaml.append("  child:\n    value: true\n  list:\n  - 1\n  - 2\n");
+            commentMap.setCommentsForPath(sectionPath + ".child.value", "Nested");
+            expected.append("  child:\n    # Nested\n    value: true\n  list:\n  - 1\n  - 2\n");
+            lines += 5;
+        }
+        assertTrue(lines >= 10000);
+
+        assertEquals(expected.toString(), write(commentMap, yaml.toString(), 8192));
+        assertEquals(expected.toString(), write(commentMap, yaml.toString(), 7));
+        assertEquals(expected.toString(), new YamlFileCommentInstrumenter(commentMap, INDENT_LENGTH).addCommentsToYamlString(yaml.toString()));
+    }
+
+    @Test
+    public void testCharacterAtATime() throws Exception {
+        YamlCommentMap commentMap = YamlCommentMap.getYamlCommentMap(INDENT_LENGTH, '.');
+        commentMap.setCommentsForPath("a.b", "Comment");
+        StringWriter out = new StringWriter();
+        YamlCommentWriter writer = new YamlCommentWriter(out, commentMap, INDENT_LENGTH);
+        for (char c : "a:\n  b: 1\nc: 2".toCharArray()) {
+            writer.write(c);
+        }
+        assertEquals("a:\n  # Comment\n  b: 1\n", out.toString());
+        writer.finish();
+        assertEquals("a:\n  # Comment\n  b: 1\nc: 2\n", out.toString());
+    }
+
+    @Test
+    public void testBlankLines() throws Exception {
+        YamlCommentMap commentMap = YamlCommentMap.getYamlCommentMap(INDENT_LENGTH, '.');
+        assertEquals("a: 1\n\n\nb: 2\n", write(commentMap, "a: 1\n\n\nb: 2\n\n\n", 1));
+        assertEquals("\n", write(commentMap, "", 1));
+        assertEquals("", write(commentMap, "\n\n", 1));
+    }
+
+    @Test
+    public void testFinishDoesNotClose() throws Exception {
+        StringWriter out = new StringWriter();
+        YamlCommentWriter writer = new YamlCommentWriter(out, YamlCommentMap.getYamlCommentMap(INDENT_LENGTH, '.'), INDENT_LENGTH);
+        writer.write("a: 1");
+        writer.finish();
+        out.write("more");
+        assertEquals("a: 1\nmore", out.toString());
+        try {
+            writer.write("b: 2");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException ignore) { }
+    }
+}
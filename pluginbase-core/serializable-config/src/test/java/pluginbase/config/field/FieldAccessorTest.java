@@ -0,0 +1,88 @@
+package pluginbase.config.field;
+
+import org.junit.Test;
+import pluginbase.config.TestBase;
+import pluginbase.config.examples.Child;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.Simple;
+
+import static org.junit.Assert.*;
+
+public class FieldAccessorTest extends TestBase {
+
+    @Test
+    public void testDefaultAccessorTypes() {
+        FieldMap fieldMap = FieldMapper.getFieldMap(Comprehensive.class);
+        assertEquals(MethodHandleFieldAccessor.class, fieldMap.getField("aInt").getAccessor().getClass());
+        assertEquals(MethodHandleFieldAccessor.class, fieldMap.getField("name").getAccessor().getClass());
+        assertEquals(ReflectiveFieldAccessor.class, fieldMap.getField("virtualEnum").getAccessor().getClass());
+    }
+
+    @Test
+    public void testPrimitiveAccess() {
+        FieldMap fieldMap = FieldMapper.getFieldMap(Comprehensive.class);
+        Comprehensive comprehensive = new Comprehensive();
+
+        FieldAccessor intAccessor = fieldMap.getField("aInt").getAccessor();
+        assertEquals(Comprehensive.A_INT, intAccessor.getInt(comprehensive));
+        intAccessor.setInt(comprehensive, 42);
+        assertEquals(42, comprehensive.aInt);
+        assertEquals(42, intAccessor.get(comprehensive));
+
+        FieldAccessor longAccessor = fieldMap.getField("aLong").getAccessor();
+        assertEquals(Comprehensive.A_LONG, longAccessor.getLong(comprehensive));
+        longAccessor.setLong(comprehensive, 42L);
+        assertEquals(42L, comprehensive.aLong);
+
+        FieldAccessor doubleAccessor = fieldMap.getField("aDouble").getAccessor();
+        assertEquals(Comprehensive.A_DOUBLE, doubleAccessor.getDouble(comprehensive), 0D);
+        doubleAccessor.setDouble(comprehensive, 4.2D);
+        assertEquals(4.2D, comprehensive.aDouble, 0D);
+        doubleAccessor.set(comprehensive, 2.4D);
+        assertEquals(2.4D, comprehensive.aDouble, 0D);
+    }
+
+    @Test
+    public void testMapFieldsCopiesPrimitives() {
+        Comprehensive source = new Comprehensive();
+        source.aInt = 1;
+        source.aLong = 2L;
+        source.aDouble = 3.5D;
+        Comprehensive destination = FieldMapper.mapFields(source, new Comprehensive());
+        assertEquals(1, destination.aInt);
+        assertEquals(2L, destination.aLong);
+        assertEquals(3.5D, destination.aDouble, 0D);
+    }
+
+    @Test
+    public void testPrivateAndFinalFields() throws Exception {
+        FieldMap fieldMap = FieldMapper.getFieldMap(Comprehensive.class);
+        Comprehensive comprehensive = new Comprehensive();
+
+        Field field = fieldMap.getField("simple");
+        Simple simple = new Simple("accessor");
+        field.forceSet(comprehensive, simple);
+        assertSame(simple, comprehensive.simple);
+
+        field = fieldMap.getField("genericList");
+        assertNotNull(field.getValue(comprehensive));
+    }
+
+    @Test
+    public void testWrongTypes() {
+        FieldMap fieldMap = FieldMapper.getFieldMap(Comprehensive.class);
+        FieldAccessor accessor = fieldMap.getField("aInt").getAccessor();
+        try {
+            accessor.get(new Child(true));
+            fail();
+        } catch (IllegalArgumentException ignore) { }
+        try {
+            accessor.set(new Comprehensive(), "not an int");
+            fail();
+        } catch (IllegalArgumentException ignore) { }
+        try {
+            accessor.set(new Comprehensive(), null);
+            fail();
+        } catch (IllegalArgumentException ignore) { }
+    }
+}
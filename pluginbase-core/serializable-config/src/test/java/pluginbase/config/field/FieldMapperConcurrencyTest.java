@@ -0,0 +1,108 @@
+package pluginbase.config.field;
+
+import org.junit.Test;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.TestBase;
+import pluginbase.config.examples.Child;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.NullContainer;
+import pluginbase.config.examples.Parent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FieldMapperConcurrencyTest extends TestBase {
+
+    private static final int THREADS = 32;
+    private static final int ITERATIONS = 200;
+
+    private static final Class[] EVICTED_CLASSES = {Comprehensive.class, Parent.class, Child.class, NullContainer.class};
+
+    @Test
+    public void testConcurrentDeserialization() throws Exception {
+        NullContainer nullContainer = new NullContainer();
+        nullContainer.parent = new Parent(new Child(false));
+        final Object[] expected = {new Comprehensive(), new Parent(new Child(true)), nullContainer, new Child(true)};
+        final Object[] serialized = new Object[expected.length];
+        for (int i = 0; i < expected.length; i++) {
+            serialized[i] = SerializableConfig.serialize(expected[i]);
+            // Make sure everything reachable from the examples is mapped before evicting the classes under test.
+            assertEquals(expected[i], SerializableConfig.deserializeAs(serialized[i], expected[i].getClass()));
+        }
+        List<FieldMap> evicted = new ArrayList<FieldMap>();
+        for (Class clazz : EVICTED_CLASSES) {
+            evicted.add(FieldMapper.getFieldMap(clazz));
+            FieldMapper.evictFieldMap(clazz);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<FieldMap>>> futures = new ArrayList<Future<List<FieldMap>>>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                futures.add(executor.submit(new Callable<List<FieldMap>>() {
+                    @Override
+                    public List<FieldMap> call() throws Exception {
+                        start.await();
+                        List<FieldMap> fieldMaps = new ArrayList<FieldMap>();
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            int index = (offset + i) % expected.length;
+                            Object actual = SerializableConfig.deserializeAs(serialized[index], expected[index].getClass());
+                            assertEquals(expected[index], actual);
+                        }
+                        for (Class clazz : EVICTED_CLASSES) {
+                            fieldMaps.add(FieldMapper.getFieldMap(clazz));
+                        }
+                        return fieldMaps;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<FieldMap> first = null;
+            for (Future<List<FieldMap>> future : futures) {
+                List<FieldMap> fieldMaps = future.get(1, TimeUnit.MINUTES);
+                if (first == null) {
+                    first = fieldMaps;
+                }
+                for (int i = 0; i < fieldMaps.size(); i++) {
+                    assertSame(first.get(i), fieldMaps.get(i));
+                }
+            }
+            for (int i = 0; i < EVICTED_CLASSES.length; i++) {
+                assertNotSame(evicted.get(i), first.get(i));
+                assertSame(first.get(i), FieldMapper.getFieldMap(EVICTED_CLASSES[i]));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEvictFieldMap() {
+        FieldMap fieldMap = FieldMapper.getFieldMap(Parent.class);
+        assertSame(fieldMap, FieldMapper.getFieldMap(Parent.class));
+        FieldMapper.evictFieldMap(Parent.class);
+        FieldMap rebuilt = FieldMapper.getFieldMap(Parent.class);
+        assertNotSame(fieldMap, rebuilt);
+        assertNotNull(rebuilt.getField("aChild"));
+    }
+
+    @Test
+    public void testEvictFieldMapsByClassLoader() {
+        FieldMap parentMap = FieldMapper.getFieldMap(Parent.class);
+        FieldMap childMap = FieldMapper.getFieldMap(Child.class);
+        FieldMapper.evictFieldMaps(Parent.class.getClassLoader());
+        assertNotSame(parentMap, FieldMapper.getFieldMap(Parent.class));
+        assertNotSame(childMap, FieldMapper.getFieldMap(Child.class));
+    }
+}
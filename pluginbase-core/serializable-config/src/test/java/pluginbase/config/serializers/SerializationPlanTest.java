@@ -0,0 +1,112 @@
+package pluginbase.config.serializers;
+
+import org.junit.Test;
+import pluginbase.config.SerializableConfig;
+import pluginbase.config.TestBase;
+import pluginbase.config.examples.Child;
+import pluginbase.config.examples.Comprehensive;
+import pluginbase.config.examples.Parent;
+import pluginbase.config.field.Field;
+import pluginbase.config.field.FieldMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SerializationPlanTest extends TestBase {
+
+    @Test
+    public void testPlanIsCached() {
+        SerializerSet serializerSet = SerializerSet.defaultSet();
+        SerializationPlan plan = serializerSet.getSerializationPlan(Comprehensive.class);
+        assertSame(plan, serializerSet.getSerializationPlan(Comprehensive.class));
+        assertNotSame(plan, SerializerSet.builder().build().getSerializationPlan(Comprehensive.class));
+    }
+
+    @Test
+    public void testPlanRecompiledAfterEviction() {
+        SerializerSet serializerSet = SerializerSet.defaultSet();
+        SerializationPlan plan = serializerSet.getSerializationPlan(Parent.class);
+        FieldMapper.evictFieldMap(Parent.class);
+        SerializationPlan recompiled = serializerSet.getSerializationPlan(Parent.class);
+        assertNotSame(plan, recompiled);
+        assertSame(recompiled, serializerSet.getSerializationPlan(Parent.class));
+    }
+
+    @Test
+    public void testSlotsFollowFieldOrder() {
+        SerializationPlan plan = SerializerSet.defaultSet().getSerializationPlan(Comprehensive.class);
+        List<String> expected = new ArrayList<>();
+        for (Field field : FieldMapper.getFieldMap(Comprehensive.class)) {
+            if (field.isPersistable()) {
+                expected.add(field.getName());
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        for (SerializationPlan.Slot slot : plan.getSlots()) {
+            actual.add(slot.getName());
+        }
+        assertEquals(expected, actual);
+        assertEquals("ComprehensiveTestClass", plan.getTypeKey());
+    }
+
+    @Test
+    public void testSlotContents() {
+        SerializerSet serializerSet = SerializerSet.defaultSet();
+        SerializationPlan plan = serializerSet.getSerializationPlan(Comprehensive.class);
+
+        SerializationPlan.Slot slot = plan.getSlot("aInt");
+        assertNotNull(slot);
+        assertSame(slot, plan.getSlot("AINT"));
+        assertEquals(Arrays.asList(Comprehensive.A_INT_COMMENTS), slot.getComments());
+        assertEquals(int.class, slot.getGenericType());
+        assertSame(serializerSet.getClassSerializer(Integer.class).getClass(), slot.getSerializer(serializerSet).getClass());
+        try {
+            slot.getComments().add("nope");
+            fail();
+        } catch (UnsupportedOperationException ignore) { }
+
+        slot = plan.getSlot("name");
+        assertNotNull(slot);
+        assertTrue(slot.getValidator() instanceof Comprehensive.NameValidator);
+        assertTrue(slot.getComments().isEmpty());
+
+        assertNull(plan.getSlot("notAField"));
+    }
+
+    @Test
+    public void testSlotSuppliersAreStillInvoked() {
+        SerializerSet serializerSet = SerializerSet.builder()
+                .addSerializer(String.class, StringSerializer::new)
+                .build();
+        SerializationPlan.Slot slot = serializerSet.getSerializationPlan(Comprehensive.class).getSlot("name");
+        assertNotNull(slot);
+        Serializer first = slot.getSerializer(serializerSet);
+        assertEquals(StringSerializer.class, first.getClass());
+        assertNotSame(first, slot.getSerializer(serializerSet));
+    }
+
+    @Test
+    public void testSerializeMatchesSerializableConfig() {
+        Parent parent = new Parent(new Child(true));
+        SerializerSet serializerSet = SerializerSet.defaultSet();
+        Map<String, Object> serialized = serializerSet.getSerializationPlan(Parent.class).serialize(parent, serializerSet);
+        assertEquals(SerializableConfig.serialize(parent), serialized);
+        assertEquals(parent, SerializableConfig.deserializeAs(serialized, Parent.class));
+    }
+
+    @Test
+    public void testDeserializeToObjectUsesValidator() {
+        Comprehensive comprehensive = new Comprehensive();
+        SerializerSet serializerSet = SerializerSet.defaultSet();
+        Map<String, Object> serialized = serializerSet.getSerializationPlan(Comprehensive.class).serialize(comprehensive, serializerSet);
+        serialized.put("name", "abc");
+        Comprehensive target = new Comprehensive();
+        serializerSet.getSerializationPlan(Comprehensive.class).deserializeToObject(serialized, target, serializerSet);
+        assertEquals(Comprehensive.NAME, target.name);
+        assertEquals(comprehensive, target);
+    }
+}
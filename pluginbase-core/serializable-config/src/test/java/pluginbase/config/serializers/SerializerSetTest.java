@@ -0,0 +1,76 @@
+package pluginbase.config.serializers;
+
+import org.junit.Test;
+import pluginbase.config.TestBase;
+import pluginbase.config.examples.Anum;
+import pluginbase.config.examples.Custom;
+import pluginbase.config.examples.FakeEnum;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+import static org.junit.Assert.*;
+
+public class SerializerSetTest extends TestBase {
+
+    @Test
+    public void testRepeatedLookupsAreConsistent() {
+        SerializerSet serializerSet = SerializerSet.defaultSet();
+        Class[] classes = {ArrayList.class, LinkedList.class, HashMap.class, Anum.class, FakeEnum.class,
+                int[].class, String[].class, Integer.class, int.class, Custom.class, Object.class};
+        for (Class clazz : classes) {
+            Serializer first = serializerSet.getClassSerializer(clazz);
+            for (int i = 0; i < 100; i++) {
+                assertSame(first, serializerSet.getClassSerializer(clazz));
+            }
+        }
+    }
+
+    @Test
+    public void testResolvedSerializerTypes() {
+        SerializerSet serializerSet = SerializerSet.defaultSet();
+        assertEquals(CollectionSerializer.class, serializerSet.getClassSerializer(LinkedList.class).getClass());
+        assertEquals(MapSerializer.class, serializerSet.getClassSerializer(HashMap.class).getClass());
+        assertEquals(EnumSerializer.class, serializerSet.getClassSerializer(Anum.class).getClass());
+        assertEquals(FauxEnumSerializer.class, serializerSet.getClassSerializer(FakeEnum.class).getClass());
+        assertEquals(ArraySerializer.class, serializerSet.getClassSerializer(int[].class).getClass());
+        assertEquals(CustomSerializer.class, serializerSet.getClassSerializer(Custom.class).getClass());
+        assertSame(serializerSet.getClassSerializer(Integer.class), serializerSet.getClassSerializer(int.class));
+        assertSame(serializerSet.getFallbackSerializer(), serializerSet.getClassSerializer(Object.class));
+    }
+
+    @Test
+    public void testBuiltSetDoesNotShareLookups() {
+        // Warm up the default set before building a new one.
+        assertEquals(CollectionSerializer.class, SerializerSet.defaultSet().getClassSerializer(ArrayList.class).getClass());
+
+        final CustomSerializer2 listSerializer = new CustomSerializer2();
+        SerializerSet serializerSet = SerializerSet.builder()
+                .addOverrideSerializer(ArrayList.class, () -> (Serializer) listSerializer)
+                .build();
+
+        assertSame(listSerializer, serializerSet.getClassSerializer(ArrayList.class));
+        assertEquals(CollectionSerializer.class, SerializerSet.defaultSet().getClassSerializer(ArrayList.class).getClass());
+    }
+
+    @Test
+    public void testSuppliersAreStillInvoked() {
+        SerializerSet serializerSet = SerializerSet.builder()
+                .addSerializer(String.class, StringSerializer::new)
+                .build();
+        Serializer first = serializerSet.getClassSerializer(String.class);
+        Serializer second = serializerSet.getClassSerializer(String.class);
+        assertEquals(StringSerializer.class, first.getClass());
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testUnregisteredReplacementFallsBack() {
+        SerializerSet serializerSet = SerializerSet.builder()
+                .unregisterClassReplacement(Enum.class)
+                .build();
+        assertSame(serializerSet.getFallbackSerializer(), serializerSet.getClassSerializer(Anum.class));
+        assertEquals(EnumSerializer.class, SerializerSet.defaultSet().getClassSerializer(Anum.class).getClass());
+    }
+}